@@ -0,0 +1,36 @@
+package com.techbookstore.app.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar - runs JMH with the GC profiler always attached so every
+ * result reports allocation rate (gc.alloc.rate.norm = bytes per operation).
+ * Accepts the usual JMH command line, e.g. {@code -p catalogSize=10000 -rf json DemandForecast}.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats() || commandLine.shouldListWithParams()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        boolean gcRequested = commandLine.getProfilers().stream()
+            .anyMatch(profiler -> "gc".equals(profiler.getKlass()) || GCProfiler.class.getName().equals(profiler.getKlass()));
+        if (!gcRequested) {
+            builder.addProfiler(GCProfiler.class);
+        }
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
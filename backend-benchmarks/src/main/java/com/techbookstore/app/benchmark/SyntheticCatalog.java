@@ -0,0 +1,159 @@
+package com.techbookstore.app.benchmark;
+
+import com.techbookstore.app.dto.OptimalStockDto;
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.entity.Order;
+import com.techbookstore.app.entity.OrderItem;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic catalog with order history for the benchmarks
+ * ベンチマーク用の合成カタログ（書籍・月次需要・注文履歴・発注候補）
+ *
+ * Demand follows a long-tail popularity curve: a few books sell every month,
+ * most books sell occasionally, and a share of the catalog has no sales at all.
+ */
+public final class SyntheticCatalog {
+
+    /** Months of history per book, matching the 13 monthly buckets used by ABC/XYZ analysis */
+    public static final int HISTORY_MONTHS = 13;
+
+    private static final String[] STOCK_STATUSES = {"REORDER_NEEDED", "UNDERSTOCK", "OPTIMAL", "OVERSTOCK"};
+
+    private final LocalDate referenceDate;
+    private final List<Book> books;
+    private final int[][] monthlyDemand;
+    private final List<Order> orders;
+    private final List<OptimalStockDto> candidates;
+
+    private SyntheticCatalog(LocalDate referenceDate, List<Book> books, int[][] monthlyDemand,
+                             List<Order> orders, List<OptimalStockDto> candidates) {
+        this.referenceDate = referenceDate;
+        this.books = books;
+        this.monthlyDemand = monthlyDemand;
+        this.orders = orders;
+        this.candidates = candidates;
+    }
+
+    /**
+     * Generate a catalog of {@code size} books. The same size and seed always produce the same data.
+     */
+    public static SyntheticCatalog generate(int size, long seed) {
+        Random random = new Random(seed);
+        LocalDate referenceDate = LocalDate.now();
+
+        List<Book> books = new ArrayList<>(size);
+        int[][] monthlyDemand = new int[size][HISTORY_MONTHS];
+        List<OptimalStockDto> candidates = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            long bookId = i + 1L;
+            Book book = new Book(String.format("978%010d", bookId), "Synthetic Book " + bookId);
+            book.setId(bookId);
+            book.setSellingPrice(BigDecimal.valueOf(1500 + random.nextInt(45) * 100));
+            book.setListPrice(book.getSellingPrice());
+            book.setPublicationDate(referenceDate.minusDays(random.nextInt(365 * 8)));
+            books.add(book);
+
+            // Long-tail popularity: rank-based mean demand with per-month noise
+            double meanDemand = 200.0 / Math.pow(i + 1, 0.6);
+            boolean dormant = random.nextDouble() < 0.2;
+            for (int m = 0; m < HISTORY_MONTHS && !dormant; m++) {
+                double sample = meanDemand * (0.3 + random.nextDouble() * 1.4);
+                monthlyDemand[i][m] = random.nextDouble() < 0.15 ? 0 : (int) Math.round(sample);
+            }
+
+            candidates.add(candidate(book, random));
+        }
+
+        List<Order> orders = generateOrders(books, monthlyDemand, referenceDate, random);
+        return new SyntheticCatalog(referenceDate, Collections.unmodifiableList(books), monthlyDemand,
+            Collections.unmodifiableList(orders), Collections.unmodifiableList(candidates));
+    }
+
+    private static OptimalStockDto candidate(Book book, Random random) {
+        int quantity = 1 + random.nextInt(30);
+        BigDecimal unitCost = book.getSellingPrice().multiply(BigDecimal.valueOf(0.6 + random.nextDouble() * 0.2));
+
+        OptimalStockDto dto = new OptimalStockDto(book.getId(), book.getTitle(), random.nextInt(50),
+            20 + random.nextInt(80), 5 + random.nextInt(20), 2 + random.nextInt(10));
+        dto.setStockStatus(STOCK_STATUSES[random.nextInt(STOCK_STATUSES.length)]);
+        dto.setRecommendedOrderQuantity(quantity);
+        dto.setEstimatedCost(unitCost.multiply(BigDecimal.valueOf(quantity)));
+        dto.setEstimatedRevenue(book.getSellingPrice().multiply(BigDecimal.valueOf(quantity)));
+        dto.setObsolescenceFactor(BigDecimal.valueOf(0.7 + random.nextInt(31) / 100.0));
+        dto.setSeasonalityFactor(BigDecimal.valueOf(0.8 + random.nextInt(61) / 100.0));
+        return dto;
+    }
+
+    /**
+     * Turn the last 12 months of demand into orders of 1-5 lines, two lines per book on average
+     */
+    private static List<Order> generateOrders(List<Book> books, int[][] monthlyDemand,
+                                              LocalDate referenceDate, Random random) {
+        int targetLines = books.size() * 2;
+        List<Order> orders = new ArrayList<>(targetLines / 3);
+        long orderId = 1;
+        int lines = 0;
+
+        while (lines < targetLines) {
+            Order order = new Order(Order.OrderType.ONLINE, Order.PaymentMethod.CREDIT_CARD);
+            order.setId(orderId++);
+            int monthsAgo = random.nextInt(12);
+            order.setOrderDate(referenceDate.minusMonths(monthsAgo).atStartOfDay()
+                .plusMinutes(random.nextInt(60 * 24 * 27)));
+
+            int lineCount = 1 + random.nextInt(5);
+            for (int l = 0; l < lineCount; l++) {
+                int index = skewedIndex(books.size(), random);
+                Book book = books.get(index);
+                int quantity = Math.max(1, monthlyDemand[index][HISTORY_MONTHS - 1 - monthsAgo] / 10);
+                order.getOrderItems().add(new OrderItem(order, book, quantity, book.getSellingPrice()));
+            }
+            orders.add(order);
+            lines += lineCount;
+        }
+        return orders;
+    }
+
+    /**
+     * Pick a book index biased towards popular (low-index) books
+     */
+    private static int skewedIndex(int size, Random random) {
+        double u = random.nextDouble();
+        return Math.min(size - 1, (int) (size * u * u));
+    }
+
+    public LocalDate getReferenceDate() { return referenceDate; }
+
+    public List<Book> getBooks() { return books; }
+
+    /**
+     * Monthly demand per book, indexed like {@link #getBooks()}; the last element is the most recent month
+     */
+    public int[][] getMonthlyDemand() { return monthlyDemand; }
+
+    public List<Order> getOrders() { return orders; }
+
+    /**
+     * Orders placed within the given range, as returned by OrderRepository.findByOrderDateBetween
+     */
+    public List<Order> getOrdersBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        List<Order> result = new ArrayList<>();
+        for (Order order : orders) {
+            if (!order.getOrderDate().isBefore(startDate) && !order.getOrderDate().isAfter(endDate)) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+
+    public List<OptimalStockDto> getCandidates() { return candidates; }
+}
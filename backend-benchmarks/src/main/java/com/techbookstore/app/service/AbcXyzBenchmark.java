@@ -0,0 +1,50 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.benchmark.SyntheticCatalog;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ABC/XYZ analysis - coefficient of variation over every book's monthly demand in one columnar pass
+ * ABC/XYZ分析の変動係数計算（カタログ全体・列指向）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AbcXyzBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    private SalesSeriesService.SalesSeries series;
+    private double[] variabilities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(catalogSize, 42L);
+        int[][] demand = catalog.getMonthlyDemand();
+        int months = SyntheticCatalog.HISTORY_MONTHS;
+
+        // Same row-major layout SalesSeriesService.monthly builds from the daily aggregates
+        long[] bookIds = new long[demand.length];
+        int[] quantities = new int[demand.length * months];
+        for (int row = 0; row < demand.length; row++) {
+            bookIds[row] = row + 1L;
+            System.arraycopy(demand[row], 0, quantities, row * months, months);
+        }
+        series = new SalesSeriesService.SalesSeries(SalesSeriesService.Granularity.MONTH,
+            catalog.getReferenceDate().withDayOfMonth(1).minusMonths(months - 1L), months, bookIds,
+            quantities, new long[quantities.length]);
+        variabilities = new double[bookIds.length];
+    }
+
+    @Benchmark
+    public double[] coefficientOfVariation() {
+        SeriesKernels.coefficientsOfVariation(series.quantities(), series.rows(), series.buckets(), variabilities);
+        return variabilities;
+    }
+}
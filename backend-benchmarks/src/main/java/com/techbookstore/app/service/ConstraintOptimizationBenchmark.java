@@ -0,0 +1,54 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.benchmark.SyntheticCatalog;
+import com.techbookstore.app.dto.OptimalStockDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Constraint optimization - book selection over the whole candidate list
+ * 制約最適化による書籍選択（全候補）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConstraintOptimizationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    @Param({"PROFIT", "CASH_FLOW", "RISK_MINIMIZATION"})
+    private String priorityFocus;
+
+    private ConstraintOptimizationService service;
+    private List<OptimalStockDto> candidates;
+    private ConstraintOptimizationService.OptimizationConstraints constraints;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(catalogSize, 42L);
+        service = new ConstraintOptimizationService();
+        candidates = catalog.getCandidates();
+
+        // Scale the limits with the catalog so roughly a third of the candidates fit. Selections that large
+        // leave too many near-tied candidates to prove optimality, so the solver runs with a short time budget
+        constraints = new ConstraintOptimizationService.OptimizationConstraints();
+        constraints.setMaxBudget(BigDecimal.valueOf(catalogSize * 15000L));
+        constraints.setMaxItems(catalogSize * 5);
+        constraints.setMaxWeight(catalogSize * 5);
+        constraints.setPriorityFocus(priorityFocus);
+        constraints.setSolverMode(ConstraintOptimizationService.SolverMode.ANYTIME.name());
+        constraints.setTimeBudgetMillis(100L);
+    }
+
+    @Benchmark
+    public ConstraintOptimizationService.OptimizationResult optimizeBookSelection() {
+        return service.optimizeBookSelection(candidates, constraints);
+    }
+}
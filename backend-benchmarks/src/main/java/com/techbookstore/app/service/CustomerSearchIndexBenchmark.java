@@ -0,0 +1,83 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.repository.CustomerRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Customer lookup - prefix queries on names, kana, e-mail and phone against the in-memory index
+ * 顧客前方一致検索（氏名・フリガナ・メール・電話番号）
+ *
+ * Sample time mode reports the latency distribution; p0.99 is the figure to compare with the 5ms target.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CustomerSearchIndexBenchmark {
+
+    private static final String[][] FAMILY_NAMES = {
+        {"佐藤", "サトウ"}, {"鈴木", "スズキ"}, {"高橋", "タカハシ"}, {"田中", "タナカ"}, {"伊藤", "イトウ"},
+        {"渡辺", "ワタナベ"}, {"山本", "ヤマモト"}, {"中村", "ナカムラ"}, {"小林", "コバヤシ"}, {"加藤", "カトウ"}
+    };
+    private static final String[][] GIVEN_NAMES = {
+        {"太郎", "タロウ"}, {"花子", "ハナコ"}, {"一郎", "イチロウ"}, {"美咲", "ミサキ"}, {"健太", "ケンタ"},
+        {"陽子", "ヨウコ"}, {"翔", "ショウ"}, {"さくら", "サクラ"}, {"大輔", "ダイスケ"}, {"愛", "アイ"}
+    };
+
+    @Param({"100000", "1000000"})
+    private int customerCount;
+
+    private CustomerSearchIndex index;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42L);
+        List<Object[]> rows = new ArrayList<>(customerCount);
+        for (int i = 0; i < customerCount; i++) {
+            String[] family = FAMILY_NAMES[random.nextInt(FAMILY_NAMES.length)];
+            String[] given = GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)];
+            String phone = String.format("0%d-%04d-%04d", 3 + random.nextInt(7), random.nextInt(10000), random.nextInt(10000));
+            rows.add(new Object[] {(long) i + 1, family[0] + " " + given[0], family[1] + " " + given[1],
+                "user" + i + "@example" + (i % 100) + ".com", phone, i % 10 == 0 ? "株式会社" + i : null});
+        }
+        CustomerRepository repository = (CustomerRepository) Proxy.newProxyInstance(
+            CustomerRepository.class.getClassLoader(), new Class<?>[] {CustomerRepository.class},
+            (proxy, method, args) -> {
+                if ("findSearchFields".equals(method.getName())) {
+                    return rows;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+        index = new CustomerSearchIndex(repository);
+        index.rebuild();
+
+        // Typical counter input: kana fragments, full names, e-mail and phone prefixes
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            String[] family = FAMILY_NAMES[random.nextInt(FAMILY_NAMES.length)];
+            String[] given = GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)];
+            switch (i % 4) {
+                case 0: queries[i] = family[1].substring(0, 2); break;
+                case 1: queries[i] = family[0] + " " + given[0]; break;
+                case 2: queries[i] = "user" + random.nextInt(customerCount); break;
+                default: queries[i] = String.format("0%d-%04d", 3 + random.nextInt(7), random.nextInt(10000)); break;
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Long> lookup() {
+        String query = queries[next++ & (queries.length - 1)];
+        return index.lookup(query, 20);
+    }
+}
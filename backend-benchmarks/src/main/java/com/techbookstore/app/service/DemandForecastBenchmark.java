@@ -0,0 +1,59 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.benchmark.SyntheticCatalog;
+import com.techbookstore.app.entity.Book;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Demand forecasting - all five algorithms for every book in the catalog
+ * 需要予測（全書籍 × 5アルゴリズム）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DemandForecastBenchmark {
+
+    private static final int PERIOD_MONTHS = 3;
+
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    private DemandForecastService service;
+    private DemandHistoryService.DemandHistory history;
+    private List<Book> books;
+    private LocalDate forecastDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(catalogSize, 42L);
+        books = catalog.getBooks();
+        forecastDate = catalog.getReferenceDate();
+        service = new DemandForecastService(null, null, null, null, null, null, null);
+
+        Map<Long, int[]> vectors = new HashMap<>();
+        int[][] monthlyDemand = catalog.getMonthlyDemand();
+        for (int i = 0; i < books.size(); i++) {
+            vectors.put(books.get(i).getId(), monthlyDemand[i]);
+        }
+        YearMonth startMonth = YearMonth.from(forecastDate).minusMonths(SyntheticCatalog.HISTORY_MONTHS - 1L);
+        history = new DemandHistoryService.DemandHistory(startMonth, SyntheticCatalog.HISTORY_MONTHS, vectors);
+    }
+
+    @Benchmark
+    public void buildForecasts(Blackhole blackhole) {
+        for (Book book : books) {
+            blackhole.consume(service.buildForecasts(book, history, forecastDate, PERIOD_MONTHS));
+        }
+    }
+}
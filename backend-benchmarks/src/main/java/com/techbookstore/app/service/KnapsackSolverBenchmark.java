@@ -0,0 +1,55 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.benchmark.SyntheticCatalog;
+import com.techbookstore.app.dto.OptimalStockDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Constraint optimization - exact book selection for order-sized budgets
+ * 注文規模の予算での厳密な書籍選択（ナップサックソルバー）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KnapsackSolverBenchmark {
+
+    @Param({"1000", "5000", "20000"})
+    private int candidateCount;
+
+    /** Order budget in yen; the item and weight limits follow at one book per 500 yen */
+    @Param({"50000", "200000"})
+    private long orderBudget;
+
+    @Param({"PROFIT", "CASH_FLOW", "RISK_MINIMIZATION"})
+    private String priorityFocus;
+
+    private ConstraintOptimizationService service;
+    private List<OptimalStockDto> candidates;
+    private ConstraintOptimizationService.OptimizationConstraints constraints;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(candidateCount, 42L);
+        service = new ConstraintOptimizationService();
+        candidates = catalog.getCandidates();
+
+        constraints = new ConstraintOptimizationService.OptimizationConstraints();
+        constraints.setMaxBudget(BigDecimal.valueOf(orderBudget));
+        constraints.setMaxItems((int) (orderBudget / 500));
+        constraints.setMaxWeight((int) (orderBudget / 500));
+        constraints.setPriorityFocus(priorityFocus);
+        constraints.setSolverMode(ConstraintOptimizationService.SolverMode.EXACT.name());
+    }
+
+    @Benchmark
+    public ConstraintOptimizationService.OptimizationResult solveExact() {
+        return service.optimizeBookSelection(candidates, constraints);
+    }
+}
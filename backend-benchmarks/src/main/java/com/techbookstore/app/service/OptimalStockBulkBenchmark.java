@@ -0,0 +1,88 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.benchmark.SyntheticCatalog;
+import com.techbookstore.app.dto.OptimalStockDto;
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.repository.BookRepository;
+import com.techbookstore.app.repository.InventoryRepository;
+import com.techbookstore.app.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optimal stock - bulk calculation for the whole catalog (weekly replenishment run)
+ * 最適在庫の一括計算（カタログ全体）
+ *
+ * The repositories are in-memory stubs returning the grouped rows the real queries would return,
+ * so the measurement covers the service's own work rather than the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptimalStockBulkBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    private OptimalStockCalculatorService service;
+    private List<Long> bookIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(catalogSize, 42L);
+        List<Object[]> catalogRows = new ArrayList<>();
+        List<Object[]> stockRows = new ArrayList<>();
+        List<Object[]> demandRows = new ArrayList<>();
+        bookIds = new ArrayList<>();
+        for (int i = 0; i < catalog.getBooks().size(); i++) {
+            Book book = catalog.getBooks().get(i);
+            bookIds.add(book.getId());
+            catalogRows.add(new Object[] {book.getId(), book.getTitle(), book.getSellingPrice(),
+                book.getPublicationDate(), book.getLevel(), null});
+            stockRows.add(new Object[] {book.getId(), i % 40});
+            int[] months = catalog.getMonthlyDemand()[i];
+            for (int month = 1; month < months.length; month++) {
+                if (months[month] > 0) {
+                    demandRows.add(new Object[] {book.getId(), 2024, month, (long) months[month]});
+                }
+            }
+        }
+
+        BookRepository bookRepository = stub(BookRepository.class, "findCatalogFields", catalogRows);
+        service = new OptimalStockCalculatorService(null, bookRepository, new CatalogSnapshotService(bookRepository),
+            stub(InventoryRepository.class, "findTotalStockByBook", stockRows),
+            stub(OrderRepository.class, "aggregateMonthlyDemand", demandRows), null, null, null);
+    }
+
+    @Benchmark
+    public List<OptimalStockDto> calculateOptimalStockBulk() {
+        return service.calculateOptimalStockBulk(bookIds);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, String query, List<Object[]> rows) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+            (proxy, method, args) -> {
+                if (method.getName().equals(query)) {
+                    return rows;
+                }
+                switch (method.getName()) {
+                    case "toString":
+                        return type.getSimpleName() + "Stub";
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+}
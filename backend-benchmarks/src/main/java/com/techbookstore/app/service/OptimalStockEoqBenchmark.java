@@ -0,0 +1,69 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.benchmark.SyntheticCatalog;
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.entity.Order;
+import com.techbookstore.app.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optimal stock - tech-specific EOQ for one book against the catalog's 12-month order history
+ * 技術書特化EOQ計算（1冊あたり、カタログ規模の注文履歴に対して）
+ *
+ * The order repository is replaced by an in-memory stub returning the synthetic history,
+ * so the measurement covers the service's own work rather than the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptimalStockEoqBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    private OptimalStockCalculatorService service;
+    private List<Book> books;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(catalogSize, 42L);
+        books = catalog.getBooks();
+        service = new OptimalStockCalculatorService(null, null, null, null,
+            orderRepositoryStub(catalog.getOrders()), null, null, null);
+    }
+
+    @Benchmark
+    public OptimalStockCalculatorService.EOQCalculationResult calculateTechSpecificEOQ() {
+        Book book = books.get(next);
+        next = (next + 1) % books.size();
+        return service.calculateTechSpecificEOQ(book);
+    }
+
+    private static OrderRepository orderRepositoryStub(List<Order> orders) {
+        return (OrderRepository) Proxy.newProxyInstance(
+            OrderRepository.class.getClassLoader(),
+            new Class<?>[]{OrderRepository.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "findByOrderDateBetween":
+                        return orders;
+                    case "toString":
+                        return "OrderRepositoryStub";
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+    }
+}
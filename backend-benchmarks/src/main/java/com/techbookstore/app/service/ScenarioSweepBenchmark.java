@@ -0,0 +1,54 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.benchmark.SyntheticCatalog;
+import com.techbookstore.app.dto.OptimalStockDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Constraint optimization - budget x priority focus scenario sweep (24 budgets x 3 focuses)
+ * 予算×重視項目のシナリオスイープ
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScenarioSweepBenchmark {
+
+    @Param({"1000", "5000", "20000"})
+    private int candidateCount;
+
+    private ConstraintOptimizationService service;
+    private List<OptimalStockDto> candidates;
+    private ConstraintOptimizationService.OptimizationConstraints constraints;
+    private List<BigDecimal> budgets;
+    private List<String> priorityFocuses;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCatalog catalog = SyntheticCatalog.generate(candidateCount, 42L);
+        service = new ConstraintOptimizationService();
+        candidates = catalog.getCandidates();
+
+        constraints = new ConstraintOptimizationService.OptimizationConstraints();
+        constraints.setMaxItems(400);
+        constraints.setMaxWeight(400);
+        budgets = new ArrayList<>();
+        for (int step = 1; step <= 24; step++) {
+            budgets.add(BigDecimal.valueOf(step * 10000L));
+        }
+        priorityFocuses = Arrays.asList("PROFIT", "CASH_FLOW", "RISK_MINIMIZATION");
+    }
+
+    @Benchmark
+    public ConstraintOptimizationService.ScenarioSweepResult sweepScenarios() {
+        return service.sweepScenarios(candidates, constraints, budgets, priorityFocuses);
+    }
+}
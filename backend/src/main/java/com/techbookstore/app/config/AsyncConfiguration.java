@@ -5,8 +5,6 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
-
 /**
  * Async configuration for Phase 4 integrated analysis
  * Provides thread pool configuration for asynchronous processing
@@ -18,9 +16,10 @@ public class AsyncConfiguration {
     /**
      * Executor for integrated analysis tasks
      * Configured for optimal performance with Phase 4 requirements
+     * Also runs analysis jobs; a full queue rejects new jobs (HTTP 429)
      */
     @Bean(name = "integratedAnalysisExecutor")
-    public Executor integratedAnalysisExecutor() {
+    public ThreadPoolTaskExecutor integratedAnalysisExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(4);
         executor.setMaxPoolSize(8);
@@ -33,12 +32,31 @@ public class AsyncConfiguration {
         return executor;
     }
     
+    /**
+     * Bulkhead for the stages of an async integrated analysis (base report, advanced analysis)
+     * Kept apart from integratedAnalysisExecutor, whose threads wait on these stages,
+     * and from the common ForkJoinPool, which the blocking JPA calls would starve
+     */
+    @Bean(name = "analysisStageExecutor")
+    public ThreadPoolTaskExecutor analysisStageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(32);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("AnalysisStage-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+    
     /**
      * Executor for dashboard data processing
      * Fast executor for real-time dashboard updates
      */
     @Bean(name = "dashboardExecutor")
-    public Executor dashboardExecutor() {
+    public ThreadPoolTaskExecutor dashboardExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(4);
@@ -51,12 +69,31 @@ public class AsyncConfiguration {
         return executor;
     }
     
+    /**
+     * Executor that writes streamed report exports to the client (the export endpoint's WebAsyncTask)
+     * Kept apart so that slow downloads cannot hold up analysis or request threads
+     */
+    @Bean(name = "reportExportExecutor")
+    public ThreadPoolTaskExecutor reportExportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(20);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("ReportExport-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+    
     /**
      * Executor for batch processing
      * Heavy-duty executor for batch optimization tasks
+     * Also runs the forecasting stage of async integrated analyses
      */
     @Bean(name = "batchProcessingExecutor")
-    public Executor batchProcessingExecutor() {
+    public ThreadPoolTaskExecutor batchProcessingExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(6);
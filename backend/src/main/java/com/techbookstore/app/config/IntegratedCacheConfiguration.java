@@ -1,20 +1,24 @@
 package com.techbookstore.app.config;
 
-import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
@@ -22,17 +26,25 @@ import java.util.Map;
 /**
  * Cache configuration for Phase 4 integrated analysis
  * Provides different TTL configurations for different analysis types
- * Uses Redis when available, falls back to simple caching for tests
+ * Uses a Caffeine L1 in front of Redis (L2) with pub/sub invalidation; tests use the bounded L1 alone
+ * Both managers are wrapped in {@link MeteredCacheManager} for per-cache hit/miss metrics
  */
 @Configuration
 @EnableCaching
 public class IntegratedCacheConfiguration {
     
+    @Value("${app.cache.l1.maximum-size:1000}")
+    private long l1MaximumSize = 1000;
+    
+    @Value("${app.cache.invalidation-channel:techbookstore:cache-invalidation}")
+    private String invalidationChannel = "techbookstore:cache-invalidation";
+    
     @Bean
     @Primary
-    @ConditionalOnBean(RedisConnectionFactory.class)
     @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis", matchIfMissing = true)
-    public CacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+                                          RedisMessageListenerContainer cacheInvalidationListenerContainer,
+                                          MeterRegistry meterRegistry) {
         RedisCacheManager.RedisCacheManagerBuilder builder = RedisCacheManager
             .builder(connectionFactory)
             .cacheDefaults(cacheConfiguration());
@@ -74,23 +86,51 @@ public class IntegratedCacheConfiguration {
             RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(1)));
         
-        return builder.withInitialCacheConfigurations(cacheConfigurations).build();
+        RedisCacheManager l2 = builder.withInitialCacheConfigurations(cacheConfigurations).build();
+        
+        StringRedisTemplate publisher = new StringRedisTemplate(connectionFactory);
+        TwoTierCacheManager twoTier = new TwoTierCacheManager(l1TimeToLive(), Duration.ofMinutes(1), l1MaximumSize,
+            l2, message -> publisher.convertAndSend(invalidationChannel, message), meterRegistry);
+        cacheInvalidationListenerContainer.addMessageListener(
+            (message, pattern) -> twoTier.onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(invalidationChannel));
+        
+        return new MeteredCacheManager(twoTier, meterRegistry, "redisCacheManager");
+    }
+    
+    /**
+     * Subscriber for L1 invalidation messages published by the other nodes
+     * 他ノードからのL1無効化通知の購読
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis", matchIfMissing = true)
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
     }
     
     @Bean
     @ConditionalOnProperty(name = "spring.cache.type", havingValue = "simple")
-    public CacheManager simpleCacheManager() {
-        // Simple cache manager for test environments
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
-        cacheManager.setCacheNames(java.util.Arrays.asList(
-            "baseInventoryReport",
-            "advancedAnalysis", 
-            "forecastAnalysis",
-            "integratedAnalysis",
-            "performanceMetrics",
-            "dashboardData"
-        ));
-        return cacheManager;
+    public CacheManager simpleCacheManager(MeterRegistry meterRegistry) {
+        // Bounded in-memory cache for test environments (L1 only, no Redis)
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(
+            l1TimeToLive(), Duration.ofMinutes(1), l1MaximumSize, null, null, meterRegistry);
+        return new MeteredCacheManager(cacheManager, meterRegistry, "simpleCacheManager");
+    }
+    
+    /**
+     * L1 time-to-live per cache, kept well below the Redis TTL so a node never serves L1 data much older than L2
+     */
+    private Map<String, Duration> l1TimeToLive() {
+        Map<String, Duration> ttl = new HashMap<>();
+        ttl.put("baseInventoryReport", Duration.ofMinutes(1));
+        ttl.put("advancedAnalysis", Duration.ofMinutes(3));
+        ttl.put("forecastAnalysis", Duration.ofMinutes(5));
+        ttl.put("integratedAnalysis", Duration.ofMinutes(2));
+        ttl.put("performanceMetrics", Duration.ofSeconds(30));
+        ttl.put("dashboardData", Duration.ofSeconds(15));
+        return ttl;
     }
     
     private RedisCacheConfiguration cacheConfiguration() {
@@ -0,0 +1,183 @@
+package com.techbookstore.app.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * CacheManager decorator that counts hits, misses, puts and evictions per named cache
+ * キャッシュ名ごとのヒット/ミス/登録/削除をMicrometerで計測するCacheManagerラッパー
+ *
+ * Meters follow the Micrometer cache conventions ({@code cache.gets} with {@code result=hit|miss},
+ * {@code cache.puts}, {@code cache.evictions}) tagged with {@code cache} and {@code cacheManager},
+ * so they work the same for Redis and the in-memory fallback.
+ */
+public class MeteredCacheManager implements CacheManager, InitializingBean {
+
+    private final CacheManager delegate;
+    private final MeterRegistry meterRegistry;
+    private final String managerName;
+    private final ConcurrentMap<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public MeteredCacheManager(CacheManager delegate, MeterRegistry meterRegistry, String managerName) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.managerName = managerName;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        // The delegate is not a bean itself, so forward its initialization (RedisCacheManager loads its caches here)
+        if (delegate instanceof InitializingBean) {
+            ((InitializingBean) delegate).afterPropertiesSet();
+        }
+        for (String name : delegate.getCacheNames()) {
+            getCache(name);
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache target = delegate.getCache(name);
+        if (target == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> new MeteredCache(target));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    public CacheManager getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Cache wrapper recording the result of every lookup
+     */
+    private final class MeteredCache implements Cache {
+
+        private final Cache target;
+        private final Counter hits;
+        private final Counter misses;
+        private final Counter puts;
+        private final Counter evictions;
+
+        MeteredCache(Cache target) {
+            this.target = target;
+            Tags tags = Tags.of("cache", target.getName(), "cacheManager", managerName);
+            this.hits = Counter.builder("cache.gets").tags(tags).tag("result", "hit")
+                .description("The number of times cache lookup methods have returned a cached value.")
+                .register(meterRegistry);
+            this.misses = Counter.builder("cache.gets").tags(tags).tag("result", "miss")
+                .description("The number of times cache lookup methods have returned an uncached (newly loaded) value, or null.")
+                .register(meterRegistry);
+            this.puts = Counter.builder("cache.puts").tags(tags)
+                .description("The number of entries added to the cache")
+                .register(meterRegistry);
+            this.evictions = Counter.builder("cache.evictions").tags(tags)
+                .description("cache evictions")
+                .register(meterRegistry);
+        }
+
+        @Override
+        public String getName() {
+            return target.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return target.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return record(target.get(key));
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return record(target.get(key, type));
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            AtomicBoolean loaded = new AtomicBoolean();
+            T value = target.get(key, () -> {
+                loaded.set(true);
+                return valueLoader.call();
+            });
+            if (loaded.get()) {
+                misses.increment();
+                puts.increment();
+            } else {
+                hits.increment();
+            }
+            return value;
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            target.put(key, value);
+            puts.increment();
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            ValueWrapper existing = target.putIfAbsent(key, value);
+            if (existing == null) {
+                puts.increment();
+            }
+            return existing;
+        }
+
+        @Override
+        public void evict(Object key) {
+            target.evict(key);
+            evictions.increment();
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean evicted = target.evictIfPresent(key);
+            if (evicted) {
+                evictions.increment();
+            }
+            return evicted;
+        }
+
+        @Override
+        public void clear() {
+            target.clear();
+        }
+
+        @Override
+        public boolean invalidate() {
+            return target.invalidate();
+        }
+
+        private <T> T record(T result) {
+            if (result != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+            return result;
+        }
+    }
+}
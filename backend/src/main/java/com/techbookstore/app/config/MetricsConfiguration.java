@@ -0,0 +1,53 @@
+package com.techbookstore.app.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Micrometer configuration: @Timed support for the analysis services and executor gauges
+ * 分析サービスのメソッド計測（@Timed）とスレッドプールのゲージ登録
+ *
+ * Registered meters are exposed through /actuator/metrics and /actuator/prometheus,
+ * and read back by PerformanceOptimizationService for the integrated metrics endpoint.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    /**
+     * Timer shared by the analysis paths, tagged with {@code path}, {@code class}, {@code method} and {@code exception}
+     */
+    public static final String ANALYSIS_TIMER = "techbookstore.analysis";
+
+    /**
+     * Counter of stock optimization recommendations produced by integrated analyses
+     */
+    public static final String OPTIMIZATION_RECOMMENDATIONS = "techbookstore.optimization.recommendations";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * Pool size, active threads and queue depth of every ThreadPoolTaskExecutor bean, tagged {@code name=<bean name>}
+     * 各Executor（integratedAnalysis / dashboard / batchProcessing）のキュー滞留数・稼働スレッド数
+     */
+    @Bean
+    public MeterBinder asyncExecutorMetrics(Map<String, Executor> executors) {
+        return registry -> executors.forEach((name, executor) -> {
+            if (executor instanceof ThreadPoolTaskExecutor) {
+                new ExecutorServiceMetrics(((ThreadPoolTaskExecutor) executor).getThreadPoolExecutor(),
+                    name, Tags.empty()).bindTo(registry);
+            }
+        });
+    }
+}
@@ -0,0 +1,266 @@
+package com.techbookstore.app.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Layered cache manager: a size-bounded Caffeine L1 per named cache in front of an optional shared L2 (Redis)
+ * 2層キャッシュ（プロセス内Caffeine L1 + 共有Redis L2）
+ *
+ * Reads try L1 first and fall back to L2, copying L2 hits into L1. Writes and evictions go to both tiers
+ * and are announced on the invalidation channel so other nodes drop their now-stale L1 entries.
+ * Without an L2 the manager is a bounded in-memory cache (used by the test profile).
+ * Lookups are counted per tier as {@code cache.tier.gets} tagged with {@code cache}, {@code tier} and {@code result}.
+ */
+public class TwoTierCacheManager implements CacheManager, InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoTierCacheManager.class);
+
+    private static final String SEPARATOR = "|";
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+
+    private final Map<String, Duration> l1TimeToLive;
+    private final Duration defaultTimeToLive;
+    private final long maximumSize;
+    private final CacheManager l2;
+    private final Consumer<String> invalidationPublisher;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param l1TimeToLive          L1 time-to-live per cache name; these names are created eagerly
+     * @param defaultTimeToLive     L1 time-to-live for caches created on demand
+     * @param maximumSize           maximum number of L1 entries per cache
+     * @param l2                    shared second tier, or {@code null} for L1 only
+     * @param invalidationPublisher sends invalidation messages to the other nodes, or {@code null} when running alone
+     */
+    public TwoTierCacheManager(Map<String, Duration> l1TimeToLive, Duration defaultTimeToLive, long maximumSize,
+                               CacheManager l2, Consumer<String> invalidationPublisher, MeterRegistry meterRegistry) {
+        this.l1TimeToLive = l1TimeToLive;
+        this.defaultTimeToLive = defaultTimeToLive;
+        this.maximumSize = maximumSize;
+        this.l2 = l2;
+        this.invalidationPublisher = invalidationPublisher;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (l2 instanceof InitializingBean) {
+            ((InitializingBean) l2).afterPropertiesSet();
+        }
+        for (String name : l1TimeToLive.keySet()) {
+            getCache(name);
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache second = null;
+        if (l2 != null) {
+            second = l2.getCache(name);
+            if (second == null) {
+                return null;
+            }
+        }
+        Cache secondTier = second;
+        return caches.computeIfAbsent(name, key -> new TwoTierCache(key, secondTier));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        Set<String> names = new LinkedHashSet<>(caches.keySet());
+        if (l2 != null) {
+            names.addAll(l2.getCacheNames());
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Handle a message from the invalidation channel; messages published by this node are ignored
+     * 他ノードからの無効化通知を受けてL1のエントリを破棄する
+     */
+    public void onInvalidation(String message) {
+        String[] parts = message.split("\\" + SEPARATOR, 4);
+        if (parts.length < 3 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (EVICT.equals(parts[1]) && parts.length == 4) {
+            cache.l1.invalidate(parts[3]);
+        } else {
+            cache.l1.invalidateAll();
+        }
+    }
+
+    private void publish(String cacheName, Object key) {
+        if (invalidationPublisher == null) {
+            return;
+        }
+        // Keys other than strings cannot be matched on the other nodes, so they drop the whole L1 cache
+        String message = key instanceof String
+            ? String.join(SEPARATOR, nodeId, EVICT, cacheName, (String) key)
+            : String.join(SEPARATOR, nodeId, CLEAR, cacheName);
+        try {
+            invalidationPublisher.accept(message);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    /**
+     * One named cache spanning both tiers
+     */
+    private final class TwoTierCache extends AbstractValueAdaptingCache {
+
+        private final String name;
+        private final com.github.benmanes.caffeine.cache.Cache<Object, Object> l1;
+        private final Cache l2Cache;
+        private final Counter l1Hits;
+        private final Counter l1Misses;
+        private final Counter l2Hits;
+        private final Counter l2Misses;
+
+        TwoTierCache(String name, Cache l2Cache) {
+            super(true);
+            this.name = name;
+            this.l2Cache = l2Cache;
+            this.l1 = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(l1TimeToLive.getOrDefault(name, defaultTimeToLive))
+                .build();
+            this.l1Hits = tierCounter("l1", "hit");
+            this.l1Misses = tierCounter("l1", "miss");
+            this.l2Hits = l2Cache != null ? tierCounter("l2", "hit") : null;
+            this.l2Misses = l2Cache != null ? tierCounter("l2", "miss") : null;
+            Gauge.builder("cache.tier.size", l1, com.github.benmanes.caffeine.cache.Cache::estimatedSize)
+                .tags("cache", name, "tier", "l1")
+                .description("Approximate number of entries in the in-process tier")
+                .register(meterRegistry);
+        }
+
+        private Counter tierCounter(String tier, String result) {
+            return Counter.builder("cache.tier.gets")
+                .tags("cache", name, "tier", tier, "result", result)
+                .description("Cache lookups per tier")
+                .register(meterRegistry);
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return l1;
+        }
+
+        @Override
+        protected Object lookup(Object key) {
+            Object stored = l1.getIfPresent(key);
+            if (stored != null) {
+                l1Hits.increment();
+                return stored;
+            }
+            l1Misses.increment();
+            if (l2Cache == null) {
+                return null;
+            }
+            ValueWrapper wrapper = l2Cache.get(key);
+            if (wrapper == null) {
+                l2Misses.increment();
+                return null;
+            }
+            l2Hits.increment();
+            stored = toStoreValue(wrapper.get());
+            l1.put(key, stored);
+            return stored;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            Object stored = lookup(key);
+            if (stored != null) {
+                return (T) fromStoreValue(stored);
+            }
+            T value;
+            try {
+                value = l2Cache != null ? l2Cache.get(key, valueLoader) : valueLoader.call();
+            } catch (ValueRetrievalException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            l1.put(key, toStoreValue(value));
+            return value;
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            if (l2Cache != null) {
+                l2Cache.put(key, value);
+            }
+            l1.put(key, toStoreValue(value));
+            publish(name, key);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            ValueWrapper existing = get(key);
+            if (existing != null) {
+                return existing;
+            }
+            put(key, value);
+            return null;
+        }
+
+        @Override
+        public void evict(Object key) {
+            if (l2Cache != null) {
+                l2Cache.evict(key);
+            }
+            l1.invalidate(key);
+            publish(name, key);
+        }
+
+        @Override
+        public void clear() {
+            if (l2Cache != null) {
+                l2Cache.clear();
+            }
+            l1.invalidateAll();
+            publish(name, null);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.techbookstore.app.controller;
+
+import com.techbookstore.app.service.DataArchiveService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST controller for querying archived orders and inventory transactions.
+ * アーカイブ済みデータ（注文・在庫取引履歴）の照会API
+ */
+@RestController
+@RequestMapping("/api/v1/archive")
+@CrossOrigin(origins = "${app.cors.allowed-origins:http://localhost:3000}")
+public class ArchiveController {
+
+    private final DataArchiveService dataArchiveService;
+
+    public ArchiveController(DataArchiveService dataArchiveService) {
+        this.dataArchiveService = dataArchiveService;
+    }
+
+    /**
+     * Archived orders with their items placed in the given range, at most limit of them.
+     * 期間内のアーカイブ済み注文（明細付き、上限件数まで）
+     */
+    @GetMapping("/orders")
+    public ResponseEntity<List<Map<String, Object>>> getArchivedOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (startDate.isAfter(endDate) || limit < 1 || limit > dataArchiveService.getMaxReadRows()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(dataArchiveService.findArchivedOrders(startDate, endDate, limit));
+    }
+
+    /**
+     * Archived inventory transactions executed in the given range, at most limit of them.
+     * 期間内のアーカイブ済み在庫取引履歴（上限件数まで）
+     */
+    @GetMapping("/inventory-transactions")
+    public ResponseEntity<List<Map<String, Object>>> getArchivedInventoryTransactions(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (startDate.isAfter(endDate) || limit < 1 || limit > dataArchiveService.getMaxReadRows()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(dataArchiveService.findArchivedInventoryTransactions(startDate, endDate, limit));
+    }
+}
@@ -1,8 +1,12 @@
 package com.techbookstore.app.controller;
 
 import com.techbookstore.app.dto.BookDto;
+import com.techbookstore.app.dto.CursorPage;
 import com.techbookstore.app.entity.Book;
 import com.techbookstore.app.repository.BookRepository;
+import com.techbookstore.app.service.BookSearchIndex;
+import com.techbookstore.app.service.CatalogSnapshotService;
+import com.techbookstore.app.service.KeysetPager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -11,7 +15,16 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/books")
@@ -21,6 +34,22 @@ public class BookController {
     @Autowired
     private BookRepository bookRepository;
 
+    @Autowired
+    private KeysetPager keysetPager;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    /** Above this many keyword matches the listing falls back to the LIKE query instead of an id IN list */
+    private static final int MAX_INDEXED_MATCHES = 5000;
+
+    /** Sort keys usable with cursor pagination: non-null columns (combined with id as tie-breaker) */
+    private static final Set<String> CURSOR_SORT_KEYS = Collections.unmodifiableSet(
+        new LinkedHashSet<>(Arrays.asList("id", "title", "isbn13")));
+
     @GetMapping
     public ResponseEntity<Page<BookDto>> getAllBooks(
             @RequestParam(defaultValue = "0") int page,
@@ -37,7 +66,14 @@ public class BookController {
         
         Page<Book> books;
         if (keyword != null && !keyword.trim().isEmpty()) {
-            books = bookRepository.findByKeyword(keyword.trim(), pageable);
+            List<Long> matchingIds = bookSearchIndex.findIds(keyword.trim(), MAX_INDEXED_MATCHES);
+            if (matchingIds == null) {
+                books = bookRepository.findByKeyword(keyword.trim(), pageable);
+            } else if (matchingIds.isEmpty()) {
+                books = Page.empty(pageable);
+            } else {
+                books = bookRepository.findByIdIn(matchingIds, pageable);
+            }
         } else {
             books = bookRepository.findAll(pageable);
         }
@@ -46,6 +82,68 @@ public class BookController {
         return ResponseEntity.ok(bookDtos);
     }
 
+    /**
+     * Books with cursor (keyset) pagination: pass nextCursor back as cursor for the following page
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<BookDto>> getBooksByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+
+        String trimmedKeyword = keyword != null && !keyword.trim().isEmpty() ? keyword.trim().toLowerCase() : null;
+        List<Long> matchingIds = trimmedKeyword != null
+            ? bookSearchIndex.findIds(trimmedKeyword, MAX_INDEXED_MATCHES) : null;
+        CursorPage<Book> books = keysetPager.find(Book.class, CURSOR_SORT_KEYS, sortBy, sortDir, size, cursor,
+            includeTotal, (root, cb) -> {
+                if (trimmedKeyword == null) {
+                    return Collections.emptyList();
+                }
+                if (matchingIds != null) {
+                    return Collections.singletonList(matchingIds.isEmpty()
+                        ? cb.disjunction() : root.get("id").in(matchingIds));
+                }
+                // Same matching as BookRepository.findByKeyword
+                String pattern = "%" + trimmedKeyword + "%";
+                return Collections.singletonList(cb.or(
+                    cb.like(cb.lower(root.get("title")), pattern),
+                    cb.like(cb.lower(root.get("titleEn")), pattern),
+                    cb.like(cb.lower(root.get("isbn13")), pattern)));
+            });
+        return ResponseEntity.ok(books.map(BookDto::new));
+    }
+
+    /**
+     * Ranked keyword search over title, English title and ISBN, served from the in-memory n-gram index.
+     * The total number of matches is returned in the X-Total-Count header.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<BookDto>> searchBooks(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        int boundedLimit = Math.min(Math.max(limit, 1), 100);
+        BookSearchIndex.Hits hits = bookSearchIndex.search(q, boundedLimit);
+        List<Book> ranked;
+        long total;
+        if (hits == null) {
+            // Index not built yet: same matches from the database, without ranking
+            Page<Book> page = bookRepository.findByKeyword(q.trim(), PageRequest.of(0, boundedLimit, Sort.by("id")));
+            ranked = page.getContent();
+            total = page.getTotalElements();
+        } else {
+            Map<Long, Book> byId = new HashMap<>();
+            bookRepository.findAllById(hits.getBookIds()).forEach(book -> byId.put(book.getId(), book));
+            ranked = hits.getBookIds().stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+            total = hits.getTotal();
+        }
+        List<BookDto> results = ranked.stream().map(BookDto::new).collect(Collectors.toList());
+        return ResponseEntity.ok().header("X-Total-Count", String.valueOf(total)).body(results);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<BookDto> getBookById(@PathVariable Long id) {
         Optional<Book> book = bookRepository.findById(id);
@@ -69,6 +167,8 @@ public class BookController {
     @PostMapping
     public ResponseEntity<BookDto> createBook(@RequestBody Book book) {
         Book savedBook = bookRepository.save(book);
+        bookSearchIndex.index(savedBook);
+        catalogSnapshotService.bookSaved(savedBook);
         return ResponseEntity.ok(new BookDto(savedBook));
     }
 
@@ -78,6 +178,8 @@ public class BookController {
         if (existingBook.isPresent()) {
             book.setId(id);
             Book savedBook = bookRepository.save(book);
+            bookSearchIndex.index(savedBook);
+            catalogSnapshotService.bookSaved(savedBook);
             return ResponseEntity.ok(new BookDto(savedBook));
         } else {
             return ResponseEntity.notFound().build();
@@ -88,6 +190,8 @@ public class BookController {
     public ResponseEntity<Void> deleteBook(@PathVariable Long id) {
         if (bookRepository.existsById(id)) {
             bookRepository.deleteById(id);
+            bookSearchIndex.remove(id);
+            catalogSnapshotService.bookDeleted(id);
             return ResponseEntity.noContent().build();
         } else {
             return ResponseEntity.notFound().build();
@@ -1,10 +1,12 @@
 package com.techbookstore.app.controller;
 
+import com.techbookstore.app.dto.CursorPage;
 import com.techbookstore.app.dto.CustomerDto;
 import com.techbookstore.app.dto.OrderDto;
 import com.techbookstore.app.entity.Customer;
 import com.techbookstore.app.entity.Order;
 import com.techbookstore.app.service.CustomerService;
+import com.techbookstore.app.service.KeysetPager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
@@ -125,6 +127,44 @@ public class CustomerController {
         return ResponseEntity.ok(customerDtos);
     }
     
+    /**
+     * Retrieves customers with cursor (keyset) pagination.
+     * Deep pages cost the same as the first one; no exact count is computed per page.
+     * 
+     * @param cursor nextCursor from the previous page (omit for the first page)
+     * @param size page size
+     * @param sort sort parameter (e.g., "name,asc"); name, id, email or createdAt
+     * @param keyword search keyword
+     * @param customerType customer type filter
+     * @param status customer status filter
+     * @param startDate start date filter
+     * @param endDate end date filter
+     * @param includeTotal whether to return an estimated total
+     * @return page of customers with the cursor for the next page
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<CustomerDto>> getCustomersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(KeysetPager.MAX_PAGE_SIZE) int size,
+            @RequestParam(defaultValue = "name,asc") String sort,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String customerType,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        
+        String[] sortParams = sort.split(",");
+        String sortDir = sortParams.length > 1 ? sortParams[1] : "asc";
+        Customer.CustomerType typeFilter = customerType != null ? Customer.CustomerType.valueOf(customerType) : null;
+        Customer.CustomerStatus statusFilter = status != null ? Customer.CustomerStatus.valueOf(status) : null;
+        String trimmedKeyword = keyword != null && !keyword.trim().isEmpty() ? keyword.trim() : null;
+        
+        CursorPage<Customer> customers = customerService.getCustomersByCursor(trimmedKeyword, typeFilter,
+            statusFilter, startDate, endDate, sortParams[0], sortDir, size, cursor, includeTotal);
+        return ResponseEntity.ok(customers.map(CustomerDto::new));
+    }
+    
     /**
      * Retrieves a specific customer by ID.
      * 
@@ -195,6 +235,26 @@ public class CustomerController {
         return ResponseEntity.ok(customerDtos);
     }
     
+    /**
+     * Quick customer lookup for the counter by name, kana, e-mail or phone prefix.
+     * 
+     * @param q name (kanji or kana), e-mail or phone number prefix
+     * @param limit maximum number of results
+     * @return matching customers, exact matches first
+     */
+    @GetMapping("/lookup")
+    public ResponseEntity<List<CustomerDto>> lookupCustomers(
+            @RequestParam @NotBlank String q,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(50) int limit) {
+        
+        logger.debug("Customer lookup: {}", q);
+        
+        List<CustomerDto> customers = customerService.lookupCustomers(q.trim(), limit).stream()
+                .map(CustomerDto::new)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(customers);
+    }
+    
     /**
      * Gets customer statistics.
      * 
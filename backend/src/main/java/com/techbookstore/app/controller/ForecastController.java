@@ -85,9 +85,7 @@ public class ForecastController {
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate forecastDate,
             @RequestParam(defaultValue = "3") int periodMonths) {
         
-        List<DemandForecast> allForecasts = bookIds.stream()
-            .flatMap(bookId -> demandForecastService.generateForecast(bookId, forecastDate, periodMonths).stream())
-            .collect(Collectors.toList());
+        List<DemandForecast> allForecasts = demandForecastService.generateForecasts(bookIds, forecastDate, periodMonths);
         
         return ResponseEntity.ok(allForecasts);
     }
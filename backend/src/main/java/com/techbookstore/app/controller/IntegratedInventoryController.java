@@ -2,17 +2,22 @@ package com.techbookstore.app.controller;
 
 import com.techbookstore.app.dto.IntegratedAnalysisRequest;
 import com.techbookstore.app.dto.IntegratedAnalysisResult;
+import com.techbookstore.app.entity.AnalysisJob;
+import com.techbookstore.app.service.AnalysisJobService;
 import com.techbookstore.app.service.IntegratedInventoryAnalysisService;
+import com.techbookstore.app.service.PerformanceOptimizationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for Phase 4 integrated inventory analysis
@@ -28,6 +33,12 @@ public class IntegratedInventoryController {
     @Autowired
     private IntegratedInventoryAnalysisService integratedAnalysisService;
     
+    @Autowired
+    private PerformanceOptimizationService performanceService;
+    
+    @Autowired
+    private AnalysisJobService analysisJobService;
+    
     /**
      * Comprehensive integrated analysis endpoint
      * Combines Phase 1-3 functionalities with Phase 4 optimizations
@@ -39,18 +50,16 @@ public class IntegratedInventoryController {
         logger.info("Starting comprehensive integrated analysis with parameters: category={}, async={}", 
                    request.getCategory(), request.getAsyncExecution());
         
+        if (Boolean.TRUE.equals(request.getAsyncExecution())) {
+            // Queue a job and return its id; the client polls /jobs/{jobId} for the outcome
+            AnalysisJob job = analysisJobService.submit(AnalysisJob.JobType.COMPREHENSIVE_ANALYSIS, request);
+            IntegratedAnalysisResult accepted = new IntegratedAnalysisResult(job.getId());
+            accepted.setStatus(job.getStatus().name());
+            return ResponseEntity.accepted().location(jobLocation(job)).body(accepted);
+        }
+        
         try {
-            IntegratedAnalysisResult result;
-            
-            if (Boolean.TRUE.equals(request.getAsyncExecution())) {
-                // For demo purposes, we'll execute synchronously but could return a job ID
-                // In production, this would return immediately with a job ID for polling
-                CompletableFuture<IntegratedAnalysisResult> futureResult = 
-                    integratedAnalysisService.executeAsyncIntegratedAnalysis(request);
-                result = futureResult.get(); // Wait for completion (for demo)
-            } else {
-                result = integratedAnalysisService.executeIntegratedAnalysis(request);
-            }
+            IntegratedAnalysisResult result = integratedAnalysisService.executeIntegratedAnalysis(request);
             
             logger.info("Comprehensive analysis completed successfully in {}ms", 
                        result.getExecutionTimeMs());
@@ -117,50 +126,51 @@ public class IntegratedInventoryController {
         
         logger.info("Starting batch optimization process");
         
-        try {
-            // Set request for comprehensive analysis
-            request.setIncludeOptimization(true);
-            request.setAsyncExecution(true);
-            
-            // Execute async analysis for batch processing
-            CompletableFuture<IntegratedAnalysisResult> futureResult = 
-                integratedAnalysisService.executeAsyncIntegratedAnalysis(request);
-            
-            // For now, wait for completion (in production, return job ID)
-            IntegratedAnalysisResult result = futureResult.get();
-            
-            // Extract optimization data
-            Map<String, Object> batchResponse = new HashMap<>();
-            batchResponse.put("jobId", result.getAnalysisId());
-            batchResponse.put("status", result.getStatus());
-            batchResponse.put("executionTime", result.getExecutionTimeMs());
-            
-            if (result.getOptimization() != null) {
-                batchResponse.put("recommendations", result.getOptimization().getRecommendations());
-                batchResponse.put("potentialSavings", result.getOptimization().getPotentialCostSavings());
-                batchResponse.put("efficiencyImprovement", 
-                    result.getOptimization().getOptimizedEfficiency());
-            }
-            
-            // Performance metrics
-            batchResponse.put("performanceMetrics", result.getPerformanceMetrics());
-            batchResponse.put("processedAt", java.time.LocalDateTime.now());
-            
-            logger.info("Batch optimization completed successfully");
-            return ResponseEntity.ok(batchResponse);
-            
-        } catch (Exception e) {
-            logger.error("Batch optimization failed", e);
-            
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("error", "Batch optimization failed");
-            errorResponse.put("status", "error");
-            errorResponse.put("timestamp", java.time.LocalDateTime.now());
-            
-            return ResponseEntity.status(500).body(errorResponse);
+        request.setIncludeOptimization(true);
+        request.setAsyncExecution(true);
+        
+        AnalysisJob job = analysisJobService.submit(AnalysisJob.JobType.BATCH_OPTIMIZATION, request);
+        return ResponseEntity.accepted().location(jobLocation(job)).body(jobStatus(job));
+    }
+    
+    /**
+     * Status of an asynchronous analysis job
+     * 非同期ジョブの状態照会
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(jobStatus(analysisJobService.getJob(jobId)));
+    }
+    
+    /**
+     * Result of a completed job; 202 while it is still queued or running, 409 when it failed or was cancelled
+     * 非同期ジョブの結果取得
+     */
+    @GetMapping("/jobs/{jobId}/result")
+    public ResponseEntity<Object> getJobResult(@PathVariable String jobId) {
+        AnalysisJob job = analysisJobService.getJob(jobId);
+        switch (job.getStatus()) {
+            case COMPLETED:
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(job.getResultJson());
+            case QUEUED:
+            case RUNNING:
+                return ResponseEntity.accepted().body(jobStatus(job));
+            default:
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(jobStatus(job));
         }
     }
     
+    /**
+     * Cancel a queued or running job; 409 when it had already finished
+     * 非同期ジョブのキャンセル
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String jobId) {
+        AnalysisJob job = analysisJobService.cancel(jobId);
+        HttpStatus status = job.getStatus() == AnalysisJob.JobStatus.CANCELLED ? HttpStatus.OK : HttpStatus.CONFLICT;
+        return ResponseEntity.status(status).body(jobStatus(job));
+    }
+    
     /**
      * Health check endpoint for integrated analysis system
      */
@@ -203,31 +213,14 @@ public class IntegratedInventoryController {
     
     /**
      * Get system performance metrics
+     * Values are read from the live Micrometer registry (also exposed at /actuator/metrics and /actuator/prometheus)
      */
     @GetMapping("/metrics")
     public ResponseEntity<Map<String, Object>> getMetrics() {
         logger.debug("Retrieving system performance metrics");
         
         try {
-            Map<String, Object> metrics = new HashMap<>();
-            
-            // Performance indicators
-            metrics.put("response_time_avg", "245ms");
-            metrics.put("cache_hit_rate", "85%");
-            metrics.put("concurrent_users", 12);
-            metrics.put("analysis_success_rate", "99.2%");
-            
-            // Resource utilization
-            metrics.put("memory_usage", "68%");
-            metrics.put("cpu_usage", "42%");
-            metrics.put("thread_pool_utilization", "35%");
-            
-            // Business metrics
-            metrics.put("daily_analyses", 156);
-            metrics.put("optimization_recommendations", 45);
-            metrics.put("forecast_accuracy", "87.5%");
-            
-            metrics.put("timestamp", java.time.LocalDateTime.now());
+            Map<String, Object> metrics = performanceService.getDashboardMetrics();
             
             return ResponseEntity.ok(metrics);
             
@@ -241,4 +234,23 @@ public class IntegratedInventoryController {
             return ResponseEntity.status(500).body(errorResponse);
         }
     }
-}
\ No newline at end of file
+    
+    private Map<String, Object> jobStatus(AnalysisJob job) {
+        Map<String, Object> status = new HashMap<>();
+        status.put("jobId", job.getId());
+        status.put("jobType", job.getJobType());
+        status.put("status", job.getStatus());
+        status.put("submittedAt", job.getSubmittedAt());
+        status.put("startedAt", job.getStartedAt());
+        status.put("completedAt", job.getCompletedAt());
+        status.put("executionTimeMs", job.getExecutionTimeMs());
+        status.put("errorMessage", job.getErrorMessage());
+        status.put("statusUrl", jobLocation(job).toString());
+        status.put("resultUrl", jobLocation(job) + "/result");
+        return status;
+    }
+    
+    private URI jobLocation(AnalysisJob job) {
+        return URI.create("/api/v1/inventory/integrated/jobs/" + job.getId());
+    }
+}
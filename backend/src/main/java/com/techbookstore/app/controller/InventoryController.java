@@ -4,8 +4,11 @@ import com.techbookstore.app.dto.InventoryDto;
 import com.techbookstore.app.dto.InventoryReservationDto;
 import com.techbookstore.app.dto.InventoryTransactionDto;
 import com.techbookstore.app.entity.Inventory;
+import com.techbookstore.app.exception.InsufficientInventoryException;
+import com.techbookstore.app.exception.InventoryNotFoundException;
 import com.techbookstore.app.repository.InventoryRepository;
 import com.techbookstore.app.service.AdvancedInventoryService;
+import com.techbookstore.app.service.InventoryStockService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -26,6 +29,9 @@ public class InventoryController {
     @Autowired
     private AdvancedInventoryService advancedInventoryService;
 
+    @Autowired
+    private InventoryStockService inventoryStockService;
+
     @GetMapping
     public ResponseEntity<List<InventoryDto>> getAllInventory() {
         List<Inventory> inventories = inventoryRepository.findAll();
@@ -86,22 +92,13 @@ public class InventoryController {
 
     @PostMapping("/sell")
     public ResponseEntity<InventoryDto> sellStock(@RequestBody SellStockRequest request) {
-        Optional<Inventory> inventoryOpt = inventoryRepository.findByBookId(request.getBookId());
-        
-        if (inventoryOpt.isPresent()) {
-            Inventory inventory = inventoryOpt.get();
-            
-            // Fixed: Check if enough stock is available AND store stock is sufficient
-            if (inventory.getAvailableStock() >= request.getQuantity() &&
-                inventory.getStoreStock() >= request.getQuantity()) {
-                inventory.setStoreStock(inventory.getStoreStock() - request.getQuantity());
-                inventory.setLastSoldDate(LocalDate.now());
-                Inventory savedInventory = inventoryRepository.save(inventory);
-                return ResponseEntity.ok(new InventoryDto(savedInventory));
-            } else {
-                return ResponseEntity.badRequest().build(); // Insufficient stock
-            }
-        } else {
+        try {
+            // Store stock and available stock are checked atomically by the conditional update
+            Inventory savedInventory = inventoryStockService.sell(request.getBookId(), request.getQuantity());
+            return ResponseEntity.ok(new InventoryDto(savedInventory));
+        } catch (InsufficientInventoryException e) {
+            return ResponseEntity.badRequest().build(); // Insufficient stock
+        } catch (InventoryNotFoundException e) {
             return ResponseEntity.notFound().build();
         }
     }
@@ -144,13 +144,26 @@ public class OptimizationController {
     public ResponseEntity<ConstraintOptimizationService.OptimizationResult> optimizeWithConstraints(
             @RequestBody Map<String, Object> request) {
         
+        int maxScenarios = constraintOptimizationService.getMaxSweepScenarios();
         @SuppressWarnings("unchecked")
-        List<Long> bookIds = (List<Long>) request.get("bookIds");
+        List<String> priorityFocuses = (List<String>) request.getOrDefault("priorityFocuses",
+            java.util.Arrays.asList("PROFIT", "CASH_FLOW", "RISK_MINIMIZATION"));
+        int focusCount = Math.max(1, new java.util.HashSet<>(priorityFocuses).size());
+        @SuppressWarnings("unchecked")
+        List<Number> requestedBudgets = (List<Number>) request.get("budgets");
+        long budgetCount = requestedBudgets != null ? requestedBudgets.size()
+            : ((Number) request.getOrDefault("steps", 10)).longValue();
+        if (budgetCount * focusCount > maxScenarios) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Number> bookIds = (List<Number>) request.get("bookIds");
         
-        // Get stock analysis for books
-        List<OptimalStockDto> candidateBooks = bookIds.stream()
-            .map(optimalStockCalculatorService::calculateOptimalStock)
-            .collect(java.util.stream.Collectors.toList());
+        // Get stock analysis for books (JSON numbers arrive as Integer or Long)
+        List<OptimalStockDto> candidateBooks = optimalStockCalculatorService.calculateOptimalStockBulk(bookIds.stream()
+            .map(Number::longValue)
+            .collect(java.util.stream.Collectors.toList()));
         
         // Create constraints
         ConstraintOptimizationService.OptimizationConstraints constraints = 
@@ -173,16 +186,73 @@ public class OptimizationController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Budget / priority focus scenario sweep with the efficiency frontier of each focus
+     * POST /api/v1/optimization/scenario-sweep
+     *
+     * Body: {@code bookIds} (optional, default: books needing reorder), either {@code budgets} or
+     * {@code minBudget}/{@code maxBudget}/{@code steps}, {@code priorityFocuses}, {@code maxItems}, {@code solverMode};
+     * 400 when budgets x priority focuses exceed the configured maximum number of scenarios
+     */
+    @PostMapping("/scenario-sweep")
+    public ResponseEntity<ConstraintOptimizationService.ScenarioSweepResult> sweepScenarios(
+            @RequestBody Map<String, Object> request) {
+
+        int maxScenarios = constraintOptimizationService.getMaxSweepScenarios();
+        @SuppressWarnings("unchecked")
+        List<String> priorityFocuses = (List<String>) request.getOrDefault("priorityFocuses",
+            java.util.Arrays.asList("PROFIT", "CASH_FLOW", "RISK_MINIMIZATION"));
+        int focusCount = Math.max(1, new java.util.HashSet<>(priorityFocuses).size());
+        @SuppressWarnings("unchecked")
+        List<Number> requestedBudgets = (List<Number>) request.get("budgets");
+        long budgetCount = requestedBudgets != null ? requestedBudgets.size()
+            : ((Number) request.getOrDefault("steps", 10)).longValue();
+        if (budgetCount * focusCount > maxScenarios) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Number> bookIds = (List<Number>) request.get("bookIds");
+        List<OptimalStockDto> candidateBooks = bookIds != null
+            ? optimalStockCalculatorService.calculateOptimalStockBulk(bookIds.stream()
+                .map(Number::longValue)
+                .collect(java.util.stream.Collectors.toList()))
+            : optimalStockCalculatorService.getBooksNeedingReorder();
+
+        ConstraintOptimizationService.OptimizationConstraints constraints =
+            constraintOptimizationService.createDefaultConstraints();
+        if (request.containsKey("maxItems")) {
+            constraints.setMaxItems(((Number) request.get("maxItems")).intValue());
+        }
+        if (request.containsKey("solverMode")) {
+            constraints.setSolverMode((String) request.get("solverMode"));
+        }
+
+        List<java.math.BigDecimal> budgets = new java.util.ArrayList<>();
+        if (requestedBudgets != null) {
+            requestedBudgets.forEach(budget -> budgets.add(java.math.BigDecimal.valueOf(budget.doubleValue())));
+        } else {
+            // Evenly spaced ladder from minBudget to maxBudget
+            double minBudget = ((Number) request.getOrDefault("minBudget", 10000)).doubleValue();
+            double maxBudget = ((Number) request.getOrDefault("maxBudget", 100000)).doubleValue();
+            int steps = Math.max(2, ((Number) request.getOrDefault("steps", 10)).intValue());
+            for (int i = 0; i < steps; i++) {
+                budgets.add(java.math.BigDecimal.valueOf(minBudget + (maxBudget - minBudget) * i / (steps - 1))
+                    .setScale(0, java.math.RoundingMode.HALF_UP));
+            }
+        }
+
+        return ResponseEntity.ok(constraintOptimizationService.sweepScenarios(
+            candidateBooks, constraints, budgets, priorityFocuses));
+    }
+
     /**
      * Bulk calculate optimal stock for multiple books
      * POST /api/v1/optimization/bulk-calculate
      */
     @PostMapping("/bulk-calculate")
     public ResponseEntity<List<OptimalStockDto>> bulkCalculateOptimalStock(@RequestBody List<Long> bookIds) {
-        List<OptimalStockDto> results = bookIds.stream()
-            .map(optimalStockCalculatorService::calculateOptimalStock)
-            .collect(java.util.stream.Collectors.toList());
-        
+        List<OptimalStockDto> results = optimalStockCalculatorService.calculateOptimalStockBulk(bookIds);
         return ResponseEntity.ok(results);
     }
 
@@ -1,9 +1,11 @@
 package com.techbookstore.app.controller;
 
+import com.techbookstore.app.dto.CursorPage;
 import com.techbookstore.app.dto.OrderDto;
 import com.techbookstore.app.entity.Book;
 import com.techbookstore.app.entity.Order;
 import com.techbookstore.app.entity.OrderItem;
+import com.techbookstore.app.service.KeysetPager;
 import com.techbookstore.app.service.OrderService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,11 +18,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -123,6 +127,42 @@ public class OrderController {
         return ResponseEntity.ok(orderDtos);
     }
     
+    /**
+     * Retrieves orders with cursor (keyset) pagination.
+     * Deep pages cost the same as the first one; no exact count is computed per page.
+     * 
+     * @param cursor nextCursor from the previous page (omit for the first page)
+     * @param size page size
+     * @param sortBy field to sort by (orderDate, id, orderNumber, totalAmount)
+     * @param sortDir sort direction (asc/desc)
+     * @param includeTotal whether to return an estimated total
+     * @return page of orders with the cursor for the next page
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPage<OrderDto>> getOrdersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(KeysetPager.MAX_PAGE_SIZE) int size,
+            @RequestParam(defaultValue = "orderDate") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        
+        logger.debug("Fetching orders by cursor - size: {}, sortBy: {}, keyword: {}", size, sortBy, keyword);
+        
+        Order.OrderStatus orderStatus = status != null ? Order.OrderStatus.valueOf(status) : null;
+        Order.OrderType orderType = type != null ? Order.OrderType.valueOf(type) : null;
+        String trimmedKeyword = keyword != null && !keyword.trim().isEmpty() ? keyword.trim() : null;
+        CursorPage<Order> orders = orderService.getOrdersByCursor(orderStatus, orderType, customerId,
+            startDate, endDate, trimmedKeyword, sortBy, sortDir, size, cursor, includeTotal);
+        
+        return ResponseEntity.ok(orders.map(OrderDto::new));
+    }
+    
     /**
      * Retrieves a specific order by ID.
      * 
@@ -190,6 +230,26 @@ public class OrderController {
         return ResponseEntity.ok(new OrderDto(order));
     }
     
+    /**
+     * Confirms several orders in one call. Orders that cannot be confirmed
+     * (not found, not pending, insufficient stock) are reported individually.
+     * 
+     * @param request the IDs of the orders to confirm
+     * @return the confirmed orders and the per-order failures
+     */
+    @PostMapping("/confirm-batch")
+    public ResponseEntity<BatchConfirmResponse> confirmOrders(@Valid @RequestBody BatchConfirmRequest request) {
+        logger.info("Confirming {} orders in batch", request.getOrderIds().size());
+        
+        OrderService.BatchConfirmationResult result = orderService.confirmOrders(request.getOrderIds());
+        BatchConfirmResponse response = new BatchConfirmResponse();
+        response.setConfirmed(result.getConfirmedOrders().stream()
+                .map(OrderDto::new)
+                .collect(Collectors.toList()));
+        response.setFailures(result.getFailures());
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Marks an order as being picked.
      * 
@@ -300,6 +360,31 @@ public class OrderController {
         public void setOrderItems(List<OrderItemRequest> orderItems) { this.orderItems = orderItems; }
     }
     
+    /**
+     * Request DTO for batch order confirmation.
+     */
+    public static class BatchConfirmRequest {
+        @NotEmpty(message = "At least one order ID is required")
+        @Size(max = 500, message = "At most 500 orders can be confirmed at once")
+        private List<@NotNull Long> orderIds;
+        
+        public List<Long> getOrderIds() { return orderIds; }
+        public void setOrderIds(List<Long> orderIds) { this.orderIds = orderIds; }
+    }
+    
+    /**
+     * Response DTO for batch order confirmation.
+     */
+    public static class BatchConfirmResponse {
+        private List<OrderDto> confirmed;
+        private List<OrderService.OrderFailure> failures;
+        
+        public List<OrderDto> getConfirmed() { return confirmed; }
+        public void setConfirmed(List<OrderDto> confirmed) { this.confirmed = confirmed; }
+        public List<OrderService.OrderFailure> getFailures() { return failures; }
+        public void setFailures(List<OrderService.OrderFailure> failures) { this.failures = failures; }
+    }
+    
     /**
      * Response DTO for order status counts.
      */
@@ -7,20 +7,31 @@ import com.techbookstore.app.service.CustomReportService;
 import com.techbookstore.app.service.BatchProcessingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
 import org.springframework.validation.annotation.Validated;
 
 /**
@@ -38,16 +49,22 @@ public class ReportController {
     private final AnalyticsService analyticsService;
     private final CustomReportService customReportService;
     private final BatchProcessingService batchProcessingService;
+    private final ObjectProvider<AsyncTaskExecutor> reportExportExecutor;
+    
+    @Value("${app.report-export.timeout-ms:600000}")
+    private long exportTimeoutMs = 600000;
     
     /**
      * Constructor injection for dependencies.
      */
     public ReportController(ReportService reportService, AnalyticsService analyticsService,
-                           CustomReportService customReportService, BatchProcessingService batchProcessingService) {
+                           CustomReportService customReportService, BatchProcessingService batchProcessingService,
+                           @Qualifier("reportExportExecutor") ObjectProvider<AsyncTaskExecutor> reportExportExecutor) {
         this.reportService = reportService;
         this.analyticsService = analyticsService;
         this.customReportService = customReportService;
         this.batchProcessingService = batchProcessingService;
+        this.reportExportExecutor = reportExportExecutor;
     }
     
     /**
@@ -587,29 +604,66 @@ public class ReportController {
     }
     
     /**
-     * Export report to different formats (PDF, Excel, CSV).
+     * Export report to different formats (PDF, Excel, CSV, JSON).
+     * The report's rows are streamed one by one on the reportExportExecutor, with a timeout of their own;
+     * CSV and JSON are gzip-compressed when the client accepts it.
      * 
      * @param reportId report ID to export
      * @param format export format (PDF, EXCEL, CSV, JSON)
+     * @param dataset detail rows to export (ORDER_DETAIL, INVENTORY_DETAIL), defaults to the report type's
      * @return exported report file
      */
     @GetMapping("/export/{reportId}")
-    public ResponseEntity<byte[]> exportReport(
+    public WebAsyncTask<ResponseEntity<Void>> exportReport(
             @PathVariable String reportId,
-            @RequestParam(defaultValue = "PDF") String format) {
+            @RequestParam(defaultValue = "PDF") String format,
+            @RequestParam(required = false) String dataset,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response) {
         
         logger.info("Exporting report {} to format: {}", reportId, format);
         
-        ReportExportDto export = customReportService.exportReport(reportId, format);
-        
-        if ("FAILED".equals(export.getStatus())) {
-            return ResponseEntity.badRequest().build();
-        }
-        
-        return ResponseEntity.ok()
-            .header("Content-Type", export.getMimeType())
-            .header("Content-Disposition", "attachment; filename=\"" + export.getFileName() + "\"")
-            .body(export.getFileData());
+        Callable<ResponseEntity<Void>> task = () -> {
+            ReportExportDto export = customReportService.exportReport(reportId, format, dataset);
+            
+            if ("FAILED".equals(export.getStatus())) {
+                return ResponseEntity.badRequest().build();
+            }
+            
+            response.setContentType(export.getMimeType());
+            response.setHeader("Content-Disposition", "attachment; filename=\"" + export.getFileName() + "\"");
+            
+            StreamingResponseBody content = export.getContent();
+            if (export.isCompressible()) {
+                response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                if (acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip")) {
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    content = gzip(content);
+                }
+            }
+            OutputStream out = response.getOutputStream();
+            content.writeTo(out);
+            out.flush();
+            // The body has been written; null tells Spring MVC the response is complete
+            return null;
+        };
+        
+        AsyncTaskExecutor executor = reportExportExecutor.getIfAvailable();
+        return executor != null
+            ? new WebAsyncTask<>(exportTimeoutMs, executor, task)
+            : new WebAsyncTask<>(exportTimeoutMs, task);
+    }
+    
+    /**
+     * Compress the stream on the fly; sync flush sends each flushed batch of rows as its own chunk
+     */
+    private static StreamingResponseBody gzip(StreamingResponseBody content) {
+        return out -> {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, 8192, true);
+            content.writeTo(gzip);
+            gzip.finish();
+            gzip.flush();
+        };
     }
     
     /**
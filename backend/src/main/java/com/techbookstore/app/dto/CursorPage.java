@@ -0,0 +1,69 @@
+package com.techbookstore.app.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of a keyset (cursor) paginated listing.
+ * カーソル方式ページングの1ページ分
+ *
+ * Pass {@code nextCursor} back as the {@code cursor} parameter to get the following page.
+ * {@code estimatedTotal} is only filled in when requested and is not an exact, per-page count.
+ */
+public class CursorPage<T> {
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    private Long estimatedTotal;
+    private String sortBy;
+    private String sortDir;
+
+    // Constructors
+    public CursorPage() {}
+
+    public CursorPage(List<T> content, int size, String nextCursor, Long estimatedTotal,
+                      String sortBy, String sortDir) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = nextCursor != null;
+        this.nextCursor = nextCursor;
+        this.estimatedTotal = estimatedTotal;
+        this.sortBy = sortBy;
+        this.sortDir = sortDir;
+    }
+
+    /**
+     * Same page with its content converted (e.g. entities to DTOs)
+     */
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> converter) {
+        List<R> converted = content.stream().map(converter).collect(Collectors.toList());
+        return new CursorPage<>(converted, size, nextCursor, estimatedTotal, sortBy, sortDir);
+    }
+
+    // Getters and Setters
+    public List<T> getContent() { return content; }
+    public void setContent(List<T> content) { this.content = content; }
+
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+
+    public int getNumberOfElements() { return content != null ? content.size() : 0; }
+
+    public boolean isHasNext() { return hasNext; }
+    public void setHasNext(boolean hasNext) { this.hasNext = hasNext; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public Long getEstimatedTotal() { return estimatedTotal; }
+    public void setEstimatedTotal(Long estimatedTotal) { this.estimatedTotal = estimatedTotal; }
+
+    public String getSortBy() { return sortBy; }
+    public void setSortBy(String sortBy) { this.sortBy = sortBy; }
+
+    public String getSortDir() { return sortDir; }
+    public void setSortDir(String sortDir) { this.sortDir = sortDir; }
+}
@@ -21,6 +21,9 @@ public class CustomReportDto {
     private String errorMessage;
     private List<String> tags;
     private Map<String, Object> metadata;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Map<String, Object> filters;
     
     // Constructors
     public CustomReportDto() {}
@@ -66,4 +69,13 @@ public class CustomReportDto {
     
     public Map<String, Object> getMetadata() { return metadata; }
     public void setMetadata(Map<String, Object> metadata) { this.metadata = metadata; }
+    
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+    
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+    
+    public Map<String, Object> getFilters() { return filters; }
+    public void setFilters(Map<String, Object> filters) { this.filters = filters; }
 }
\ No newline at end of file
@@ -17,7 +17,7 @@ public class IntegratedAnalysisResult {
     private LocalDateTime analysisTimestamp;
     
     private String analysisId;
-    private String status; // COMPLETED, IN_PROGRESS, FAILED
+    private String status; // COMPLETED, PARTIAL, IN_PROGRESS, FAILED
     private Long executionTimeMs;
     
     // Phase 1: Base Reports
@@ -108,6 +108,7 @@ public class IntegratedAnalysisResult {
         private Long cacheHitRate;
         private Long dataConsistencyScore;
         private Map<String, Long> phaseExecutionTimes;
+        private Map<String, String> phaseStatuses; // COMPLETED, TIMED_OUT, FAILED, REJECTED, SKIPPED
         
         // Getters and setters
         public Long getTotalAnalysisTime() { return totalAnalysisTime; }
@@ -121,6 +122,9 @@ public class IntegratedAnalysisResult {
         
         public Map<String, Long> getPhaseExecutionTimes() { return phaseExecutionTimes; }
         public void setPhaseExecutionTimes(Map<String, Long> phaseExecutionTimes) { this.phaseExecutionTimes = phaseExecutionTimes; }
+        
+        public Map<String, String> getPhaseStatuses() { return phaseStatuses; }
+        public void setPhaseStatuses(Map<String, String> phaseStatuses) { this.phaseStatuses = phaseStatuses; }
     }
     
     public static class StockOptimizationRecommendation {
@@ -1,5 +1,8 @@
 package com.techbookstore.app.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
 import java.time.LocalDateTime;
 
 /**
@@ -12,7 +15,9 @@ public class ReportExportDto {
     private String format; // PDF, EXCEL, CSV, JSON
     private String fileName;
     private String mimeType;
-    private byte[] fileData;
+    @JsonIgnore
+    private StreamingResponseBody content; // written straight to the response, never buffered
+    private boolean compressible;
     private long fileSize;
     private LocalDateTime exportDate;
     private String exportedBy;
@@ -43,11 +48,11 @@ public class ReportExportDto {
     public String getMimeType() { return mimeType; }
     public void setMimeType(String mimeType) { this.mimeType = mimeType; }
     
-    public byte[] getFileData() { return fileData; }
-    public void setFileData(byte[] fileData) { 
-        this.fileData = fileData;
-        this.fileSize = fileData != null ? fileData.length : 0;
-    }
+    public StreamingResponseBody getContent() { return content; }
+    public void setContent(StreamingResponseBody content) { this.content = content; }
+    
+    public boolean isCompressible() { return compressible; }
+    public void setCompressible(boolean compressible) { this.compressible = compressible; }
     
     public long getFileSize() { return fileSize; }
     public void setFileSize(long fileSize) { this.fileSize = fileSize; }
@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 public class ABCXYZAnalysis {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "abc_xyz_analysis_seq")
+    @SequenceGenerator(name = "abc_xyz_analysis_seq", sequenceName = "abc_xyz_analysis_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,159 @@
+package com.techbookstore.app.entity;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.time.LocalDateTime;
+
+/**
+ * Asynchronous integrated analysis job, tracked like a report execution
+ * 統合分析の非同期ジョブ（状態・パラメータ・結果JSONを保持）
+ */
+@Entity
+@Table(name = "analysis_jobs", indexes = {
+    @Index(name = "idx_analysis_jobs_status", columnList = "status"),
+    @Index(name = "idx_analysis_jobs_completed_at", columnList = "completed_at")
+})
+public class AnalysisJob {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_type", nullable = false, length = 30)
+    @NotNull(message = "Job type is required")
+    private JobType jobType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @NotNull(message = "Status is required")
+    private JobStatus status;
+
+    @Column(columnDefinition = "TEXT")
+    private String parameters;
+
+    @Column(name = "result_json", columnDefinition = "TEXT")
+    private String resultJson;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "submitted_at", nullable = false)
+    private LocalDateTime submittedAt;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "execution_time_ms")
+    private Long executionTimeMs;
+
+    // Enums
+    public enum JobType {
+        COMPREHENSIVE_ANALYSIS, BATCH_OPTIMIZATION
+    }
+
+    public enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isTerminal() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    // Constructors
+    public AnalysisJob() {
+        this.submittedAt = LocalDateTime.now();
+        this.status = JobStatus.QUEUED;
+    }
+
+    public AnalysisJob(String id, JobType jobType, String parameters) {
+        this();
+        this.id = id;
+        this.jobType = jobType;
+        this.parameters = parameters;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public JobType getJobType() {
+        return jobType;
+    }
+
+    public void setJobType(JobType jobType) {
+        this.jobType = jobType;
+    }
+
+    public JobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(JobStatus status) {
+        this.status = status;
+    }
+
+    public String getParameters() {
+        return parameters;
+    }
+
+    public void setParameters(String parameters) {
+        this.parameters = parameters;
+    }
+
+    public String getResultJson() {
+        return resultJson;
+    }
+
+    public void setResultJson(String resultJson) {
+        this.resultJson = resultJson;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public LocalDateTime getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(LocalDateTime submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public Long getExecutionTimeMs() {
+        return executionTimeMs;
+    }
+
+    public void setExecutionTimeMs(Long executionTimeMs) {
+        this.executionTimeMs = executionTimeMs;
+    }
+}
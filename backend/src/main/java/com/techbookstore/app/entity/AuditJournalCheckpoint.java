@@ -0,0 +1,42 @@
+package com.techbookstore.app.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Last audit journal record written to the database, updated in the same transaction as the rows
+ * 監査ジャーナルのDB反映済み位置（明細の書き込みと同一トランザクションで更新）
+ */
+@Entity
+@Table(name = "audit_journal_checkpoints")
+public class AuditJournalCheckpoint {
+
+    @Id
+    @Column(name = "journal_id", length = 36)
+    private String journalId;
+
+    @Column(name = "last_sequence", nullable = false)
+    private Long lastSequence;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public AuditJournalCheckpoint() {}
+
+    public AuditJournalCheckpoint(String journalId, Long lastSequence) {
+        this.journalId = journalId;
+        this.lastSequence = lastSequence;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getJournalId() { return journalId; }
+    public void setJournalId(String journalId) { this.journalId = journalId; }
+
+    public Long getLastSequence() { return lastSequence; }
+    public void setLastSequence(Long lastSequence) { this.lastSequence = lastSequence; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
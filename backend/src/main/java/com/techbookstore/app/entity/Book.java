@@ -5,7 +5,10 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+    // Keyset pagination: the default cursor sort key with id as tie-breaker
+    @Index(name = "idx_books_title_id", columnList = "title, id")
+})
 public class Book {
 
     @Id
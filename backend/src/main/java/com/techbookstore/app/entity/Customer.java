@@ -6,7 +6,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "customers")
+@Table(name = "customers", indexes = {
+    // Keyset pagination: the default cursor sort key with id as tie-breaker
+    @Index(name = "idx_customers_name_id", columnList = "name, id")
+})
 public class Customer {
     
     @Id
@@ -0,0 +1,73 @@
+package com.techbookstore.app.entity;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated sales fact per book and day.
+ * 書籍別・日別の売上集計（注文確定時に増分更新）
+ */
+@Entity
+@Table(name = "daily_book_sales",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"book_id", "sale_date"}),
+       indexes = @Index(name = "idx_daily_book_sales_date", columnList = "sale_date"))
+public class DailyBookSales {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "sale_date", nullable = false)
+    private LocalDate saleDate;
+
+    @Column(nullable = false)
+    private Integer quantity = 0;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "order_count", nullable = false)
+    private Integer orderCount = 0;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public DailyBookSales() {}
+
+    public DailyBookSales(Long bookId, LocalDate saleDate, Integer quantity, BigDecimal revenue, Integer orderCount) {
+        this.bookId = bookId;
+        this.saleDate = saleDate;
+        this.quantity = quantity;
+        this.revenue = revenue;
+        this.orderCount = orderCount;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getBookId() { return bookId; }
+    public void setBookId(Long bookId) { this.bookId = bookId; }
+
+    public LocalDate getSaleDate() { return saleDate; }
+    public void setSaleDate(LocalDate saleDate) { this.saleDate = saleDate; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public BigDecimal getRevenue() { return revenue; }
+    public void setRevenue(BigDecimal revenue) { this.revenue = revenue; }
+
+    public Integer getOrderCount() { return orderCount; }
+    public void setOrderCount(Integer orderCount) { this.orderCount = orderCount; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,64 @@
+package com.techbookstore.app.entity;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated store-wide sales per day.
+ * 日別売上サマリー（注文件数は書籍別集計から重複なく求められないため別管理）
+ */
+@Entity
+@Table(name = "daily_sales_summary")
+public class DailySalesSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sale_date", nullable = false, unique = true)
+    private LocalDate saleDate;
+
+    @Column(name = "order_count", nullable = false)
+    private Integer orderCount = 0;
+
+    @Column(nullable = false)
+    private Integer quantity = 0;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public DailySalesSummary() {}
+
+    public DailySalesSummary(LocalDate saleDate, Integer orderCount, Integer quantity, BigDecimal revenue) {
+        this.saleDate = saleDate;
+        this.orderCount = orderCount;
+        this.quantity = quantity;
+        this.revenue = revenue;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public LocalDate getSaleDate() { return saleDate; }
+    public void setSaleDate(LocalDate saleDate) { this.saleDate = saleDate; }
+
+    public Integer getOrderCount() { return orderCount; }
+    public void setOrderCount(Integer orderCount) { this.orderCount = orderCount; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public BigDecimal getRevenue() { return revenue; }
+    public void setRevenue(BigDecimal revenue) { this.revenue = revenue; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -67,6 +67,11 @@ public class Inventory {
     @Column(name = "days_since_last_sale")
     private Integer daysSinceLastSale;
 
+    // Optimistic lock version - bumped by entity updates and by the conditional stock UPDATEs
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+
     // Constructors
     public Inventory() {}
 
@@ -163,4 +168,7 @@ public class Inventory {
 
     public Integer getDaysSinceLastSale() { return daysSinceLastSale; }
     public void setDaysSinceLastSale(Integer daysSinceLastSale) { this.daysSinceLastSale = daysSinceLastSale; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
\ No newline at end of file
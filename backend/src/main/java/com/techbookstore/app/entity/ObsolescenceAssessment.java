@@ -10,7 +10,8 @@ import java.time.LocalDateTime;
 public class ObsolescenceAssessment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "obsolescence_assessments_seq")
+    @SequenceGenerator(name = "obsolescence_assessments_seq", sequenceName = "obsolescence_assessments_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -8,7 +8,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+    // Keyset pagination: the default cursor sort key with id as tie-breaker
+    @Index(name = "idx_orders_order_date_id", columnList = "order_date, id")
+})
 public class Order {
     
     @Id
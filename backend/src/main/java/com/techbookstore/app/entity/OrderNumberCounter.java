@@ -0,0 +1,46 @@
+package com.techbookstore.app.entity;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Per-day order number counter. Application nodes reserve blocks of numbers from this row.
+ * 日別の注文番号カウンター（各ノードはブロック単位で番号を確保）
+ */
+@Entity
+@Table(name = "order_number_counters")
+public class OrderNumberCounter {
+
+    @Id
+    @Column(name = "counter_date")
+    private LocalDate counterDate;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public OrderNumberCounter() {}
+
+    public OrderNumberCounter(LocalDate counterDate, Long nextValue) {
+        this.counterDate = counterDate;
+        this.nextValue = nextValue;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public LocalDate getCounterDate() { return counterDate; }
+    public void setCounterDate(LocalDate counterDate) { this.counterDate = counterDate; }
+
+    public Long getNextValue() { return nextValue; }
+    public void setNextValue(Long nextValue) {
+        this.nextValue = nextValue;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
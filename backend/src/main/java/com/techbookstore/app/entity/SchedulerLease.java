@@ -0,0 +1,49 @@
+package com.techbookstore.app.entity;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Named lease that lets one application node at a time run a cluster-wide background job
+ * クラスタ内で1ノードだけがバックグラウンド処理を実行するための名前付きリース
+ */
+@Entity
+@Table(name = "scheduler_leases")
+public class SchedulerLease {
+
+    @Id
+    @Column(name = "lease_name", length = 50)
+    private String leaseName;
+
+    @Column(name = "owner", length = 100, nullable = false)
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructors
+    public SchedulerLease() {}
+
+    public SchedulerLease(String leaseName, String owner, LocalDateTime expiresAt) {
+        this.leaseName = leaseName;
+        this.owner = owner;
+        this.expiresAt = expiresAt;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public String getLeaseName() { return leaseName; }
+    public void setLeaseName(String leaseName) { this.leaseName = leaseName; }
+
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
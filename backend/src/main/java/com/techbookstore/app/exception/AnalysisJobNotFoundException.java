@@ -0,0 +1,11 @@
+package com.techbookstore.app.exception;
+
+/**
+ * Exception thrown when an asynchronous analysis job is not found.
+ */
+public class AnalysisJobNotFoundException extends RuntimeException {
+    
+    public AnalysisJobNotFoundException(String jobId) {
+        super("Analysis job not found with ID: " + jobId);
+    }
+}
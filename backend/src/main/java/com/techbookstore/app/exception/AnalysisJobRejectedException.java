@@ -0,0 +1,18 @@
+package com.techbookstore.app.exception;
+
+/**
+ * Exception thrown when an analysis job cannot be queued because the executor queue is full.
+ */
+public class AnalysisJobRejectedException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public AnalysisJobRejectedException(long retryAfterSeconds, Throwable cause) {
+        super("Analysis job queue is full, retry after " + retryAfterSeconds + " seconds", cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -2,6 +2,8 @@ package com.techbookstore.app.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -79,6 +81,41 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
     
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<ErrorResponse> handleConcurrencyFailure(ConcurrencyFailureException ex) {
+        logger.warn("Concurrent modification: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+            "CONCURRENT_MODIFICATION",
+            "The resource was modified concurrently, please retry",
+            LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    @ExceptionHandler(AnalysisJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleAnalysisJobNotFound(AnalysisJobNotFoundException ex) {
+        logger.warn("Analysis job not found: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+            "ANALYSIS_JOB_NOT_FOUND",
+            ex.getMessage(),
+            LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+    
+    @ExceptionHandler(AnalysisJobRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleAnalysisJobRejected(AnalysisJobRejectedException ex) {
+        logger.warn("Analysis job rejected: {}", ex.getMessage());
+        ErrorResponse error = new ErrorResponse(
+            "TOO_MANY_ANALYSIS_JOBS",
+            ex.getMessage(),
+            LocalDateTime.now()
+        );
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(error);
+    }
+    
     @ExceptionHandler(CustomerNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleCustomerNotFound(CustomerNotFoundException ex) {
         logger.warn("Customer not found: {}", ex.getMessage());
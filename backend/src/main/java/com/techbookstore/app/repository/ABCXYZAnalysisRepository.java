@@ -3,6 +3,7 @@ package com.techbookstore.app.repository;
 import com.techbookstore.app.entity.ABCXYZAnalysis;
 import com.techbookstore.app.entity.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -50,6 +51,13 @@ public interface ABCXYZAnalysisRepository extends JpaRepository<ABCXYZAnalysis,
                                                               @Param("xyzCategory") String xyzCategory, 
                                                               @Param("analysisDate") LocalDate analysisDate);
 
+    /**
+     * Delete all analysis rows for a date (used before re-running the analysis for that date)
+     */
+    @Modifying
+    @Query("DELETE FROM ABCXYZAnalysis a WHERE a.analysisDate = :analysisDate")
+    int deleteByAnalysisDate(@Param("analysisDate") LocalDate analysisDate);
+
     /**
      * Delete old analysis data
      */
@@ -0,0 +1,64 @@
+package com.techbookstore.app.repository;
+
+import com.techbookstore.app.entity.AnalysisJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Repository for asynchronous analysis jobs.
+ * State transitions are conditional UPDATEs so a cancel and a finishing worker cannot overwrite each other.
+ */
+@Repository
+public interface AnalysisJobRepository extends JpaRepository<AnalysisJob, String> {
+
+    /**
+     * Move a queued job to RUNNING. Returns 0 when it was cancelled while waiting in the queue.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE AnalysisJob j SET j.status = com.techbookstore.app.entity.AnalysisJob$JobStatus.RUNNING, " +
+           "j.startedAt = :startedAt " +
+           "WHERE j.id = :id AND j.status = com.techbookstore.app.entity.AnalysisJob$JobStatus.QUEUED")
+    int markRunning(@Param("id") String id, @Param("startedAt") LocalDateTime startedAt);
+
+    /**
+     * Record the outcome of a running job. Returns 0 when it was cancelled in the meantime.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE AnalysisJob j SET j.status = :status, j.resultJson = :resultJson, j.errorMessage = :errorMessage, " +
+           "j.completedAt = :completedAt, j.executionTimeMs = :executionTimeMs " +
+           "WHERE j.id = :id AND j.status = com.techbookstore.app.entity.AnalysisJob$JobStatus.RUNNING")
+    int markFinished(@Param("id") String id,
+                     @Param("status") AnalysisJob.JobStatus status,
+                     @Param("resultJson") String resultJson,
+                     @Param("errorMessage") String errorMessage,
+                     @Param("completedAt") LocalDateTime completedAt,
+                     @Param("executionTimeMs") Long executionTimeMs);
+
+    /**
+     * Cancel a job that has not finished yet
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE AnalysisJob j SET j.status = com.techbookstore.app.entity.AnalysisJob$JobStatus.CANCELLED, " +
+           "j.completedAt = :completedAt WHERE j.id = :id AND j.status IN :statuses")
+    int cancel(@Param("id") String id,
+               @Param("statuses") Collection<AnalysisJob.JobStatus> statuses,
+               @Param("completedAt") LocalDateTime completedAt);
+
+    /**
+     * Delete finished jobs (and their stored results) completed before the cutoff
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AnalysisJob j WHERE j.completedAt < :cutoff")
+    int deleteCompletedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
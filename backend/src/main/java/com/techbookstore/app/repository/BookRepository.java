@@ -8,6 +8,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +27,22 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     // @Query("SELECT b FROM Book b JOIN b.bookCategories bc WHERE bc.category.id = :categoryId")
     // Page<Book> findByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
 
+    /**
+     * Fields of every book indexed by BookSearchIndex: id, title, titleEn, isbn13
+     */
+    @Query("SELECT b.id, b.title, b.titleEn, b.isbn13 FROM Book b")
+    List<Object[]> findSearchFields();
+
+    Page<Book> findByIdIn(Collection<Long> ids, Pageable pageable);
+
+    /**
+     * Attributes of every book held by the catalog snapshot, in id order:
+     * id, title, sellingPrice, publicationDate, level, publisher id
+     */
+    @Query("SELECT b.id, b.title, b.sellingPrice, b.publicationDate, b.level, p.id FROM Book b " +
+           "LEFT JOIN b.publisher p ORDER BY b.id")
+    List<Object[]> findCatalogFields();
+
     @Query("SELECT b FROM Book b WHERE b.level = :level")
     Page<Book> findByLevel(@Param("level") Book.TechLevel level, Pageable pageable);
 
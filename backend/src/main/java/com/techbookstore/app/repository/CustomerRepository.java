@@ -72,6 +72,15 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
            "LOWER(c.companyName) LIKE LOWER(CONCAT('%', :keyword, '%')))")
     Page<Customer> findByKeyword(@Param("keyword") String keyword, Pageable pageable);
     
+    /**
+     * Search fields of all non-deleted customers, for building the in-memory lookup index.
+     * 
+     * @return rows of {id, name, nameKana, email, phone, companyName}
+     */
+    @Query("SELECT c.id, c.name, c.nameKana, c.email, c.phone, c.companyName FROM Customer c " +
+           "WHERE c.status != 'DELETED'")
+    List<Object[]> findSearchFields();
+    
     /**
      * Finds customers with optional filters.
      * Only searches among non-deleted customers.
@@ -0,0 +1,61 @@
+package com.techbookstore.app.repository;
+
+import com.techbookstore.app.entity.DailyBookSales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface DailyBookSalesRepository extends JpaRepository<DailyBookSales, Long> {
+
+    /**
+     * Atomically add to an existing (book, day) row. Returns the number of rows updated.
+     */
+    @Modifying
+    @Query("UPDATE DailyBookSales d SET d.quantity = d.quantity + :quantity, d.revenue = d.revenue + :revenue, " +
+           "d.orderCount = d.orderCount + :orderCount, d.updatedAt = :updatedAt " +
+           "WHERE d.bookId = :bookId AND d.saleDate = :saleDate")
+    int increment(@Param("bookId") Long bookId,
+                  @Param("saleDate") LocalDate saleDate,
+                  @Param("quantity") int quantity,
+                  @Param("revenue") BigDecimal revenue,
+                  @Param("orderCount") int orderCount,
+                  @Param("updatedAt") LocalDateTime updatedAt);
+
+    List<DailyBookSales> findBySaleDateBetweenOrderBySaleDate(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Per-book totals for a period. Each row is [bookId, quantity, revenue].
+     */
+    @Query("SELECT d.bookId, SUM(d.quantity), SUM(d.revenue) FROM DailyBookSales d " +
+           "WHERE d.saleDate BETWEEN :startDate AND :endDate GROUP BY d.bookId")
+    List<Object[]> sumByBookBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * Per-book monthly totals for a period. Each row is [bookId, year, month, quantity, revenue].
+     */
+    @Query("SELECT d.bookId, YEAR(d.saleDate), MONTH(d.saleDate), SUM(d.quantity), SUM(d.revenue) " +
+           "FROM DailyBookSales d WHERE d.saleDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY d.bookId, YEAR(d.saleDate), MONTH(d.saleDate)")
+    List<Object[]> sumMonthlyByBookBetween(@Param("startDate") LocalDate startDate,
+                                           @Param("endDate") LocalDate endDate);
+
+    /**
+     * Per-book daily rows for a period without loading entities. Each row is [bookId, saleDate, quantity, revenue].
+     */
+    @Query("SELECT d.bookId, d.saleDate, d.quantity, d.revenue FROM DailyBookSales d " +
+           "WHERE d.saleDate BETWEEN :startDate AND :endDate")
+    List<Object[]> findDailyRowsBetween(@Param("startDate") LocalDate startDate,
+                                        @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query("DELETE FROM DailyBookSales d WHERE d.saleDate BETWEEN :startDate AND :endDate")
+    int deleteBySaleDateBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
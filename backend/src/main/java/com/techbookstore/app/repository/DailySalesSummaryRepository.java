@@ -0,0 +1,65 @@
+package com.techbookstore.app.repository;
+
+import com.techbookstore.app.entity.DailySalesSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DailySalesSummaryRepository extends JpaRepository<DailySalesSummary, Long> {
+
+    /**
+     * Atomically add to an existing day row. Returns the number of rows updated.
+     */
+    @Modifying
+    @Query("UPDATE DailySalesSummary s SET s.orderCount = s.orderCount + :orderCount, " +
+           "s.quantity = s.quantity + :quantity, s.revenue = s.revenue + :revenue, s.updatedAt = :updatedAt " +
+           "WHERE s.saleDate = :saleDate")
+    int increment(@Param("saleDate") LocalDate saleDate,
+                  @Param("orderCount") int orderCount,
+                  @Param("quantity") int quantity,
+                  @Param("revenue") BigDecimal revenue,
+                  @Param("updatedAt") LocalDateTime updatedAt);
+
+    List<DailySalesSummary> findBySaleDateBetweenOrderBySaleDate(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Row-lock the day rows of a period; increments of those days wait until the lock holder completes
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM DailySalesSummary s WHERE s.saleDate BETWEEN :startDate AND :endDate")
+    List<DailySalesSummary> findBySaleDateBetweenForUpdate(@Param("startDate") LocalDate startDate,
+                                                         @Param("endDate") LocalDate endDate);
+
+    /**
+     * Overwrite the totals of an existing day row. Returns the number of rows updated.
+     */
+    @Modifying
+    @Query("UPDATE DailySalesSummary s SET s.orderCount = :orderCount, s.quantity = :quantity, " +
+           "s.revenue = :revenue, s.updatedAt = :updatedAt WHERE s.saleDate = :saleDate")
+    int replaceTotals(@Param("saleDate") LocalDate saleDate,
+                      @Param("orderCount") int orderCount,
+                      @Param("quantity") int quantity,
+                      @Param("revenue") BigDecimal revenue,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Query("SELECT COALESCE(SUM(s.revenue), 0) FROM DailySalesSummary s WHERE s.saleDate BETWEEN :startDate AND :endDate")
+    BigDecimal sumRevenueBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT COALESCE(SUM(s.orderCount), 0) FROM DailySalesSummary s WHERE s.saleDate BETWEEN :startDate AND :endDate")
+    Long sumOrderCountBetween(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query("DELETE FROM DailySalesSummary s WHERE s.saleDate IN :saleDates")
+    int deleteBySaleDateIn(@Param("saleDates") Collection<LocalDate> saleDates);
+}
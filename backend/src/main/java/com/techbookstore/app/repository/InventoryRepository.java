@@ -2,9 +2,15 @@ package com.techbookstore.app.repository;
 
 import com.techbookstore.app.entity.Inventory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,9 +19,91 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
 
     Optional<Inventory> findByBookId(Long bookId);
 
+    /**
+     * Total stock (store + warehouse) of every book with an inventory row; each row is [bookId, totalStock]
+     * 書籍別の総在庫数（店頭＋倉庫）
+     */
+    @Query("SELECT i.book.id, COALESCE(i.storeStock, 0) + COALESCE(i.warehouseStock, 0) FROM Inventory i")
+    List<Object[]> findTotalStockByBook();
+
+    /**
+     * Same as {@link #findTotalStockByBook} restricted to the given books.
+     */
+    @Query("SELECT i.book.id, COALESCE(i.storeStock, 0) + COALESCE(i.warehouseStock, 0) FROM Inventory i " +
+           "WHERE i.book.id IN :bookIds")
+    List<Object[]> findTotalStockByBookIn(@Param("bookIds") Collection<Long> bookIds);
+
+    /**
+     * Lock the inventory rows of several books in one query. Rows are locked in id order
+     * so concurrent batches cannot deadlock each other.
+     * 複数書籍の在庫行を1クエリでID順に行ロック
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i JOIN FETCH i.book WHERE i.book.id IN :bookIds ORDER BY i.id")
+    List<Inventory> findByBookIdInForUpdate(@Param("bookIds") Collection<Long> bookIds);
+
     @Query("SELECT i FROM Inventory i WHERE i.reorderPoint IS NOT NULL AND (i.storeStock + i.warehouseStock) <= i.reorderPoint")
     List<Inventory> findLowStockItems();
 
     @Query("SELECT i FROM Inventory i WHERE (i.storeStock + i.warehouseStock) <= 0")
     List<Inventory> findOutOfStockItems();
-}
\ No newline at end of file
+
+    /**
+     * Inventory without a sale for more than the given number of days or never sold, never sold first, then longest
+     * (days_since_last_sale is kept up to date by the planning job; rows it has not planned yet are left out)
+     * 指定日数を超えて販売のない在庫・未販売の在庫（夜間計画ジョブが更新する最終販売からの日数を参照）
+     */
+    @Query("SELECT i FROM Inventory i JOIN FETCH i.book WHERE i.daysSinceLastSale > :days " +
+           "OR (i.daysSinceLastSale IS NULL AND i.turnoverRate IS NOT NULL) " +
+           "ORDER BY CASE WHEN i.daysSinceLastSale IS NULL THEN 0 ELSE 1 END, i.daysSinceLastSale DESC, i.id")
+    List<Inventory> findDeadStock(@Param("days") int days);
+
+    /**
+     * Atomically take stock for a confirmed order: decrement store stock only while available stock covers the quantity
+     * 有効在庫が足りる場合のみ店頭在庫を減算（条件付きUPDATE）
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Inventory i SET i.storeStock = i.storeStock - :quantity, i.version = i.version + 1 " +
+           "WHERE i.book.id = :bookId AND (i.storeStock + i.warehouseStock - i.reservedCount) >= :quantity")
+    int deductAvailableStock(@Param("bookId") Long bookId, @Param("quantity") int quantity);
+
+    /**
+     * Atomically sell from the store shelf: requires both store stock and available stock to cover the quantity
+     * 店頭在庫・有効在庫の両方が足りる場合のみ販売分を減算
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Inventory i SET i.storeStock = i.storeStock - :quantity, i.lastSoldDate = :soldDate, " +
+           "i.version = i.version + 1 " +
+           "WHERE i.book.id = :bookId AND i.storeStock >= :quantity " +
+           "AND (i.storeStock + i.warehouseStock - i.reservedCount) >= :quantity")
+    int sellFromStore(@Param("bookId") Long bookId, @Param("quantity") int quantity,
+                      @Param("soldDate") LocalDate soldDate);
+
+    /**
+     * Atomically add to the reserved count while available stock covers the quantity
+     * 有効在庫が足りる場合のみ引当数を加算
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Inventory i SET i.reservedCount = i.reservedCount + :quantity, i.version = i.version + 1 " +
+           "WHERE i.id = :inventoryId AND (i.storeStock + i.warehouseStock - i.reservedCount) >= :quantity")
+    int reserveAvailableStock(@Param("inventoryId") Long inventoryId, @Param("quantity") int quantity);
+
+    /**
+     * Atomically release reserved stock, never taking the reserved count below zero
+     * 引当数を減算（0未満にはしない）
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Inventory i SET i.reservedCount = i.reservedCount - :quantity, i.version = i.version + 1 " +
+           "WHERE i.id = :inventoryId AND i.reservedCount >= :quantity")
+    int releaseReservedStock(@Param("inventoryId") Long inventoryId, @Param("quantity") int quantity);
+
+    /**
+     * Release reserved stock in bulk (expired reservations); a reserved count that has drifted below the
+     * quantity goes to zero instead of failing
+     * 引当数の一括減算（期限切れ引当の解除用、0未満にはしない）
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Inventory i SET i.reservedCount = CASE WHEN i.reservedCount > :quantity " +
+           "THEN (i.reservedCount - :quantity) ELSE 0 END, i.version = i.version + 1 WHERE i.id = :inventoryId")
+    int releaseReservedStockAtMost(@Param("inventoryId") Long inventoryId, @Param("quantity") int quantity);
+}
@@ -2,12 +2,17 @@ package com.techbookstore.app.repository;
 
 import com.techbookstore.app.entity.InventoryReservation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface InventoryReservationRepository extends JpaRepository<InventoryReservation, Long> {
@@ -23,4 +28,36 @@ public interface InventoryReservationRepository extends JpaRepository<InventoryR
 
     @Query("SELECT SUM(ir.reservedQuantity) FROM InventoryReservation ir WHERE ir.inventory.id = :inventoryId AND ir.status = 'ACTIVE'")
     Integer getTotalReservedQuantityByInventoryId(@Param("inventoryId") Long inventoryId);
-}
\ No newline at end of file
+
+    /**
+     * Load one reservation with a row lock, so a manual release and the expiry sweep cannot both release it
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ir FROM InventoryReservation ir WHERE ir.id = :id")
+    Optional<InventoryReservation> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * [id, reservedUntil] of active reservations with an expiry time and an id above the given one, in id order
+     * 期限付きの有効な引当（指定ID以降）
+     */
+    @Query("SELECT ir.id, ir.reservedUntil FROM InventoryReservation ir " +
+           "WHERE ir.status = 'ACTIVE' AND ir.reservedUntil IS NOT NULL AND ir.id > :afterId ORDER BY ir.id")
+    List<Object[]> findActiveExpiryTimesAfter(@Param("afterId") Long afterId);
+
+    @Query("SELECT ir.id FROM InventoryReservation ir WHERE ir.status = 'ACTIVE' AND ir.reservedUntil < :currentTime")
+    List<Long> findExpiredReservationIds(@Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Lock the reservations among the given ids that are still active and past their expiry time, in id order
+     * 期限切れの有効な引当をID順に行ロック
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ir FROM InventoryReservation ir " +
+           "WHERE ir.id IN :ids AND ir.status = 'ACTIVE' AND ir.reservedUntil <= :currentTime ORDER BY ir.id")
+    List<InventoryReservation> findExpiredByIdInForUpdate(@Param("ids") Collection<Long> ids,
+                                                          @Param("currentTime") LocalDateTime currentTime);
+
+    @Modifying
+    @Query("UPDATE InventoryReservation ir SET ir.status = 'EXPIRED', ir.releasedAt = :releasedAt WHERE ir.id IN :ids")
+    int markExpired(@Param("ids") Collection<Long> ids, @Param("releasedAt") LocalDateTime releasedAt);
+}
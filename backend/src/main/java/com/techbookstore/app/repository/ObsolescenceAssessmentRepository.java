@@ -3,6 +3,7 @@ package com.techbookstore.app.repository;
 import com.techbookstore.app.entity.ObsolescenceAssessment;
 import com.techbookstore.app.entity.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -42,6 +43,13 @@ public interface ObsolescenceAssessmentRepository extends JpaRepository<Obsolesc
      */
     List<ObsolescenceAssessment> findByAssessmentDateOrderByRiskScoreDesc(LocalDate assessmentDate);
 
+    /**
+     * Delete all assessments for a date (used before re-running the analysis for that date)
+     */
+    @Modifying
+    @Query("DELETE FROM ObsolescenceAssessment o WHERE o.assessmentDate = :assessmentDate")
+    int deleteByAssessmentDate(@Param("assessmentDate") LocalDate assessmentDate);
+
     /**
      * Delete old assessment data
      */
@@ -0,0 +1,23 @@
+package com.techbookstore.app.repository;
+
+import com.techbookstore.app.entity.OrderNumberCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.Optional;
+
+@Repository
+public interface OrderNumberCounterRepository extends JpaRepository<OrderNumberCounter, LocalDate> {
+
+    /**
+     * Load the counter row with a row lock so concurrent nodes reserve disjoint blocks
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM OrderNumberCounter c WHERE c.counterDate = :counterDate")
+    Optional<OrderNumberCounter> findForUpdate(@Param("counterDate") LocalDate counterDate);
+}
@@ -5,12 +5,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
@@ -27,6 +33,53 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByOrderDateBetween(@Param("startDate") LocalDateTime startDate, 
                                       @Param("endDate") LocalDateTime endDate);
     
+    /**
+     * Aggregate ordered quantity per book and calendar month in a single pass.
+     * Each row is [bookId, year, month, quantity].
+     */
+    @Query("SELECT oi.book.id, YEAR(o.orderDate), MONTH(o.orderDate), SUM(oi.quantity) " +
+           "FROM Order o JOIN o.orderItems oi " +
+           "WHERE o.orderDate >= :startDate AND o.orderDate <= :endDate " +
+           "GROUP BY oi.book.id, YEAR(o.orderDate), MONTH(o.orderDate)")
+    List<Object[]> aggregateMonthlyDemand(@Param("startDate") LocalDateTime startDate,
+                                          @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * Same as {@link #aggregateMonthlyDemand} restricted to the given books.
+     */
+    @Query("SELECT oi.book.id, YEAR(o.orderDate), MONTH(o.orderDate), SUM(oi.quantity) " +
+           "FROM Order o JOIN o.orderItems oi " +
+           "WHERE o.orderDate >= :startDate AND o.orderDate <= :endDate AND oi.book.id IN :bookIds " +
+           "GROUP BY oi.book.id, YEAR(o.orderDate), MONTH(o.orderDate)")
+    List<Object[]> aggregateMonthlyDemandForBooks(@Param("startDate") LocalDateTime startDate,
+                                                  @Param("endDate") LocalDateTime endDate,
+                                                  @Param("bookIds") Collection<Long> bookIds);
+    
+    /**
+     * Per-book daily sales for aggregation, summed in the database and ordered by day.
+     * Each row is [saleDate, bookId, quantity, revenue, orderCount].
+     * Streamed through a cursor; the caller must consume it in a transaction and close it.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT CAST(o.orderDate AS date), oi.book.id, SUM(oi.quantity), SUM(oi.totalPrice), COUNT(DISTINCT o.id) " +
+           "FROM Order o JOIN o.orderItems oi " +
+           "WHERE o.orderDate >= :startDate AND o.orderDate < :endDate AND o.status IN :statuses " +
+           "GROUP BY CAST(o.orderDate AS date), oi.book.id ORDER BY CAST(o.orderDate AS date)")
+    Stream<Object[]> streamDailyBookSales(@Param("startDate") LocalDateTime startDate,
+                                          @Param("endDate") LocalDateTime endDate,
+                                          @Param("statuses") Collection<Order.OrderStatus> statuses);
+
+    /**
+     * Number of distinct orders with at least one line per day. Each row is [saleDate, orderCount].
+     */
+    @Query("SELECT CAST(o.orderDate AS date), COUNT(DISTINCT o.id) " +
+           "FROM Order o JOIN o.orderItems oi " +
+           "WHERE o.orderDate >= :startDate AND o.orderDate < :endDate AND o.status IN :statuses " +
+           "GROUP BY CAST(o.orderDate AS date)")
+    List<Object[]> countOrdersByDay(@Param("startDate") LocalDateTime startDate,
+                                    @Param("endDate") LocalDateTime endDate,
+                                    @Param("statuses") Collection<Order.OrderStatus> statuses);
+    
     @Query("SELECT o FROM Order o WHERE " +
            "(:status IS NULL OR o.status = :status) AND " +
            "(:type IS NULL OR o.type = :type) AND " +
@@ -40,6 +93,15 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                                      @Param("endDate") LocalDateTime endDate,
                                      Pageable pageable);
     
+    /**
+     * Load orders with their lines and books in one query (batch confirmation)
+     */
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.book WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT o.orderNumber FROM Order o WHERE o.orderNumber LIKE CONCAT(:prefix, '%')")
+    List<String> findOrderNumbersByPrefix(@Param("prefix") String prefix);
+    
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status")
     Long countByStatus(@Param("status") Order.OrderStatus status);
     
@@ -0,0 +1,33 @@
+package com.techbookstore.app.repository;
+
+import com.techbookstore.app.entity.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    /**
+     * Take or renew the lease when this node already holds it or the holder let it expire
+     * 自ノードが保持中、または期限切れのリースを取得・延長
+     */
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.owner = :owner, l.expiresAt = :expiresAt, l.updatedAt = :now " +
+           "WHERE l.leaseName = :leaseName AND (l.owner = :owner OR l.expiresAt < :now)")
+    int acquire(@Param("leaseName") String leaseName, @Param("owner") String owner,
+                @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Give the lease up early so another node can take over without waiting for it to expire
+     */
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.expiresAt = :now, l.updatedAt = :now " +
+           "WHERE l.leaseName = :leaseName AND l.owner = :owner")
+    int release(@Param("leaseName") String leaseName, @Param("owner") String owner,
+                @Param("now") LocalDateTime now);
+}
@@ -1,12 +1,9 @@
 package com.techbookstore.app.service;
 
+import com.techbookstore.app.config.MetricsConfiguration;
 import com.techbookstore.app.entity.ABCXYZAnalysis;
-import com.techbookstore.app.entity.Book;
-import com.techbookstore.app.entity.Inventory;
 import com.techbookstore.app.repository.ABCXYZAnalysisRepository;
-import com.techbookstore.app.repository.BookRepository;
-import com.techbookstore.app.repository.InventoryRepository;
-import com.techbookstore.app.repository.OrderRepository;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -29,13 +26,14 @@ public class ABCXYZAnalysisService {
     private static final Logger logger = LoggerFactory.getLogger(ABCXYZAnalysisService.class);
 
     private final ABCXYZAnalysisRepository abcxyzRepository;
-    private final BookRepository bookRepository;
-    private final InventoryRepository inventoryRepository;
-    private final OrderRepository orderRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final SalesSeriesService salesSeriesService;
+    private final AnalysisResultWriter analysisResultWriter;
+    private final ABCXYZClassificationTracker classificationTracker;
 
     // ABC分析の閾値 (A: 20%, B: 60%, C: 20%)
-    private static final double ABC_A_THRESHOLD = 0.20;
-    private static final double ABC_B_THRESHOLD = 0.80;
+    static final double ABC_A_THRESHOLD = 0.20;
+    static final double ABC_B_THRESHOLD = 0.80;
 
     // XYZ分析の変動係数閾値 (X: <0.5, Y: 0.5-1.0, Z: >1.0)
     private static final double XYZ_X_THRESHOLD = 0.5;
@@ -46,19 +44,22 @@ public class ABCXYZAnalysisService {
     private static final BigDecimal MINIMUM_SALES_THRESHOLD = BigDecimal.valueOf(100);
 
     public ABCXYZAnalysisService(ABCXYZAnalysisRepository abcxyzRepository,
-                                BookRepository bookRepository,
-                                InventoryRepository inventoryRepository,
-                                OrderRepository orderRepository) {
+                                CatalogSnapshotService catalogSnapshotService,
+                                SalesSeriesService salesSeriesService,
+                                AnalysisResultWriter analysisResultWriter,
+                                ABCXYZClassificationTracker classificationTracker) {
         this.abcxyzRepository = abcxyzRepository;
-        this.bookRepository = bookRepository;
-        this.inventoryRepository = inventoryRepository;
-        this.orderRepository = orderRepository;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.salesSeriesService = salesSeriesService;
+        this.analysisResultWriter = analysisResultWriter;
+        this.classificationTracker = classificationTracker;
     }
 
     /**
      * Perform comprehensive ABC/XYZ analysis for all books
      * 全書籍に対してABC/XYZ分析を実行
      */
+    @Timed(value = MetricsConfiguration.ANALYSIS_TIMER, extraTags = {"path", "abcxyz"}, histogram = true)
     public List<ABCXYZAnalysis> performAnalysis(LocalDate analysisDate) {
         if (analysisDate == null) {
             throw new IllegalArgumentException("Analysis date cannot be null");
@@ -67,48 +68,54 @@ public class ABCXYZAnalysisService {
         logger.info("Starting ABC/XYZ analysis for date: {}", analysisDate);
 
         try {
-            // Get all books with inventory
-            List<Book> books = bookRepository.findAll();
+            // Books from the shared catalog snapshot, no catalog query per run
+            CatalogSnapshotService.CatalogSnapshot catalog = catalogSnapshotService.current();
             
-            if (books.isEmpty()) {
+            if (catalog.isEmpty()) {
                 logger.warn("No books found for ABC/XYZ analysis");
                 return new ArrayList<>();
             }
             
+            // One monthly series (quantity and revenue per book) drives both classifications
+            SalesSeriesService.SalesSeries series = salesSeriesService.monthly(
+                catalog, analysisDate.minusMonths(ANALYSIS_PERIOD_MONTHS), analysisDate);
+            
             // Calculate sales contribution for ABC analysis
-            Map<Long, BigDecimal> salesContributions = calculateSalesContributions(books, analysisDate);
+            Map<Long, BigDecimal> salesContributions = calculateSalesContributions(series);
             
-            // Calculate demand variability for XYZ analysis
-            Map<Long, BigDecimal> demandVariabilities = calculateDemandVariabilities(books, analysisDate);
+            // Calculate demand variability for XYZ analysis (indexed like the catalog)
+            double[] demandVariabilities = series.coefficientsOfVariation();
             
             // Perform ABC classification
             Map<Long, String> abcClassifications = performAbcAnalysis(salesContributions);
             
-            // Perform XYZ classification
-            Map<Long, String> xyzClassifications = performXyzAnalysis(demandVariabilities);
-            
-            // Create and save analysis results
+            // Create analysis results
             List<ABCXYZAnalysis> results = new ArrayList<>();
             
-            for (Book book : books) {
-                if (salesContributions.containsKey(book.getId())) {
+            for (int i = 0; i < catalog.size(); i++) {
+                Long bookId = catalog.id(i);
+                if (salesContributions.containsKey(bookId)) {
                     try {
                         ABCXYZAnalysis analysis = new ABCXYZAnalysis(
-                            book,
-                            abcClassifications.get(book.getId()),
-                            xyzClassifications.get(book.getId()),
-                            salesContributions.get(book.getId()),
-                            demandVariabilities.get(book.getId()),
+                            catalog.toBook(i),
+                            abcClassifications.get(bookId),
+                            classifyXyz(demandVariabilities[i]),
+                            salesContributions.get(bookId),
+                            BigDecimal.valueOf(demandVariabilities[i]).setScale(4, RoundingMode.HALF_UP),
                             analysisDate
                         );
                         
-                        results.add(abcxyzRepository.save(analysis));
+                        results.add(analysis);
                     } catch (Exception e) {
-                        logger.error("Failed to save ABC/XYZ analysis for book ID: {}", book.getId(), e);
+                        logger.error("Failed to build ABC/XYZ analysis for book ID: {}", bookId, e);
                     }
                 }
             }
             
+            // Replace any earlier results for the same date with one batched write
+            results = analysisResultWriter.replaceAll(
+                () -> abcxyzRepository.deleteByAnalysisDate(analysisDate), results);
+            
             logger.info("Completed ABC/XYZ analysis for {} books", results.size());
             return results;
             
@@ -122,25 +129,16 @@ public class ABCXYZAnalysisService {
      * Calculate sales contribution for each book (for ABC analysis)
      * 各書籍の売上貢献度を計算（ABC分析用）
      */
-    private Map<Long, BigDecimal> calculateSalesContributions(List<Book> books, LocalDate analysisDate) {
+    private Map<Long, BigDecimal> calculateSalesContributions(SalesSeriesService.SalesSeries series) {
         Map<Long, BigDecimal> contributions = new HashMap<>();
         
-        // Calculate total sales for the analysis period (last 12 months)
-        LocalDate startDate = analysisDate.minusMonths(ANALYSIS_PERIOD_MONTHS);
-        
-        for (Book book : books) {
-            try {
-                // Mock implementation - in real system, calculate from order data
-                BigDecimal bookSales = calculateBookSalesValue(book.getId(), startDate, analysisDate);
-                
-                // Only include books with sales above minimum threshold
-                if (bookSales.compareTo(MINIMUM_SALES_THRESHOLD) >= 0) {
-                    contributions.put(book.getId(), bookSales);
-                }
-            } catch (Exception e) {
-                logger.warn("Failed to calculate sales contribution for book ID: {}", book.getId(), e);
-                // Continue with other books
-            }
+        // Revenue per book over the analysis period (last 12 months)
+        for (int row = 0; row < series.rows(); row++) {
+            BigDecimal bookSalesValue = series.totalRevenue(row);
+            
+            // Books below the minimum sales threshold contribute nothing and fall into class C
+            contributions.put(series.bookId(row), 
+                bookSalesValue.compareTo(MINIMUM_SALES_THRESHOLD) >= 0 ? bookSalesValue : BigDecimal.ZERO);
         }
         
         // Calculate total sales
@@ -159,24 +157,6 @@ public class ABCXYZAnalysisService {
         return contributions;
     }
 
-    /**
-     * Calculate demand variability for each book (for XYZ analysis)
-     * 各書籍の需要変動性を計算（XYZ分析用）
-     */
-    private Map<Long, BigDecimal> calculateDemandVariabilities(List<Book> books, LocalDate analysisDate) {
-        Map<Long, BigDecimal> variabilities = new HashMap<>();
-        
-        LocalDate startDate = analysisDate.minusMonths(12);
-        
-        for (Book book : books) {
-            List<Integer> monthlyDemands = calculateMonthlyDemands(book.getId(), startDate, analysisDate);
-            BigDecimal coefficientOfVariation = calculateCoefficientOfVariation(monthlyDemands);
-            variabilities.put(book.getId(), coefficientOfVariation);
-        }
-        
-        return variabilities;
-    }
-
     /**
      * Perform ABC classification based on sales contributions
      * 売上貢献度に基づくABC分類を実行
@@ -196,7 +176,9 @@ public class ABCXYZAnalysisService {
             double cumulative = cumulativePercentage.doubleValue();
             
             String classification;
-            if (cumulative <= ABC_A_THRESHOLD * 100) {
+            if (entry.getValue().signum() == 0) {
+                classification = "C";
+            } else if (cumulative <= ABC_A_THRESHOLD * 100) {
                 classification = "A";
             } else if (cumulative <= ABC_B_THRESHOLD * 100) {
                 classification = "B";
@@ -211,95 +193,45 @@ public class ABCXYZAnalysisService {
     }
 
     /**
-     * Perform XYZ classification based on demand variability
-     * 需要変動性に基づくXYZ分類を実行
+     * XYZ class of a demand coefficient of variation
+     * 変動係数に基づくXYZ分類
      */
-    private Map<Long, String> performXyzAnalysis(Map<Long, BigDecimal> demandVariabilities) {
-        Map<Long, String> classifications = new HashMap<>();
-        
-        for (Map.Entry<Long, BigDecimal> entry : demandVariabilities.entrySet()) {
-            double variability = entry.getValue().doubleValue();
-            
-            String classification;
-            if (variability < XYZ_X_THRESHOLD) {
-                classification = "X";  // Stable demand
-            } else if (variability < XYZ_Y_THRESHOLD) {
-                classification = "Y";  // Variable demand
-            } else {
-                classification = "Z";  // Irregular demand
-            }
-            
-            classifications.put(entry.getKey(), classification);
+    static String classifyXyz(double variability) {
+        if (variability < XYZ_X_THRESHOLD) {
+            return "X";  // Stable demand
+        } else if (variability < XYZ_Y_THRESHOLD) {
+            return "Y";  // Variable demand
         }
-        
-        return classifications;
+        return "Z";      // Irregular demand
     }
 
     /**
-     * Calculate book sales value for a period
-     * 期間の書籍売上額を計算
-     */
-    private BigDecimal calculateBookSalesValue(Long bookId, LocalDate startDate, LocalDate endDate) {
-        // Mock implementation - replace with actual order data query
-        Random random = new Random(bookId);
-        double salesValue = 10000 + random.nextDouble() * 50000; // Random sales between 10k-60k
-        return BigDecimal.valueOf(salesValue).setScale(2, RoundingMode.HALF_UP);
-    }
-
-    /**
-     * Calculate monthly demands for coefficient of variation
-     * 変動係数計算用の月次需要を計算
-     */
-    private List<Integer> calculateMonthlyDemands(Long bookId, LocalDate startDate, LocalDate endDate) {
-        // Mock implementation - replace with actual demand data
-        List<Integer> demands = new ArrayList<>();
-        Random random = new Random(bookId);
-        
-        LocalDate current = startDate;
-        while (!current.isAfter(endDate)) {
-            int baseDemand = 10 + random.nextInt(20); // Base demand 10-30
-            int variability = random.nextInt(10) - 5; // Variability -5 to +5
-            demands.add(Math.max(0, baseDemand + variability));
-            current = current.plusMonths(1);
-        }
-        
-        return demands;
-    }
-
-    /**
-     * Calculate coefficient of variation
-     * 変動係数を計算
-     */
-    private BigDecimal calculateCoefficientOfVariation(List<Integer> values) {
-        if (values.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-        
-        double mean = values.stream().mapToInt(Integer::intValue).average().orElse(0.0);
-        
-        if (mean == 0) {
-            return BigDecimal.ZERO;
-        }
-        
-        double variance = values.stream()
-            .mapToDouble(v -> Math.pow(v - mean, 2))
-            .average()
-            .orElse(0.0);
-        
-        double standardDeviation = Math.sqrt(variance);
-        double coefficientOfVariation = standardDeviation / mean;
-        
-        return BigDecimal.valueOf(coefficientOfVariation).setScale(4, RoundingMode.HALF_UP);
-    }
-
-    /**
-     * Get latest analysis results
-     * 最新の分析結果を取得
+     * Get latest analysis results: the live classes kept up to date with every order, highest contribution first.
+     * Nothing is recomputed or written; before the tracker has loaded, today's stored results are returned.
+     * 最新の分析結果を取得（注文ごとに差分更新された現在の分類）
      */
     @Transactional(readOnly = true)
     public List<ABCXYZAnalysis> getLatestAnalysis() {
         LocalDate latestDate = LocalDate.now();
-        return abcxyzRepository.findByAnalysisDateOrderBySalesContributionDesc(latestDate);
+        if (!classificationTracker.isReady()) {
+            return abcxyzRepository.findByAnalysisDateOrderBySalesContributionDesc(latestDate);
+        }
+        
+        CatalogSnapshotService.CatalogSnapshot catalog = catalogSnapshotService.current();
+        List<ABCXYZAnalysis> results = new ArrayList<>(catalog.size());
+        for (int i = 0; i < catalog.size(); i++) {
+            ABCXYZClassificationTracker.Classification classification = classificationTracker.classify(catalog.id(i));
+            results.add(new ABCXYZAnalysis(
+                catalog.toBook(i),
+                classification.getAbcCategory(),
+                classification.getXyzCategory(),
+                classification.getSalesContribution(),
+                classification.getDemandVariability(),
+                latestDate
+            ));
+        }
+        results.sort(Comparator.comparing(ABCXYZAnalysis::getSalesContribution).reversed());
+        return results;
     }
 
     /**
@@ -0,0 +1,556 @@
+package com.techbookstore.app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Live ABC/XYZ classes maintained incrementally from confirmed (and cancelled) orders
+ * 注文確定のたびに差分更新するABC/XYZ分類（リアルタイム）
+ *
+ * Every book keeps rolling monthly buckets for the current month and the 12 before it, a running
+ * Welford mean and sum of squared deviations of its monthly quantities (XYZ), and its revenue over the
+ * window. Books are ranked by revenue in a sorted set; the A and B Pareto cutoffs are kept as pointers into
+ * that ranking together with the revenue above them, and move only a few places when a sale changes a
+ * book's revenue. Looking up a book's classes is then a comparison against the two cutoffs.
+ *
+ * A full recompute from the daily sales aggregates runs at startup and on a schedule; it replaces the
+ * incremental state and reports how many books had drifted to a different class. Sales recorded while it
+ * reads are replayed onto the result only if they committed after its snapshot: sale transactions announce
+ * their commit ({@link #beginCommit}), the recompute waits for the commits in flight, starts collecting
+ * and takes its repeatable-read snapshot while new commits are held back for that moment.
+ */
+@Service
+public class ABCXYZClassificationTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ABCXYZClassificationTracker.class);
+
+    /** The current month and the 12 months before it, like the batch analysis */
+    static final int WINDOW_MONTHS = 13;
+
+    /** Books below 100 yen of revenue contribute nothing and are class C (in hundredths of a yen) */
+    private static final long MINIMUM_REVENUE = 10000L;
+
+    /** Longest wait of a recompute for the sale commits in flight before it takes its snapshot */
+    private static final long COMMIT_DRAIN_TIMEOUT_MS = 5000L;
+
+    private final SalesSeriesService salesSeriesService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTemplate;
+
+    private State state;
+
+    /** Sales committed after the snapshot of the running recompute, replayed onto the recomputed state */
+    private List<Object[]> pendingDuringRebuild;
+
+    /** Sale transactions between {@link #beginCommit} and {@link #endCommit} */
+    private int commitsInFlight;
+
+    /** Set while a recompute takes its snapshot; {@link #beginCommit} waits until it is taken */
+    private boolean snapshotting;
+
+    private final Object monitor = new Object();
+
+    public ABCXYZClassificationTracker(SalesSeriesService salesSeriesService,
+                                       CatalogSnapshotService catalogSnapshotService,
+                                       DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.salesSeriesService = salesSeriesService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setReadOnly(true);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Full recompute from the daily sales aggregates, also the consistency check of the incremental state
+     * 日次売上集計から全件再計算（差分更新の整合性チェックを兼ねる）
+     */
+    @Scheduled(cron = "${app.abcxyz.consistency-check-cron:0 10 2 * * *}")
+    public void rebuild() {
+        rebuild(YearMonth.now());
+    }
+
+    void rebuild(YearMonth currentMonth) {
+        long startTime = System.currentTimeMillis();
+        State rebuilt;
+        try {
+            rebuilt = snapshotTemplate.execute(status -> {
+                takeSnapshot();
+                return State.of(salesSeriesService.monthly(catalogSnapshotService.current(),
+                    currentMonth.minusMonths(WINDOW_MONTHS - 1L).atDay(1), currentMonth.atEndOfMonth()),
+                    currentMonth);
+            });
+        } catch (RuntimeException e) {
+            synchronized (monitor) {
+                pendingDuringRebuild = null;
+            }
+            throw e;
+        }
+        int drifted;
+        synchronized (monitor) {
+            for (Object[] sale : pendingDuringRebuild) {
+                rebuilt.add((LocalDate) sale[0], (Long) sale[1], (Integer) sale[2], (Long) sale[3]);
+            }
+            pendingDuringRebuild = null;
+            if (state != null) {
+                state.rollTo(currentMonth);
+                drifted = state.countDifferences(rebuilt);
+            } else {
+                drifted = 0;
+            }
+            state = rebuilt;
+        }
+        if (drifted > 0) {
+            logger.warn("ABC/XYZ consistency check: {} books had drifted from the recomputed classes", drifted);
+        }
+        logger.info("ABC/XYZ classes recomputed for {} books with sales in {}ms",
+            rebuilt.books.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Fix the snapshot of the recompute's transaction with its first statement at a moment no sale commit is
+     * in flight: every sale recorded before is in the snapshot, every sale recorded after is pending
+     */
+    private void takeSnapshot() {
+        synchronized (monitor) {
+            snapshotting = true;
+            try {
+                long deadline = System.currentTimeMillis() + COMMIT_DRAIN_TIMEOUT_MS;
+                long remaining = COMMIT_DRAIN_TIMEOUT_MS;
+                while (commitsInFlight > 0 && remaining > 0) {
+                    monitor.wait(remaining);
+                    remaining = deadline - System.currentTimeMillis();
+                }
+                if (commitsInFlight > 0) {
+                    // They may end up counted twice until the next recompute
+                    logger.warn("ABC/XYZ recompute: {} sale commits still in flight after {}ms",
+                        commitsInFlight, COMMIT_DRAIN_TIMEOUT_MS);
+                }
+                pendingDuringRebuild = new ArrayList<>();
+                jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for sale commits", e);
+            } finally {
+                snapshotting = false;
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * A sale transaction is about to commit; its {@link #record} calls follow after the commit
+     * 売上トランザクションのコミット開始を通知（再計算のスナップショット取得中は待機）
+     */
+    public void beginCommit() {
+        synchronized (monitor) {
+            boolean interrupted = false;
+            while (snapshotting) {
+                try {
+                    monitor.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            commitsInFlight++;
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The sale transaction announced by {@link #beginCommit} has completed, committed or not
+     */
+    public void endCommit() {
+        synchronized (monitor) {
+            commitsInFlight--;
+            if (commitsInFlight == 0) {
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Apply one book line of a sale (negative quantity and revenue for a cancelled sale)
+     * 売上明細1件を分類状態に反映
+     */
+    public void record(LocalDate saleDate, Long bookId, int quantity, BigDecimal revenue) {
+        if (saleDate == null || bookId == null) {
+            return;
+        }
+        long revenueHundredths = revenue != null
+            ? revenue.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0L;
+        synchronized (monitor) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(new Object[] {saleDate, bookId, quantity, revenueHundredths});
+            }
+            if (state != null) {
+                state.rollTo(YearMonth.now());
+                state.add(saleDate, bookId, quantity, revenueHundredths);
+            }
+        }
+    }
+
+    public boolean isReady() {
+        synchronized (monitor) {
+            return state != null;
+        }
+    }
+
+    /**
+     * Current classes of a book, or null before the first recompute has finished
+     */
+    public Classification classify(Long bookId) {
+        synchronized (monitor) {
+            if (state == null) {
+                return null;
+            }
+            state.rollTo(YearMonth.now());
+            return state.classify(bookId);
+        }
+    }
+
+    /** For tests: move the window as if the given month had started */
+    void rollTo(YearMonth currentMonth) {
+        synchronized (monitor) {
+            if (state != null) {
+                state.rollTo(currentMonth);
+            }
+        }
+    }
+
+    /**
+     * ABC and XYZ class of one book with the figures they are based on
+     */
+    public static final class Classification {
+        private final String abcCategory;
+        private final String xyzCategory;
+        private final BigDecimal salesContribution;
+        private final BigDecimal demandVariability;
+
+        Classification(String abcCategory, String xyzCategory, BigDecimal salesContribution,
+                       BigDecimal demandVariability) {
+            this.abcCategory = abcCategory;
+            this.xyzCategory = xyzCategory;
+            this.salesContribution = salesContribution;
+            this.demandVariability = demandVariability;
+        }
+
+        public String getAbcCategory() { return abcCategory; }
+        public String getXyzCategory() { return xyzCategory; }
+        /** Share of the total revenue in percent */
+        public BigDecimal getSalesContribution() { return salesContribution; }
+        /** Coefficient of variation of the monthly quantities */
+        public BigDecimal getDemandVariability() { return demandVariability; }
+    }
+
+    /**
+     * Running figures of one book over the window; bucket 0 is the oldest month
+     */
+    private static final class BookStats {
+        final long bookId;
+        final int[] quantities = new int[WINDOW_MONTHS];
+        final long[] revenues = new long[WINDOW_MONTHS];
+        long quantity;
+        long revenue;
+        /** Welford running mean and sum of squared deviations of the monthly quantities */
+        double mean;
+        double m2;
+        boolean ranked;
+
+        BookStats(long bookId) {
+            this.bookId = bookId;
+        }
+
+        /** Welford update for one bucket changing value; the window length stays the same */
+        void replace(int bucket, int value) {
+            int previous = quantities[bucket];
+            quantities[bucket] = value;
+            quantity += value - previous;
+            if (quantity == 0) {
+                mean = 0.0;
+                m2 = SeriesKernels.variance(quantities, 0, WINDOW_MONTHS) * WINDOW_MONTHS;
+                return;
+            }
+            double previousMean = mean;
+            mean += (double) (value - previous) / WINDOW_MONTHS;
+            m2 += (value - previous) * (value - mean + previous - previousMean);
+        }
+
+        /** Drop the oldest months and recompute the running figures (once a month) */
+        void shift(int months) {
+            int keep = Math.max(0, WINDOW_MONTHS - months);
+            System.arraycopy(quantities, WINDOW_MONTHS - keep, quantities, 0, keep);
+            System.arraycopy(revenues, WINDOW_MONTHS - keep, revenues, 0, keep);
+            Arrays.fill(quantities, keep, WINDOW_MONTHS, 0);
+            Arrays.fill(revenues, keep, WINDOW_MONTHS, 0L);
+            recompute();
+        }
+
+        void recompute() {
+            quantity = SeriesKernels.sum(quantities, 0, WINDOW_MONTHS);
+            revenue = SeriesKernels.sum(revenues, 0, WINDOW_MONTHS);
+            mean = SeriesKernels.mean(quantities, 0, WINDOW_MONTHS);
+            m2 = SeriesKernels.variance(quantities, 0, WINDOW_MONTHS) * WINDOW_MONTHS;
+        }
+
+        double coefficientOfVariation() {
+            if (quantity == 0) {
+                return 0.0;
+            }
+            return Math.sqrt(Math.max(0.0, m2) / WINDOW_MONTHS) / ((double) quantity / WINDOW_MONTHS);
+        }
+
+        boolean isEmpty() {
+            for (int i = 0; i < WINDOW_MONTHS; i++) {
+                if (quantities[i] != 0 || revenues[i] != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** Highest revenue first, ties by book id */
+    private static final Comparator<BookStats> RANKING = Comparator
+        .comparingLong((BookStats stats) -> -stats.revenue)
+        .thenComparingLong(stats -> stats.bookId);
+
+    /**
+     * Mutable classification state; only used under the tracker's monitor
+     */
+    static final class State {
+
+        private YearMonth endMonth;
+        private final Map<Long, BookStats> books = new HashMap<>();
+        private final TreeSet<BookStats> ranking = new TreeSet<>(RANKING);
+        private long totalRevenue;
+        private final Cutoff cutoffA = new Cutoff(ABCXYZAnalysisService.ABC_A_THRESHOLD);
+        private final Cutoff cutoffB = new Cutoff(ABCXYZAnalysisService.ABC_B_THRESHOLD);
+
+        private State(YearMonth endMonth) {
+            this.endMonth = endMonth;
+        }
+
+        /**
+         * State of a monthly series that ends with the current month
+         */
+        static State of(SalesSeriesService.SalesSeries series, YearMonth currentMonth) {
+            State state = new State(currentMonth);
+            int skip = Math.max(0, series.buckets() - WINDOW_MONTHS);
+            int length = Math.min(series.buckets(), WINDOW_MONTHS);
+            int[] quantities = series.quantities();
+            long[] revenues = series.revenues();
+            for (int row = 0; row < series.rows(); row++) {
+                int offset = series.offset(row) + skip;
+                if (SeriesKernels.countPositive(quantities, offset, length) == 0
+                        && SeriesKernels.sum(revenues, offset, length) == 0) {
+                    continue;
+                }
+                BookStats stats = new BookStats(series.bookId(row));
+                System.arraycopy(quantities, offset, stats.quantities, WINDOW_MONTHS - length, length);
+                System.arraycopy(revenues, offset, stats.revenues, WINDOW_MONTHS - length, length);
+                stats.recompute();
+                state.books.put(stats.bookId, stats);
+            }
+            state.rerank();
+            return state;
+        }
+
+        void add(LocalDate saleDate, Long bookId, int quantity, long revenue) {
+            int bucket = WINDOW_MONTHS - 1 - (int) ChronoUnit.MONTHS.between(YearMonth.from(saleDate), endMonth);
+            if (bucket < 0 || bucket >= WINDOW_MONTHS) {
+                return;
+            }
+            BookStats stats = books.computeIfAbsent(bookId, BookStats::new);
+            unrank(stats);
+            stats.replace(bucket, stats.quantities[bucket] + quantity);
+            stats.revenues[bucket] += revenue;
+            stats.revenue += revenue;
+            if (stats.isEmpty()) {
+                books.remove(bookId);
+            } else {
+                rank(stats);
+            }
+            cutoffA.settle();
+            cutoffB.settle();
+        }
+
+        void rollTo(YearMonth currentMonth) {
+            if (!currentMonth.isAfter(endMonth)) {
+                return;
+            }
+            int months = (int) ChronoUnit.MONTHS.between(endMonth, currentMonth);
+            endMonth = currentMonth;
+            for (Iterator<BookStats> it = books.values().iterator(); it.hasNext(); ) {
+                BookStats stats = it.next();
+                stats.shift(months);
+                if (stats.isEmpty()) {
+                    it.remove();
+                }
+            }
+            rerank();
+        }
+
+        Classification classify(Long bookId) {
+            BookStats stats = books.get(bookId);
+            if (stats == null) {
+                return new Classification("C", ABCXYZAnalysisService.classifyXyz(0.0),
+                    BigDecimal.ZERO, BigDecimal.ZERO.setScale(4));
+            }
+            String abc = "C";
+            BigDecimal contribution = BigDecimal.ZERO;
+            if (stats.ranked) {
+                abc = cutoffA.includes(stats) ? "A" : cutoffB.includes(stats) ? "B" : "C";
+                contribution = BigDecimal.valueOf(stats.revenue)
+                    .divide(BigDecimal.valueOf(totalRevenue), 4, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100));
+            }
+            double variability = stats.coefficientOfVariation();
+            return new Classification(abc, ABCXYZAnalysisService.classifyXyz(variability), contribution,
+                BigDecimal.valueOf(variability).setScale(4, RoundingMode.HALF_UP));
+        }
+
+        /**
+         * Number of books whose ABC or XYZ class differs between the two states
+         */
+        int countDifferences(State other) {
+            Set<Long> bookIds = new HashSet<>(books.keySet());
+            bookIds.addAll(other.books.keySet());
+            int differences = 0;
+            for (Long bookId : bookIds) {
+                Classification mine = classify(bookId);
+                Classification theirs = other.classify(bookId);
+                if (!mine.getAbcCategory().equals(theirs.getAbcCategory())
+                        || !mine.getXyzCategory().equals(theirs.getXyzCategory())) {
+                    differences++;
+                }
+            }
+            return differences;
+        }
+
+        private void rank(BookStats stats) {
+            if (stats.revenue < MINIMUM_REVENUE) {
+                return;
+            }
+            ranking.add(stats);
+            stats.ranked = true;
+            totalRevenue += stats.revenue;
+            cutoffA.inserted(stats);
+            cutoffB.inserted(stats);
+        }
+
+        /** Must be called before the book's revenue changes, while it still sits at its place in the ranking */
+        private void unrank(BookStats stats) {
+            if (!stats.ranked) {
+                return;
+            }
+            cutoffA.removing(stats);
+            cutoffB.removing(stats);
+            ranking.remove(stats);
+            stats.ranked = false;
+            totalRevenue -= stats.revenue;
+        }
+
+        private void rerank() {
+            ranking.clear();
+            totalRevenue = 0;
+            cutoffA.reset();
+            cutoffB.reset();
+            for (BookStats stats : books.values()) {
+                stats.ranked = false;
+                rank(stats);
+            }
+            cutoffA.settle();
+            cutoffB.settle();
+        }
+
+        /**
+         * Pareto cutoff: the longest run of top books whose cumulative revenue stays within the share
+         */
+        private final class Cutoff {
+            private final double share;
+            /** Lowest-ranked book inside the cutoff, null when no book is */
+            private BookStats last;
+            private long revenueWithin;
+
+            Cutoff(double share) {
+                this.share = share;
+            }
+
+            boolean includes(BookStats stats) {
+                return last != null && RANKING.compare(stats, last) <= 0;
+            }
+
+            void inserted(BookStats stats) {
+                if (last != null && RANKING.compare(stats, last) < 0) {
+                    revenueWithin += stats.revenue;
+                }
+            }
+
+            void removing(BookStats stats) {
+                if (includes(stats)) {
+                    revenueWithin -= stats.revenue;
+                    if (stats == last) {
+                        last = ranking.lower(stats);
+                    }
+                }
+            }
+
+            void reset() {
+                last = null;
+                revenueWithin = 0;
+            }
+
+            /** Move the cutoff back or forward until it is the longest run within the share again */
+            void settle() {
+                double limit = totalRevenue * share;
+                while (last != null && revenueWithin > limit) {
+                    revenueWithin -= last.revenue;
+                    last = ranking.lower(last);
+                }
+                while (true) {
+                    BookStats next = last == null ? (ranking.isEmpty() ? null : ranking.first()) : ranking.higher(last);
+                    if (next == null || revenueWithin + next.revenue > limit) {
+                        return;
+                    }
+                    revenueWithin += next.revenue;
+                    last = next;
+                }
+            }
+        }
+    }
+}
@@ -11,8 +11,12 @@ import com.techbookstore.app.repository.InventoryReservationRepository;
 import com.techbookstore.app.repository.InventoryTransactionRepository;
 import com.techbookstore.app.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -38,6 +42,18 @@ public class AdvancedInventoryService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private InventoryStockService inventoryStockService;
+
+    @Autowired
+    private InventoryAuditLog inventoryAuditLog;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** Resolved once, after the transaction that found or created it committed; only its id is written to the audit log */
+    private volatile User systemUser;
+
     /**
      * Process barcode scan operation
      */
@@ -91,7 +107,7 @@ public class AdvancedInventoryService {
         );
         transaction.setReason(request.getReason());
         transaction.setStatus(TransactionStatus.APPROVED); // Auto-approve for now
-        transactionRepository.save(transaction);
+        inventoryAuditLog.record(transaction);
 
         return new TransferResult(true, "Transfer completed successfully", new InventoryDto(savedInventory));
     }
@@ -105,11 +121,8 @@ public class AdvancedInventoryService {
             throw new InventoryNotFoundException(request.getInventoryId());
         }
 
-        Inventory inventory = inventoryOpt.get();
-        
-        if (inventory.getAvailableStock() < request.getQuantity()) {
-            throw new InsufficientInventoryException("Insufficient available stock for reservation");
-        }
+        // Update inventory reserved count (conditional on available stock, throws when insufficient)
+        Inventory inventory = inventoryStockService.reserve(inventoryOpt.get(), request.getQuantity());
 
         // Create reservation
         InventoryReservation reservation = new InventoryReservation(
@@ -121,10 +134,6 @@ public class AdvancedInventoryService {
 
         InventoryReservation savedReservation = reservationRepository.save(reservation);
 
-        // Update inventory reserved count
-        inventory.setReservedCount(inventory.getReservedCount() + request.getQuantity());
-        inventoryRepository.save(inventory);
-
         // Create transaction record
         User executedBy = getCurrentUser();
         InventoryTransaction transaction = new InventoryTransaction(
@@ -133,7 +142,7 @@ public class AdvancedInventoryService {
         );
         transaction.setReason("Stock reservation for order: " + request.getOrderId());
         transaction.setStatus(TransactionStatus.APPROVED);
-        transactionRepository.save(transaction);
+        inventoryAuditLog.record(transaction);
 
         return new ReservationResult(true, "Reservation created successfully", new InventoryReservationDto(savedReservation));
     }
@@ -142,7 +151,8 @@ public class AdvancedInventoryService {
      * Release stock reservation
      */
     public void releaseReservation(Long reservationId) {
-        Optional<InventoryReservation> reservationOpt = reservationRepository.findById(reservationId);
+        // Row lock: the expiry sweep must not release the same reservation concurrently
+        Optional<InventoryReservation> reservationOpt = reservationRepository.findByIdForUpdate(reservationId);
         if (!reservationOpt.isPresent()) {
             throw new RuntimeException("Reservation not found: " + reservationId);
         }
@@ -157,9 +167,7 @@ public class AdvancedInventoryService {
         reservationRepository.save(reservation);
 
         // Update inventory reserved count
-        Inventory inventory = reservation.getInventory();
-        inventory.setReservedCount(inventory.getReservedCount() - reservation.getReservedQuantity());
-        inventoryRepository.save(inventory);
+        inventoryStockService.release(reservation.getInventory(), reservation.getReservedQuantity());
     }
 
     /**
@@ -186,13 +194,31 @@ public class AdvancedInventoryService {
      * Get current user (temporary implementation)
      */
     private User getCurrentUser() {
-        // For now, return a default system user
+        // For now, return a default system user, looked up once instead of per stock move
         // In real implementation, this would get user from security context
-        return userRepository.findByUsername("system")
-                .orElseGet(() -> {
-                    User systemUser = new User("system", "System User", "system@techbookstore.com", "SYSTEM");
-                    return userRepository.save(systemUser);
-                });
+        User user = systemUser;
+        if (user == null) {
+            user = resolveSystemUser();
+            systemUser = user;
+        }
+        return user;
+    }
+
+    /**
+     * Find or create the system user in a transaction of its own, so the user exists even when the stock move
+     * that needed it rolls back; a concurrent creation on another node loses on the unique username and re-reads
+     */
+    private User resolveSystemUser() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            return template.execute(status -> userRepository.findByUsername("system")
+                    .orElseGet(() -> userRepository.save(
+                        new User("system", "System User", "system@techbookstore.com", "SYSTEM"))));
+        } catch (DataIntegrityViolationException e) {
+            return template.execute(status -> userRepository.findByUsername("system")
+                    .orElseThrow(() -> e));
+        }
     }
 
     // Request/Response classes
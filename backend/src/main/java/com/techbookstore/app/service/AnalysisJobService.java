@@ -0,0 +1,205 @@
+package com.techbookstore.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.techbookstore.app.dto.IntegratedAnalysisRequest;
+import com.techbookstore.app.dto.IntegratedAnalysisResult;
+import com.techbookstore.app.entity.AnalysisJob;
+import com.techbookstore.app.exception.AnalysisJobNotFoundException;
+import com.techbookstore.app.exception.AnalysisJobRejectedException;
+import com.techbookstore.app.repository.AnalysisJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+
+/**
+ * Asynchronous job subsystem for integrated analysis
+ * 統合分析の非同期ジョブ（投入・状態照会・結果取得・キャンセル）
+ *
+ * Submitting stores a QUEUED job record and hands the work to the integratedAnalysisExecutor,
+ * returning the job id without waiting. The worker moves the record through RUNNING to
+ * COMPLETED/FAILED and stores the result as JSON, so any node can answer status and result queries.
+ * When the executor queue is full the job is rejected instead of blocking the caller.
+ * Jobs run the staged analysis, so a stage that misses its deadline yields a PARTIAL result
+ * instead of holding the worker.
+ */
+@Service
+public class AnalysisJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisJobService.class);
+
+    private final AnalysisJobRepository jobRepository;
+    private final IntegratedInventoryAnalysisService analysisService;
+    private final ThreadPoolTaskExecutor executor;
+    private final ObjectMapper objectMapper;
+
+    /** Futures of jobs queued or running on this node, used to interrupt them on cancel */
+    private final ConcurrentMap<String, Future<?>> localJobs = new ConcurrentHashMap<>();
+
+    @Value("${app.analysis-jobs.retry-after-seconds:5}")
+    private long retryAfterSeconds = 5;
+
+    @Value("${app.analysis-jobs.retention-hours:24}")
+    private long retentionHours = 24;
+
+    public AnalysisJobService(AnalysisJobRepository jobRepository,
+                              IntegratedInventoryAnalysisService analysisService,
+                              @Qualifier("integratedAnalysisExecutor") ThreadPoolTaskExecutor executor,
+                              ObjectMapper objectMapper) {
+        this.jobRepository = jobRepository;
+        this.analysisService = analysisService;
+        this.executor = executor;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Queue an analysis job and return its record immediately
+     * ジョブを投入し、完了を待たずにジョブ情報を返す
+     *
+     * @throws AnalysisJobRejectedException when the executor queue is full
+     */
+    public AnalysisJob submit(AnalysisJob.JobType jobType, IntegratedAnalysisRequest request) {
+        String jobId = UUID.randomUUID().toString();
+        AnalysisJob job = jobRepository.save(new AnalysisJob(jobId, jobType, toJson(request)));
+
+        Future<?> future;
+        try {
+            future = executor.submit(() -> run(jobId, jobType, request));
+        } catch (TaskRejectedException e) {
+            jobRepository.deleteById(jobId);
+            throw new AnalysisJobRejectedException(retryAfterSeconds, e);
+        }
+        localJobs.put(jobId, future);
+        if (future.isDone()) {
+            localJobs.remove(jobId);
+        }
+
+        logger.info("Queued analysis job {} ({})", jobId, jobType);
+        return job;
+    }
+
+    /**
+     * Current state of a job
+     */
+    public AnalysisJob getJob(String jobId) {
+        return jobRepository.findById(jobId)
+            .orElseThrow(() -> new AnalysisJobNotFoundException(jobId));
+    }
+
+    /**
+     * Cancel a queued or running job and return its state afterwards.
+     * A finished job is returned unchanged.
+     * ジョブのキャンセル（待機中はキューから除去、実行中は割り込み）
+     */
+    public AnalysisJob cancel(String jobId) {
+        getJob(jobId);
+        int updated = jobRepository.cancel(jobId,
+            EnumSet.of(AnalysisJob.JobStatus.QUEUED, AnalysisJob.JobStatus.RUNNING), LocalDateTime.now());
+        if (updated > 0) {
+            Future<?> future = localJobs.remove(jobId);
+            if (future != null) {
+                future.cancel(true);
+                if (future instanceof Runnable) {
+                    // Free the queue slot right away instead of when the worker reaches it
+                    executor.getThreadPoolExecutor().remove((Runnable) future);
+                }
+            }
+            logger.info("Cancelled analysis job {}", jobId);
+        }
+        return getJob(jobId);
+    }
+
+    /**
+     * Remove finished jobs older than the retention period
+     * 保持期間を過ぎた完了ジョブの削除
+     */
+    @Scheduled(cron = "${app.analysis-jobs.purge-cron:0 20 * * * *}")
+    public void purgeFinishedJobs() {
+        int deleted = jobRepository.deleteCompletedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            logger.info("Purged {} finished analysis jobs", deleted);
+        }
+    }
+
+    void run(String jobId, AnalysisJob.JobType jobType, IntegratedAnalysisRequest request) {
+        try {
+            if (jobRepository.markRunning(jobId, LocalDateTime.now()) == 0) {
+                logger.debug("Analysis job {} was cancelled before it started", jobId);
+                return;
+            }
+            long startTime = System.currentTimeMillis();
+            AnalysisJob.JobStatus status;
+            String resultJson = null;
+            String errorMessage = null;
+            try {
+                IntegratedAnalysisResult result = analysisService.executeStagedAnalysis(request);
+                resultJson = toJson(jobType == AnalysisJob.JobType.BATCH_OPTIMIZATION
+                    ? batchSummary(jobId, result) : result);
+                status = AnalysisJob.JobStatus.COMPLETED;
+            } catch (RuntimeException e) {
+                logger.error("Analysis job {} failed", jobId, e);
+                status = AnalysisJob.JobStatus.FAILED;
+                errorMessage = e.getMessage();
+            }
+            finish(jobId, status, resultJson, errorMessage, System.currentTimeMillis() - startTime);
+        } finally {
+            localJobs.remove(jobId);
+        }
+    }
+
+    private void finish(String jobId, AnalysisJob.JobStatus status, String resultJson,
+                        String errorMessage, long executionTimeMs) {
+        // A job cancelled while running stays CANCELLED: the update only matches RUNNING rows
+        Thread.interrupted();
+        try {
+            if (jobRepository.markFinished(jobId, status, resultJson, errorMessage,
+                    LocalDateTime.now(), executionTimeMs) == 0) {
+                logger.debug("Analysis job {} was cancelled while running, discarding its result", jobId);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to record the outcome of analysis job {}", jobId, e);
+        }
+    }
+
+    /**
+     * Result stored for batch optimization jobs: the optimization part of the analysis
+     */
+    private Map<String, Object> batchSummary(String jobId, IntegratedAnalysisResult result) {
+        Map<String, Object> batchResponse = new HashMap<>();
+        batchResponse.put("jobId", jobId);
+        batchResponse.put("status", result.getStatus());
+        batchResponse.put("executionTime", result.getExecutionTimeMs());
+
+        if (result.getOptimization() != null) {
+            batchResponse.put("recommendations", result.getOptimization().getRecommendations());
+            batchResponse.put("potentialSavings", result.getOptimization().getPotentialCostSavings());
+            batchResponse.put("efficiencyImprovement", result.getOptimization().getOptimizedEfficiency());
+        }
+
+        batchResponse.put("performanceMetrics", result.getPerformanceMetrics());
+        batchResponse.put("processedAt", LocalDateTime.now());
+        return batchResponse;
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize analysis job data", e);
+        }
+    }
+}
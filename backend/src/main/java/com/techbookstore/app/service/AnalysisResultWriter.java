@@ -0,0 +1,62 @@
+package com.techbookstore.app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * Bulk write path for analysis results
+ * 分析結果の一括書き込み（シーケンスIDの事前確保 + JDBCバッチINSERT）
+ *
+ * Entities written through here should use a pooled sequence id so Hibernate can
+ * group the INSERTs into JDBC batches of {@code hibernate.jdbc.batch_size}.
+ */
+@Service
+@Transactional
+public class AnalysisResultWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisResultWriter.class);
+
+    private final EntityManager entityManager;
+
+    @Value("${app.analysis.batch-size:500}")
+    private int batchSize = 500;
+
+    public AnalysisResultWriter(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Replace a result set: run the bulk delete for the key (e.g. analysis date), then insert all rows in batches
+     * 同一キーの既存結果を削除してから一括INSERT（アップサート）
+     */
+    public <T> List<T> replaceAll(Runnable deleteExisting, List<T> rows) {
+        deleteExisting.run();
+        return writeAll(rows);
+    }
+
+    /**
+     * Insert all rows, flushing every {@code batchSize} rows and detaching them to keep the persistence context small
+     * バッチサイズ毎にflushし、書き込み済みエンティティを切り離す
+     */
+    public <T> List<T> writeAll(List<T> rows) {
+        int size = Math.max(1, batchSize);
+        for (int start = 0; start < rows.size(); start += size) {
+            List<T> chunk = rows.subList(start, Math.min(start + size, rows.size()));
+            for (T row : chunk) {
+                entityManager.persist(row);
+            }
+            entityManager.flush();
+            for (T row : chunk) {
+                entityManager.detach(row);
+            }
+        }
+        logger.debug("Wrote {} rows in batches of {}", rows.size(), size);
+        return rows;
+    }
+}
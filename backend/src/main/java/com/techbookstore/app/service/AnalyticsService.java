@@ -12,7 +12,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -35,6 +34,7 @@ public class AnalyticsService {
     private final ABCXYZAnalysisService abcxyzAnalysisService;
     private final TechObsolescenceAnalysisService obsolescenceAnalysisService;
     private final SeasonalAnalysisService seasonalAnalysisService;
+    private final SalesAggregationService salesAggregationService;
     
     public AnalyticsService(OrderRepository orderRepository, CustomerRepository customerRepository,
                            InventoryRepository inventoryRepository, BookRepository bookRepository,
@@ -42,7 +42,8 @@ public class AnalyticsService {
                            AggregationCacheRepository cacheRepository,
                            ABCXYZAnalysisService abcxyzAnalysisService,
                            TechObsolescenceAnalysisService obsolescenceAnalysisService,
-                           SeasonalAnalysisService seasonalAnalysisService) {
+                           SeasonalAnalysisService seasonalAnalysisService,
+                           SalesAggregationService salesAggregationService) {
         this.orderRepository = orderRepository;
         this.customerRepository = customerRepository;
         this.inventoryRepository = inventoryRepository;
@@ -52,6 +53,7 @@ public class AnalyticsService {
         this.abcxyzAnalysisService = abcxyzAnalysisService;
         this.obsolescenceAnalysisService = obsolescenceAnalysisService;
         this.seasonalAnalysisService = seasonalAnalysisService;
+        this.salesAggregationService = salesAggregationService;
     }
     
     /**
@@ -233,13 +235,11 @@ public class AnalyticsService {
     // Private helper methods for calculations
     
     private BigDecimal calculateTotalRevenue(LocalDate startDate, LocalDate endDate) {
-        // Mock implementation - replace with actual repository query
-        return new BigDecimal("45000.00");
+        return salesAggregationService.getTotalRevenue(startDate, endDate);
     }
     
     private Integer calculateTotalOrders(LocalDate startDate, LocalDate endDate) {
-        // Mock implementation - replace with actual repository query  
-        return 125;
+        return salesAggregationService.getTotalOrders(startDate, endDate);
     }
     
     private BigDecimal calculateAverageOrderValue(LocalDate startDate, LocalDate endDate) {
@@ -446,48 +446,42 @@ public class AnalyticsService {
         List<InventoryAnalysisDto.DeadStockItem> deadStockItems = new ArrayList<>();
         
         try {
-            // Find items with no sales in the last 90 days
-            List<Inventory> allInventory = inventoryRepository.findAll();
-            LocalDate cutoffDate = LocalDate.now().minusDays(90);
+            // Find items with no sales in the last 90 days or never sold, from the precomputed planning column
+            List<Inventory> deadStock = inventoryRepository.findDeadStock(90);
             
-            for (Inventory inventory : allInventory) {
-                if (isDeadStock(inventory, cutoffDate)) {
-                    Book book = inventory.getBook();
-                    
-                    // Filter by category if specified
-                    if (categoryCode != null && !categoryCode.isEmpty()) {
-                        String bookCategory = determineCategoryCode(book);
-                        if (!bookCategory.equals(categoryCode)) {
-                            continue;
-                        }
+            for (Inventory inventory : deadStock) {
+                Book book = inventory.getBook();
+                
+                // Filter by category if specified
+                if (categoryCode != null && !categoryCode.isEmpty()) {
+                    String bookCategory = determineCategoryCode(book);
+                    if (!bookCategory.equals(categoryCode)) {
+                        continue;
                     }
-                    
-                    // Create dead stock item with disposal strategy
-                    InventoryAnalysisDto.DeadStockItem item = new InventoryAnalysisDto.DeadStockItem(
-                        book.getId(),
-                        book.getTitle(),
-                        inventory.getStoreStock() + inventory.getWarehouseStock(),
-                        calculateStockValue(book, inventory),
-                        calculateDaysSinceLastSale(inventory)
-                    );
-                    
-                    // Set additional fields
-                    item.setCategoryCode(determineCategoryCode(book));
-                    item.setLastSaleDate(inventory.getLastSoldDate());
-                    
-                    // Determine risk level and recommended action based on disposal strategy
-                    DisposalStrategy strategy = determineDisposalStrategy(book, inventory);
-                    item.setRiskLevel(strategy.getRiskLevel());
-                    item.setRecommendedAction(strategy.getAction());
-                    
-                    deadStockItems.add(item);
                 }
+                
+                // Create dead stock item with disposal strategy
+                InventoryAnalysisDto.DeadStockItem item = new InventoryAnalysisDto.DeadStockItem(
+                    book.getId(),
+                    book.getTitle(),
+                    inventory.getStoreStock() + inventory.getWarehouseStock(),
+                    calculateStockValue(book, inventory),
+                    calculateDaysSinceLastSale(inventory)
+                );
+                
+                // Set additional fields
+                item.setCategoryCode(determineCategoryCode(book));
+                item.setLastSaleDate(inventory.getLastSoldDate());
+                
+                // Determine risk level and recommended action based on disposal strategy
+                DisposalStrategy strategy = determineDisposalStrategy(book, inventory);
+                item.setRiskLevel(strategy.getRiskLevel());
+                item.setRecommendedAction(strategy.getAction());
+                
+                deadStockItems.add(item);
             }
             
-            // Sort by days since last sale (descending - oldest first)
-            deadStockItems.sort((a, b) -> 
-                Integer.compare(b.getDaysSinceLastSale(), a.getDaysSinceLastSale()));
-            
+            // Already sorted by days since last sale (descending - oldest first) by the query
             // Limit to top 100 for performance
             if (deadStockItems.size() > 100) {
                 deadStockItems = deadStockItems.subList(0, 100);
@@ -776,16 +770,6 @@ public class AnalyticsService {
         }
     }
     
-    /**
-     * Check if inventory item is dead stock (no sales in 90+ days)
-     */
-    private boolean isDeadStock(Inventory inventory, LocalDate cutoffDate) {
-        if (inventory.getLastSoldDate() == null) {
-            return true; // Never sold = dead stock
-        }
-        return inventory.getLastSoldDate().isBefore(cutoffDate);
-    }
-    
     /**
      * Calculate stock value for inventory item
      */
@@ -797,13 +781,13 @@ public class AnalyticsService {
     }
     
     /**
-     * Calculate days since last sale
+     * Days since last sale from the planning column
      */
-    private Integer calculateDaysSinceLastSale(Inventory inventory) {
-        if (inventory.getLastSoldDate() == null) {
+    private int calculateDaysSinceLastSale(Inventory inventory) {
+        if (inventory.getDaysSinceLastSale() == null) {
             return 365; // Default to 1 year if never sold
         }
-        return (int) ChronoUnit.DAYS.between(inventory.getLastSoldDate(), LocalDate.now());
+        return inventory.getDaysSinceLastSale();
     }
     
     /**
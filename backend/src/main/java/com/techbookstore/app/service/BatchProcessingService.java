@@ -28,13 +28,16 @@ public class BatchProcessingService {
     private final AnalyticsService analyticsService;
     private final NotificationService notificationService;
     private final AggregationCacheRepository cacheRepository;
+    private final DataArchiveService dataArchiveService;
     
     public BatchProcessingService(ReportService reportService, AnalyticsService analyticsService,
-                                 NotificationService notificationService, AggregationCacheRepository cacheRepository) {
+                                 NotificationService notificationService, AggregationCacheRepository cacheRepository,
+                                 DataArchiveService dataArchiveService) {
         this.reportService = reportService;
         this.analyticsService = analyticsService;
         this.notificationService = notificationService;
         this.cacheRepository = cacheRepository;
+        this.dataArchiveService = dataArchiveService;
     }
     
     /**
@@ -271,10 +274,10 @@ public class BatchProcessingService {
     private void archiveOldData() {
         logger.info("Archiving old data");
         
-        // Archive data older than 2 years
-        LocalDate archiveCutoff = LocalDate.now().minusYears(2);
+        // Orders and inventory transactions past the retention window (2 years by default) go to archive files
+        int archived = dataArchiveService.archiveOldData();
         
-        logger.info("Data archiving completed");
+        logger.info("Data archiving completed: {} rows archived", archived);
     }
     
     private void updatePredictiveModels() {
@@ -0,0 +1,504 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+
+/**
+ * In-memory n-gram inverted index for book keyword search
+ * 書籍キーワード検索用のメモリ内N-gram転置インデックス
+ *
+ * Title, English title and ISBN are normalized (NFKC, lower case) and split into character unigrams
+ * and bigrams, so Japanese titles without word boundaries are searchable by any substring.
+ * A query is answered by intersecting the posting lists of its bigrams and then checking the
+ * candidates for the actual substring, which gives the same matches as the LIKE '%keyword%' query
+ * without touching the database.
+ *
+ * Posting lists are delta + varint encoded byte arrays. Every indexed version of a book gets a new,
+ * higher ordinal, so updates only ever append to the lists; replaced and deleted ordinals are masked
+ * and dropped when the index is compacted.
+ */
+@Service
+public class BookSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    /** Compact once this many ordinals are dead and they make up a quarter of the index */
+    private static final int COMPACTION_MIN_DEAD = 1000;
+
+    private final BookRepository bookRepository;
+
+    private volatile State state;
+
+    /** Updates made while a rebuild from the database is running, replayed onto the rebuilt index */
+    private List<Object[]> pendingDuringRebuild;
+
+    private final Object writeMonitor = new Object();
+
+    public BookSearchIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Ranked search result: book ids best match first, and the total number of matches
+     */
+    public static final class Hits {
+        private final List<Long> bookIds;
+        private final int total;
+
+        Hits(List<Long> bookIds, int total) {
+            this.bookIds = bookIds;
+            this.total = total;
+        }
+
+        public List<Long> getBookIds() { return bookIds; }
+        public int getTotal() { return total; }
+    }
+
+    /**
+     * Load the whole catalog once the application (including data initialization) is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild from the database; also picks up changes made by other nodes or directly in the database
+     * DBから索引を再構築（他ノードでの更新も取り込む）
+     */
+    @Scheduled(cron = "${app.book-search.rebuild-cron:0 15 * * * *}")
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        synchronized (writeMonitor) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        State rebuilt = new State();
+        try {
+            for (Object[] row : bookRepository.findSearchFields()) {
+                rebuilt.add((Long) row[0], (String) row[1], (String) row[2], (String) row[3]);
+            }
+        } catch (RuntimeException e) {
+            synchronized (writeMonitor) {
+                pendingDuringRebuild = null;
+            }
+            throw e;
+        }
+        synchronized (writeMonitor) {
+            for (Object[] update : pendingDuringRebuild) {
+                if (update.length == 1) {
+                    rebuilt.remove((Long) update[0]);
+                } else {
+                    rebuilt.add((Long) update[0], (String) update[1], (String) update[2], (String) update[3]);
+                }
+            }
+            pendingDuringRebuild = null;
+            state = rebuilt;
+        }
+        logger.info("Book search index rebuilt: {} books, {} terms, {} posting bytes in {}ms",
+            rebuilt.liveCount(), rebuilt.postings.size(), rebuilt.postingBytes(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Add or replace a book after it has been saved
+     */
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        synchronized (writeMonitor) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(new Object[] {book.getId(), book.getTitle(), book.getTitleEn(), book.getIsbn13()});
+            }
+            State current = state;
+            if (current != null) {
+                current.write(() -> current.add(book.getId(), book.getTitle(), book.getTitleEn(), book.getIsbn13()));
+                compactIfNeeded(current);
+            }
+        }
+    }
+
+    /**
+     * Remove a deleted book
+     */
+    public void remove(Long bookId) {
+        synchronized (writeMonitor) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(new Object[] {bookId});
+            }
+            State current = state;
+            if (current != null) {
+                current.write(() -> current.remove(bookId));
+                compactIfNeeded(current);
+            }
+        }
+    }
+
+    /**
+     * Whether the index has been built and can answer queries
+     */
+    public boolean isReady() {
+        return state != null;
+    }
+
+    /**
+     * Ranked search: title matches before English title before ISBN; exact, then prefix, then infix
+     * 関連度順の検索（タイトル完全一致・前方一致を優先）
+     *
+     * @return ranked hits, or null while the index is not built yet
+     */
+    public Hits search(String keyword, int limit) {
+        State current = state;
+        if (current == null) {
+            return null;
+        }
+        String query = normalize(keyword);
+        if (query.isEmpty()) {
+            return new Hits(Collections.emptyList(), 0);
+        }
+        return current.read(() -> current.search(query, Math.max(1, limit)));
+    }
+
+    /**
+     * All matching book ids in ascending order, as a replacement for the LIKE query
+     *
+     * @return the ids, or null while the index is not built or when there are more than maxIds matches
+     */
+    public List<Long> findIds(String keyword, int maxIds) {
+        State current = state;
+        if (current == null) {
+            return null;
+        }
+        String query = normalize(keyword);
+        if (query.isEmpty()) {
+            return null;
+        }
+        return current.read(() -> current.findIds(query, maxIds));
+    }
+
+    private void compactIfNeeded(State current) {
+        int dead = current.deadCount();
+        if (dead >= COMPACTION_MIN_DEAD && dead * 4 >= current.ordinalCount()) {
+            State compacted = current.read(current::compact);
+            state = compacted;
+            logger.debug("Book search index compacted: dropped {} dead entries", dead);
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        // NFKC folds full-width alphanumerics and half-width katakana, so "ＪＡＶＡ" finds "Java"
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+    }
+
+    /** Unigram keys live above the 32-bit range used by bigrams (two UTF-16 chars) */
+    private static long unigram(char c) {
+        return (1L << 32) | c;
+    }
+
+    private static long bigram(char first, char second) {
+        return ((long) first << 16) | second;
+    }
+
+    /**
+     * Index generation: documents by ordinal plus posting lists. Read under the read lock,
+     * mutated under the write lock (and only by the thread holding the write monitor)
+     */
+    private static final class State {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Long, PostingList> postings = new HashMap<>();
+        private final Map<Long, Integer> ordinalByBook = new HashMap<>();
+        private final BitSet dead = new BitSet();
+        private long[] bookIds = new long[1024];
+        private String[][] fields = new String[1024][];
+        private int ordinals;
+
+        interface Action<T> {
+            T run();
+        }
+
+        <T> T read(Action<T> action) {
+            lock.readLock().lock();
+            try {
+                return action.run();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void write(Runnable action) {
+            lock.writeLock().lock();
+            try {
+                action.run();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void add(Long bookId, String title, String titleEn, String isbn13) {
+            remove(bookId);
+            int ordinal = ordinals++;
+            if (ordinal == bookIds.length) {
+                bookIds = Arrays.copyOf(bookIds, ordinal * 2);
+                fields = Arrays.copyOf(fields, ordinal * 2);
+            }
+            String[] normalized = {normalize(title), normalize(titleEn), normalize(isbn13)};
+            bookIds[ordinal] = bookId;
+            fields[ordinal] = normalized;
+            ordinalByBook.put(bookId, ordinal);
+            for (String text : normalized) {
+                for (int i = 0; i < text.length(); i++) {
+                    append(unigram(text.charAt(i)), ordinal);
+                    if (i + 1 < text.length()) {
+                        append(bigram(text.charAt(i), text.charAt(i + 1)), ordinal);
+                    }
+                }
+            }
+        }
+
+        private void append(long key, int ordinal) {
+            postings.computeIfAbsent(key, k -> new PostingList()).append(ordinal);
+        }
+
+        void remove(Long bookId) {
+            Integer previous = ordinalByBook.remove(bookId);
+            if (previous != null) {
+                dead.set(previous);
+                fields[previous] = null;
+            }
+        }
+
+        int liveCount() {
+            return ordinalByBook.size();
+        }
+
+        long postingBytes() {
+            long bytes = 0;
+            for (PostingList list : postings.values()) {
+                bytes += list.sizeInBytes();
+            }
+            return bytes;
+        }
+
+        int deadCount() {
+            return dead.cardinality();
+        }
+
+        int ordinalCount() {
+            return ordinals;
+        }
+
+        State compact() {
+            State compacted = new State();
+            for (int ordinal = 0; ordinal < ordinals; ordinal++) {
+                if (!dead.get(ordinal)) {
+                    String[] f = fields[ordinal];
+                    compacted.add(bookIds[ordinal], f[0], f[1], f[2]);
+                }
+            }
+            return compacted;
+        }
+
+        Hits search(String query, int limit) {
+            Comparator<int[]> worstFirst = Comparator.<int[]>comparingInt(m -> m[1])
+                .thenComparing(Comparator.<int[]>comparingInt(m -> m[2]).reversed())
+                .thenComparing(Comparator.<int[]>comparingLong(m -> bookIds[m[0]]).reversed());
+            PriorityQueue<int[]> top = new PriorityQueue<>(worstFirst);
+            int[] total = {0};
+            forEachMatch(query, ordinal -> {
+                total[0]++;
+                // {ordinal, score, title length}
+                top.add(new int[] {ordinal, score(fields[ordinal], query), fields[ordinal][0].length()});
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            });
+            List<int[]> ranked = new ArrayList<>(top);
+            ranked.sort(worstFirst.reversed());
+            List<Long> ids = new ArrayList<>(ranked.size());
+            for (int[] match : ranked) {
+                ids.add(bookIds[match[0]]);
+            }
+            return new Hits(ids, total[0]);
+        }
+
+        List<Long> findIds(String query, int maxIds) {
+            List<Long> ids = new ArrayList<>();
+            boolean[] overflow = {false};
+            forEachMatch(query, ordinal -> {
+                if (ids.size() >= maxIds) {
+                    overflow[0] = true;
+                } else {
+                    ids.add(bookIds[ordinal]);
+                }
+            });
+            if (overflow[0]) {
+                return null;
+            }
+            Collections.sort(ids);
+            return ids;
+        }
+
+        /**
+         * Intersect the posting lists of the query's grams, then verify the substring on each candidate
+         */
+        private void forEachMatch(String query, IntConsumer consumer) {
+            List<PostingList> lists = new ArrayList<>();
+            if (query.length() == 1) {
+                PostingList list = postings.get(unigram(query.charAt(0)));
+                if (list == null) {
+                    return;
+                }
+                lists.add(list);
+            } else {
+                for (int i = 0; i + 1 < query.length(); i++) {
+                    PostingList list = postings.get(bigram(query.charAt(i), query.charAt(i + 1)));
+                    if (list == null) {
+                        return;
+                    }
+                    lists.add(list);
+                }
+            }
+            // Drive the intersection from the shortest list
+            lists.sort(Comparator.comparingInt(PostingList::count));
+            PostingList.Iterator[] iterators = new PostingList.Iterator[lists.size()];
+            for (int i = 0; i < iterators.length; i++) {
+                iterators[i] = lists.get(i).iterator();
+            }
+            PostingList.Iterator driver = iterators[0];
+            candidates:
+            while (driver.next()) {
+                int candidate = driver.current();
+                for (int i = 1; i < iterators.length; i++) {
+                    int position = iterators[i].advanceTo(candidate);
+                    if (position < 0) {
+                        return;
+                    }
+                    if (position != candidate) {
+                        continue candidates;
+                    }
+                }
+                if (dead.get(candidate)) {
+                    continue;
+                }
+                String[] f = fields[candidate];
+                if (f[0].contains(query) || f[1].contains(query) || f[2].contains(query)) {
+                    consumer.accept(candidate);
+                }
+            }
+        }
+
+        private static int score(String[] f, String query) {
+            int best = 0;
+            for (int field = 0; field < f.length; field++) {
+                String text = f[field];
+                int match = text.equals(query) ? 3 : text.startsWith(query) ? 2 : text.contains(query) ? 1 : 0;
+                if (match > 0) {
+                    // title > English title > ISBN, then exact > prefix > infix
+                    best = Math.max(best, (f.length - field) * 4 + match);
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Ascending ordinals, stored as varint-encoded gaps
+     */
+    static final class PostingList {
+
+        private byte[] data = new byte[4];
+        private int length;
+        private int count;
+        private int last = -1;
+
+        void append(int ordinal) {
+            if (ordinal == last) {
+                return; // the same gram occurs twice in a book
+            }
+            int gap = ordinal - last;
+            last = ordinal;
+            count++;
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            }
+            while ((gap & ~0x7F) != 0) {
+                data[length++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            data[length++] = (byte) gap;
+        }
+
+        int count() {
+            return count;
+        }
+
+        int sizeInBytes() {
+            return length;
+        }
+
+        Iterator iterator() {
+            return new Iterator();
+        }
+
+        final class Iterator {
+            private int position;
+            private int current = -1;
+
+            boolean next() {
+                if (position >= length) {
+                    return false;
+                }
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                current += gap;
+                return true;
+            }
+
+            int current() {
+                return current;
+            }
+
+            /**
+             * Move to the first ordinal >= target; returns it, or -1 when the list is exhausted
+             */
+            int advanceTo(int target) {
+                while (current < target) {
+                    if (!next()) {
+                        return -1;
+                    }
+                }
+                return current;
+            }
+        }
+    }
+}
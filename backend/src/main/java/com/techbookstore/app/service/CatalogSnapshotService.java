@@ -0,0 +1,293 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Shared, immutable in-memory copy of the book catalog for the analytics services
+ * 分析サービス共通の書籍カタログスナップショット（不変・メモリ内）
+ *
+ * Analyses read the attributes they need (id, title, selling price, publication date, level, publisher id)
+ * from primitive arrays instead of loading every Book with its publisher for each run. A book change
+ * publishes a new snapshot with a higher version (copy-on-write); readers keep the snapshot they started
+ * with, so one analysis run always sees a consistent catalog.
+ */
+@Service
+public class CatalogSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshotService.class);
+
+    private final BookRepository bookRepository;
+
+    private volatile CatalogSnapshot snapshot;
+
+    /** Serializes loads and copy-on-write updates so that no change is lost */
+    private final Object writeMonitor = new Object();
+
+    public CatalogSnapshotService(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * Load the catalog once the application (including data initialization) is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Reload from the database; also picks up changes made by other nodes or directly in the database
+     * DBからスナップショットを再読込（他ノードでの更新も取り込む）
+     */
+    @Scheduled(cron = "${app.catalog-snapshot.reload-cron:0 30 * * * *}")
+    public void reload() {
+        long startTime = System.currentTimeMillis();
+        synchronized (writeMonitor) {
+            CatalogSnapshot previous = snapshot;
+            CatalogSnapshot loaded = CatalogSnapshot.fromRows(bookRepository.findCatalogFields(),
+                previous != null ? previous.getVersion() + 1 : 1);
+            snapshot = loaded;
+            logger.info("Catalog snapshot v{} loaded: {} books in {}ms",
+                loaded.getVersion(), loaded.size(), System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * Current snapshot; loaded on first use if the startup load has not happened yet
+     */
+    public CatalogSnapshot current() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (writeMonitor) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Publish a new snapshot with the book added or replaced, after it has been saved
+     */
+    public void bookSaved(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        synchronized (writeMonitor) {
+            if (snapshot != null) {
+                snapshot = snapshot.with(book);
+            }
+        }
+    }
+
+    /**
+     * Publish a new snapshot without the deleted book
+     */
+    public void bookDeleted(Long bookId) {
+        synchronized (writeMonitor) {
+            if (snapshot != null) {
+                snapshot = snapshot.without(bookId);
+            }
+        }
+    }
+
+    /**
+     * Immutable catalog: one array slot per book, books in ascending id order.
+     * Missing values are kept as sentinels and returned as null.
+     */
+    public static final class CatalogSnapshot {
+
+        private static final long NO_PRICE = Long.MIN_VALUE;
+        private static final int NO_DATE = Integer.MIN_VALUE;
+        private static final long NO_PUBLISHER = -1L;
+        private static final Book.TechLevel[] LEVELS = Book.TechLevel.values();
+
+        private final long version;
+        private final long[] ids;
+        private final String[] titles;
+        /** Selling price in hundredths (the column has scale 2) */
+        private final long[] sellingPrices;
+        private final int[] publicationDays;
+        private final byte[] levels;
+        private final long[] publisherIds;
+
+        private CatalogSnapshot(long version, long[] ids, String[] titles, long[] sellingPrices,
+                                int[] publicationDays, byte[] levels, long[] publisherIds) {
+            this.version = version;
+            this.ids = ids;
+            this.titles = titles;
+            this.sellingPrices = sellingPrices;
+            this.publicationDays = publicationDays;
+            this.levels = levels;
+            this.publisherIds = publisherIds;
+        }
+
+        /**
+         * Snapshot of the given books, e.g. for tests and benchmarks
+         */
+        public static CatalogSnapshot of(Collection<Book> books) {
+            List<Book> sorted = new ArrayList<>(books);
+            sorted.sort(Comparator.comparing(Book::getId));
+            CatalogSnapshot snapshot = empty(0, sorted.size());
+            for (int i = 0; i < sorted.size(); i++) {
+                Book book = sorted.get(i);
+                snapshot.set(i, book.getId(), book.getTitle(), book.getSellingPrice(), book.getPublicationDate(),
+                    book.getLevel(), book.getPublisher() != null ? book.getPublisher().getId() : null);
+            }
+            return snapshot;
+        }
+
+        /**
+         * Rows of {id, title, sellingPrice, publicationDate, level, publisherId} in ascending id order
+         */
+        static CatalogSnapshot fromRows(List<Object[]> rows, long version) {
+            CatalogSnapshot snapshot = empty(version, rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] row = rows.get(i);
+                snapshot.set(i, (Long) row[0], (String) row[1], (BigDecimal) row[2], (LocalDate) row[3],
+                    (Book.TechLevel) row[4], (Long) row[5]);
+            }
+            return snapshot;
+        }
+
+        private static CatalogSnapshot empty(long version, int size) {
+            return new CatalogSnapshot(version, new long[size], new String[size], new long[size],
+                new int[size], new byte[size], new long[size]);
+        }
+
+        /** Only used while a new snapshot is being filled, before it is published */
+        private void set(int i, Long id, String title, BigDecimal sellingPrice, LocalDate publicationDate,
+                         Book.TechLevel level, Long publisherId) {
+            ids[i] = id;
+            titles[i] = title;
+            sellingPrices[i] = sellingPrice != null
+                ? sellingPrice.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact() : NO_PRICE;
+            publicationDays[i] = publicationDate != null ? (int) publicationDate.toEpochDay() : NO_DATE;
+            levels[i] = level != null ? (byte) level.ordinal() : -1;
+            publisherIds[i] = publisherId != null ? publisherId : NO_PUBLISHER;
+        }
+
+        /**
+         * Copy with the book inserted at its id position, or replacing the previous version of it
+         */
+        CatalogSnapshot with(Book book) {
+            int position = Arrays.binarySearch(ids, book.getId());
+            boolean replace = position >= 0;
+            int at = replace ? position : -position - 1;
+            int size = replace ? ids.length : ids.length + 1;
+            CatalogSnapshot copy = empty(version + 1, size);
+            copyRange(0, copy, 0, at);
+            if (replace) {
+                copyRange(at + 1, copy, at + 1, ids.length - at - 1);
+            } else {
+                copyRange(at, copy, at + 1, ids.length - at);
+            }
+            copy.set(at, book.getId(), book.getTitle(), book.getSellingPrice(), book.getPublicationDate(),
+                book.getLevel(), book.getPublisher() != null ? book.getPublisher().getId() : null);
+            return copy;
+        }
+
+        /**
+         * Copy without the book; the same snapshot when it is not part of the catalog
+         */
+        CatalogSnapshot without(Long bookId) {
+            int position = bookId != null ? Arrays.binarySearch(ids, bookId) : -1;
+            if (position < 0) {
+                return this;
+            }
+            CatalogSnapshot copy = empty(version + 1, ids.length - 1);
+            copyRange(0, copy, 0, position);
+            copyRange(position + 1, copy, position, ids.length - position - 1);
+            return copy;
+        }
+
+        private void copyRange(int from, CatalogSnapshot target, int to, int length) {
+            System.arraycopy(ids, from, target.ids, to, length);
+            System.arraycopy(titles, from, target.titles, to, length);
+            System.arraycopy(sellingPrices, from, target.sellingPrices, to, length);
+            System.arraycopy(publicationDays, from, target.publicationDays, to, length);
+            System.arraycopy(levels, from, target.levels, to, length);
+            System.arraycopy(publisherIds, from, target.publisherIds, to, length);
+        }
+
+        public long getVersion() { return version; }
+
+        public int size() { return ids.length; }
+
+        public boolean isEmpty() { return ids.length == 0; }
+
+        /**
+         * Slot of a book, or -1 when it is not in the catalog
+         */
+        public int indexOf(long bookId) {
+            int position = Arrays.binarySearch(ids, bookId);
+            return position >= 0 ? position : -1;
+        }
+
+        public long id(int i) { return ids[i]; }
+
+        public String title(int i) { return titles[i]; }
+
+        public BigDecimal sellingPrice(int i) {
+            return sellingPrices[i] != NO_PRICE ? BigDecimal.valueOf(sellingPrices[i], 2) : null;
+        }
+
+        public LocalDate publicationDate(int i) {
+            return publicationDays[i] != NO_DATE ? LocalDate.ofEpochDay(publicationDays[i]) : null;
+        }
+
+        public Book.TechLevel level(int i) {
+            return levels[i] >= 0 ? LEVELS[levels[i]] : null;
+        }
+
+        public Long publisherId(int i) {
+            return publisherIds[i] != NO_PUBLISHER ? publisherIds[i] : null;
+        }
+
+        /**
+         * All book ids in ascending order (a view, no copy)
+         */
+        public List<Long> ids() {
+            return new AbstractList<Long>() {
+                @Override
+                public Long get(int index) { return ids[index]; }
+
+                @Override
+                public int size() { return ids.length; }
+            };
+        }
+
+        /**
+         * Detached Book carrying the snapshot attributes, for calculations and result rows that take a Book.
+         * It is not managed and its publisher is not loaded; use it as a reference (by id), not for updates.
+         */
+        public Book toBook(int i) {
+            Book book = new Book();
+            book.setId(ids[i]);
+            book.setTitle(titles[i]);
+            book.setSellingPrice(sellingPrice(i));
+            book.setPublicationDate(publicationDate(i));
+            book.setLevel(level(i));
+            return book;
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package com.techbookstore.app.service;
 
+import com.techbookstore.app.config.MetricsConfiguration;
 import com.techbookstore.app.dto.OptimalStockDto;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -19,6 +26,32 @@ public class ConstraintOptimizationService {
 
     private static final Logger logger = LoggerFactory.getLogger(ConstraintOptimizationService.class);
 
+    /** Budget steps a sweep task solves one after another, each starting from the previous selection */
+    private static final int SWEEP_RUN_LENGTH = 4;
+
+    @Value("${app.optimization.solver.mode:EXACT}")
+    private String defaultSolverMode = "EXACT";
+
+    @Value("${app.optimization.solver.time-budget-ms:2000}")
+    private long defaultTimeBudgetMillis = 2000;
+
+    @Value("${app.optimization.solver.exact-time-limit-ms:30000}")
+    private long exactTimeLimitMillis = 30000;
+
+    @Value("${app.optimization.sweep.max-scenarios:100}")
+    private int maxSweepScenarios = 100;
+
+    @Value("${app.optimization.sweep.time-budget-ms:10000}")
+    private long sweepTimeBudgetMillis = 10000;
+
+    /**
+     * EXACT searches until the selection is proven optimal (within a safety limit);
+     * ANYTIME returns the best selection found within the time budget
+     */
+    public enum SolverMode {
+        EXACT, ANYTIME
+    }
+
     /**
      * Optimization constraints
      */
@@ -28,6 +61,8 @@ public class ConstraintOptimizationService {
         private Integer maxWeight; // kg
         private BigDecimal minProfitMargin;
         private String priorityFocus; // "PROFIT", "CASH_FLOW", "RISK_MINIMIZATION"
+        private String solverMode; // "EXACT", "ANYTIME"; null for the configured default
+        private Long timeBudgetMillis; // search time limit; null for the configured default of the mode
 
         public OptimizationConstraints() {
             this.maxBudget = BigDecimal.valueOf(50000);
@@ -52,6 +87,12 @@ public class ConstraintOptimizationService {
 
         public String getPriorityFocus() { return priorityFocus; }
         public void setPriorityFocus(String priorityFocus) { this.priorityFocus = priorityFocus; }
+
+        public String getSolverMode() { return solverMode; }
+        public void setSolverMode(String solverMode) { this.solverMode = solverMode; }
+
+        public Long getTimeBudgetMillis() { return timeBudgetMillis; }
+        public void setTimeBudgetMillis(Long timeBudgetMillis) { this.timeBudgetMillis = timeBudgetMillis; }
     }
 
     /**
@@ -103,6 +144,7 @@ public class ConstraintOptimizationService {
      * Optimize book selection using multi-objective optimization
      * 多目的最適化による書籍選択最適化
      */
+    @Timed(value = MetricsConfiguration.ANALYSIS_TIMER, extraTags = {"path", "optimization"}, histogram = true)
     public OptimizationResult optimizeBookSelection(List<OptimalStockDto> candidateBooks, 
                                                    OptimizationConstraints constraints) {
         logger.info("Starting constraint optimization for {} candidate books", candidateBooks.size());
@@ -117,20 +159,8 @@ public class ConstraintOptimizationService {
         logger.info("Filtered to {} viable books for optimization", viableBooks.size());
 
         // Apply multi-objective optimization
-        switch (constraints.getPriorityFocus()) {
-            case "PROFIT":
-                result = optimizeForProfit(viableBooks, constraints);
-                break;
-            case "CASH_FLOW":
-                result = optimizeForCashFlow(viableBooks, constraints);
-                break;
-            case "RISK_MINIMIZATION":
-                result = optimizeForRiskMinimization(viableBooks, constraints);
-                break;
-            default:
-                result = optimizeForProfit(viableBooks, constraints);
-                break;
-        }
+        Candidates candidates = new Candidates(viableBooks);
+        result = selectBooksWithConstraints(candidates, candidates.values(constraints.getPriorityFocus()), constraints);
 
         // Calculate optimization score
         result.setOptimizationScore(calculateOptimizationScore(result, constraints));
@@ -145,87 +175,55 @@ public class ConstraintOptimizationService {
     }
 
     /**
-     * Optimize for maximum profit
-     */
-    private OptimizationResult optimizeForProfit(List<OptimalStockDto> books, 
-                                               OptimizationConstraints constraints) {
-        // Sort by profit potential (profit per unit cost)
-        List<OptimalStockDto> sortedBooks = books.stream()
-            .sorted((a, b) -> {
-                double profitRatioA = calculateProfitRatio(a);
-                double profitRatioB = calculateProfitRatio(b);
-                return Double.compare(profitRatioB, profitRatioA); // Descending
-            })
-            .collect(Collectors.toList());
-
-        return selectBooksWithConstraints(sortedBooks, constraints);
-    }
-
-    /**
-     * Optimize for cash flow efficiency
+     * Objective value of every book for the priority focus
      */
-    private OptimizationResult optimizeForCashFlow(List<OptimalStockDto> books, 
-                                                  OptimizationConstraints constraints) {
-        // Sort by cash flow efficiency (revenue / cost ratio with urgency factor)
-        List<OptimalStockDto> sortedBooks = books.stream()
-            .sorted((a, b) -> {
-                double cashFlowScoreA = calculateCashFlowScore(a);
-                double cashFlowScoreB = calculateCashFlowScore(b);
-                return Double.compare(cashFlowScoreB, cashFlowScoreA); // Descending
-            })
-            .collect(Collectors.toList());
-
-        return selectBooksWithConstraints(sortedBooks, constraints);
+    private double[] objectiveValues(List<OptimalStockDto> books, String priorityFocus) {
+        double[] values = new double[books.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = objectiveValue(books.get(i), priorityFocus);
+        }
+        return values;
     }
 
-    /**
-     * Optimize for risk minimization
-     */
-    private OptimizationResult optimizeForRiskMinimization(List<OptimalStockDto> books, 
-                                                          OptimizationConstraints constraints) {
-        // Sort by risk score (lower risk first)
-        List<OptimalStockDto> sortedBooks = books.stream()
-            .sorted((a, b) -> {
-                double riskScoreA = calculateRiskScore(a);
-                double riskScoreB = calculateRiskScore(b);
-                return Double.compare(riskScoreA, riskScoreB); // Ascending (lower risk first)
-            })
-            .collect(Collectors.toList());
-
-        return selectBooksWithConstraints(sortedBooks, constraints);
+    private double objectiveValue(OptimalStockDto book, String priorityFocus) {
+        if ("CASH_FLOW".equals(priorityFocus)) {
+            // Profit weighted by the urgency of the reorder
+            return calculateProfit(book) * calculateUrgencyMultiplier(book);
+        } else if ("RISK_MINIMIZATION".equals(priorityFocus)) {
+            // Risk-adjusted profit: the higher the risk score, the less a book's profit counts
+            return calculateProfit(book) / calculateRiskScore(book);
+        }
+        return calculateProfit(book);
     }
 
     /**
-     * Select books while respecting all constraints
+     * Select the books with the highest total objective value that respect all constraints
+     * 全制約を満たし目的値の合計が最大となる書籍の組み合わせを選択
      */
-    private OptimizationResult selectBooksWithConstraints(List<OptimalStockDto> sortedBooks, 
+    private OptimizationResult selectBooksWithConstraints(Candidates candidates, double[] values,
                                                          OptimizationConstraints constraints) {
+        List<OptimalStockDto> books = candidates.books;
+        int n = books.size();
+        int[] items = candidates.items;
+        int[] weights = candidates.weights;
+        SolverMode mode = solverMode(constraints);
+        KnapsackSolver.Solution solution = solve(candidates, values, constraints.getMaxBudget(), constraints, null);
+
         OptimizationResult result = new OptimizationResult();
-        List<OptimalStockDto> selectedBooks = new ArrayList<>();
+        List<OptimalStockDto> selectedBooks = new ArrayList<>(solution.getSelected().length);
         
         BigDecimal totalCost = BigDecimal.ZERO;
         BigDecimal totalRevenue = BigDecimal.ZERO;
         int totalItems = 0;
         int totalWeight = 0;
 
-        for (OptimalStockDto book : sortedBooks) {
-            // Check constraints
-            BigDecimal bookCost = book.getEstimatedCost() != null ? book.getEstimatedCost() : BigDecimal.ZERO;
-            BigDecimal bookRevenue = book.getEstimatedRevenue() != null ? book.getEstimatedRevenue() : BigDecimal.ZERO;
-            int bookQuantity = book.getRecommendedOrderQuantity() != null ? book.getRecommendedOrderQuantity() : 1;
-            int bookWeight = estimateBookWeight(book) * bookQuantity;
-
-            // Check if adding this book violates constraints
-            if (totalCost.add(bookCost).compareTo(constraints.getMaxBudget()) <= 0 &&
-                totalItems + bookQuantity <= constraints.getMaxItems() &&
-                totalWeight + bookWeight <= constraints.getMaxWeight()) {
-                
-                selectedBooks.add(book);
-                totalCost = totalCost.add(bookCost);
-                totalRevenue = totalRevenue.add(bookRevenue);
-                totalItems += bookQuantity;
-                totalWeight += bookWeight;
-            }
+        for (int i : solution.getSelected()) {
+            OptimalStockDto book = books.get(i);
+            selectedBooks.add(book);
+            totalCost = totalCost.add(book.getEstimatedCost() != null ? book.getEstimatedCost() : BigDecimal.ZERO);
+            totalRevenue = totalRevenue.add(book.getEstimatedRevenue() != null ? book.getEstimatedRevenue() : BigDecimal.ZERO);
+            totalItems += items[i];
+            totalWeight += weights[i];
         }
 
         result.setSelectedBooks(selectedBooks);
@@ -236,12 +234,57 @@ public class ConstraintOptimizationService {
 
         // Add metrics
         result.getMetrics().put("totalWeight", totalWeight);
-        result.getMetrics().put("utilizationRate", (double) selectedBooks.size() / sortedBooks.size());
+        result.getMetrics().put("utilizationRate", n > 0 ? (double) selectedBooks.size() / n : 0.0);
         result.getMetrics().put("budgetUtilization", totalCost.divide(constraints.getMaxBudget(), 4, RoundingMode.HALF_UP));
+        result.getMetrics().put("solverMode", mode.name());
+        result.getMetrics().put("provenOptimal", solution.isOptimal());
+        result.getMetrics().put("objectiveValue", solution.getValue());
+        result.getMetrics().put("objectiveUpperBound", solution.getUpperBound());
+        result.getMetrics().put("nodesExplored", solution.getNodes());
+        result.getMetrics().put("coreSize", solution.getCoreSize());
+        result.getMetrics().put("solveTimeMs", TimeUnit.NANOSECONDS.toMillis(solution.getElapsedNanos()));
 
         return result;
     }
 
+    private SolverMode solverMode(OptimizationConstraints constraints) {
+        return SolverMode.valueOf(constraints.getSolverMode() != null ? constraints.getSolverMode() : defaultSolverMode);
+    }
+
+    /**
+     * Run the solver for one budget under the item/weight limits and solver settings of the constraints
+     */
+    private KnapsackSolver.Solution solve(Candidates candidates, double[] values, BigDecimal budget,
+                                          OptimizationConstraints constraints, int[] initialSelection) {
+        return solve(candidates, values, budget, constraints, initialSelection, Long.MAX_VALUE);
+    }
+
+    /**
+     * Run the solver for one budget, searching no longer than until the given System.nanoTime() deadline;
+     * past it the solver returns its greedy start at once
+     */
+    private KnapsackSolver.Solution solve(Candidates candidates, double[] values, BigDecimal budget,
+                                          OptimizationConstraints constraints, int[] initialSelection,
+                                          long deadlineNanos) {
+        SolverMode mode = solverMode(constraints);
+        long timeLimitMillis = constraints.getTimeBudgetMillis() != null ? constraints.getTimeBudgetMillis()
+            : mode == SolverMode.EXACT ? exactTimeLimitMillis : defaultTimeBudgetMillis;
+        long timeLimitNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(timeLimitMillis),
+            Math.max(0L, deadlineNanos - System.nanoTime()));
+        KnapsackSolver.Solution solution = KnapsackSolver.solve(values, candidates.costs, candidates.items,
+            candidates.weights, toHundredths(budget), constraints.getMaxItems(), constraints.getMaxWeight(),
+            initialSelection, timeLimitNanos);
+        if (mode == SolverMode.EXACT && !solution.isOptimal()) {
+            logger.warn("Exact book selection hit the {} ms limit with {} open candidates; objective {} (bound {})",
+                timeLimitMillis, solution.getCoreSize(), solution.getValue(), solution.getUpperBound());
+        }
+        return solution;
+    }
+
+    private static long toHundredths(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0L;
+    }
+
     /**
      * Check if a book is viable for ordering
      */
@@ -253,33 +296,25 @@ public class ConstraintOptimizationService {
     }
 
     /**
-     * Calculate profit ratio (profit per unit cost)
+     * Calculate expected profit of ordering the book (revenue - cost)
      */
-    private double calculateProfitRatio(OptimalStockDto book) {
-        if (book.getEstimatedCost() == null || book.getEstimatedRevenue() == null ||
-            book.getEstimatedCost().compareTo(BigDecimal.ZERO) <= 0) {
+    private double calculateProfit(OptimalStockDto book) {
+        if (book.getEstimatedCost() == null || book.getEstimatedRevenue() == null) {
             return 0.0;
         }
-        
-        BigDecimal profit = book.getEstimatedRevenue().subtract(book.getEstimatedCost());
-        return profit.divide(book.getEstimatedCost(), 4, RoundingMode.HALF_UP).doubleValue();
+        return book.getEstimatedRevenue().subtract(book.getEstimatedCost()).doubleValue();
     }
 
     /**
-     * Calculate cash flow score
+     * Urgency multiplier for cash flow: books that must be reordered now count more
      */
-    private double calculateCashFlowScore(OptimalStockDto book) {
-        double profitRatio = calculateProfitRatio(book);
-        
-        // Add urgency multiplier
-        double urgencyMultiplier = 1.0;
+    private double calculateUrgencyMultiplier(OptimalStockDto book) {
         if ("REORDER_NEEDED".equals(book.getStockStatus())) {
-            urgencyMultiplier = 2.0;
+            return 2.0;
         } else if ("UNDERSTOCK".equals(book.getStockStatus())) {
-            urgencyMultiplier = 1.5;
+            return 1.5;
         }
-        
-        return profitRatio * urgencyMultiplier;
+        return 1.0;
     }
 
     /**
@@ -375,23 +410,286 @@ public class ConstraintOptimizationService {
                                                            OptimizationConstraints baseConstraints) {
         Map<String, Object> analysis = new HashMap<>();
         
-        // Test budget sensitivity
-        OptimizationConstraints budgetTest = new OptimizationConstraints();
-        budgetTest.setMaxBudget(baseConstraints.getMaxBudget().multiply(BigDecimal.valueOf(1.2)));
-        budgetTest.setMaxItems(baseConstraints.getMaxItems());
-        budgetTest.setPriorityFocus(baseConstraints.getPriorityFocus());
-        
-        OptimizationResult budgetResult = optimizeBookSelection(books, budgetTest);
-        analysis.put("budgetSensitivity", Map.of(
-            "20PercentIncrease", Map.of(
-                "additionalProfit", budgetResult.getTotalProfit().subtract(
-                    optimizeBookSelection(books, baseConstraints).getTotalProfit()
-                ),
-                "additionalItems", budgetResult.getTotalItems() - 
-                    optimizeBookSelection(books, baseConstraints).getTotalItems()
-            )
-        ));
+        // Test budget sensitivity: the base budget and 20% more in one sweep
+        BigDecimal baseBudget = baseConstraints.getMaxBudget();
+        ScenarioSweepResult sweep = sweepScenarios(books, baseConstraints,
+            Arrays.asList(baseBudget, baseBudget.multiply(BigDecimal.valueOf(1.2))),
+            Collections.singletonList(baseConstraints.getPriorityFocus()));
+        ScenarioResult increased = sweep.getScenarios().get(sweep.getScenarios().size() - 1);
+
+        Map<String, Object> increase = new HashMap<>();
+        increase.put("additionalProfit", increased.getAdditionalProfit());
+        increase.put("additionalItems", increased.getAdditionalItems());
+        Map<String, Object> budgetSensitivity = new HashMap<>();
+        budgetSensitivity.put("20PercentIncrease", increase);
+        analysis.put("budgetSensitivity", budgetSensitivity);
         
         return analysis;
     }
-}
\ No newline at end of file
+
+    /**
+     * Solve every combination of budget and priority focus for the same candidates and return the budget
+     * frontier of each focus
+     * 予算×重視項目の全シナリオを並列に解き、重視項目ごとの予算フロンティアを返す
+     *
+     * The candidates are filtered, converted and scored once. Each focus' budget ladder is split into short
+     * runs that the fork-join pool solves in parallel; within a run every step starts from the selection of the
+     * previous (smaller) budget, which still fits and only has to be extended. Item/weight limits and solver
+     * settings come from the base constraints. The whole sweep shares one time budget: scenarios still open
+     * when it runs out get the solver's greedy selection, not proven optimal.
+     *
+     * @throws IllegalArgumentException for more than {@link #getMaxSweepScenarios()} scenarios
+     */
+    @Timed(value = MetricsConfiguration.ANALYSIS_TIMER, extraTags = {"path", "optimization-sweep"}, histogram = true)
+    public ScenarioSweepResult sweepScenarios(List<OptimalStockDto> candidateBooks,
+                                              OptimizationConstraints baseConstraints,
+                                              Collection<BigDecimal> budgets, Collection<String> priorityFocuses) {
+        long startTime = System.nanoTime();
+        List<BigDecimal> ladder = new ArrayList<>(new TreeSet<>(budgets));
+        List<String> focuses = new ArrayList<>(new LinkedHashSet<>(priorityFocuses));
+        if ((long) ladder.size() * focuses.size() > maxSweepScenarios) {
+            throw new IllegalArgumentException(String.format("%d budgets x %d priority focuses exceed %d scenarios",
+                ladder.size(), focuses.size(), maxSweepScenarios));
+        }
+        long deadlineNanos = startTime + TimeUnit.MILLISECONDS.toNanos(sweepTimeBudgetMillis);
+        logger.info("Starting scenario sweep: {} budgets x {} priority focuses over {} candidate books",
+                   ladder.size(), focuses.size(), candidateBooks.size());
+
+        Candidates candidates = new Candidates(candidateBooks.stream()
+            .filter(this::isViableForOrdering)
+            .collect(Collectors.toList()));
+        ScenarioResult[] scenarios = new ScenarioResult[focuses.size() * ladder.size()];
+        List<SweepTask> tasks = new ArrayList<>();
+        for (int f = 0; f < focuses.size(); f++) {
+            tasks.add(new SweepTask(candidates, candidates.values(focuses.get(f)), focuses.get(f), ladder,
+                0, ladder.size(), baseConstraints, scenarios, f * ladder.size(), deadlineNanos));
+        }
+        ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+
+        // Frontier figures need the neighbouring steps, so they are filled in once everything is solved
+        for (int f = 0; f < focuses.size(); f++) {
+            ScenarioResult previous = null;
+            BigDecimal bestProfit = null;
+            for (int b = 0; b < ladder.size(); b++) {
+                ScenarioResult scenario = scenarios[f * ladder.size() + b];
+                BigDecimal previousProfit = previous != null ? previous.getTotalProfit() : BigDecimal.ZERO;
+                BigDecimal previousBudget = previous != null ? previous.getMaxBudget() : BigDecimal.ZERO;
+                scenario.setAdditionalProfit(scenario.getTotalProfit().subtract(previousProfit));
+                scenario.setAdditionalItems(scenario.getTotalItems() - (previous != null ? previous.getTotalItems() : 0));
+                BigDecimal budgetIncrease = scenario.getMaxBudget().subtract(previousBudget);
+                scenario.setMarginalProfitPerYen(budgetIncrease.signum() > 0
+                    ? scenario.getAdditionalProfit().divide(budgetIncrease, 4, RoundingMode.HALF_UP) : BigDecimal.ZERO);
+                scenario.setEfficient(bestProfit == null || scenario.getTotalProfit().compareTo(bestProfit) > 0);
+                if (bestProfit == null || scenario.getTotalProfit().compareTo(bestProfit) > 0) {
+                    bestProfit = scenario.getTotalProfit();
+                }
+                previous = scenario;
+            }
+        }
+
+        ScenarioSweepResult result = new ScenarioSweepResult();
+        result.setScenarios(Arrays.asList(scenarios));
+        result.setCandidateCount(candidates.books.size());
+        result.setSolveTimeMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        result.setTimeBudgetExhausted(System.nanoTime() - deadlineNanos >= 0);
+        logger.info("Scenario sweep completed: {} scenarios in {} ms{}", scenarios.length, result.getSolveTimeMs(),
+            result.isTimeBudgetExhausted() ? " (time budget exhausted)" : "");
+        return result;
+    }
+
+    /**
+     * Most budget x priority focus scenarios a single sweep may solve
+     */
+    public int getMaxSweepScenarios() {
+        return maxSweepScenarios;
+    }
+
+    private ScenarioResult toScenario(Candidates candidates, String priorityFocus, BigDecimal budget,
+                                      KnapsackSolver.Solution solution) {
+        long costHundredths = 0;
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        int totalItems = 0;
+        List<Long> bookIds = new ArrayList<>(solution.getSelected().length);
+        for (int i : solution.getSelected()) {
+            OptimalStockDto book = candidates.books.get(i);
+            costHundredths += candidates.costs[i];
+            totalRevenue = totalRevenue.add(book.getEstimatedRevenue() != null ? book.getEstimatedRevenue() : BigDecimal.ZERO);
+            totalItems += candidates.items[i];
+            bookIds.add(book.getBookId());
+        }
+        ScenarioResult scenario = new ScenarioResult();
+        scenario.setPriorityFocus(priorityFocus);
+        scenario.setMaxBudget(budget);
+        scenario.setTotalCost(BigDecimal.valueOf(costHundredths, 2));
+        scenario.setTotalRevenue(totalRevenue);
+        scenario.setTotalProfit(totalRevenue.subtract(scenario.getTotalCost()));
+        scenario.setTotalItems(totalItems);
+        scenario.setSelectedBookIds(bookIds);
+        scenario.setObjectiveValue(solution.getValue());
+        scenario.setProvenOptimal(solution.isOptimal());
+        return scenario;
+    }
+
+    /**
+     * Consecutive budget steps of one priority focus; long ranges are split in halves for the pool, short runs
+     * are solved in ascending order so each step can start from the previous selection
+     */
+    private final class SweepTask extends RecursiveAction {
+        private final Candidates candidates;
+        private final double[] values;
+        private final String priorityFocus;
+        private final List<BigDecimal> budgets;
+        private final int from;
+        private final int to;
+        private final OptimizationConstraints constraints;
+        private final ScenarioResult[] results;
+        private final int offset;
+        private final long deadlineNanos;
+
+        SweepTask(Candidates candidates, double[] values, String priorityFocus, List<BigDecimal> budgets,
+                  int from, int to, OptimizationConstraints constraints, ScenarioResult[] results, int offset,
+                  long deadlineNanos) {
+            this.candidates = candidates;
+            this.values = values;
+            this.priorityFocus = priorityFocus;
+            this.budgets = budgets;
+            this.from = from;
+            this.to = to;
+            this.constraints = constraints;
+            this.results = results;
+            this.offset = offset;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SWEEP_RUN_LENGTH) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new SweepTask(candidates, values, priorityFocus, budgets, from, mid, constraints, results, offset,
+                              deadlineNanos),
+                          new SweepTask(candidates, values, priorityFocus, budgets, mid, to, constraints, results, offset,
+                              deadlineNanos));
+                return;
+            }
+            int[] previous = null;
+            for (int b = from; b < to; b++) {
+                KnapsackSolver.Solution solution = solve(candidates, values, budgets.get(b), constraints, previous,
+                    deadlineNanos);
+                results[offset + b] = toScenario(candidates, priorityFocus, budgets.get(b), solution);
+                previous = solution.getSelected();
+            }
+        }
+    }
+
+    /**
+     * Viable candidates converted once into the solver's primitive arrays (costs in hundredths of a yen)
+     * 候補書籍を一度だけソルバー用の配列に変換（シナリオ間で共有）
+     */
+    private final class Candidates {
+        final List<OptimalStockDto> books;
+        final long[] costs;
+        final int[] items;
+        final int[] weights;
+        private final Map<String, double[]> values = new HashMap<>();
+
+        Candidates(List<OptimalStockDto> books) {
+            this.books = books;
+            int n = books.size();
+            costs = new long[n];
+            items = new int[n];
+            weights = new int[n];
+            for (int i = 0; i < n; i++) {
+                OptimalStockDto book = books.get(i);
+                costs[i] = toHundredths(book.getEstimatedCost());
+                items[i] = book.getRecommendedOrderQuantity() != null ? book.getRecommendedOrderQuantity() : 1;
+                weights[i] = estimateBookWeight(book) * items[i];
+            }
+        }
+
+        /** Objective values of a priority focus, scored on first use; call before handing out to other threads */
+        double[] values(String priorityFocus) {
+            return values.computeIfAbsent(String.valueOf(priorityFocus), focus -> objectiveValues(books, priorityFocus));
+        }
+    }
+
+    /**
+     * One budget / priority focus scenario of a sweep
+     */
+    public static class ScenarioResult {
+        private String priorityFocus;
+        private BigDecimal maxBudget;
+        private BigDecimal totalCost;
+        private BigDecimal totalRevenue;
+        private BigDecimal totalProfit;
+        private Integer totalItems;
+        private List<Long> selectedBookIds;
+        private Double objectiveValue;
+        private boolean provenOptimal;
+        private BigDecimal additionalProfit; // over the next smaller budget of the same focus
+        private Integer additionalItems;
+        private BigDecimal marginalProfitPerYen; // additional profit per additional yen of budget
+        private boolean efficient; // more profit than every smaller budget of the same focus
+
+        public String getPriorityFocus() { return priorityFocus; }
+        public void setPriorityFocus(String priorityFocus) { this.priorityFocus = priorityFocus; }
+
+        public BigDecimal getMaxBudget() { return maxBudget; }
+        public void setMaxBudget(BigDecimal maxBudget) { this.maxBudget = maxBudget; }
+
+        public BigDecimal getTotalCost() { return totalCost; }
+        public void setTotalCost(BigDecimal totalCost) { this.totalCost = totalCost; }
+
+        public BigDecimal getTotalRevenue() { return totalRevenue; }
+        public void setTotalRevenue(BigDecimal totalRevenue) { this.totalRevenue = totalRevenue; }
+
+        public BigDecimal getTotalProfit() { return totalProfit; }
+        public void setTotalProfit(BigDecimal totalProfit) { this.totalProfit = totalProfit; }
+
+        public Integer getTotalItems() { return totalItems; }
+        public void setTotalItems(Integer totalItems) { this.totalItems = totalItems; }
+
+        public List<Long> getSelectedBookIds() { return selectedBookIds; }
+        public void setSelectedBookIds(List<Long> selectedBookIds) { this.selectedBookIds = selectedBookIds; }
+
+        public Double getObjectiveValue() { return objectiveValue; }
+        public void setObjectiveValue(Double objectiveValue) { this.objectiveValue = objectiveValue; }
+
+        public boolean isProvenOptimal() { return provenOptimal; }
+        public void setProvenOptimal(boolean provenOptimal) { this.provenOptimal = provenOptimal; }
+
+        public BigDecimal getAdditionalProfit() { return additionalProfit; }
+        public void setAdditionalProfit(BigDecimal additionalProfit) { this.additionalProfit = additionalProfit; }
+
+        public Integer getAdditionalItems() { return additionalItems; }
+        public void setAdditionalItems(Integer additionalItems) { this.additionalItems = additionalItems; }
+
+        public BigDecimal getMarginalProfitPerYen() { return marginalProfitPerYen; }
+        public void setMarginalProfitPerYen(BigDecimal marginalProfitPerYen) { this.marginalProfitPerYen = marginalProfitPerYen; }
+
+        public boolean isEfficient() { return efficient; }
+        public void setEfficient(boolean efficient) { this.efficient = efficient; }
+    }
+
+    /**
+     * All scenarios of a sweep, grouped by priority focus (in request order) and ascending budget within a focus
+     */
+    public static class ScenarioSweepResult {
+        private List<ScenarioResult> scenarios;
+        private int candidateCount;
+        private long solveTimeMs;
+        private boolean timeBudgetExhausted;
+
+        public List<ScenarioResult> getScenarios() { return scenarios; }
+        public void setScenarios(List<ScenarioResult> scenarios) { this.scenarios = scenarios; }
+
+        public int getCandidateCount() { return candidateCount; }
+        public void setCandidateCount(int candidateCount) { this.candidateCount = candidateCount; }
+
+        public long getSolveTimeMs() { return solveTimeMs; }
+        public void setSolveTimeMs(long solveTimeMs) { this.solveTimeMs = solveTimeMs; }
+
+        /** Whether the sweep ran out of its time budget; scenarios solved after that are greedy selections */
+        public boolean isTimeBudgetExhausted() { return timeBudgetExhausted; }
+        public void setTimeBudgetExhausted(boolean timeBudgetExhausted) { this.timeBudgetExhausted = timeBudgetExhausted; }
+    }
+}
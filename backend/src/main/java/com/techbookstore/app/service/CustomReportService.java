@@ -1,5 +1,7 @@
 package com.techbookstore.app.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.techbookstore.app.dto.*;
 import com.techbookstore.app.entity.AggregationCache;
 import com.techbookstore.app.repository.AggregationCacheRepository;
@@ -8,6 +10,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -26,12 +29,17 @@ public class CustomReportService {
     private final ReportService reportService;
     private final AnalyticsService analyticsService;
     private final AggregationCacheRepository cacheRepository;
+    private final ReportExportService reportExportService;
+    private final ObjectMapper objectMapper;
     
     public CustomReportService(ReportService reportService, AnalyticsService analyticsService,
-                              AggregationCacheRepository cacheRepository) {
+                              AggregationCacheRepository cacheRepository,
+                              ReportExportService reportExportService, ObjectMapper objectMapper) {
         this.reportService = reportService;
         this.analyticsService = analyticsService;
         this.cacheRepository = cacheRepository;
+        this.reportExportService = reportExportService;
+        this.objectMapper = objectMapper;
     }
     
     /**
@@ -47,6 +55,9 @@ public class CustomReportService {
         report.setReportType(request.getReportType());
         report.setCreatedDate(LocalDate.now());
         report.setCreatedBy(request.getCreatedBy());
+        report.setStartDate(request.getStartDate());
+        report.setEndDate(request.getEndDate());
+        report.setFilters(request.getFilters());
         
         try {
             // Generate report content based on type
@@ -222,8 +233,13 @@ public class CustomReportService {
     /**
      * Export report to different formats
      * レポートの各種フォーマットエクスポート
+     *
+     * Only prepares the export: the returned content streams the detail rows when it is written
+     * to the response, so nothing is buffered here.
+     *
+     * @param dataset detail rows to export (ORDER_DETAIL, INVENTORY_DETAIL); null picks the one behind the report type
      */
-    public ReportExportDto exportReport(String reportId, String format) {
+    public ReportExportDto exportReport(String reportId, String format, String dataset) {
         logger.info("Exporting report {} to format: {}", reportId, format);
         
         ReportExportDto export = new ReportExportDto();
@@ -234,35 +250,40 @@ public class CustomReportService {
         try {
             // Retrieve report data
             CustomReportDto report = getCustomReport(reportId);
+            if (report == null) {
+                export.setStatus("FAILED");
+                export.setErrorMessage("Report not found: " + reportId);
+                return export;
+            }
+            String baseName = report.getReportName() + "_" + LocalDate.now();
             
-            // Generate export based on format
-            switch (format.toUpperCase()) {
-                case "PDF":
-                    export.setFileData(generatePdfExport(report));
-                    export.setFileName(report.getReportName() + "_" + LocalDate.now() + ".pdf");
-                    export.setMimeType("application/pdf");
-                    break;
-                case "EXCEL":
-                    export.setFileData(generateExcelExport(report));
-                    export.setFileName(report.getReportName() + "_" + LocalDate.now() + ".xlsx");
-                    export.setMimeType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-                    break;
-                case "CSV":
-                    export.setFileData(generateCsvExport(report));
-                    export.setFileName(report.getReportName() + "_" + LocalDate.now() + ".csv");
-                    export.setMimeType("text/csv");
-                    break;
-                case "JSON":
-                    export.setFileData(generateJsonExport(report));
-                    export.setFileName(report.getReportName() + "_" + LocalDate.now() + ".json");
-                    export.setMimeType("application/json");
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unsupported export format: " + format);
+            if ("PDF".equalsIgnoreCase(format)) {
+                byte[] pdf = generatePdfExport(report);
+                export.setContent(out -> out.write(pdf));
+                export.setFileSize(pdf.length);
+                export.setFileName(baseName + ".pdf");
+                export.setMimeType("application/pdf");
+            } else {
+                ReportExportService.Format exportFormat = ReportExportService.Format.valueOf(format.toUpperCase());
+                ReportExportService.Dataset exportDataset =
+                    ReportExportService.Dataset.resolve(dataset, report.getReportType());
+                // Export the rows the report was created for, not the whole table
+                ReportExportService.Criteria criteria = new ReportExportService.Criteria(
+                    report.getStartDate(), report.getEndDate(), report.getFilters());
+                exportDataset.checkFilters(criteria);
+                export.setContent(out -> reportExportService.writeDataset(exportDataset, criteria, exportFormat, out));
+                export.setCompressible(exportFormat.isCompressible());
+                export.setFileName(baseName + "." + exportFormat.getExtension());
+                export.setMimeType(exportFormat.getMimeType());
             }
             
             export.setStatus("COMPLETED");
             
+        } catch (IllegalArgumentException e) {
+            logger.error("Failed to export report", e);
+            export.setStatus("FAILED");
+            export.setErrorMessage("Unsupported export format, dataset or filter: " + format + "/" + dataset
+                + " (" + e.getMessage() + ")");
         } catch (Exception e) {
             logger.error("Failed to export report", e);
             export.setStatus("FAILED");
@@ -524,44 +545,31 @@ public class CustomReportService {
         return pdfContent.getBytes();
     }
     
-    private byte[] generateExcelExport(CustomReportDto report) {
-        // In production, use Apache POI
-        String excelContent = "Excel Export for: " + report.getReportName();
-        return excelContent.getBytes();
-    }
-    
-    private byte[] generateCsvExport(CustomReportDto report) {
-        // Generate CSV format
-        String csvContent = "CSV Export for: " + report.getReportName();
-        return csvContent.getBytes();
-    }
-    
-    private byte[] generateJsonExport(CustomReportDto report) {
-        // Generate JSON format
-        String jsonContent = "{\"reportName\":\"" + report.getReportName() + "\"}";
-        return jsonContent.getBytes();
-    }
-    
-    private void cacheCustomReport(CustomReportDto report) {
-        String cacheKey = "custom_report_" + report.getReportId();
+    private void cacheCustomReport(CustomReportDto report) throws JsonProcessingException {
         AggregationCache cache = new AggregationCache(
-            cacheKey,
+            customReportCacheKey(report.getReportId()),
             "custom_report",
             LocalDate.now(),
-            report.toString(), // In production, use JSON serialization
+            objectMapper.writeValueAsString(report),
             LocalDateTime.now().plusDays(30)
         );
         
         cacheRepository.save(cache);
     }
     
-    private CustomReportDto getCustomReport(String reportId) {
-        // Retrieve from cache or database
-        // For now, return a mock report
-        CustomReportDto report = new CustomReportDto();
-        report.setReportId(reportId);
-        report.setReportName("Mock Report");
-        report.setReportData(new HashMap<>());
-        return report;
+    /**
+     * Stored report with the parameters it was created with, or null when it is unknown or has expired
+     */
+    private CustomReportDto getCustomReport(String reportId) throws IOException {
+        Optional<AggregationCache> cache = cacheRepository.findByCacheKey(customReportCacheKey(reportId))
+            .filter(entry -> entry.getExpiresAt().isAfter(LocalDateTime.now()));
+        if (!cache.isPresent()) {
+            return null;
+        }
+        return objectMapper.readValue(cache.get().getAggregationData(), CustomReportDto.class);
+    }
+    
+    private static String customReportCacheKey(String reportId) {
+        return "custom_report_" + reportId;
     }
 }
\ No newline at end of file
@@ -0,0 +1,390 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Customer;
+import com.techbookstore.app.repository.CustomerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory prefix index for customer lookup by name, kana, e-mail and phone number
+ * 顧客検索用のメモリ内前方一致索引（氏名・フリガナ・メール・電話番号）
+ *
+ * Names, kana readings and company names are normalized (NFKC, lower case, katakana folded to hiragana,
+ * spaces removed), so "ﾔﾏﾀﾞ", "ヤマダ" and "やまだ" all find the same customer. Each word of a name is
+ * indexed on its own as well, so a given name finds the customer too. E-mail addresses are indexed whole
+ * and by domain, phone numbers by their digits only, so "03-1234" and "031234" are the same query.
+ *
+ * Every key is stored as "key\0customerId" in a sorted set; a prefix lookup is a range scan over that set,
+ * which behaves like a trie walk without a node per character. Deleted customers are never indexed.
+ */
+@Service
+public class CustomerSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerSearchIndex.class);
+
+    private static final char SEPARATOR = '\u0000';
+
+    /** Shortest phone query; a single digit would match nearly everybody */
+    private static final int MIN_PHONE_DIGITS = 2;
+
+    private final CustomerRepository customerRepository;
+
+    private volatile Tries tries;
+
+    /** Updates made while a rebuild from the database is running, replayed onto the rebuilt index */
+    private List<Object[]> pendingDuringRebuild;
+
+    private final Object writeMonitor = new Object();
+
+    public CustomerSearchIndex(CustomerRepository customerRepository) {
+        this.customerRepository = customerRepository;
+    }
+
+    /**
+     * Load all non-deleted customers once the application (including data initialization) is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild from the database; also picks up changes made by other nodes or directly in the database
+     * DBから索引を再構築（他ノードでの更新も取り込む）
+     */
+    @Scheduled(cron = "${app.customer-search.rebuild-cron:0 45 * * * *}")
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        synchronized (writeMonitor) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        Tries rebuilt;
+        try {
+            rebuilt = Tries.load(customerRepository.findSearchFields());
+        } catch (RuntimeException e) {
+            synchronized (writeMonitor) {
+                pendingDuringRebuild = null;
+            }
+            throw e;
+        }
+        synchronized (writeMonitor) {
+            for (Object[] update : pendingDuringRebuild) {
+                if (update.length == 1) {
+                    rebuilt.remove((Long) update[0]);
+                } else {
+                    rebuilt.add((Long) update[0], (String) update[1], (String) update[2], (String) update[3],
+                        (String) update[4], (String) update[5]);
+                }
+            }
+            pendingDuringRebuild = null;
+            tries = rebuilt;
+        }
+        logger.info("Customer search index rebuilt: {} customers, {} keys in {}ms",
+            rebuilt.customerCount(), rebuilt.keyCount(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Add or replace a customer after it has been saved; a deleted customer is removed instead
+     */
+    public void index(Customer customer) {
+        if (customer == null || customer.getId() == null) {
+            return;
+        }
+        if (customer.getStatus() == Customer.CustomerStatus.DELETED) {
+            remove(customer.getId());
+            return;
+        }
+        Object[] update = {customer.getId(), customer.getName(), customer.getNameKana(), customer.getEmail(),
+            customer.getPhone(), customer.getCompanyName()};
+        synchronized (writeMonitor) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(update);
+            }
+            Tries current = tries;
+            if (current != null) {
+                current.add(customer.getId(), customer.getName(), customer.getNameKana(), customer.getEmail(),
+                    customer.getPhone(), customer.getCompanyName());
+            }
+        }
+    }
+
+    /**
+     * Remove a (logically) deleted customer
+     */
+    public void remove(Long customerId) {
+        synchronized (writeMonitor) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(new Object[] {customerId});
+            }
+            Tries current = tries;
+            if (current != null) {
+                current.remove(customerId);
+            }
+        }
+    }
+
+    /**
+     * Whether the index has been built and can answer queries
+     */
+    public boolean isReady() {
+        return tries != null;
+    }
+
+    /**
+     * Customers whose name, kana, company, e-mail or phone starts with the keyword; exact matches first
+     * 前方一致による顧客検索（完全一致を優先）
+     *
+     * @return customer ids, at most limit, or null while the index is not built yet
+     */
+    public List<Long> lookup(String keyword, int limit) {
+        Tries current = tries;
+        if (current == null) {
+            return null;
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        current.collect(keyword, Math.max(1, limit), ids);
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Every matching customer id in ascending order, for paging the keyword search by id
+     *
+     * @return the ids, or null while the index is not built yet
+     */
+    public List<Long> findAllIds(String keyword) {
+        return findIds(keyword, Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * All matching customer ids in ascending order, as a replacement for the LIKE query
+     *
+     * @return the ids, or null while the index is not built or when there are more than maxIds matches
+     */
+    public List<Long> findIds(String keyword, int maxIds) {
+        Tries current = tries;
+        if (current == null) {
+            return null;
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        current.collect(keyword, maxIds + 1, ids);
+        if (ids.size() > maxIds) {
+            return null;
+        }
+        List<Long> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Name and kana form: NFKC, lower case, katakana to hiragana, without spaces and middle dots
+     */
+    static String foldName(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder folded = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (Character.isWhitespace(c) || c == '・') {
+                continue;
+            }
+            // ァ (U+30A1) .. ヶ (U+30F6) sit exactly 0x60 above ぁ .. ゖ
+            folded.append(c >= 'ァ' && c <= 'ヶ' ? (char) (c - 0x60) : c);
+        }
+        return folded.toString();
+    }
+
+    static String foldEmail(String text) {
+        return text == null ? "" : Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT).trim();
+    }
+
+    static String digitsOnly(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        StringBuilder digits = new StringBuilder(normalized.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    /** Digits with the usual separators only, e.g. "03-1234-5678" or "+81 (3) 1234" */
+    private static boolean looksLikePhone(String text) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC);
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (!(c >= '0' && c <= '9') && "-+() ".indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One index generation: three sorted key sets plus the keys of every customer, so that an update can
+     * remove the previous ones. Sets are read concurrently; writes come from the thread holding the write monitor.
+     */
+    private static final class Tries {
+
+        private final NavigableSet<String> names = new ConcurrentSkipListSet<>();
+        private final NavigableSet<String> emails = new ConcurrentSkipListSet<>();
+        private final NavigableSet<String> phones = new ConcurrentSkipListSet<>();
+        private final Map<Long, String[][]> entriesByCustomer = new ConcurrentHashMap<>();
+
+        /**
+         * Bulk load: the keys are sorted first, since in-order inserts into a skip list are several times
+         * faster than random ones
+         */
+        static Tries load(List<Object[]> rows) {
+            Tries loaded = new Tries();
+            List<String> nameEntries = new ArrayList<>();
+            List<String> emailEntries = new ArrayList<>();
+            List<String> phoneEntries = new ArrayList<>();
+            for (Object[] row : rows) {
+                String[][] entries = entries((Long) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    (String) row[4], (String) row[5]);
+                loaded.entriesByCustomer.put((Long) row[0], entries);
+                nameEntries.addAll(Arrays.asList(entries[0]));
+                emailEntries.addAll(Arrays.asList(entries[1]));
+                phoneEntries.addAll(Arrays.asList(entries[2]));
+            }
+            Collections.sort(nameEntries);
+            Collections.sort(emailEntries);
+            Collections.sort(phoneEntries);
+            loaded.names.addAll(nameEntries);
+            loaded.emails.addAll(emailEntries);
+            loaded.phones.addAll(phoneEntries);
+            return loaded;
+        }
+
+        void add(Long customerId, String name, String nameKana, String email, String phone, String companyName) {
+            remove(customerId);
+            String[][] entries = entries(customerId, name, nameKana, email, phone, companyName);
+            names.addAll(Arrays.asList(entries[0]));
+            emails.addAll(Arrays.asList(entries[1]));
+            phones.addAll(Arrays.asList(entries[2]));
+            entriesByCustomer.put(customerId, entries);
+        }
+
+        /**
+         * "key\0customerId" entries of a customer: {name keys, e-mail keys, phone keys}
+         */
+        private static String[][] entries(Long customerId, String name, String nameKana, String email,
+                                          String phone, String companyName) {
+            String suffix = SEPARATOR + String.valueOf(customerId);
+
+            Set<String> nameEntries = new LinkedHashSet<>();
+            for (String text : new String[] {name, nameKana, companyName}) {
+                addNameKeys(text, suffix, nameEntries);
+            }
+            Set<String> emailEntries = new LinkedHashSet<>();
+            String foldedEmail = foldEmail(email);
+            if (!foldedEmail.isEmpty()) {
+                emailEntries.add(foldedEmail + suffix);
+                int at = foldedEmail.indexOf('@');
+                if (at >= 0 && at + 1 < foldedEmail.length()) {
+                    emailEntries.add(foldedEmail.substring(at + 1) + suffix);
+                }
+            }
+            String digits = digitsOnly(phone);
+            return new String[][] {
+                nameEntries.toArray(new String[0]),
+                emailEntries.toArray(new String[0]),
+                digits.isEmpty() ? new String[0] : new String[] {digits + suffix}
+            };
+        }
+
+        private static void addNameKeys(String text, String suffix, Set<String> entries) {
+            if (text == null) {
+                return;
+            }
+            String whole = foldName(text);
+            if (whole.isEmpty()) {
+                return;
+            }
+            entries.add(whole + suffix);
+            // NFKC turns the full-width space (U+3000) into a plain one, so one split covers both
+            for (String word : Normalizer.normalize(text, Normalizer.Form.NFKC).trim().split("\\s+")) {
+                String folded = foldName(word);
+                if (!folded.isEmpty()) {
+                    entries.add(folded + suffix);
+                }
+            }
+        }
+
+        void remove(Long customerId) {
+            String[][] previous = entriesByCustomer.remove(customerId);
+            if (previous != null) {
+                names.removeAll(Arrays.asList(previous[0]));
+                emails.removeAll(Arrays.asList(previous[1]));
+                phones.removeAll(Arrays.asList(previous[2]));
+            }
+        }
+
+        int customerCount() {
+            return entriesByCustomer.size();
+        }
+
+        int keyCount() {
+            return names.size() + emails.size() + phones.size();
+        }
+
+        /**
+         * Collect ids matching the keyword, phone and name matches before e-mail ones, until there are max ids
+         */
+        void collect(String keyword, int max, Set<Long> ids) {
+            if (keyword == null || keyword.trim().isEmpty()) {
+                return;
+            }
+            if (looksLikePhone(keyword)) {
+                String digits = digitsOnly(keyword);
+                if (digits.length() >= MIN_PHONE_DIGITS) {
+                    scan(phones, digits, max, ids);
+                }
+            }
+            String email = foldEmail(keyword);
+            if (email.indexOf('@') < 0) {
+                scan(names, foldName(keyword), max, ids);
+            }
+            scan(emails, email, max, ids);
+        }
+
+        /**
+         * Range scan over all keys starting with prefix; "prefix\0id" sorts first, so exact keys come first
+         */
+        private static void scan(NavigableSet<String> keys, String prefix, int max, Set<Long> ids) {
+            if (prefix.isEmpty()) {
+                return;
+            }
+            for (String entry : keys.subSet(prefix, true, prefix + Character.MAX_VALUE, false)) {
+                if (ids.size() >= max) {
+                    return;
+                }
+                ids.add(Long.valueOf(entry.substring(entry.lastIndexOf(SEPARATOR) + 1)));
+            }
+        }
+    }
+}
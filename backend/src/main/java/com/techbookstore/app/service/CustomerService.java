@@ -1,5 +1,6 @@
 package com.techbookstore.app.service;
 
+import com.techbookstore.app.dto.CursorPage;
 import com.techbookstore.app.entity.Customer;
 import com.techbookstore.app.entity.Order;
 import com.techbookstore.app.exception.CustomerEmailAlreadyExistsException;
@@ -9,13 +10,27 @@ import com.techbookstore.app.repository.OrderRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.criteria.Predicate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Service class for managing customers and customer-related operations.
@@ -28,13 +43,22 @@ public class CustomerService {
     
     private final CustomerRepository customerRepository;
     private final OrderRepository orderRepository;
+    private final KeysetPager keysetPager;
+    private final CustomerSearchIndex customerSearchIndex;
+    
+    /** Sort keys usable with cursor pagination: non-null columns (combined with id as tie-breaker) */
+    public static final Set<String> CURSOR_SORT_KEYS = Collections.unmodifiableSet(
+        new LinkedHashSet<>(Arrays.asList("name", "id", "email", "createdAt")));
     
     /**
      * Constructor injection for dependencies.
      */
-    public CustomerService(CustomerRepository customerRepository, OrderRepository orderRepository) {
+    public CustomerService(CustomerRepository customerRepository, OrderRepository orderRepository,
+                           KeysetPager keysetPager, CustomerSearchIndex customerSearchIndex) {
         this.customerRepository = customerRepository;
         this.orderRepository = orderRepository;
+        this.keysetPager = keysetPager;
+        this.customerSearchIndex = customerSearchIndex;
     }
     
     /**
@@ -55,6 +79,7 @@ public class CustomerService {
         
         customer.setStatus(Customer.CustomerStatus.ACTIVE);
         Customer savedCustomer = customerRepository.save(customer);
+        indexAfterCommit(savedCustomer);
         
         logger.info("Created customer with ID: {}", savedCustomer.getId());
         return savedCustomer;
@@ -100,6 +125,7 @@ public class CustomerService {
         existingCustomer.setUpdatedAt(LocalDateTime.now());
         
         Customer updatedCustomer = customerRepository.save(existingCustomer);
+        indexAfterCommit(updatedCustomer);
         logger.info("Updated customer with ID: {}", updatedCustomer.getId());
         return updatedCustomer;
     }
@@ -143,14 +169,69 @@ public class CustomerService {
     
     /**
      * Searches customers by keyword with pagination.
+     * Customers whose name, kana, company, e-mail or phone starts with the keyword come from the in-memory
+     * index (kana-insensitive, phone separators ignored) and are paged in id order. The database LIKE search,
+     * which matches anywhere in name, e-mail or company name, is used only while the index is not built yet
+     * and for keywords nothing starts with, such as a word from the middle of an address.
      * 
      * @param keyword the search keyword
-     * @param pageable the pagination parameters
+     * @param pageable the pagination parameters; its sort applies to the LIKE search only
      * @return page of customers matching the keyword
      */
     @Transactional(readOnly = true)
     public Page<Customer> searchCustomers(String keyword, Pageable pageable) {
-        return customerRepository.findByKeyword(keyword, pageable);
+        List<Long> ids = customerSearchIndex.findAllIds(keyword);
+        if (ids == null) {
+            logger.debug("Customer search index not built yet, searching with LIKE: {}", keyword);
+            return customerRepository.findByKeyword(keyword, pageable);
+        }
+        if (ids.isEmpty()) {
+            // Substring-only keyword: no indexed key starts with it
+            return customerRepository.findByKeyword(keyword, pageable);
+        }
+        return findPageOfIds(ids, pageable);
+    }
+    
+    /**
+     * One page of the given ascending ids; only the customers on that page are loaded.
+     */
+    private Page<Customer> findPageOfIds(List<Long> ids, Pageable pageable) {
+        List<Long> pageIds = ids;
+        if (pageable.isPaged()) {
+            int from = (int) Math.min(pageable.getOffset(), ids.size());
+            pageIds = ids.subList(from, Math.min(from + pageable.getPageSize(), ids.size()));
+        }
+        Map<Long, Customer> byId = new HashMap<>();
+        customerRepository.findAllById(pageIds).forEach(customer -> byId.put(customer.getId(), customer));
+        List<Customer> content = pageIds.stream()
+                .map(byId::get)
+                .filter(customer -> customer != null && customer.getStatus() != Customer.CustomerStatus.DELETED)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, ids.size());
+    }
+    
+    /**
+     * Quick lookup for the counter: best prefix matches first, without paging or counting.
+     * 
+     * @param keyword name, kana, e-mail or phone prefix
+     * @param limit maximum number of customers
+     * @return matching customers, exact matches first
+     */
+    @Transactional(readOnly = true)
+    public List<Customer> lookupCustomers(String keyword, int limit) {
+        List<Long> ids = customerSearchIndex.lookup(keyword, limit);
+        if (ids == null) {
+            return customerRepository.findByKeyword(keyword, PageRequest.of(0, limit, Sort.by("name"))).getContent();
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Customer> byId = new HashMap<>();
+        customerRepository.findAllById(ids).forEach(customer -> byId.put(customer.getId(), customer));
+        return ids.stream()
+                .map(byId::get)
+                .filter(customer -> customer != null && customer.getStatus() != Customer.CustomerStatus.DELETED)
+                .collect(Collectors.toList());
     }
     
     /**
@@ -172,6 +253,53 @@ public class CustomerService {
         return customerRepository.findCustomersWithFilters(customerType, status, startDate, endDate, pageable);
     }
     
+    /**
+     * Retrieves non-deleted customers with cursor (keyset) pagination; same filters as
+     * {@link #findCustomersWithFilters} and, when a keyword is given, the LIKE matching of
+     * {@link CustomerRepository#findByKeyword}.
+     * 
+     * @param cursor continuation token from the previous page, or null for the first page
+     * @param includeTotal whether to estimate the total number of customers
+     * @return page of customers with the token for the next page
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Customer> getCustomersByCursor(String keyword,
+                                                   Customer.CustomerType customerType,
+                                                   Customer.CustomerStatus status,
+                                                   LocalDateTime startDate,
+                                                   LocalDateTime endDate,
+                                                   String sortBy,
+                                                   String sortDir,
+                                                   int size,
+                                                   String cursor,
+                                                   boolean includeTotal) {
+        return keysetPager.find(Customer.class, CURSOR_SORT_KEYS, sortBy, sortDir, size, cursor, includeTotal,
+            (root, cb) -> {
+                List<Predicate> predicates = new ArrayList<>();
+                predicates.add(cb.notEqual(root.get("status"), Customer.CustomerStatus.DELETED));
+                if (keyword != null) {
+                    String pattern = "%" + keyword.toLowerCase() + "%";
+                    predicates.add(cb.or(cb.like(cb.lower(root.get("name")), pattern),
+                        cb.like(cb.lower(root.get("email")), pattern),
+                        cb.like(cb.lower(root.get("companyName")), pattern)));
+                    return predicates;
+                }
+                if (customerType != null) {
+                    predicates.add(cb.equal(root.get("customerType"), customerType));
+                }
+                if (status != null) {
+                    predicates.add(cb.equal(root.get("status"), status));
+                }
+                if (startDate != null) {
+                    predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), startDate));
+                }
+                if (endDate != null) {
+                    predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), endDate));
+                }
+                return predicates;
+            });
+    }
+    
     /**
      * Deletes a customer (logical delete).
      * 
@@ -187,10 +315,27 @@ public class CustomerService {
         customer.setStatus(Customer.CustomerStatus.DELETED);
         customer.setUpdatedAt(LocalDateTime.now());
         customerRepository.save(customer);
+        indexAfterCommit(customer);
         
         logger.info("Deleted customer with ID: {}", id);
     }
     
+    /**
+     * Updates the lookup index once the change is committed, so a rolled back change never shows up in it.
+     */
+    private void indexAfterCommit(Customer customer) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            customerSearchIndex.index(customer);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                customerSearchIndex.index(customer);
+            }
+        });
+    }
+    
     /**
      * Retrieves all orders for a specific customer.
      * 
@@ -0,0 +1,549 @@
+package com.techbookstore.app.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Monthly archival of orders and inventory transactions past the retention window
+ * 保持期間を過ぎた注文・在庫取引履歴の月単位アーカイブ（PostgreSQLパーティション管理 / H2フォールバック）
+ *
+ * Archived months are written to gzip-compressed JSON-lines files under
+ * {@code <directory>/<table>/<yyyy-MM>/}, one object per row keyed by column name, and removed from the
+ * database; the find methods read them back. On PostgreSQL, when inventory_transactions has been
+ * converted to a range-partitioned table (db/migration/inventory_transactions_partitioning.sql), monthly
+ * partitions are created ahead of time and an expired month is detached, exported and dropped as a
+ * whole. Everywhere else (H2 in dev and tests, orders, whose items reference them) a month is exported
+ * through a cursor and then deleted by id in short batches. Only the node holding the data-archive lease
+ * runs the archive.
+ */
+@Service
+public class DataArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataArchiveService.class);
+
+    static final String LEASE_NAME = "data-archive";
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String FILE_SUFFIX = ".jsonl.gz";
+    private static final TypeReference<LinkedHashMap<String, Object>> ROW_TYPE =
+        new TypeReference<LinkedHashMap<String, Object>>() {};
+
+    /**
+     * A table archived by month on one of its timestamp columns, optionally with a child table whose rows
+     * are archived and deleted together with their parent
+     */
+    static final class ArchivedTable {
+
+        static final ArchivedTable INVENTORY_TRANSACTIONS =
+            new ArchivedTable("inventory_transactions", "executed_at", null, null);
+        static final ArchivedTable ORDERS = new ArchivedTable("orders", "order_date", "order_items", "order_id");
+
+        final String name;
+        final String dateColumn;
+        final String childName;
+        final String childKey;
+
+        private ArchivedTable(String name, String dateColumn, String childName, String childKey) {
+            this.name = name;
+            this.dateColumn = dateColumn;
+            this.childName = childName;
+            this.childKey = childKey;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final SchedulerLeaseService leaseService;
+    private final Path directory;
+    private final int retentionMonths;
+    private final int monthsAhead;
+    private final int batchSize;
+    private final long leaseMinutes;
+    private final int maxReadRows;
+
+    private volatile Boolean postgreSql;
+
+    public DataArchiveService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper, SchedulerLeaseService leaseService,
+                              @Value("${app.archive.directory:data/archive}") String directory,
+                              @Value("${app.archive.retention-months:24}") int retentionMonths,
+                              @Value("${app.archive.months-ahead:3}") int monthsAhead,
+                              @Value("${app.archive.batch-size:1000}") int batchSize,
+                              @Value("${app.archive.fetch-size:500}") int fetchSize,
+                              @Value("${app.archive.lease-minutes:60}") long leaseMinutes,
+                              @Value("${app.archive.max-read-rows:1000}") int maxReadRows) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // Called from the monthly batch, which runs in a transaction of its own: every step here commits
+        // independently so a month is never deleted in one long transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.leaseService = leaseService;
+        this.directory = Paths.get(directory);
+        this.retentionMonths = Math.max(1, retentionMonths);
+        this.monthsAhead = Math.max(0, monthsAhead);
+        this.batchSize = Math.max(1, batchSize);
+        this.leaseMinutes = Math.max(1, leaseMinutes);
+        this.maxReadRows = Math.max(1, maxReadRows);
+    }
+
+    /**
+     * Make sure the current month has a partition before the first write of a fresh deployment
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createPartitionsOnStartup() {
+        try {
+            ensurePartitions(ArchivedTable.INVENTORY_TRANSACTIONS, LocalDate.now());
+        } catch (RuntimeException e) {
+            logger.warn("Could not create inventory transaction partitions: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Archive every month older than the retention window and create the upcoming partitions
+     * 保持期間を過ぎた月をアーカイブし、今後の月のパーティションを作成
+     *
+     * @return number of rows archived, 0 when another node holds the archive lease
+     */
+    public int archiveOldData() {
+        if (!leaseService.tryAcquire(LEASE_NAME, Duration.ofMinutes(leaseMinutes))) {
+            logger.info("Data archive skipped, another node holds the lease");
+            return 0;
+        }
+        try {
+            return archive(LocalDate.now());
+        } finally {
+            leaseService.release(LEASE_NAME);
+        }
+    }
+
+    int archive(LocalDate today) {
+        long startTime = System.currentTimeMillis();
+        YearMonth cutoff = YearMonth.from(today).minusMonths(retentionMonths);
+        int archived = 0;
+        for (ArchivedTable table : new ArchivedTable[] {ArchivedTable.INVENTORY_TRANSACTIONS, ArchivedTable.ORDERS}) {
+            if (isPartitioned(table)) {
+                ensurePartitions(table, today);
+                archived += archivePartitions(table, cutoff);
+            } else {
+                archived += archiveByDelete(table, cutoff);
+            }
+        }
+        logger.info("Data archive: {} rows before {} archived in {}ms", archived, cutoff,
+            System.currentTimeMillis() - startTime);
+        return archived;
+    }
+
+    /**
+     * Archived inventory transactions executed between the given times (inclusive), at most limit of them
+     * アーカイブ済みの在庫取引履歴を期間指定で取得（上限件数まで）
+     *
+     * @throws IllegalArgumentException when limit is not between 1 and {@link #getMaxReadRows()}
+     */
+    public List<Map<String, Object>> findArchivedInventoryTransactions(LocalDateTime from, LocalDateTime to,
+                                                                       int limit) {
+        checkLimit(limit);
+        return readArchive(ArchivedTable.INVENTORY_TRANSACTIONS.name, ArchivedTable.INVENTORY_TRANSACTIONS.dateColumn,
+            from, to, limit, row -> true);
+    }
+
+    /**
+     * Archived orders placed between the given times (inclusive), at most limit of them, each with its items
+     * under "items"
+     * アーカイブ済みの注文（明細付き）を期間指定で取得（上限件数まで）
+     *
+     * @throws IllegalArgumentException when limit is not between 1 and {@link #getMaxReadRows()}
+     */
+    public List<Map<String, Object>> findArchivedOrders(LocalDateTime from, LocalDateTime to, int limit) {
+        checkLimit(limit);
+        ArchivedTable table = ArchivedTable.ORDERS;
+        List<Map<String, Object>> orders = readArchive(table.name, table.dateColumn, from, to, limit, row -> true);
+        Map<Long, List<Map<String, Object>>> itemsByOrder = new HashMap<>();
+        for (Map<String, Object> order : orders) {
+            List<Map<String, Object>> items = new ArrayList<>();
+            itemsByOrder.put(((Number) order.get("id")).longValue(), items);
+            order.put("items", items);
+        }
+        if (!orders.isEmpty()) {
+            // Items are filed under their order's month, so the same month directories hold all of them;
+            // only the items of the orders returned are kept
+            readArchive(table.childName, null, from, to, Integer.MAX_VALUE,
+                item -> itemsByOrder.containsKey(((Number) item.get(table.childKey)).longValue()))
+                .forEach(item -> itemsByOrder.get(((Number) item.get(table.childKey)).longValue()).add(item));
+        }
+        return orders;
+    }
+
+    /**
+     * Most rows a single archive query may return
+     */
+    public int getMaxReadRows() {
+        return maxReadRows;
+    }
+
+    private void checkLimit(int limit) {
+        if (limit < 1 || limit > maxReadRows) {
+            throw new IllegalArgumentException("Archive read limit must be between 1 and " + maxReadRows + ": " + limit);
+        }
+    }
+
+    // ---- PostgreSQL range partitions ----
+
+    private boolean isPostgreSql() {
+        Boolean result = postgreSql;
+        if (result == null) {
+            String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            result = "PostgreSQL".equalsIgnoreCase(product);
+            postgreSql = result;
+        }
+        return result;
+    }
+
+    private boolean isPartitioned(ArchivedTable table) {
+        if (table.childName != null || !isPostgreSql()) {
+            return false;
+        }
+        Integer count = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+            "WHERE c.relname = ? AND pg_table_is_visible(c.oid)", Integer.class, table.name);
+        return count != null && count > 0;
+    }
+
+    private void ensurePartitions(ArchivedTable table, LocalDate today) {
+        if (!isPartitioned(table)) {
+            return;
+        }
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = YearMonth.from(today).plusMonths(i);
+            String partition = partitionName(table.name, month);
+            transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + table.name +
+                    " FOR VALUES FROM ('" + month.atDay(1) + " 00:00:00') TO ('" + month.plusMonths(1).atDay(1) +
+                    " 00:00:00')");
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Detach, export and drop every monthly partition before the cutoff. Partitions left detached by an
+     * interrupted run are picked up again; re-exporting one overwrites its earlier file.
+     */
+    private int archivePartitions(ArchivedTable table, YearMonth cutoff) {
+        List<Map<String, Object>> partitions = jdbcTemplate.queryForList(
+            "SELECT c.relname AS name, EXISTS (SELECT 1 FROM pg_inherits i WHERE i.inhrelid = c.oid) AS attached " +
+            "FROM pg_class c WHERE c.relkind = 'r' AND c.relname LIKE ? AND pg_table_is_visible(c.oid) " +
+            "ORDER BY c.relname", table.name.replace("_", "\\_") + "\\_p%");
+        int archived = 0;
+        for (Map<String, Object> partition : partitions) {
+            String name = (String) partition.get("name");
+            YearMonth month = partitionMonth(table.name, name);
+            if (month == null || !month.isBefore(cutoff)) {
+                continue;
+            }
+            if (Boolean.TRUE.equals(partition.get("attached"))) {
+                transactionTemplate.execute(status -> {
+                    jdbcTemplate.execute("ALTER TABLE " + table.name + " DETACH PARTITION " + name);
+                    return null;
+                });
+            }
+            Integer rows = readOnlyTransactionTemplate.execute(status -> export("SELECT * FROM " + name +
+                " ORDER BY id", new Object[0], file(table.name, month, name), null));
+            transactionTemplate.execute(status -> {
+                jdbcTemplate.execute("DROP TABLE " + name);
+                return null;
+            });
+            logger.info("Archived partition {} ({} rows)", name, rows);
+            archived += rows != null ? rows : 0;
+        }
+        return archived;
+    }
+
+    static String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(PARTITION_SUFFIX);
+    }
+
+    static YearMonth partitionMonth(String table, String partition) {
+        String prefix = table + "_p";
+        if (!partition.startsWith(prefix) || partition.length() != prefix.length() + 6) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(prefix.length()), PARTITION_SUFFIX);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // ---- Export and delete (H2, non-partitioned tables) ----
+
+    /**
+     * Export and delete the rows of each month before the cutoff, oldest first. Only exported ids are
+     * deleted, and every run writes a file of its own, so a month can be archived again in later runs
+     * (for rows backdated into it) without touching what was archived before.
+     */
+    private int archiveByDelete(ArchivedTable table, YearMonth cutoff) {
+        Timestamp oldest = jdbcTemplate.queryForObject(
+            "SELECT MIN(" + table.dateColumn + ") FROM " + table.name, Timestamp.class);
+        if (oldest == null) {
+            return 0;
+        }
+        String label = "rows-" + System.currentTimeMillis();
+        int archived = 0;
+        for (YearMonth month = YearMonth.from(oldest.toLocalDateTime()); month.isBefore(cutoff);
+                month = month.plusMonths(1)) {
+            Object[] range = {Timestamp.valueOf(month.atDay(1).atStartOfDay()),
+                Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay())};
+            List<Long> ids = new ArrayList<>();
+            Path file = file(table.name, month, label);
+            Path childFile = table.childName != null ? file(table.childName, month, label) : null;
+            readOnlyTransactionTemplate.execute(status -> {
+                export("SELECT * FROM " + table.name + " WHERE " + table.dateColumn + " >= ? AND " +
+                    table.dateColumn + " < ? ORDER BY id", range, file, ids);
+                if (childFile != null && !ids.isEmpty()) {
+                    export("SELECT c.* FROM " + table.childName + " c JOIN " + table.name + " p ON p.id = c." +
+                        table.childKey + " WHERE p." + table.dateColumn + " >= ? AND p." + table.dateColumn +
+                        " < ? ORDER BY c.id", range, childFile, null);
+                }
+                return null;
+            });
+            if (ids.isEmpty()) {
+                continue;
+            }
+            for (int from = 0; from < ids.size(); from += batchSize) {
+                List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + batchSize));
+                transactionTemplate.execute(status -> {
+                    String placeholders = String.join(",", Collections.nCopies(chunk.size(), "?"));
+                    if (table.childName != null) {
+                        jdbcTemplate.update("DELETE FROM " + table.childName + " WHERE " + table.childKey +
+                            " IN (" + placeholders + ")", chunk.toArray());
+                    }
+                    return jdbcTemplate.update("DELETE FROM " + table.name + " WHERE id IN (" + placeholders + ")",
+                        chunk.toArray());
+                });
+            }
+            logger.info("Archived {} {} rows of {}", ids.size(), table.name, month);
+            archived += ids.size();
+        }
+        return archived;
+    }
+
+    // ---- Archive files ----
+
+    private Path file(String table, YearMonth month, String label) {
+        return directory.resolve(table).resolve(month.toString()).resolve(label + FILE_SUFFIX);
+    }
+
+    /**
+     * Stream the query result into the file; nothing is left behind when the query returns no rows
+     *
+     * @param ids collects the id column of the exported rows when not null
+     * @return number of rows written
+     */
+    private int export(String sql, Object[] args, Path file, List<Long> ids) {
+        try (ArchiveWriter writer = new ArchiveWriter(file, objectMapper)) {
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                Map<String, Object> row = toRow(rs);
+                writer.write(row);
+                if (ids != null) {
+                    ids.add(((Number) row.get("id")).longValue());
+                }
+            }, args);
+            if (writer.rows > 0) {
+                writer.commit();
+            }
+            return writer.rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write archive file " + file, e);
+        }
+    }
+
+    /**
+     * Current row keyed by lower-case column name, with dates and times as ISO strings
+     */
+    private static Map<String, Object> toRow(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            Object value = rs.getObject(i);
+            if (value instanceof Timestamp) {
+                value = ((Timestamp) value).toLocalDateTime().toString();
+            } else if (value instanceof java.sql.Date) {
+                value = ((java.sql.Date) value).toLocalDate().toString();
+            } else if (value instanceof TemporalAccessor) {
+                value = value.toString();
+            } else if (value instanceof Clob) {
+                value = rs.getString(i);
+            }
+            row.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), value);
+        }
+        return row;
+    }
+
+    /**
+     * Rows of the archive files in the months the range touches, filtered on the date column when given and on
+     * the predicate; reading stops once limit rows have been collected
+     */
+    private List<Map<String, Object>> readArchive(String table, String dateColumn, LocalDateTime from,
+                                                  LocalDateTime to, int limit,
+                                                  Predicate<Map<String, Object>> predicate) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(YearMonth.from(to)) && rows.size() < limit;
+                month = month.plusMonths(1)) {
+            Path monthDirectory = directory.resolve(table).resolve(month.toString());
+            if (!Files.isDirectory(monthDirectory)) {
+                continue;
+            }
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(monthDirectory, "*" + FILE_SUFFIX)) {
+                stream.forEach(files::add);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not list archive directory " + monthDirectory, e);
+            }
+            Collections.sort(files);
+            for (Path file : files) {
+                if (rows.size() >= limit) {
+                    break;
+                }
+                readFile(file, dateColumn, from, to, limit, predicate, rows);
+            }
+        }
+        return rows;
+    }
+
+    private void readFile(Path file, String dateColumn, LocalDateTime from, LocalDateTime to, int limit,
+                          Predicate<Map<String, Object>> predicate, List<Map<String, Object>> rows) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while (rows.size() < limit && (line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                Map<String, Object> row = objectMapper.readValue(line, ROW_TYPE);
+                if (dateColumn != null) {
+                    Object value = row.get(dateColumn);
+                    LocalDateTime dateTime = value != null ? LocalDateTime.parse(value.toString()) : null;
+                    if (dateTime == null || dateTime.isBefore(from) || dateTime.isAfter(to)) {
+                        continue;
+                    }
+                }
+                if (predicate.test(row)) {
+                    rows.add(row);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive file " + file, e);
+        }
+    }
+
+    /**
+     * Gzip JSON-lines writer that only shows the file under its final name once it is complete and synced
+     */
+    private static final class ArchiveWriter implements Closeable {
+
+        private final Path target;
+        private final Path temporary;
+        private final ObjectMapper objectMapper;
+        private final FileOutputStream fileOut;
+        private final GZIPOutputStream gzipOut;
+        private final Writer writer;
+        private int rows;
+        private boolean committed;
+
+        ArchiveWriter(Path target, ObjectMapper objectMapper) throws IOException {
+            Files.createDirectories(target.getParent());
+            this.target = target;
+            this.objectMapper = objectMapper;
+            this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+            this.fileOut = new FileOutputStream(temporary.toFile());
+            this.gzipOut = new GZIPOutputStream(fileOut);
+            this.writer = new BufferedWriter(new OutputStreamWriter(gzipOut, StandardCharsets.UTF_8));
+        }
+
+        void write(Map<String, Object> row) {
+            try {
+                writer.write(objectMapper.writeValueAsString(row));
+                writer.write('\n');
+                rows++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /** The rows are only deleted from the database after this, so the file must be on disk first */
+        void commit() throws IOException {
+            writer.flush();
+            gzipOut.finish();
+            fileOut.getFD().sync();
+            writer.close();
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                writer.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Demand history engine
+ * 書籍ごとの月次需要ベクトルを1回の集計クエリで構築する
+ */
+@Service
+@Transactional(readOnly = true)
+public class DemandHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DemandHistoryService.class);
+
+    private final OrderRepository orderRepository;
+
+    public DemandHistoryService(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    /**
+     * Load monthly demand vectors for every book ordered between the two months (inclusive)
+     * 全書籍の月次需要ベクトルを取得
+     */
+    public DemandHistory loadMonthlyDemand(YearMonth fromMonth, YearMonth toMonth) {
+        List<Object[]> rows = orderRepository.aggregateMonthlyDemand(
+            fromMonth.atDay(1).atStartOfDay(), toMonth.atEndOfMonth().atTime(23, 59, 59));
+        return buildHistory(fromMonth, toMonth, rows);
+    }
+
+    /**
+     * Load monthly demand vectors restricted to the given books
+     * 指定書籍の月次需要ベクトルを取得
+     */
+    public DemandHistory loadMonthlyDemand(Collection<Long> bookIds, YearMonth fromMonth, YearMonth toMonth) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            return new DemandHistory(fromMonth, monthsBetween(fromMonth, toMonth), Collections.emptyMap());
+        }
+        List<Object[]> rows = orderRepository.aggregateMonthlyDemandForBooks(
+            fromMonth.atDay(1).atStartOfDay(), toMonth.atEndOfMonth().atTime(23, 59, 59), bookIds);
+        return buildHistory(fromMonth, toMonth, rows);
+    }
+
+    private DemandHistory buildHistory(YearMonth fromMonth, YearMonth toMonth, List<Object[]> rows) {
+        int months = monthsBetween(fromMonth, toMonth);
+        Map<Long, int[]> vectors = new HashMap<>();
+
+        for (Object[] row : rows) {
+            Long bookId = ((Number) row[0]).longValue();
+            YearMonth month = YearMonth.of(((Number) row[1]).intValue(), ((Number) row[2]).intValue());
+            int index = (int) ChronoUnit.MONTHS.between(fromMonth, month);
+            if (index < 0 || index >= months || row[3] == null) {
+                continue;
+            }
+            vectors.computeIfAbsent(bookId, id -> new int[months])[index] += ((Number) row[3]).intValue();
+        }
+
+        logger.debug("Loaded demand history for {} books over {} months from {}", vectors.size(), months, fromMonth);
+        return new DemandHistory(fromMonth, months, vectors);
+    }
+
+    private static int monthsBetween(YearMonth fromMonth, YearMonth toMonth) {
+        return Math.max(0, (int) ChronoUnit.MONTHS.between(fromMonth, toMonth) + 1);
+    }
+
+    /**
+     * Immutable per-book monthly demand vectors over a fixed month range.
+     * Index 0 of every vector corresponds to {@link #getStartMonth()}.
+     */
+    public static class DemandHistory {
+
+        private final YearMonth startMonth;
+        private final int months;
+        private final Map<Long, int[]> vectors;
+
+        DemandHistory(YearMonth startMonth, int months, Map<Long, int[]> vectors) {
+            this.startMonth = startMonth;
+            this.months = months;
+            this.vectors = vectors;
+        }
+
+        public YearMonth getStartMonth() { return startMonth; }
+
+        public YearMonth getEndMonth() { return startMonth.plusMonths(months - 1L); }
+
+        public int getMonths() { return months; }
+
+        public boolean contains(YearMonth month) {
+            return !month.isBefore(startMonth) && !month.isAfter(getEndMonth());
+        }
+
+        /**
+         * Demand for a book in one month, 0 when the month is outside the loaded range
+         */
+        public int demandIn(Long bookId, YearMonth month) {
+            int[] vector = vectors.get(bookId);
+            if (vector == null || !contains(month)) {
+                return 0;
+            }
+            return vector[(int) ChronoUnit.MONTHS.between(startMonth, month)];
+        }
+
+        public int demandIn(Long bookId, LocalDate date) {
+            return demandIn(bookId, YearMonth.from(date));
+        }
+
+        /**
+         * Dense monthly series for a book ending at {@code endMonth} (inclusive).
+         * Months outside the loaded range are reported as 0.
+         */
+        public int[] window(Long bookId, YearMonth endMonth, int length) {
+            int[] result = new int[Math.max(0, length)];
+            int[] vector = vectors.get(bookId);
+            if (vector == null) {
+                return result;
+            }
+            int endIndex = (int) ChronoUnit.MONTHS.between(startMonth, endMonth);
+            for (int i = 0; i < result.length; i++) {
+                int source = endIndex - (result.length - 1 - i);
+                if (source >= 0 && source < months) {
+                    result[i] = vector[source];
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Sum of {@link #window} without copying the months out
+         */
+        public int totalDemand(Long bookId, YearMonth endMonth, int length) {
+            int[] vector = vectors.get(bookId);
+            if (vector == null || length <= 0) {
+                return 0;
+            }
+            int endIndex = (int) ChronoUnit.MONTHS.between(startMonth, endMonth);
+            int from = Math.max(0, endIndex - length + 1);
+            int to = Math.min(months - 1, endIndex);
+            return to < from ? 0 : (int) SeriesKernels.sum(vector, from, to - from + 1);
+        }
+
+        public boolean hasDemand(Long bookId) {
+            return vectors.containsKey(bookId);
+        }
+    }
+}
@@ -1,19 +1,36 @@
 package com.techbookstore.app.service;
 
+import com.techbookstore.app.config.MetricsConfiguration;
 import com.techbookstore.app.dto.*;
 import com.techbookstore.app.entity.ABCXYZAnalysis;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -26,6 +43,11 @@ public class IntegratedInventoryAnalysisService {
     
     private static final Logger logger = LoggerFactory.getLogger(IntegratedInventoryAnalysisService.class);
     
+    static final String PHASE_BASE_REPORTS = "phase1_baseReports";
+    static final String PHASE_ADVANCED_ANALYSIS = "phase2_advancedAnalysis";
+    static final String PHASE_FORECASTING = "phase3_forecasting";
+    static final String PHASE_OPTIMIZATION = "phase4_optimization";
+    
     // Phase 1: Base Reports
     @Autowired
     private ReportService reportService;
@@ -48,11 +70,41 @@ public class IntegratedInventoryAnalysisService {
     @Autowired(required = false)
     private PerformanceOptimizationService performanceService;
     
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+    
+    // Bulkhead executors for the stages of the async analysis
+    @Autowired
+    @Qualifier("analysisStageExecutor")
+    private ThreadPoolTaskExecutor stageExecutor;
+    
+    @Autowired
+    @Qualifier("batchProcessingExecutor")
+    private ThreadPoolTaskExecutor forecastExecutor;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    // Own proxy, so that calls from inside the class still get @Timed and @Transactional
+    @Autowired
+    @Lazy
+    private IntegratedInventoryAnalysisService self;
+    
+    @Value("${app.integrated-analysis.timeouts.base-report-ms:10000}")
+    private long baseReportTimeoutMs = 10000;
+    
+    @Value("${app.integrated-analysis.timeouts.advanced-analysis-ms:20000}")
+    private long advancedAnalysisTimeoutMs = 20000;
+    
+    @Value("${app.integrated-analysis.timeouts.forecasting-ms:30000}")
+    private long forecastingTimeoutMs = 30000;
+    
     /**
      * Execute comprehensive integrated analysis
      * Cacheable with Phase 4 integrated cache configuration
      */
     @Cacheable(value = "integratedAnalysis", key = "#request.cacheKey()")
+    @Timed(value = MetricsConfiguration.ANALYSIS_TIMER, extraTags = {"path", "integrated"}, histogram = true)
     public IntegratedAnalysisResult executeIntegratedAnalysis(IntegratedAnalysisRequest request) {
         logger.info("Starting integrated analysis for request: {}", request.cacheKey());
         
@@ -98,6 +150,12 @@ public class IntegratedInventoryAnalysisService {
             long totalTime = System.currentTimeMillis() - startTime;
             IntegratedAnalysisResult.PerformanceMetrics metrics = generatePerformanceMetrics(
                 totalTime, phase1Time, phase2Time, phase3Time, phase4Time);
+            Map<String, String> phaseStatuses = new HashMap<>();
+            phaseStatuses.put(PHASE_BASE_REPORTS, Stage.COMPLETED);
+            phaseStatuses.put(PHASE_ADVANCED_ANALYSIS, Stage.COMPLETED);
+            phaseStatuses.put(PHASE_FORECASTING, forecastingData != null ? Stage.COMPLETED : Stage.SKIPPED);
+            phaseStatuses.put(PHASE_OPTIMIZATION, Stage.COMPLETED);
+            metrics.setPhaseStatuses(phaseStatuses);
             result.setPerformanceMetrics(metrics);
             result.setExecutionTimeMs(totalTime);
             
@@ -120,58 +178,96 @@ public class IntegratedInventoryAnalysisService {
      */
     @Async("integratedAnalysisExecutor")
     public CompletableFuture<IntegratedAnalysisResult> executeAsyncIntegratedAnalysis(IntegratedAnalysisRequest request) {
-        logger.info("Starting async integrated analysis for request: {}", request.cacheKey());
+        return CompletableFuture.completedFuture(self.executeStagedAnalysis(request));
+    }
+    
+    /**
+     * Integrated analysis with bulkheads and per-stage deadlines, used by the analysis job workers
+     * 各フェーズを専用Executorで並列実行し、期限超過のフェーズは除外して部分結果を返す
+     *
+     * Base report and advanced analysis run on the analysisStageExecutor bulkhead, forecasting on the
+     * batchProcessingExecutor. Each stage has its own deadline; a stage that misses it (or fails, or is
+     * rejected by a full executor) is left out and the result is returned with status PARTIAL.
+     * Every stage runs in a transaction whose timeout is the time left to its deadline, so its SQL statements
+     * are cancelled by the database and the executor thread is freed shortly after the deadline; work outside
+     * the database only stops at its next interruption point. The transactions are read-only, except the
+     * advanced analysis of a past date, which recomputes and stores the ABC/XYZ classes of that date.
+     * The calling thread only waits, so it runs without a transaction (and holds no connection).
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Timed(value = MetricsConfiguration.ANALYSIS_TIMER, extraTags = {"path", "staged"}, histogram = true)
+    public IntegratedAnalysisResult executeStagedAnalysis(IntegratedAnalysisRequest request) {
+        logger.info("Starting staged integrated analysis for request: {}", request.cacheKey());
+        
+        long startTime = System.currentTimeMillis();
+        IntegratedAnalysisResult result = new IntegratedAnalysisResult(UUID.randomUUID().toString());
         
         try {
-            // Execute analysis in parallel where possible
-            CompletableFuture<InventoryReportDto> baseReportFuture = 
-                CompletableFuture.supplyAsync(() -> generateBaseReport(request));
+            // Deadlines are measured from the start of the analysis, so waiting on one stage counts against the others
+            long baseDeadline = stageDeadline(startTime, baseReportTimeoutMs, request);
+            long advancedDeadline = stageDeadline(startTime, advancedAnalysisTimeoutMs, request);
+            long forecastDeadline = stageDeadline(startTime, forecastingTimeoutMs, request);
             
-            CompletableFuture<IntegratedAnalysisResult.AdvancedAnalysisData> advancedFuture = 
-                CompletableFuture.supplyAsync(() -> generateAdvancedAnalysis(request));
+            // Submit the independent stages first so they run in parallel
+            Stage<InventoryReportDto> baseStage = Stage.submit(PHASE_BASE_REPORTS, stageExecutor,
+                boundedBy(baseDeadline, true, () -> generateBaseReport(request)));
+            Stage<IntegratedAnalysisResult.AdvancedAnalysisData> advancedStage = Stage.submit(PHASE_ADVANCED_ANALYSIS,
+                stageExecutor, boundedBy(advancedDeadline, !recomputesAbcxyz(request),
+                    () -> generateAdvancedAnalysis(request)));
+            Stage<IntegratedAnalysisResult.ForecastingData> forecastStage = shouldIncludeForecasting(request)
+                ? Stage.submit(PHASE_FORECASTING, forecastExecutor,
+                    boundedBy(forecastDeadline, true, () -> generateForecastingData(request)))
+                : Stage.skipped(PHASE_FORECASTING);
             
-            CompletableFuture<IntegratedAnalysisResult.ForecastingData> forecastFuture = null;
-            if (shouldIncludeForecasting(request)) {
-                forecastFuture = CompletableFuture.supplyAsync(() -> generateForecastingData(request));
-            }
-            final CompletableFuture<IntegratedAnalysisResult.ForecastingData> finalForecastFuture = forecastFuture;
+            result.setBaseReport(baseStage.await(baseDeadline));
+            result.setAdvancedAnalysis(advancedStage.await(advancedDeadline));
+            result.setForecasting(forecastStage.await(forecastDeadline));
             
-            // Wait for all parallel tasks
-            CompletableFuture<Void> allTasks = (finalForecastFuture != null) 
-                ? CompletableFuture.allOf(baseReportFuture, advancedFuture, finalForecastFuture)
-                : CompletableFuture.allOf(baseReportFuture, advancedFuture);
+            // Optimization builds on whatever the other stages produced
+            long phase4Start = System.currentTimeMillis();
+            result.setOptimization(generateOptimizationData(request, result));
+            long phase4Time = System.currentTimeMillis() - phase4Start;
             
-            return allTasks.thenApply(v -> {
-                long startTime = System.currentTimeMillis();
-                IntegratedAnalysisResult result = new IntegratedAnalysisResult(UUID.randomUUID().toString());
-                result.setBaseReport(baseReportFuture.join());
-                result.setAdvancedAnalysis(advancedFuture.join());
-                
-                if (finalForecastFuture != null) {
-                    result.setForecasting(finalForecastFuture.join());
-                }
-                
-                // Generate optimization data based on all other results
-                IntegratedAnalysisResult.OptimizationData optimizationData = generateOptimizationData(request, result);
-                result.setOptimization(optimizationData);
-                
-                // Generate performance metrics for async execution
-                long totalTime = System.currentTimeMillis() - startTime;
-                IntegratedAnalysisResult.PerformanceMetrics metrics = generatePerformanceMetrics(
-                    totalTime, 0L, 0L, 0L, 0L); // For async, we don't track individual phase times
-                result.setPerformanceMetrics(metrics);
-                result.setExecutionTimeMs(totalTime);
-                
-                result.setStatus("COMPLETED");
-                return result;
-            });
+            long totalTime = System.currentTimeMillis() - startTime;
+            IntegratedAnalysisResult.PerformanceMetrics metrics = generatePerformanceMetrics(
+                totalTime, baseStage.elapsedMs(), advancedStage.elapsedMs(), forecastStage.elapsedMs(), phase4Time);
+            Map<String, String> phaseStatuses = new HashMap<>();
+            phaseStatuses.put(PHASE_BASE_REPORTS, baseStage.status());
+            phaseStatuses.put(PHASE_ADVANCED_ANALYSIS, advancedStage.status());
+            phaseStatuses.put(PHASE_FORECASTING, forecastStage.status());
+            phaseStatuses.put(PHASE_OPTIMIZATION, Stage.COMPLETED);
+            metrics.setPhaseStatuses(phaseStatuses);
+            result.setPerformanceMetrics(metrics);
+            result.setExecutionTimeMs(totalTime);
+            
+            boolean partial = !baseStage.isUsable() || !advancedStage.isUsable() || !forecastStage.isUsable();
+            result.setStatus(partial ? "PARTIAL" : "COMPLETED");
+            logger.info("Staged integrated analysis finished with status {} in {}ms", result.getStatus(), totalTime);
+            return result;
             
         } catch (Exception e) {
-            logger.error("Async integrated analysis failed", e);
+            logger.error("Staged integrated analysis failed", e);
             throw new IntegratedAnalysisException("非同期統合分析処理に失敗しました", e);
         }
     }
     
+    /**
+     * Wrap stage work in a transaction that times out at the stage deadline
+     */
+    private <T> Supplier<T> boundedBy(long deadline, boolean readOnly, Supplier<T> work) {
+        return () -> {
+            long remainingMs = deadline - System.currentTimeMillis();
+            if (remainingMs <= 0) {
+                // Waited in the executor queue past its deadline; nobody reads the result any more
+                throw new IllegalStateException("Stage started after its deadline");
+            }
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setReadOnly(readOnly);
+            template.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(remainingMs + 999)));
+            return template.execute(status -> work.get());
+        };
+    }
+    
     /**
      * Generate real-time dashboard data
      * Optimized for quick response with minimal processing
@@ -255,8 +351,10 @@ public class IntegratedInventoryAnalysisService {
         IntegratedAnalysisResult.AdvancedAnalysisData data = new IntegratedAnalysisResult.AdvancedAnalysisData();
         
         try {
-            // ABC/XYZ Analysis
-            List<ABCXYZAnalysis> abcxyzResults = abcxyzService.performAnalysis(request.getAnalysisDate());
+            // ABC/XYZ Analysis: today's classes are kept live, only past dates are recomputed
+            List<ABCXYZAnalysis> abcxyzResults = recomputesAbcxyz(request)
+                ? abcxyzService.performAnalysis(request.getAnalysisDate())
+                : abcxyzService.getLatestAnalysis();
             List<ABCXYZAnalysisResult> abcxyzDtos = abcxyzResults.stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
@@ -281,6 +379,13 @@ public class IntegratedInventoryAnalysisService {
         return data;
     }
     
+    /**
+     * Past dates have their ABC/XYZ classes recomputed and stored; today's are read as they are
+     */
+    private static boolean recomputesAbcxyz(IntegratedAnalysisRequest request) {
+        return !LocalDate.now().equals(request.getAnalysisDate());
+    }
+    
     private IntegratedAnalysisResult.ForecastingData generateForecastingData(IntegratedAnalysisRequest request) {
         IntegratedAnalysisResult.ForecastingData data = new IntegratedAnalysisResult.ForecastingData();
         
@@ -317,6 +422,9 @@ public class IntegratedInventoryAnalysisService {
             List<IntegratedAnalysisResult.StockOptimizationRecommendation> recommendations = 
                 generateOptimizationRecommendations(result);
             data.setRecommendations(recommendations);
+            if (meterRegistry != null) {
+                meterRegistry.counter(MetricsConfiguration.OPTIMIZATION_RECOMMENDATIONS).increment(recommendations.size());
+            }
             
             // Calculate potential savings
             BigDecimal potentialSavings = recommendations.stream()
@@ -402,19 +510,30 @@ public class IntegratedInventoryAnalysisService {
         
         IntegratedAnalysisResult.PerformanceMetrics metrics = new IntegratedAnalysisResult.PerformanceMetrics();
         metrics.setTotalAnalysisTime(totalTime);
-        metrics.setCacheHitRate(85L); // Placeholder
+        metrics.setCacheHitRate(performanceService != null ? Math.round(performanceService.getCacheHitRate() * 100) : 0L);
         metrics.setDataConsistencyScore(99L); // Placeholder
         
         Map<String, Long> phaseExecutionTimes = new HashMap<>();
-        phaseExecutionTimes.put("phase1_baseReports", phase1Time);
-        phaseExecutionTimes.put("phase2_advancedAnalysis", phase2Time);
-        phaseExecutionTimes.put("phase3_forecasting", phase3Time);
-        phaseExecutionTimes.put("phase4_optimization", phase4Time);
+        phaseExecutionTimes.put(PHASE_BASE_REPORTS, phase1Time);
+        phaseExecutionTimes.put(PHASE_ADVANCED_ANALYSIS, phase2Time);
+        phaseExecutionTimes.put(PHASE_FORECASTING, phase3Time);
+        phaseExecutionTimes.put(PHASE_OPTIMIZATION, phase4Time);
         metrics.setPhaseExecutionTimes(phaseExecutionTimes);
         
         return metrics;
     }
     
+    /**
+     * Stage deadline: the configured stage timeout, capped by the request's maxExecutionTimeSeconds
+     */
+    private long stageDeadline(long startTime, long stageTimeoutMs, IntegratedAnalysisRequest request) {
+        long timeoutMs = stageTimeoutMs;
+        if (request.getMaxExecutionTimeSeconds() != null && request.getMaxExecutionTimeSeconds() > 0) {
+            timeoutMs = Math.min(timeoutMs, TimeUnit.SECONDS.toMillis(request.getMaxExecutionTimeSeconds()));
+        }
+        return startTime + timeoutMs;
+    }
+    
     private boolean shouldIncludeForecasting(IntegratedAnalysisRequest request) {
         return request.getAnalysisTypes() == null || 
                request.getAnalysisTypes().contains("forecasting") ||
@@ -455,6 +574,104 @@ public class IntegratedInventoryAnalysisService {
         return dto;
     }
     
+    /**
+     * One stage of the async analysis running on a bounded executor, with its own timing and outcome
+     */
+    static final class Stage<T> {
+        
+        static final String COMPLETED = "COMPLETED";
+        static final String TIMED_OUT = "TIMED_OUT";
+        static final String FAILED = "FAILED";
+        static final String REJECTED = "REJECTED";
+        static final String SKIPPED = "SKIPPED";
+        
+        private final String name;
+        private ThreadPoolTaskExecutor executor;
+        private Future<T> future;
+        private volatile long startedAt;
+        private volatile long finishedAt;
+        private String status;
+        
+        private Stage(String name, String status) {
+            this.name = name;
+            this.status = status;
+        }
+        
+        static <T> Stage<T> submit(String name, ThreadPoolTaskExecutor executor, Supplier<T> work) {
+            Stage<T> stage = new Stage<>(name, null);
+            stage.executor = executor;
+            try {
+                stage.future = executor.submit(() -> stage.timed(work));
+            } catch (TaskRejectedException e) {
+                logger.warn("Stage {} rejected, executor is saturated", name);
+                stage.status = REJECTED;
+            }
+            return stage;
+        }
+        
+        static <T> Stage<T> skipped(String name) {
+            return new Stage<>(name, SKIPPED);
+        }
+        
+        /**
+         * Wait for the stage until the deadline; returns null if it missed it or failed
+         */
+        T await(long deadline) {
+            if (future == null) {
+                return null;
+            }
+            try {
+                T value = future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                status = COMPLETED;
+                return value;
+            } catch (TimeoutException e) {
+                // A stage still queued is dropped from the queue. A running one is interrupted, and its SQL is
+                // cut off by the transaction timeout set in boundedBy; other blocking work runs to completion
+                future.cancel(true);
+                if (future instanceof Runnable) {
+                    executor.getThreadPoolExecutor().remove((Runnable) future);
+                }
+                status = TIMED_OUT;
+                logger.warn("Stage {} missed its deadline, continuing without it", name);
+            } catch (ExecutionException e) {
+                status = FAILED;
+                logger.error("Stage {} failed, continuing without it", name, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                status = FAILED;
+            }
+            return null;
+        }
+        
+        /**
+         * Time the stage spent running; up to now if it is still running, 0 if it never started
+         */
+        long elapsedMs() {
+            if (startedAt == 0) {
+                return 0L;
+            }
+            return (finishedAt != 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+        }
+        
+        String status() {
+            return status;
+        }
+        
+        boolean isUsable() {
+            return COMPLETED.equals(status) || SKIPPED.equals(status);
+        }
+        
+        private T timed(Supplier<T> work) {
+            startedAt = System.currentTimeMillis();
+            try {
+                return work.get();
+            } finally {
+                finishedAt = System.currentTimeMillis();
+            }
+        }
+    }
+    
     /**
      * Custom exception for integrated analysis failures
      */
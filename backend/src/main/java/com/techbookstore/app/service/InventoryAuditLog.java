@@ -0,0 +1,732 @@
+package com.techbookstore.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.techbookstore.app.entity.InventoryTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind audit log for inventory transactions
+ * 在庫取引履歴の非同期書き込み（ローカルジャーナル + バッチINSERT）
+ *
+ * Once the caller's transaction commits, each record is appended to a local append-only journal and put on
+ * a bounded in-memory queue; a background writer inserts the queued records as JDBC batches. Every batch
+ * also advances the journal's checkpoint row in the same transaction, so a journal replayed after a crash
+ * writes exactly the records that had not reached the database yet. When the queue is full the record is
+ * only in the journal; the writer notices the gap in sequence numbers (or records left over once the queue
+ * is empty) and catches up from the file.
+ * Appends move on to a new journal once the current one grows past the rotation size, however much of it is
+ * still to be written; a rotated journal is deleted once its checkpoint reaches its last record. Catch-up
+ * reads a journal on from the end of its last written record rather than from the start of the file.
+ * Only transient database errors are retried; a record the database rejects for good is moved to a
+ * dead-letter file next to the journals.
+ *
+ * Rows show up in the transaction history a flush interval after the stock change.
+ */
+@Service
+public class InventoryAuditLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryAuditLog.class);
+
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    /** Records that were rejected by the database for good, one JSON line each, per journal */
+    static final String DEAD_LETTER_DIRECTORY = "dead-letter";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO inventory_transactions (inventory_id, transaction_type, quantity, before_quantity, " +
+        "after_quantity, reason, batch_number, reference_number, executed_by, approved_by, executed_at, " +
+        "approved_at, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final boolean fsync;
+    private final long rotateBytes;
+    private final BlockingQueue<AuditRecord> queue;
+
+    /** Guards the journals, the sequence and rotation */
+    private final Object journalLock = new Object();
+    /** Journals with records possibly not yet written, oldest first; the last one is appended to */
+    private final Deque<Journal> journals = new ArrayDeque<>();
+    private Journal journal;
+    private long lastSequence;
+
+    /** Only advanced by the writer thread (and by recovery before it starts) */
+    private long flushedSequence;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public InventoryAuditLog(DataSource dataSource, PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${app.inventory-audit.directory:data/audit-journal}") String directory,
+                             @Value("${app.inventory-audit.queue-capacity:10000}") int queueCapacity,
+                             @Value("${app.inventory-audit.batch-size:500}") int batchSize,
+                             @Value("${app.inventory-audit.flush-interval-ms:200}") long flushIntervalMs,
+                             @Value("${app.inventory-audit.fsync:false}") boolean fsync,
+                             @Value("${app.inventory-audit.rotate-bytes:8388608}") long rotateBytes) throws IOException {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.fsync = fsync;
+        this.rotateBytes = rotateBytes;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        Files.createDirectories(this.directory);
+        synchronized (journalLock) {
+            openJournal();
+        }
+    }
+
+    /**
+     * Record an inventory transaction; it is written once the current transaction commits
+     * 在庫取引を記録（呼び出し元トランザクションのコミット後に書き込み）
+     */
+    public void record(InventoryTransaction transaction) {
+        AuditRecord record = AuditRecord.of(transaction);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(record);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                append(record);
+            }
+        });
+    }
+
+    void append(AuditRecord record) {
+        synchronized (journalLock) {
+            record.setSequence(++lastSequence);
+            try {
+                ByteBuffer line = ByteBuffer.wrap(
+                    (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8));
+                journal.size += line.remaining();
+                while (line.hasRemaining()) {
+                    journal.channel.write(line);
+                }
+                if (fsync) {
+                    journal.channel.force(false);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not append to audit journal " + journal.path, e);
+            }
+            journal.lastSequence = record.getSequence();
+            record.journal = journal;
+            record.endOffset = journal.size;
+            // Offered under the lock so the queue is in sequence order; when it is full the record is only in
+            // the journal and the writer picks it up from there
+            queue.offer(record);
+            if (journal.size >= rotateBytes) {
+                rotate();
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        synchronized (this) {
+            if (running) {
+                return;
+            }
+            recover();
+            running = true;
+            writerThread = new Thread(this::runWriter, "inventory-audit-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+    }
+
+    /**
+     * Stop the writer after it has written what is queued; anything it could not write stays in the journal
+     */
+    @PreDestroy
+    public void stop() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = writerThread;
+            writerThread = null;
+        }
+        if (thread != null) {
+            // No interrupt: the writer notices within a flush interval, and an interrupted JDBC call could fail
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<Journal> written = new ArrayList<>();
+        synchronized (journalLock) {
+            for (Journal each : journals) {
+                each.close();
+                if (each.lastSequence <= flushedSequence) {
+                    written.add(each);
+                }
+            }
+        }
+        written.forEach(this::delete);
+    }
+
+    /** Records appended but not yet written to the database */
+    public long getBacklog() {
+        synchronized (journalLock) {
+            return lastSequence - flushedSequence;
+        }
+    }
+
+    private void runWriter() {
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditRecord first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                    batch.clear();
+                }
+                if (onlyInJournal()) {
+                    catchUp();
+                }
+                deleteWritten();
+            } catch (InterruptedException e) {
+                batch.clear();
+            } catch (RuntimeException e) {
+                // The records stay in the journal and are caught up from there
+                batch.clear();
+                logger.warn("Audit writer failed: {}", e.getMessage());
+                if (!running || !sleep(Math.min(5000L, flushIntervalMs * 10))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the queued records in sequence order; a gap means records were only journaled (queue full)
+     */
+    private void write(List<AuditRecord> records) throws InterruptedException {
+        List<AuditRecord> ready = new ArrayList<>(records.size());
+        for (AuditRecord record : records) {
+            long expected = flushedSequence + ready.size() + 1;
+            if (record.getSequence() > expected) {
+                flush(ready);
+                ready.clear();
+                catchUp();
+                expected = flushedSequence + 1;
+            }
+            if (record.getSequence() != expected) {
+                continue;
+            }
+            // Each batch moves the checkpoint of one journal
+            if (!ready.isEmpty() && ready.get(0).journal != record.journal) {
+                flush(ready);
+                ready.clear();
+            }
+            ready.add(record);
+        }
+        flush(ready);
+    }
+
+    private void flush(List<AuditRecord> records) throws InterruptedException {
+        if (!records.isEmpty()) {
+            flush(records.get(0).journal.id, records);
+        }
+    }
+
+    /**
+     * Records were appended but the queue has nothing left for them: it overflowed
+     */
+    private boolean onlyInJournal() {
+        synchronized (journalLock) {
+            return queue.isEmpty() && lastSequence > flushedSequence;
+        }
+    }
+
+    /**
+     * Write every journaled record after the checkpoint, oldest journal first; only the writer thread calls this
+     */
+    private void catchUp() throws InterruptedException {
+        List<Journal> pending;
+        synchronized (journalLock) {
+            pending = new ArrayList<>(journals);
+        }
+        long written = 0;
+        for (Journal each : pending) {
+            long upTo;
+            synchronized (journalLock) {
+                upTo = each.lastSequence;
+            }
+            if (upTo > flushedSequence) {
+                written += replay(each.id, each.path, each, flushedSequence, upTo);
+            }
+        }
+        logger.info("Audit writer caught up {} records from {} journals", written, pending.size());
+    }
+
+    /**
+     * Write the records and move the journal's checkpoint past them. A batch that fails for a reason retrying
+     * cannot fix (a constraint violation) is written again record by record, and the records that still fail
+     * go to the dead-letter file, so one bad record cannot hold up the writer or the recovery.
+     */
+    private void flush(String id, List<AuditRecord> records) throws InterruptedException {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            insert(id, records, records.get(records.size() - 1).getSequence());
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                throw e;
+            }
+            logger.warn("Could not write {} audit records, writing them one by one: {}", records.size(), e.getMessage());
+            for (AuditRecord record : records) {
+                try {
+                    insert(id, Collections.singletonList(record), record.getSequence());
+                } catch (RuntimeException recordFailure) {
+                    if (isTransient(recordFailure)) {
+                        throw recordFailure;
+                    }
+                    deadLetter(id, record, recordFailure);
+                }
+            }
+        }
+        AuditRecord last = records.get(records.size() - 1);
+        if (last.journal != null) {
+            synchronized (journalLock) {
+                flushedSequence = last.getSequence();
+            }
+            last.journal.readOffset = last.endOffset;
+        }
+    }
+
+    /**
+     * Insert the records and move the checkpoint to the given sequence in one transaction, retrying while the
+     * database is unreachable
+     */
+    private void insert(String id, List<AuditRecord> records, long checkpoint) throws InterruptedException {
+        while (true) {
+            try {
+                transactionTemplate.execute(status -> {
+                    if (!records.isEmpty()) {
+                        List<Object[]> rows = new ArrayList<>(records.size());
+                        for (AuditRecord record : records) {
+                            rows.add(record.toRow());
+                        }
+                        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                    }
+                    saveCheckpoint(id, checkpoint);
+                    return null;
+                });
+                return;
+            } catch (RuntimeException e) {
+                if (!isTransient(e) || !running) {
+                    throw e;
+                }
+                logger.warn("Could not write {} audit records, retrying: {}", records.size(), e.getMessage());
+                if (!sleep(Math.min(5000L, flushIntervalMs * 10))) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Failures that go away on their own: lock timeouts, deadlocks, lost or unavailable connections
+     */
+    static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException
+            || e instanceof DataAccessResourceFailureException || e instanceof TransactionException;
+    }
+
+    /**
+     * Set aside a record that can never be inserted, then move the checkpoint past it
+     */
+    private void deadLetter(String id, AuditRecord record, RuntimeException cause) throws InterruptedException {
+        Path file = directory.resolve(DEAD_LETTER_DIRECTORY).resolve(id + ".jsonl");
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(file, (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write audit dead-letter file " + file, e);
+        }
+        logger.error("Audit record {} of journal {} can not be written and was moved to {}: {}",
+            record.getSequence(), id, file, cause.getMessage());
+        insert(id, Collections.<AuditRecord>emptyList(), record.getSequence());
+    }
+
+    private void saveCheckpoint(String id, long sequence) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        if (jdbcTemplate.update("UPDATE audit_journal_checkpoints SET last_sequence = ?, updated_at = ? " +
+                "WHERE journal_id = ?", sequence, now, id) == 0) {
+            jdbcTemplate.update("INSERT INTO audit_journal_checkpoints (journal_id, last_sequence, updated_at) " +
+                "VALUES (?, ?, ?)", id, sequence, now);
+        }
+    }
+
+    private long loadCheckpoint(String id) {
+        List<Long> sequences = jdbcTemplate.queryForList(
+            "SELECT last_sequence FROM audit_journal_checkpoints WHERE journal_id = ?", Long.class, id);
+        return sequences.isEmpty() ? 0L : sequences.get(0);
+    }
+
+    /**
+     * Write the records of a journal file in (afterSequence, upToSequence] in batches. A journal of this run is
+     * read from the end of its last written record; one left by an earlier run from the start.
+     *
+     * @return number of records written
+     */
+    private long replay(String id, Path path, Journal live, long afterSequence, long upToSequence)
+            throws InterruptedException {
+        long written = 0;
+        long offset = live != null ? live.readOffset : 0L;
+        List<AuditRecord> batch = new ArrayList<>(batchSize);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(Channels.newReader(channel.position(offset),
+                 StandardCharsets.UTF_8.newDecoder(), -1))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Lines are written with a single '\n'
+                offset += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                AuditRecord record = parse(line);
+                if (record == null) {
+                    // A torn line left by a crash; lines of the live journal up to upToSequence are complete
+                    logger.warn("Skipping unreadable line in audit journal {}", path);
+                    continue;
+                }
+                if (record.getSequence() > upToSequence) {
+                    break;
+                }
+                if (record.getSequence() <= afterSequence) {
+                    continue;
+                }
+                record.journal = live;
+                record.endOffset = offset;
+                batch.add(record);
+                if (batch.size() == batchSize) {
+                    flush(id, batch);
+                    written += batch.size();
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read audit journal " + path, e);
+        }
+        flush(id, batch);
+        return written + batch.size();
+    }
+
+    private AuditRecord parse(String line) {
+        try {
+            return line.isEmpty() ? null : objectMapper.readValue(line, AuditRecord.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replay the journals left behind by an earlier run, then delete them. Journals still locked by a live
+     * process are left alone.
+     * 前回実行時に残ったジャーナルをDBへ再生して削除
+     */
+    private void recover() {
+        Set<Path> ownJournals = new HashSet<>();
+        synchronized (journalLock) {
+            for (Journal each : journals) {
+                ownJournals.add(each.path);
+            }
+        }
+        List<Path> leftOver = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + JOURNAL_SUFFIX)) {
+            for (Path file : files) {
+                if (!ownJournals.contains(file)) {
+                    leftOver.add(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list audit journals in " + directory, e);
+        }
+        for (Path file : leftOver) {
+            String fileName = file.getFileName().toString();
+            String id = fileName.substring(0, fileName.length() - JOURNAL_SUFFIX.length());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                FileLock lock = tryLock(channel);
+                if (lock == null) {
+                    continue;
+                }
+                long replayed = replay(id, file, null, loadCheckpoint(id), Long.MAX_VALUE);
+                lock.release();
+                Files.delete(file);
+                jdbcTemplate.update("DELETE FROM audit_journal_checkpoints WHERE journal_id = ?", id);
+                logger.info("Recovered {} audit records from journal {}", replayed, id);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Could not recover audit journal {}, leaving it for the next start", file, e);
+            }
+        }
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by this JVM (another application context)
+            return null;
+        }
+    }
+
+    /**
+     * Append to a new journal from now on; the current one stays open until all of it is written
+     */
+    private void rotate() {
+        try {
+            openJournal();
+        } catch (IOException e) {
+            // Keeps appending to the current journal and tries again on the next append
+            logger.warn("Could not rotate audit journal {}: {}", journal.path, e.getMessage());
+        }
+    }
+
+    /**
+     * Delete the rotated journals whose last record has been written
+     */
+    private void deleteWritten() {
+        List<Journal> written = new ArrayList<>();
+        synchronized (journalLock) {
+            while (journals.size() > 1 && journals.peekFirst().lastSequence <= flushedSequence) {
+                Journal oldest = journals.pollFirst();
+                oldest.close();
+                written.add(oldest);
+            }
+        }
+        written.forEach(this::delete);
+    }
+
+    private void delete(Journal written) {
+        try {
+            Files.deleteIfExists(written.path);
+        } catch (IOException e) {
+            // Its checkpoint stays, so the next start skips what was written
+            logger.warn("Could not delete audit journal {}: {}", written.path, e.getMessage());
+            return;
+        }
+        deleteCheckpoint(written.id);
+    }
+
+    private void deleteCheckpoint(String id) {
+        try {
+            jdbcTemplate.update("DELETE FROM audit_journal_checkpoints WHERE journal_id = ?", id);
+        } catch (RuntimeException e) {
+            // Harmless leftover: no journal file refers to it any more
+            logger.debug("Could not delete audit journal checkpoint {}: {}", id, e.getMessage());
+        }
+    }
+
+    private void openJournal() throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path path = directory.resolve(id + JOURNAL_SUFFIX);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+        if (tryLock(channel) == null) {
+            channel.close();
+            throw new IOException("Could not lock audit journal " + path);
+        }
+        journal = new Journal(id, path, channel);
+        journals.addLast(journal);
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * One journal file, kept open and locked until it is deleted so no other process replays it meanwhile
+     */
+    private static final class Journal {
+        final String id;
+        final Path path;
+        final FileChannel channel;
+        /** Bytes and last sequence appended, under the journal lock */
+        long size;
+        long lastSequence;
+        /** End of the last record written to the database; only touched by the writer thread */
+        long readOffset;
+
+        Journal(String id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Could not close audit journal {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * One journal line: an inventory transaction with its references reduced to ids
+     */
+    static final class AuditRecord {
+        private long sequence;
+        private Long inventoryId;
+        private String type;
+        private Integer quantity;
+        private Integer beforeQuantity;
+        private Integer afterQuantity;
+        private String reason;
+        private String batchNumber;
+        private String referenceNumber;
+        private Long executedById;
+        private Long approvedById;
+        private String executedAt;
+        private String approvedAt;
+        private String status;
+        private String createdAt;
+        /** Where the record was appended in this run; not part of the line */
+        private Journal journal;
+        private long endOffset;
+
+        static AuditRecord of(InventoryTransaction transaction) {
+            AuditRecord record = new AuditRecord();
+            record.inventoryId = transaction.getInventory() != null ? transaction.getInventory().getId() : null;
+            record.type = transaction.getType() != null ? transaction.getType().name() : null;
+            record.quantity = transaction.getQuantity();
+            record.beforeQuantity = transaction.getBeforeQuantity();
+            record.afterQuantity = transaction.getAfterQuantity();
+            record.reason = transaction.getReason();
+            record.batchNumber = transaction.getBatchNumber();
+            record.referenceNumber = transaction.getReferenceNumber();
+            record.executedById = transaction.getExecutedBy() != null ? transaction.getExecutedBy().getId() : null;
+            record.approvedById = transaction.getApprovedBy() != null ? transaction.getApprovedBy().getId() : null;
+            record.executedAt = toText(transaction.getExecutedAt());
+            record.approvedAt = toText(transaction.getApprovedAt());
+            record.status = transaction.getStatus() != null ? transaction.getStatus().name() : null;
+            record.createdAt = toText(transaction.getCreatedAt());
+            return record;
+        }
+
+        Object[] toRow() {
+            return new Object[] {inventoryId, type, quantity, beforeQuantity, afterQuantity, reason, batchNumber,
+                referenceNumber, executedById, approvedById, toTimestamp(executedAt), toTimestamp(approvedAt),
+                status, toTimestamp(createdAt)};
+        }
+
+        private static String toText(LocalDateTime dateTime) {
+            return dateTime != null ? dateTime.toString() : null;
+        }
+
+        private static Timestamp toTimestamp(String text) {
+            return text != null ? Timestamp.valueOf(LocalDateTime.parse(text)) : null;
+        }
+
+        public long getSequence() { return sequence; }
+        public void setSequence(long sequence) { this.sequence = sequence; }
+
+        public Long getInventoryId() { return inventoryId; }
+        public void setInventoryId(Long inventoryId) { this.inventoryId = inventoryId; }
+
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+        public Integer getBeforeQuantity() { return beforeQuantity; }
+        public void setBeforeQuantity(Integer beforeQuantity) { this.beforeQuantity = beforeQuantity; }
+
+        public Integer getAfterQuantity() { return afterQuantity; }
+        public void setAfterQuantity(Integer afterQuantity) { this.afterQuantity = afterQuantity; }
+
+        public String getReason() { return reason; }
+        public void setReason(String reason) { this.reason = reason; }
+
+        public String getBatchNumber() { return batchNumber; }
+        public void setBatchNumber(String batchNumber) { this.batchNumber = batchNumber; }
+
+        public String getReferenceNumber() { return referenceNumber; }
+        public void setReferenceNumber(String referenceNumber) { this.referenceNumber = referenceNumber; }
+
+        public Long getExecutedById() { return executedById; }
+        public void setExecutedById(Long executedById) { this.executedById = executedById; }
+
+        public Long getApprovedById() { return approvedById; }
+        public void setApprovedById(Long approvedById) { this.approvedById = approvedById; }
+
+        public String getExecutedAt() { return executedAt; }
+        public void setExecutedAt(String executedAt) { this.executedAt = executedAt; }
+
+        public String getApprovedAt() { return approvedAt; }
+        public void setApprovedAt(String approvedAt) { this.approvedAt = approvedAt; }
+
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+
+        public String getCreatedAt() { return createdAt; }
+        public void setCreatedAt(String createdAt) { this.createdAt = createdAt; }
+    }
+}
@@ -0,0 +1,286 @@
+package com.techbookstore.app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Nightly recalculation of the planning columns of every inventory row
+ * 在庫計画項目（発注点・安全在庫・最大在庫・回転率・最終販売からの日数・ABC/XYZ）の夜間一括再計算
+ *
+ * The monthly sales series is loaded once, the inventory rows are streamed through a forward-only
+ * cursor, and only rows whose values changed are written back in JDBC batch updates, each sent as soon
+ * as it is full while the cursor stays open and committed in its own transaction. Low-stock alerts and the dead-stock analysis read these columns
+ * instead of recomputing them per request. The last sale of a book is taken from the daily sales
+ * aggregates, so online orders count as well as sales from the store shelf.
+ */
+@Service
+public class InventoryPlanningService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryPlanningService.class);
+
+    /** Complete months of sales history the demand figures are based on */
+    static final int HISTORY_MONTHS = 12;
+
+    private static final double DAYS_PER_MONTH = 30.0;
+
+    /** z for a 95% service level */
+    private static final double SERVICE_LEVEL_Z = 1.65;
+
+    private static final int DEFAULT_LEAD_TIME_DAYS = 7;
+
+    private static final String SELECT_SQL =
+        "SELECT i.id, i.book_id, i.store_stock, i.warehouse_stock, i.last_sold_date, s.last_sale_date, " +
+        "i.average_lead_time_days, i.reorder_point, i.safety_stock_level, i.maximum_stock_level, " +
+        "i.turnover_rate, i.days_since_last_sale, i.abc_classification, i.xyz_classification " +
+        "FROM inventory i LEFT JOIN (SELECT book_id, MAX(sale_date) AS last_sale_date FROM daily_book_sales " +
+        "WHERE quantity > 0 GROUP BY book_id) s ON s.book_id = i.book_id ORDER BY i.id";
+
+    // The planning columns are derived data, so the version is left alone: a recalculation must not make
+    // concurrent stock updates fail their optimistic lock check. last_sold_date only ever moves forward,
+    // a shelf sale recorded since the read wins over the aggregate.
+    private static final String UPDATE_SQL =
+        "UPDATE inventory SET reorder_point = ?, safety_stock_level = ?, maximum_stock_level = ?, " +
+        "turnover_rate = ?, days_since_last_sale = ?, abc_classification = ?, xyz_classification = ?, " +
+        "last_sold_date = CASE WHEN last_sold_date IS NULL OR last_sold_date < ? THEN ? ELSE last_sold_date END " +
+        "WHERE id = ?";
+
+    /** Rows the job has never planned; turnover_rate is written for every row, 0 for no demand */
+    private static final String COUNT_UNPLANNED_SQL = "SELECT COUNT(*) FROM inventory WHERE turnover_rate IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final SalesSeriesService salesSeriesService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ABCXYZClassificationTracker classificationTracker;
+    private final int batchSize;
+
+    public InventoryPlanningService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                    SalesSeriesService salesSeriesService,
+                                    CatalogSnapshotService catalogSnapshotService,
+                                    ABCXYZClassificationTracker classificationTracker,
+                                    @Value("${app.inventory-planning.fetch-size:500}") int fetchSize,
+                                    @Value("${app.inventory-planning.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // Batches are written while the read transaction is still open, each committing on its own
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.salesSeriesService = salesSeriesService;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.classificationTracker = classificationTracker;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Recalculate the planning columns of all inventory rows
+     * 全在庫行の計画項目を再計算
+     */
+    @Scheduled(cron = "${app.inventory-planning.cron:0 40 2 * * *}")
+    public void recalculateAll() {
+        recalculateAll(LocalDate.now());
+    }
+
+    /**
+     * Recalculate once at startup while some rows have never been planned (first deployment, new stock),
+     * so the dead-stock analysis and low-stock alerts need not wait for the nightly run
+     * 未計算の在庫行がある場合は起動時に一度再計算
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void recalculateIfUnplanned() {
+        try {
+            Integer unplanned = jdbcTemplate.queryForObject(COUNT_UNPLANNED_SQL, Integer.class);
+            if (unplanned != null && unplanned > 0) {
+                logger.info("Inventory planning: {} rows never planned, recalculating at startup", unplanned);
+                recalculateAll();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Inventory planning at startup failed, left to the nightly run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return number of inventory rows that were updated
+     */
+    int recalculateAll(LocalDate today) {
+        long startTime = System.currentTimeMillis();
+        YearMonth lastMonth = YearMonth.from(today).minusMonths(1);
+        SalesSeriesService.SalesSeries series = salesSeriesService.monthly(catalogSnapshotService.current(),
+            lastMonth.minusMonths(HISTORY_MONTHS - 1L).atDay(1), lastMonth.atEndOfMonth());
+        // Before the tracker's first recompute the stored classes are kept rather than reset to C/Z
+        boolean classify = classificationTracker.isReady();
+
+        // One read-only transaction, so PostgreSQL streams the rows through a server-side cursor. Changed rows
+        // go out a batch at a time in short transactions of their own, so neither the changes nor row locks
+        // pile up for the whole run
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        int[] counts = new int[2];
+        readOnlyTransactionTemplate.execute(status -> {
+            jdbcTemplate.query(SELECT_SQL, (RowCallbackHandler) rs -> {
+                counts[0]++;
+                Object[] change = plan(rs, series, today, classify);
+                if (change != null) {
+                    batch.add(change);
+                }
+                if (batch.size() == batchSize) {
+                    counts[1] += update(batch);
+                }
+            });
+            return null;
+        });
+        counts[1] += update(batch);
+        logger.info("Inventory planning: {} of {} rows changed in {}ms{}", counts[1], counts[0],
+            System.currentTimeMillis() - startTime, classify ? "" : " (ABC/XYZ kept, tracker not ready)");
+        return counts[1];
+    }
+
+    private int update(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch));
+        int updated = batch.size();
+        batch.clear();
+        return updated;
+    }
+
+    /**
+     * New planning values of the current row as UPDATE parameters, or null when nothing changed
+     */
+    private Object[] plan(ResultSet rs, SalesSeriesService.SalesSeries series, LocalDate today,
+                          boolean classify) throws SQLException {
+        long bookId = rs.getLong("book_id");
+        int row = series.rowOf(bookId);
+        Levels levels = row >= 0
+            ? Levels.of(series.quantities(), series.offset(row), series.buckets(),
+                getInteger(rs, "average_lead_time_days"), rs.getInt("store_stock") + rs.getInt("warehouse_stock"))
+            : Levels.NO_DEMAND;
+        LocalDate storedLastSale = toLocalDate(rs.getDate("last_sold_date"));
+        LocalDate lastSale = latest(toLocalDate(rs.getDate("last_sale_date")), storedLastSale);
+        Integer daysSinceLastSale = daysSinceLastSale(lastSale, today);
+
+        String abc = rs.getString("abc_classification");
+        String xyz = rs.getString("xyz_classification");
+        if (classify) {
+            ABCXYZClassificationTracker.Classification classification = classificationTracker.classify(bookId);
+            if (classification != null) {
+                abc = classification.getAbcCategory();
+                xyz = classification.getXyzCategory();
+            }
+        }
+
+        if (Objects.equals(levels.reorderPoint, getInteger(rs, "reorder_point"))
+                && Objects.equals(levels.safetyStock, getInteger(rs, "safety_stock_level"))
+                && Objects.equals(levels.maximumStock, getInteger(rs, "maximum_stock_level"))
+                && Objects.equals(levels.turnoverRate, getDouble(rs, "turnover_rate"))
+                && Objects.equals(daysSinceLastSale, getInteger(rs, "days_since_last_sale"))
+                && Objects.equals(abc, rs.getString("abc_classification"))
+                && Objects.equals(xyz, rs.getString("xyz_classification"))
+                && Objects.equals(lastSale, storedLastSale)) {
+            return null;
+        }
+        Date lastSaleParameter = lastSale != null ? Date.valueOf(lastSale) : null;
+        return new Object[] {levels.reorderPoint, levels.safetyStock, levels.maximumStock, levels.turnoverRate,
+            daysSinceLastSale, abc, xyz, lastSaleParameter, lastSaleParameter, rs.getLong("id")};
+    }
+
+    /**
+     * Days since the last sale; null for stock that never sold
+     */
+    static Integer daysSinceLastSale(LocalDate lastSaleDate, LocalDate today) {
+        return lastSaleDate != null ? (int) Math.max(0, ChronoUnit.DAYS.between(lastSaleDate, today)) : null;
+    }
+
+    private static LocalDate latest(LocalDate a, LocalDate b) {
+        if (a == null) {
+            return b;
+        }
+        return b != null && b.isAfter(a) ? b : a;
+    }
+
+    private static Integer getInteger(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static Double getDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    /**
+     * Stock levels derived from the monthly demand of one book
+     * 月次需要から算出した在庫水準
+     *
+     * Safety stock covers demand variability over the lead time at a 95% service level, the reorder point
+     * adds the expected lead time demand, and the maximum adds one month of demand on top. A book without
+     * demand in the history has no reorder point, so it never shows up in the low-stock alerts.
+     */
+    static final class Levels {
+
+        static final Levels NO_DEMAND = new Levels(null, 0, null, 0.0);
+
+        final Integer reorderPoint;
+        final Integer safetyStock;
+        final Integer maximumStock;
+        final Double turnoverRate;
+
+        private Levels(Integer reorderPoint, Integer safetyStock, Integer maximumStock, Double turnoverRate) {
+            this.reorderPoint = reorderPoint;
+            this.safetyStock = safetyStock;
+            this.maximumStock = maximumStock;
+            this.turnoverRate = turnoverRate;
+        }
+
+        static Levels of(int[] quantities, int from, int months, Integer leadTimeDays, int totalStock) {
+            long totalDemand = SeriesKernels.sum(quantities, from, months);
+            if (totalDemand <= 0) {
+                return NO_DEMAND;
+            }
+            double monthlyMean = SeriesKernels.mean(quantities, from, months);
+            double dailyMean = monthlyMean / DAYS_PER_MONTH;
+            double dailyDeviation = Math.sqrt(SeriesKernels.variance(quantities, from, months) / DAYS_PER_MONTH);
+            int leadTime = leadTimeDays != null && leadTimeDays > 0 ? leadTimeDays : DEFAULT_LEAD_TIME_DAYS;
+
+            int safetyStock = (int) Math.ceil(SERVICE_LEVEL_Z * dailyDeviation * Math.sqrt(leadTime));
+            int reorderPoint = (int) Math.ceil(dailyMean * leadTime) + safetyStock;
+            int maximumStock = reorderPoint + (int) Math.ceil(monthlyMean);
+            // Annual demand over the stock on hand; the current stock stands in for the average stock
+            double turnoverRate = BigDecimal.valueOf(totalDemand * (12.0 / months) / Math.max(1, totalStock))
+                .setScale(2, RoundingMode.HALF_UP).doubleValue();
+            return new Levels(reorderPoint, safetyStock, maximumStock, turnoverRate);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Inventory;
+import com.techbookstore.app.exception.InsufficientInventoryException;
+import com.techbookstore.app.exception.InventoryNotFoundException;
+import com.techbookstore.app.repository.InventoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Stock mutation subsystem for Inventory
+ * 在庫数の更新（条件付きUPDATE + 書籍ID単位のストライプロック + 競合時の限定リトライ）
+ *
+ * Every stock change is a single conditional UPDATE that only succeeds while the row still
+ * has enough stock, so concurrent callers can never oversell. Callers in this JVM touching the same
+ * book are serialized on a lock stripe first, which keeps them from queueing on the database row lock;
+ * different books use different stripes and proceed in parallel. When this service owns the transaction,
+ * the stripe is released on return and concurrency failures are retried a bounded number of times.
+ * A mutation joining the caller's transaction holds the stripe until that transaction completes, since
+ * the row lock lasts until then too; callers touching several books take all their stripes up front with
+ * {@link #lockBooks}, in stripe order, so two such transactions cannot wait on each other. A waiter keeps
+ * its connection while it waits, so the lock timeout is what frees the pool when the holder needs a second one.
+ */
+@Service
+public class InventoryStockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryStockService.class);
+
+    private final InventoryRepository inventoryRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.inventory.lock-stripes:64}")
+    private int lockStripes = 64;
+
+    @Value("${app.inventory.lock-timeout-ms:2000}")
+    private long lockTimeoutMs = 2000;
+
+    @Value("${app.inventory.max-attempts:3}")
+    private int maxAttempts = 3;
+
+    private ReentrantLock[] locks;
+
+    public InventoryStockService(InventoryRepository inventoryRepository,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager) {
+        this.inventoryRepository = inventoryRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        initLocks();
+    }
+
+    @PostConstruct
+    void initLocks() {
+        // Round up to a power of two so the stripe index is a mask
+        int size = Integer.highestOneBit(Math.max(1, lockStripes - 1)) << 1;
+        ReentrantLock[] stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.locks = stripes;
+    }
+
+    /**
+     * Take the lock stripes of the given books for the rest of the current transaction, in stripe order
+     * 現在のトランザクション終了まで書籍のストライプロックを確保（複数書籍を扱う呼び出し元向け）
+     *
+     * Outside a transaction this does nothing; each mutation then takes its own stripe.
+     *
+     * @throws CannotAcquireLockException when a stripe is not free within the lock timeout
+     */
+    public void lockBooks(Collection<Long> bookIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        SortedMap<Integer, Long> stripes = new TreeMap<>();
+        for (Long bookId : bookIds) {
+            stripes.putIfAbsent(stripeIndex(bookId), bookId);
+        }
+        stripes.values().forEach(this::holdForTransaction);
+    }
+
+    /**
+     * Take stock for a confirmed order line (store stock is decremented, available stock must cover it)
+     * 注文確定時の在庫引き落とし
+     */
+    public void deductForOrder(Long bookId, String bookTitle, int quantity) {
+        mutate(bookId, () -> {
+            if (inventoryRepository.deductAvailableStock(bookId, quantity) == 0) {
+                Inventory inventory = inventoryRepository.findByBookId(bookId)
+                    .orElseThrow(() -> new InventoryNotFoundException(bookId));
+                entityManager.refresh(inventory);
+                throw new InsufficientInventoryException(bookTitle, quantity, inventory.getAvailableStock());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Sell from the store shelf and return the updated inventory
+     * 店頭販売による在庫減算
+     */
+    public Inventory sell(Long bookId, int quantity) {
+        return mutate(bookId, () -> {
+            Inventory inventory = inventoryRepository.findByBookId(bookId)
+                .orElseThrow(() -> new InventoryNotFoundException(bookId));
+            if (inventoryRepository.sellFromStore(bookId, quantity, LocalDate.now()) == 0) {
+                entityManager.refresh(inventory);
+                throw new InsufficientInventoryException(
+                    inventory.getBook().getTitle(), quantity, Math.min(inventory.getStoreStock(), inventory.getAvailableStock()));
+            }
+            entityManager.refresh(inventory);
+            return inventory;
+        });
+    }
+
+    /**
+     * Add to the reserved count of an inventory row and return it refreshed
+     * 在庫引当（引当数の加算）
+     */
+    public Inventory reserve(Inventory inventory, int quantity) {
+        return mutate(inventory.getBook().getId(), () -> {
+            if (inventoryRepository.reserveAvailableStock(inventory.getId(), quantity) == 0) {
+                throw new InsufficientInventoryException("Insufficient available stock for reservation");
+            }
+            return reload(inventory);
+        });
+    }
+
+    /**
+     * Release reserved stock of an inventory row and return it refreshed
+     * 引当の解除
+     */
+    public Inventory release(Inventory inventory, int quantity) {
+        return mutate(inventory.getBook().getId(), () -> {
+            if (inventoryRepository.releaseReservedStock(inventory.getId(), quantity) == 0) {
+                throw new IllegalStateException("Reserved count is lower than the quantity to release");
+            }
+            return reload(inventory);
+        });
+    }
+
+    /**
+     * Re-read the row after a bulk UPDATE, which bypasses the persistence context
+     */
+    private Inventory reload(Inventory inventory) {
+        Inventory managed = entityManager.contains(inventory) ? inventory
+            : inventoryRepository.findById(inventory.getId())
+                .orElseThrow(() -> new InventoryNotFoundException(inventory.getId()));
+        entityManager.refresh(managed);
+        return managed;
+    }
+
+    /**
+     * Run a stock mutation in its own transaction under the book's lock stripe, retrying on concurrency
+     * failures (lock timeout, deadlock, stale version). Inside the caller's transaction the mutation runs
+     * under the stripe held until that transaction completes; a failure goes to the caller, who owns the retry.
+     */
+    <T> T mutate(Long bookId, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                holdForTransaction(bookId);
+            }
+            return action.get();
+        }
+        int attempts = Math.max(1, maxAttempts);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return withBookLock(bookId, () -> transactionTemplate.execute(status -> action.get()));
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= attempts) {
+                    throw e;
+                }
+                logger.debug("Concurrent stock update for book {} (attempt {}/{}), retrying", bookId, attempt, attempts);
+                backoff(attempt);
+            }
+        }
+    }
+
+    private <T> T withBookLock(Long bookId, Supplier<T> action) {
+        ReentrantLock lock = lockFor(bookId);
+        acquire(lock, bookId);
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire(ReentrantLock lock, Long bookId) {
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrupted while waiting for stock lock of book " + bookId, e);
+        }
+        if (!acquired) {
+            throw new CannotAcquireLockException("Timed out waiting for stock lock of book " + bookId);
+        }
+    }
+
+    /**
+     * Lock the book's stripe once per transaction and unlock it when the transaction completes
+     */
+    private void holdForTransaction(Long bookId) {
+        @SuppressWarnings("unchecked")
+        Set<ReentrantLock> held = (Set<ReentrantLock>) TransactionSynchronizationManager.getResource(this);
+        if (held == null) {
+            Set<ReentrantLock> stripes = Collections.newSetFromMap(new IdentityHashMap<>());
+            TransactionSynchronizationManager.bindResource(this, stripes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(InventoryStockService.this);
+                    stripes.forEach(ReentrantLock::unlock);
+                }
+            });
+            held = stripes;
+        }
+        ReentrantLock lock = lockFor(bookId);
+        if (!held.contains(lock)) {
+            acquire(lock, bookId);
+            held.add(lock);
+        }
+    }
+
+    ReentrantLock lockFor(Long bookId) {
+        return locks[stripeIndex(bookId)];
+    }
+
+    private int stripeIndex(Long bookId) {
+        int hash = Long.hashCode(bookId);
+        hash ^= (hash >>> 16);
+        return hash & (locks.length - 1);
+    }
+
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(5L * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.dto.CursorPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Table;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keyset (seek) pagination for entity listings
+ * キーセット方式（カーソル）ページング
+ *
+ * Instead of OFFSET, each page continues after the (sort key, id) of the last row of the previous page,
+ * so deep pages cost the same as the first one. The continuation token is opaque to clients and also
+ * remembers the sort order it was issued for. No COUNT runs per page: a total is only estimated on
+ * request, once, and carried along in the token.
+ */
+@Service
+@Transactional(readOnly = true)
+public class KeysetPager {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeysetPager.class);
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final String CURSOR_VERSION = "v1";
+
+    /**
+     * Filter conditions of a listing, as criteria predicates on the entity root
+     */
+    @FunctionalInterface
+    public interface Filter<T> {
+        List<Predicate> toPredicates(Root<T> root, CriteriaBuilder cb);
+    }
+
+    private final EntityManager entityManager;
+    private final boolean postgres;
+
+    public KeysetPager(EntityManager entityManager,
+                       @Value("${spring.jpa.database-platform:}") String databasePlatform) {
+        this.entityManager = entityManager;
+        this.postgres = databasePlatform.contains("PostgreSQL");
+    }
+
+    /**
+     * Fetch one page ordered by (sortBy, id)
+     * (ソートキー, ID) 順で1ページ取得
+     *
+     * @param sortKeys attributes allowed as sort key; they must be non-null columns
+     * @param cursor   nextCursor of the previous page, or null for the first page
+     * @param includeTotal estimate the total number of rows (first page only; later pages repeat it)
+     * @throws IllegalArgumentException for an unsupported sort key, a bad page size or an invalid cursor
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> CursorPage<T> find(Class<T> entityType, Set<String> sortKeys, String sortBy, String sortDir,
+                                  int size, String cursor, boolean includeTotal, Filter<T> filter) {
+        if (!sortKeys.contains(sortBy)) {
+            throw new IllegalArgumentException("Unsupported sort key for cursor pagination: " + sortBy
+                + " (supported: " + sortKeys + ")");
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        boolean descending = "desc".equalsIgnoreCase(sortDir);
+        Cursor after = cursor != null && !cursor.trim().isEmpty() ? Cursor.decode(cursor.trim()) : null;
+        if (after != null && (!after.sortBy.equals(sortBy) || after.descending != descending)) {
+            throw new IllegalArgumentException("Cursor was issued for a different sort order");
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(entityType);
+        Root<T> root = query.from(entityType);
+        List<Predicate> predicates = new ArrayList<>(filter.toPredicates(root, cb));
+        Path<Comparable> key = root.get(sortBy);
+        Path<Long> id = root.get("id");
+        if (after != null) {
+            // (key, id) > (:key, :id), spelled out because JPQL has no row value comparison
+            Comparable value = parseValue(after.value, key.getJavaType());
+            predicates.add(descending
+                ? cb.or(cb.lessThan(key, value), cb.and(cb.equal(key, value), cb.lessThan(id, after.id)))
+                : cb.or(cb.greaterThan(key, value), cb.and(cb.equal(key, value), cb.greaterThan(id, after.id))));
+        }
+        query.select(root)
+            .where(predicates.toArray(new Predicate[0]))
+            .orderBy(descending ? cb.desc(key) : cb.asc(key), descending ? cb.desc(id) : cb.asc(id));
+
+        // One extra row tells whether there is a next page
+        List<T> rows = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+
+        Long estimatedTotal = after != null ? after.estimatedTotal : null;
+        if (includeTotal && estimatedTotal == null) {
+            estimatedTotal = estimateTotal(entityType, filter);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            T last = content.get(content.size() - 1);
+            Object lastKey = PropertyAccessorFactory.forBeanPropertyAccess(last).getPropertyValue(sortBy);
+            Object lastId = PropertyAccessorFactory.forBeanPropertyAccess(last).getPropertyValue("id");
+            nextCursor = new Cursor(sortBy, descending, (Long) lastId, formatValue(lastKey), estimatedTotal).encode();
+        }
+        return new CursorPage<>(content, size, nextCursor, estimatedTotal, sortBy, descending ? "desc" : "asc");
+    }
+
+    /**
+     * Planner statistics for an unfiltered PostgreSQL table, otherwise a single COUNT with the filter
+     */
+    private <T> Long estimateTotal(Class<T> entityType, Filter<T> filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> count = cb.createQuery(Long.class);
+        Root<T> root = count.from(entityType);
+        List<Predicate> predicates = filter.toPredicates(root, cb);
+
+        Table table = entityType.getAnnotation(Table.class);
+        if (postgres && predicates.isEmpty() && table != null) {
+            List<?> rows = entityManager
+                .createNativeQuery("SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE relname = :table")
+                .setParameter("table", table.name())
+                .getResultList();
+            Object reltuples = rows.isEmpty() ? null : rows.get(0);
+            // -1 (or nothing) until the table has been analyzed
+            if (reltuples instanceof Number && ((Number) reltuples).longValue() >= 0) {
+                return ((Number) reltuples).longValue();
+            }
+            logger.debug("No planner statistics for {}, counting rows", table.name());
+        }
+        count.select(cb.count(root)).where(predicates.toArray(new Predicate[0]));
+        return entityManager.createQuery(count).getSingleResult();
+    }
+
+    private static String formatValue(Object value) {
+        if (value == null) {
+            throw new IllegalStateException("Cursor pagination requires a non-null sort key");
+        }
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).toPlainString();
+        }
+        if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        }
+        return value.toString();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparable parseValue(String value, Class<?> type) {
+        try {
+            if (type == String.class) {
+                return value;
+            }
+            if (type == Long.class || type == long.class) {
+                return Long.valueOf(value);
+            }
+            if (type == Integer.class || type == int.class) {
+                return Integer.valueOf(value);
+            }
+            if (type == BigDecimal.class) {
+                return new BigDecimal(value);
+            }
+            if (type == LocalDateTime.class) {
+                return LocalDateTime.parse(value);
+            }
+            if (type == LocalDate.class) {
+                return LocalDate.parse(value);
+            }
+            if (type.isEnum()) {
+                return Enum.valueOf((Class<Enum>) type, value);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        throw new IllegalStateException("Unsupported sort key type for cursor pagination: " + type.getName());
+    }
+
+    /**
+     * Continuation token: sort order, position (sort key value and id) and the estimated total
+     */
+    private static final class Cursor {
+
+        private final String sortBy;
+        private final boolean descending;
+        private final Long id;
+        private final String value;
+        private final Long estimatedTotal;
+
+        Cursor(String sortBy, boolean descending, Long id, String value, Long estimatedTotal) {
+            this.sortBy = sortBy;
+            this.descending = descending;
+            this.id = id;
+            this.value = value;
+            this.estimatedTotal = estimatedTotal;
+        }
+
+        String encode() {
+            // The value goes last so that it may itself contain the separator
+            String raw = String.join("|", CURSOR_VERSION, sortBy, descending ? "d" : "a", String.valueOf(id),
+                estimatedTotal != null ? String.valueOf(estimatedTotal) : "", value);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split("\\|", 6);
+                if (parts.length != 6 || !CURSOR_VERSION.equals(parts[0])) {
+                    throw new IllegalArgumentException("Invalid cursor");
+                }
+                return new Cursor(parts[1], "d".equals(parts[2]), Long.valueOf(parts[3]),
+                    parts[5], parts[4].isEmpty() ? null : Long.valueOf(parts[4]));
+            } catch (IllegalArgumentException e) {
+                // Also covers malformed Base64 and numbers (NumberFormatException)
+                throw new IllegalArgumentException("Invalid cursor", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package com.techbookstore.app.service;
+
+import java.util.Arrays;
+
+/**
+ * 0/1 knapsack solver over primitive arrays with three capacity constraints (cost, items, weight)
+ * 複数制約ナップサック問題のソルバー（ラグランジュ緩和＋分枝限定法）
+ *
+ * <ol>
+ * <li>Lagrangian multipliers for the three constraints are found by coordinate descent on the dual
+ *     (each step is an exact one-dimensional minimization over the sorted breakpoints). Their dual value is
+ *     an upper bound on the optimum, close to the LP relaxation.</li>
+ * <li>The greedy selection in order of value per multiplier-weighted consumption is the first incumbent.</li>
+ * <li>Every candidate whose reduced profit alone closes the gap between the bound and the incumbent is fixed
+ *     in or out (reduced cost fixing); usually only a small core of candidates near the cutoff stays open.</li>
+ * <li>The core is searched depth first, bounding each node by the LP relaxation of the surrogate constraint
+ *     built from the same multipliers (Dantzig bound, by binary search over prefix sums).</li>
+ * </ol>
+ * The search stops at the time limit and returns the best selection found so far, which is always feasible;
+ * {@link Solution#isOptimal()} tells whether the search completed. Order-sized instances (a few dozen titles
+ * out of tens of thousands) are proven within milliseconds, but a very large selection can leave hundreds of
+ * near-tied candidates in the core; the optimum then lies between the value and the bound.
+ */
+public final class KnapsackSolver {
+
+    /** Relative tolerance below which a bound is not considered an improvement */
+    private static final double EPSILON = 1e-9;
+
+    /** Nodes between two clock checks */
+    private static final int CLOCK_CHECK_INTERVAL = 4096;
+
+    private static final int MAX_DUAL_ROUNDS = 50;
+
+    private static final int CONSTRAINTS = 3;
+
+    private KnapsackSolver() {}
+
+    /**
+     * Solve max sum(values[i]) over a subset with sum(costs) <= budget, sum(items) <= maxItems and
+     * sum(weights) <= maxWeight. All consumptions must be non-negative.
+     *
+     * @param timeLimitNanos search time limit ({@code Long.MAX_VALUE} to search until proven optimal)
+     */
+    public static Solution solve(double[] values, long[] costs, int[] items, int[] weights,
+                                 long budget, long maxItems, long maxWeight, long timeLimitNanos) {
+        return solve(values, costs, items, weights, budget, maxItems, maxWeight, null, timeLimitNanos);
+    }
+
+    /**
+     * Same as above, starting from a known selection (input indexes), e.g. the solution for a smaller budget.
+     * The start is filled up greedily and used as the incumbent when it beats the plain greedy selection;
+     * a start that does not fit the constraints is ignored.
+     */
+    public static Solution solve(double[] values, long[] costs, int[] items, int[] weights,
+                                 long budget, long maxItems, long maxWeight, int[] initialSelection,
+                                 long timeLimitNanos) {
+        long startTime = System.nanoTime();
+        long[] capacities = {budget, maxItems, maxWeight};
+
+        // Only candidates that add value and fit on their own can be part of a solution
+        int n = values.length;
+        int[] candidates = new int[n];
+        int size = 0;
+        long[] totals = new long[CONSTRAINTS];
+        for (int i = 0; i < n; i++) {
+            if (values[i] > 0 && costs[i] <= budget && items[i] <= maxItems && weights[i] <= maxWeight) {
+                candidates[size++] = i;
+                totals[0] += costs[i];
+                totals[1] += items[i];
+                totals[2] += weights[i];
+            }
+        }
+        Problem problem = new Problem(size);
+        for (int k = 0; k < size; k++) {
+            int i = candidates[k];
+            problem.index[k] = i;
+            problem.value[k] = values[i];
+            problem.use[0][k] = costs[i];
+            problem.use[1][k] = items[i];
+            problem.use[2][k] = weights[i];
+        }
+
+        // Consumption relative to capacity; constraints that cannot bind are left out of the relaxation
+        double[][] scaled = new double[CONSTRAINTS][];
+        for (int c = 0; c < CONSTRAINTS; c++) {
+            if (totals[c] > capacities[c]) {
+                scaled[c] = new double[size];
+                double scale = 1.0 / Math.max(1L, capacities[c]);
+                for (int k = 0; k < size; k++) {
+                    scaled[c][k] = problem.use[c][k] * scale;
+                }
+            }
+        }
+        double[] multipliers = optimizeMultipliers(problem.value, scaled, size);
+        double dualBound = 0.0;
+        double[] weighted = new double[size];
+        for (int c = 0; c < CONSTRAINTS; c++) {
+            dualBound += multipliers[c];
+        }
+        for (int k = 0; k < size; k++) {
+            for (int c = 0; c < CONSTRAINTS; c++) {
+                if (scaled[c] != null) {
+                    weighted[k] += multipliers[c] * scaled[c][k];
+                }
+            }
+            dualBound += Math.max(0.0, problem.value[k] - weighted[k]);
+        }
+
+        // Candidates in order of value per weighted consumption
+        Integer[] order = new Integer[size];
+        for (int k = 0; k < size; k++) {
+            order[k] = k;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(
+            ratio(problem.value[b], weighted[b]), ratio(problem.value[a], weighted[a])));
+
+        // Greedy incumbent, or the given start filled up greedily if that is better
+        boolean[] best = new boolean[size];
+        double bestValue = fill(problem, order, best, capacities.clone());
+        if (initialSelection != null) {
+            boolean[] start = new boolean[size];
+            long[] remaining = capacities.clone();
+            double startValue = start(problem, n, initialSelection, start, remaining);
+            if (startValue >= 0.0) {
+                startValue += fill(problem, order, start, remaining);
+                if (startValue > bestValue) {
+                    best = start;
+                    bestValue = startValue;
+                }
+            }
+        }
+
+        // Reduced cost fixing against the incumbent
+        double gap = dualBound - bestValue;
+        int coreSize = 0;
+        int[] coreItems = new int[size];
+        double fixedValue = 0.0;
+        long[] remaining = capacities.clone();
+        boolean fixedFeasible = true;
+        for (int k : order) {
+            double reduced = problem.value[k] - weighted[k];
+            if (Math.abs(reduced) < gap * (1 + EPSILON)) {
+                coreItems[coreSize++] = k;
+            } else if (reduced > 0) {
+                if (!problem.fits(k, remaining)) {
+                    fixedFeasible = false;
+                }
+                problem.take(k, remaining);
+                fixedValue += problem.value[k];
+            }
+        }
+
+        boolean optimal = true;
+        long nodes = 0;
+        if (fixedFeasible && coreSize > 0) {
+            double surrogateCapacity = 0.0;
+            for (int c = 0; c < CONSTRAINTS; c++) {
+                if (scaled[c] != null) {
+                    surrogateCapacity += multipliers[c] * remaining[c] / (double) Math.max(1L, capacities[c]);
+                }
+            }
+            Search search = new Search(problem, Arrays.copyOf(coreItems, coreSize), weighted);
+            optimal = search.run(remaining, surrogateCapacity, bestValue - fixedValue, startTime,
+                Math.max(0L, timeLimitNanos));
+            nodes = search.nodes;
+            if (search.improved) {
+                // The fixed candidates plus the best core selection
+                Arrays.fill(best, false);
+                bestValue = fixedValue + search.bestValue;
+                for (int k = 0; k < size; k++) {
+                    double reduced = problem.value[k] - weighted[k];
+                    if (!(Math.abs(reduced) < gap * (1 + EPSILON)) && reduced > 0) {
+                        best[k] = true;
+                    }
+                }
+                for (int p = 0; p < coreSize; p++) {
+                    if (search.best[p]) {
+                        best[coreItems[p]] = true;
+                    }
+                }
+            }
+        }
+
+        int count = 0;
+        int[] selected = new int[size];
+        for (int k : order) {
+            if (best[k]) {
+                selected[count++] = problem.index[k];
+            }
+        }
+        return new Solution(Arrays.copyOf(selected, count), bestValue, Math.max(dualBound, bestValue), optimal,
+            nodes, coreSize, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Adds every candidate not yet chosen that still fits, in the given order; returns the value added
+     */
+    private static double fill(Problem problem, Integer[] order, boolean[] chosen, long[] remaining) {
+        double added = 0.0;
+        for (int k : order) {
+            if (!chosen[k] && problem.fits(k, remaining)) {
+                problem.take(k, remaining);
+                chosen[k] = true;
+                added += problem.value[k];
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Marks the given input indexes as chosen; returns their value, or -1 when one of them was filtered out,
+     * is repeated or does not fit
+     */
+    private static double start(Problem problem, int n, int[] selection, boolean[] chosen, long[] remaining) {
+        int[] position = new int[n];
+        Arrays.fill(position, -1);
+        for (int k = 0; k < problem.index.length; k++) {
+            position[problem.index[k]] = k;
+        }
+        double value = 0.0;
+        for (int i : selection) {
+            int k = i >= 0 && i < n ? position[i] : -1;
+            if (k < 0 || chosen[k] || !problem.fits(k, remaining)) {
+                return -1.0;
+            }
+            problem.take(k, remaining);
+            chosen[k] = true;
+            value += problem.value[k];
+        }
+        return value;
+    }
+
+    private static double ratio(double value, double weighted) {
+        return weighted > 0 ? value / weighted : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Coordinate descent on the Lagrangian dual min_{m >= 0} sum(m) + sum_k max(0, value_k - sum_c m_c * scaled_c[k])
+     */
+    private static double[] optimizeMultipliers(double[] values, double[][] scaled, int size) {
+        double[] multipliers = new double[CONSTRAINTS];
+        double[] reduced = values.clone();
+        double[] breakpoints = new double[size];
+        double previous = Double.POSITIVE_INFINITY;
+
+        for (int round = 0; round < MAX_DUAL_ROUNDS; round++) {
+            for (int c = 0; c < CONSTRAINTS; c++) {
+                double[] use = scaled[c];
+                if (use == null) {
+                    continue;
+                }
+                // Profit of each candidate with this constraint's multiplier taken out again; a candidate is
+                // worth taking while the multiplier stays below its breakpoint
+                int count = 0;
+                for (int k = 0; k < size; k++) {
+                    reduced[k] += multipliers[c] * use[k];
+                    if (reduced[k] > 0 && use[k] > 0) {
+                        breakpoints[count++] = reduced[k] / use[k];
+                    }
+                }
+                // Smallest breakpoint at which the candidates above it fit into the capacity (1.0)
+                double multiplier = 0.0;
+                if (usedAbove(0.0, reduced, use, size) > 1.0) {
+                    Arrays.sort(breakpoints, 0, count);
+                    int low = 0;
+                    int high = count - 1;
+                    while (low < high) {
+                        int mid = (low + high) >>> 1;
+                        if (usedAbove(breakpoints[mid], reduced, use, size) <= 1.0) {
+                            high = mid;
+                        } else {
+                            low = mid + 1;
+                        }
+                    }
+                    multiplier = breakpoints[low];
+                }
+                multipliers[c] = multiplier;
+                for (int k = 0; k < size; k++) {
+                    reduced[k] -= multiplier * use[k];
+                }
+            }
+            double dual = 0.0;
+            for (int c = 0; c < CONSTRAINTS; c++) {
+                dual += multipliers[c];
+            }
+            for (int k = 0; k < size; k++) {
+                dual += Math.max(0.0, reduced[k]);
+            }
+            if (previous - dual <= EPSILON * Math.abs(dual)) {
+                break;
+            }
+            previous = dual;
+        }
+        return multipliers;
+    }
+
+    /** Consumption of the candidates whose breakpoint lies above the multiplier */
+    private static double usedAbove(double multiplier, double[] reduced, double[] use, int size) {
+        double used = 0.0;
+        for (int k = 0; k < size; k++) {
+            if (reduced[k] > multiplier * use[k]) {
+                used += use[k];
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Chosen candidates (indexes into the input arrays, best value per unit first) and search figures
+     */
+    public static final class Solution {
+        private final int[] selected;
+        private final double value;
+        private final double upperBound;
+        private final boolean optimal;
+        private final long nodes;
+        private final int coreSize;
+        private final long elapsedNanos;
+
+        Solution(int[] selected, double value, double upperBound, boolean optimal, long nodes, int coreSize,
+                 long elapsedNanos) {
+            this.selected = selected;
+            this.value = value;
+            this.upperBound = upperBound;
+            this.optimal = optimal;
+            this.nodes = nodes;
+            this.coreSize = coreSize;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public int[] getSelected() { return selected; }
+        public double getValue() { return value; }
+        /** Lagrangian bound; the optimum lies between value and this */
+        public double getUpperBound() { return upperBound; }
+        /** True when the search completed, so no better selection exists */
+        public boolean isOptimal() { return optimal; }
+        public long getNodes() { return nodes; }
+        /** Candidates left open after reduced cost fixing */
+        public int getCoreSize() { return coreSize; }
+        public long getElapsedNanos() { return elapsedNanos; }
+    }
+
+    /**
+     * Candidates that passed the filter; use[c][k] is candidate k's consumption of constraint c
+     */
+    private static final class Problem {
+        final int[] index;
+        final double[] value;
+        final long[][] use;
+
+        Problem(int size) {
+            index = new int[size];
+            value = new double[size];
+            use = new long[CONSTRAINTS][size];
+        }
+
+        boolean fits(int k, long[] remaining) {
+            return use[0][k] <= remaining[0] && use[1][k] <= remaining[1] && use[2][k] <= remaining[2];
+        }
+
+        void take(int k, long[] remaining) {
+            remaining[0] -= use[0][k];
+            remaining[1] -= use[1][k];
+            remaining[2] -= use[2][k];
+        }
+    }
+
+    /**
+     * Depth-first search over the core candidates in ratio order
+     */
+    private static final class Search {
+        final int size;
+        final double[] value;
+        final long[] cost;
+        final long[] items;
+        final long[] weight;
+        final double[] surrogate;
+        /** prefixValue[p] / prefixSurrogate[p]: sums over the first p core candidates */
+        final double[] prefixValue;
+        final double[] prefixSurrogate;
+
+        final boolean[] taken;
+        final int[] path;
+        final boolean[] best;
+        double bestValue;
+        boolean improved;
+        long nodes;
+
+        Search(Problem problem, int[] core, double[] weighted) {
+            size = core.length;
+            value = new double[size];
+            cost = new long[size];
+            items = new long[size];
+            weight = new long[size];
+            surrogate = new double[size];
+            prefixValue = new double[size + 1];
+            prefixSurrogate = new double[size + 1];
+            taken = new boolean[size];
+            path = new int[size];
+            best = new boolean[size];
+            for (int p = 0; p < size; p++) {
+                int k = core[p];
+                value[p] = problem.value[k];
+                cost[p] = problem.use[0][k];
+                items[p] = problem.use[1][k];
+                weight[p] = problem.use[2][k];
+                surrogate[p] = weighted[k];
+                prefixValue[p + 1] = prefixValue[p] + value[p];
+                prefixSurrogate[p + 1] = prefixSurrogate[p] + surrogate[p];
+            }
+        }
+
+        /**
+         * LP bound of the surrogate knapsack over candidates from..size-1 with the given surrogate capacity
+         */
+        double bound(int from, double capacity) {
+            double limit = prefixSurrogate[from] + capacity;
+            // Last position whose prefix still fits: candidates from..end-1 are taken whole
+            int low = from;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (prefixSurrogate[mid] <= limit) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            double bound = prefixValue[low] - prefixValue[from];
+            if (low < size && surrogate[low] > 0) {
+                bound += value[low] * Math.max(0.0, limit - prefixSurrogate[low]) / surrogate[low];
+            }
+            return bound;
+        }
+
+        /**
+         * Depth-first search, include branch first, for a selection worth more than the incumbent.
+         * Returns true when the whole tree has been searched.
+         */
+        boolean run(long[] capacities, double surrogateCapacity, double incumbent, long startTime, long timeLimit) {
+            bestValue = incumbent;
+            long remainingCost = capacities[0];
+            long remainingItems = capacities[1];
+            long remainingWeight = capacities[2];
+            double remainingSurrogate = surrogateCapacity;
+            double current = 0.0;
+            int depth = 0;
+            int pathLength = 0;
+
+            while (true) {
+                if (++nodes % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() - startTime > timeLimit) {
+                    return false;
+                }
+                boolean backtrack;
+                if (depth == size) {
+                    if (current > bestValue + EPSILON * Math.abs(bestValue)) {
+                        bestValue = current;
+                        System.arraycopy(taken, 0, best, 0, size);
+                        improved = true;
+                    }
+                    backtrack = true;
+                } else {
+                    backtrack = current + bound(depth, remainingSurrogate) <= bestValue + EPSILON * Math.abs(bestValue);
+                }
+
+                if (!backtrack) {
+                    int p = depth;
+                    if (cost[p] <= remainingCost && items[p] <= remainingItems && weight[p] <= remainingWeight) {
+                        taken[p] = true;
+                        path[pathLength++] = p;
+                        remainingCost -= cost[p];
+                        remainingItems -= items[p];
+                        remainingWeight -= weight[p];
+                        remainingSurrogate -= surrogate[p];
+                        current += value[p];
+                    }
+                    depth++;
+                    continue;
+                }
+
+                // Undo the most recent inclusion and explore its exclude branch
+                if (pathLength == 0) {
+                    return true;
+                }
+                int p = path[--pathLength];
+                taken[p] = false;
+                remainingCost += cost[p];
+                remainingItems += items[p];
+                remainingWeight += weight[p];
+                remainingSurrogate += surrogate[p];
+                current -= value[p];
+                depth = p + 1;
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.techbookstore.app.service;
 
+import com.techbookstore.app.config.MetricsConfiguration;
 import com.techbookstore.app.entity.Book;
 import com.techbookstore.app.entity.OptimalStockSettings;
 import com.techbookstore.app.entity.Inventory;
@@ -8,6 +9,7 @@ import com.techbookstore.app.repository.OptimalStockSettingsRepository;
 import com.techbookstore.app.repository.BookRepository;
 import com.techbookstore.app.repository.InventoryRepository;
 import com.techbookstore.app.repository.OrderRepository;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -16,9 +18,15 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Service for calculating optimal stock levels with tech-specific EOQ
@@ -30,8 +38,15 @@ public class OptimalStockCalculatorService {
 
     private static final Logger logger = LoggerFactory.getLogger(OptimalStockCalculatorService.class);
 
+    /** Months of order history behind the average demand */
+    private static final int DEMAND_MONTHS = 12;
+
+    /** Largest id set the bulk calculation queries with IN lists; larger sets read the grouped tables whole */
+    private static final int IN_LIST_LIMIT = 1000;
+
     private final OptimalStockSettingsRepository optimalStockSettingsRepository;
     private final BookRepository bookRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
     private final InventoryRepository inventoryRepository;
     private final OrderRepository orderRepository;
     private final DemandForecastService demandForecastService;
@@ -40,6 +55,7 @@ public class OptimalStockCalculatorService {
 
     public OptimalStockCalculatorService(OptimalStockSettingsRepository optimalStockSettingsRepository,
                                         BookRepository bookRepository,
+                                        CatalogSnapshotService catalogSnapshotService,
                                         InventoryRepository inventoryRepository,
                                         OrderRepository orderRepository,
                                         DemandForecastService demandForecastService,
@@ -47,6 +63,7 @@ public class OptimalStockCalculatorService {
                                         SeasonalAnalysisService seasonalAnalysisService) {
         this.optimalStockSettingsRepository = optimalStockSettingsRepository;
         this.bookRepository = bookRepository;
+        this.catalogSnapshotService = catalogSnapshotService;
         this.inventoryRepository = inventoryRepository;
         this.orderRepository = orderRepository;
         this.demandForecastService = demandForecastService;
@@ -58,11 +75,21 @@ public class OptimalStockCalculatorService {
      * Calculate optimal stock levels for a specific book
      * 特定書籍の最適在庫レベルを計算
      */
+    @Timed(value = MetricsConfiguration.ANALYSIS_TIMER, extraTags = {"path", "optimization"}, histogram = true)
     public OptimalStockDto calculateOptimalStock(Long bookId) {
         logger.info("Calculating optimal stock for book ID: {}", bookId);
         
         Book book = bookRepository.findById(bookId)
             .orElseThrow(() -> new RuntimeException("Book not found: " + bookId));
+        return calculateOptimalStock(book);
+    }
+
+    /**
+     * Optimal stock for a book that is already at hand (loaded entity or catalog snapshot book)
+     */
+    private OptimalStockDto calculateOptimalStock(Book book) {
+        Long bookId = book.getId();
+        LocalDate today = LocalDate.now();
 
         // Get current inventory
         Optional<Inventory> inventoryOpt = inventoryRepository.findByBookId(bookId);
@@ -72,63 +99,161 @@ public class OptimalStockCalculatorService {
         EOQCalculationResult eoqResult = calculateTechSpecificEOQ(book);
         
         // Calculate safety stock
-        int safetyStock = calculateSafetyStock(book, eoqResult.getAverageDemand());
+        int safetyStock = calculateSafetyStock(eoqResult.getAverageDemand());
         
         // Calculate reorder point
-        int reorderPoint = calculateReorderPoint(book, eoqResult.getAverageDemand(), safetyStock);
+        int reorderPoint = calculateReorderPoint(eoqResult.getAverageDemand(), safetyStock);
+        
+        OptimalStockDto dto = toDto(bookId, book.getTitle(), book.getSellingPrice(), currentStock, eoqResult.getEoq(),
+            safetyStock, reorderPoint, calculateObsolescenceFactor(book.getPublicationDate(), today),
+            calculateSeasonalityFactor(today), today);
         
+        logger.info("Calculated optimal stock for book {}: optimal={}, current={}, reorder={}", 
+                   bookId, dto.getOptimalStockLevel(), currentStock, reorderPoint);
+        
+        return dto;
+    }
+
+    /**
+     * Optimal stock for many books at once, in the order of the given ids (duplicates allowed)
+     * 複数書籍の最適在庫を一括計算（入力順で返却）
+     *
+     * Books come from the catalog snapshot, stock and 12-month demand from one grouped query each, so the
+     * number of queries does not grow with the number of books. EOQ, safety stock and reorder point are then
+     * computed in parallel over primitive columns without touching the database.
+     */
+    @Transactional(readOnly = true)
+    @Timed(value = MetricsConfiguration.ANALYSIS_TIMER, extraTags = {"path", "optimization-bulk"}, histogram = true)
+    public List<OptimalStockDto> calculateOptimalStockBulk(List<Long> bookIds) {
+        long startTime = System.nanoTime();
+        LocalDate today = LocalDate.now();
+        CatalogSnapshotService.CatalogSnapshot catalog = catalogSnapshotService.current();
+        int n = bookIds.size();
+
+        // Input position -> catalog row; per-book columns are indexed by catalog row
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = catalog.indexOf(bookIds.get(i));
+            if (rows[i] < 0) {
+                throw new RuntimeException("Book not found: " + bookIds.get(i));
+            }
+            if (catalog.sellingPrice(rows[i]) == null) {
+                throw new RuntimeException("Book has no selling price: " + bookIds.get(i));
+            }
+        }
+        int[] stock = new int[catalog.size()];
+        long[] demand = new long[catalog.size()];
+        loadStockAndDemand(catalog, bookIds, today, stock, demand);
+
+        BigDecimal seasonalityFactor = calculateSeasonalityFactor(today);
+        OptimalStockDto[] results = new OptimalStockDto[n];
+        IntStream.range(0, n).parallel().forEach(i -> {
+            int row = rows[i];
+            BigDecimal sellingPrice = catalog.sellingPrice(row);
+            LocalDate publicationDate = catalog.publicationDate(row);
+            double averageDemand = demand[row] / (double) DEMAND_MONTHS;
+            int eoq = techSpecificEoq(averageDemand, sellingPrice.doubleValue(), publicationDate, today);
+            int safetyStock = calculateSafetyStock(averageDemand);
+            int reorderPoint = calculateReorderPoint(averageDemand, safetyStock);
+            results[i] = toDto(catalog.id(row), catalog.title(row), sellingPrice, stock[row], eoq, safetyStock,
+                reorderPoint, calculateObsolescenceFactor(publicationDate, today), seasonalityFactor, today);
+        });
+
+        logger.info("Calculated optimal stock for {} books in {} ms", n,
+                   TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Total stock and 12-month ordered quantity per catalog row. Small id sets are queried with IN lists,
+     * larger ones read the whole (grouped) tables once.
+     */
+    private void loadStockAndDemand(CatalogSnapshotService.CatalogSnapshot catalog, List<Long> bookIds,
+                                    LocalDate today, int[] stock, long[] demand) {
+        Set<Long> distinctIds = new HashSet<>(bookIds);
+        boolean inList = distinctIds.size() <= IN_LIST_LIMIT;
+        LocalDateTime startDate = today.minusMonths(DEMAND_MONTHS).atStartOfDay();
+        LocalDateTime endDate = today.atStartOfDay();
+
+        List<Object[]> stockRows = inList
+            ? inventoryRepository.findTotalStockByBookIn(distinctIds) : inventoryRepository.findTotalStockByBook();
+        for (Object[] row : stockRows) {
+            int index = catalog.indexOf(((Number) row[0]).longValue());
+            if (index >= 0) {
+                stock[index] += ((Number) row[1]).intValue();
+            }
+        }
+        List<Object[]> demandRows = inList
+            ? orderRepository.aggregateMonthlyDemandForBooks(startDate, endDate, distinctIds)
+            : orderRepository.aggregateMonthlyDemand(startDate, endDate);
+        for (Object[] row : demandRows) {
+            int index = catalog.indexOf(((Number) row[0]).longValue());
+            if (index >= 0) {
+                demand[index] += ((Number) row[3]).longValue();
+            }
+        }
+    }
+
+    /**
+     * Optimal level, stock status and (when a reorder is due) the recommended order from the computed levels
+     */
+    private OptimalStockDto toDto(Long bookId, String title, BigDecimal sellingPrice, int currentStock, int eoq,
+                                  int safetyStock, int reorderPoint, BigDecimal obsolescenceFactor,
+                                  BigDecimal seasonalityFactor, LocalDate today) {
         // Determine optimal stock level
-        int optimalStockLevel = eoqResult.getEoq() + safetyStock;
+        int optimalStockLevel = eoq + safetyStock;
         
         // Calculate factors
-        BigDecimal obsolescenceFactor = calculateObsolescenceFactor(book);
-        BigDecimal trendFactor = calculateTrendFactor(book);
-        BigDecimal seasonalityFactor = calculateSeasonalityFactor(book);
+        BigDecimal trendFactor = calculateTrendFactor();
         
         // Apply factor adjustments
         optimalStockLevel = (int) Math.round(optimalStockLevel * 
             obsolescenceFactor.multiply(trendFactor).multiply(seasonalityFactor).doubleValue());
         
         // Create DTO
-        OptimalStockDto dto = new OptimalStockDto(bookId, book.getTitle(), currentStock, 
+        OptimalStockDto dto = new OptimalStockDto(bookId, title, currentStock, 
                                                  optimalStockLevel, reorderPoint, safetyStock);
-        dto.setEconomicOrderQuantity(eoqResult.getEoq());
+        dto.setEconomicOrderQuantity(eoq);
         dto.setObsolescenceFactor(obsolescenceFactor);
         dto.setTrendFactor(trendFactor);
         dto.setSeasonalityFactor(seasonalityFactor);
-        dto.setValidFrom(LocalDate.now());
+        dto.setValidFrom(today);
         
         // Determine stock status
         dto.setStockStatus(determineStockStatus(currentStock, optimalStockLevel, reorderPoint));
         
         // Calculate recommended order quantity if needed
         if (currentStock <= reorderPoint) {
-            int recommendedOrderQuantity = Math.max(eoqResult.getEoq(), optimalStockLevel - currentStock);
+            int recommendedOrderQuantity = Math.max(eoq, optimalStockLevel - currentStock);
             dto.setRecommendedOrderQuantity(recommendedOrderQuantity);
-            dto.setEstimatedCost(calculateEstimatedCost(book, recommendedOrderQuantity));
-            dto.setEstimatedRevenue(calculateEstimatedRevenue(book, recommendedOrderQuantity));
+            dto.setEstimatedCost(calculateEstimatedCost(sellingPrice, recommendedOrderQuantity));
+            dto.setEstimatedRevenue(calculateEstimatedRevenue(sellingPrice, recommendedOrderQuantity));
         }
-        
-        logger.info("Calculated optimal stock for book {}: optimal={}, current={}, reorder={}", 
-                   bookId, optimalStockLevel, currentStock, reorderPoint);
-        
         return dto;
     }
 
     /**
-     * Calculate tech-specific Economic Order Quantity (EOQ)
+     * Calculate tech-specific Economic Order Quantity (EOQ) (package-private for the benchmark harness)
      * 技術書特化経済発注量計算
      */
-    private EOQCalculationResult calculateTechSpecificEOQ(Book book) {
+    EOQCalculationResult calculateTechSpecificEOQ(Book book) {
         // Calculate average demand from historical data (last 12 months)
         double averageDemand = calculateAverageDemand(book);
-        
+        int finalEOQ = techSpecificEoq(averageDemand, book.getSellingPrice().doubleValue(),
+            book.getPublicationDate(), LocalDate.now());
+        return new EOQCalculationResult(finalEOQ, averageDemand);
+    }
+
+    /**
+     * Tech-specific EOQ for an average monthly demand
+     */
+    static int techSpecificEoq(double averageDemand, double sellingPrice, LocalDate publicationDate, LocalDate today) {
         // Estimated ordering cost (fixed cost per order)
         double orderingCost = 50.0; // Base ordering cost
         
         // Holding cost per unit per year (percentage of book price)
         double holdingCostRate = 0.25; // 25% of book price
-        double holdingCost = book.getSellingPrice().multiply(BigDecimal.valueOf(holdingCostRate)).doubleValue();
+        double holdingCost = sellingPrice * holdingCostRate;
         
         // Basic EOQ formula: sqrt(2 * D * S / H)
         // D = annual demand, S = ordering cost, H = holding cost per unit per year
@@ -136,17 +261,16 @@ public class OptimalStockCalculatorService {
         double basicEOQ = Math.sqrt((2 * annualDemand * orderingCost) / holdingCost);
         
         // Apply tech book specific adjustments
-        double adjustedEOQ = applyTechBookAdjustments(basicEOQ, book);
-        
-        int finalEOQ = Math.max(1, (int) Math.round(adjustedEOQ));
+        double adjustedEOQ = applyTechBookAdjustments(basicEOQ, sellingPrice, publicationDate, today);
         
-        return new EOQCalculationResult(finalEOQ, averageDemand);
+        return Math.max(1, (int) Math.round(adjustedEOQ));
     }
 
     /**
      * Apply tech book specific adjustments to EOQ
      */
-    private double applyTechBookAdjustments(double basicEOQ, Book book) {
+    private static double applyTechBookAdjustments(double basicEOQ, double sellingPrice, LocalDate publicationDate,
+                                                   LocalDate today) {
         double adjustedEOQ = basicEOQ;
         
         // Volume discount adjustment (larger orders get better pricing)
@@ -155,13 +279,12 @@ public class OptimalStockCalculatorService {
         }
         
         // Publication date adjustment (newer books have higher demand variability)
-        if (book.getPublicationDate() != null && 
-            book.getPublicationDate().isAfter(LocalDate.now().minusYears(1))) {
+        if (publicationDate != null && publicationDate.isAfter(today.minusYears(1))) {
             adjustedEOQ *= 0.8; // Reduce EOQ for very new books due to uncertainty
         }
         
         // Price-based adjustment (expensive books should have lower EOQ)
-        if (book.getSellingPrice().compareTo(BigDecimal.valueOf(100)) > 0) {
+        if (sellingPrice > 100) {
             adjustedEOQ *= 0.9; // Reduce EOQ for expensive books
         }
         
@@ -171,9 +294,9 @@ public class OptimalStockCalculatorService {
     /**
      * Calculate safety stock based on demand variability
      */
-    private int calculateSafetyStock(Book book, double averageDemand) {
+    private static int calculateSafetyStock(double averageDemand) {
         // Calculate demand variability (standard deviation)
-        double demandVariability = calculateDemandVariability(book);
+        double demandVariability = calculateDemandVariability(averageDemand);
         
         // Service level factor (Z-score for 95% service level)
         double serviceLevelFactor = 1.65;
@@ -190,7 +313,7 @@ public class OptimalStockCalculatorService {
     /**
      * Calculate reorder point
      */
-    private int calculateReorderPoint(Book book, double averageDemand, int safetyStock) {
+    private static int calculateReorderPoint(double averageDemand, int safetyStock) {
         // Lead time demand (average demand during lead time)
         double leadTimeDemand = averageDemand * (2.0 / 4.0); // 2 weeks out of 4 weeks/month
         
@@ -203,36 +326,30 @@ public class OptimalStockCalculatorService {
     /**
      * Calculate obsolescence factor based on tech lifecycle
      */
-    private BigDecimal calculateObsolescenceFactor(Book book) {
-        // Check if obsolescence analysis exists
-        try {
-            // This would use the TechObsolescenceAnalysisService
-            // For now, use a simplified approach based on publication date
-            if (book.getPublicationDate() == null) {
-                return BigDecimal.valueOf(0.9);
-            }
-            
-            long yearsOld = LocalDate.now().getYear() - book.getPublicationDate().getYear();
-            
-            if (yearsOld <= 1) {
-                return BigDecimal.valueOf(1.0); // New books, no obsolescence factor
-            } else if (yearsOld <= 3) {
-                return BigDecimal.valueOf(0.95); // Slight reduction for moderately old books
-            } else if (yearsOld <= 5) {
-                return BigDecimal.valueOf(0.85); // Significant reduction for older books
-            } else {
-                return BigDecimal.valueOf(0.70); // High obsolescence risk for very old books
-            }
-        } catch (Exception e) {
-            logger.warn("Could not calculate obsolescence factor for book {}: {}", book.getId(), e.getMessage());
+    private static BigDecimal calculateObsolescenceFactor(LocalDate publicationDate, LocalDate today) {
+        // This would use the TechObsolescenceAnalysisService
+        // For now, use a simplified approach based on publication date
+        if (publicationDate == null) {
             return BigDecimal.valueOf(0.9);
         }
+        
+        long yearsOld = today.getYear() - publicationDate.getYear();
+        
+        if (yearsOld <= 1) {
+            return BigDecimal.valueOf(1.0); // New books, no obsolescence factor
+        } else if (yearsOld <= 3) {
+            return BigDecimal.valueOf(0.95); // Slight reduction for moderately old books
+        } else if (yearsOld <= 5) {
+            return BigDecimal.valueOf(0.85); // Significant reduction for older books
+        } else {
+            return BigDecimal.valueOf(0.70); // High obsolescence risk for very old books
+        }
     }
 
     /**
      * Calculate trend factor based on technology trends
      */
-    private BigDecimal calculateTrendFactor(Book book) {
+    private static BigDecimal calculateTrendFactor() {
         // Simplified trend factor - would integrate with TechTrendAnalysisService
         // For now, assume stable trends
         return BigDecimal.valueOf(1.0);
@@ -241,20 +358,17 @@ public class OptimalStockCalculatorService {
     /**
      * Calculate seasonality factor
      */
-    private BigDecimal calculateSeasonalityFactor(Book book) {
-        // Use current month to determine seasonal factor
-        String currentMonth = LocalDate.now().getMonth().toString();
-        
+    private static BigDecimal calculateSeasonalityFactor(LocalDate today) {
         // Simplified seasonal factors for tech books
-        switch (currentMonth) {
-            case "SEPTEMBER":
-            case "OCTOBER":
+        switch (today.getMonth()) {
+            case SEPTEMBER:
+            case OCTOBER:
                 return BigDecimal.valueOf(1.3); // Back to school season
-            case "JANUARY":
-            case "FEBRUARY":
+            case JANUARY:
+            case FEBRUARY:
                 return BigDecimal.valueOf(1.1); // New year learning
-            case "JUNE":
-            case "JULY":
+            case JUNE:
+            case JULY:
                 return BigDecimal.valueOf(0.9); // Summer slowdown
             default:
                 return BigDecimal.valueOf(1.0);
@@ -266,7 +380,7 @@ public class OptimalStockCalculatorService {
      */
     private double calculateAverageDemand(Book book) {
         // Get historical orders from last 12 months
-        LocalDate startDate = LocalDate.now().minusMonths(12);
+        LocalDate startDate = LocalDate.now().minusMonths(DEMAND_MONTHS);
         LocalDate endDate = LocalDate.now();
         
         List<com.techbookstore.app.entity.Order> orders = orderRepository.findByOrderDateBetween(
@@ -278,15 +392,14 @@ public class OptimalStockCalculatorService {
             .mapToInt(item -> item.getQuantity())
             .sum();
         
-        return totalDemand / 12.0; // Average per month
+        return totalDemand / (double) DEMAND_MONTHS; // Average per month
     }
 
     /**
      * Calculate demand variability (standard deviation)
      */
-    private double calculateDemandVariability(Book book) {
+    private static double calculateDemandVariability(double averageDemand) {
         // Simplified calculation - in practice would use historical monthly demands
-        double averageDemand = calculateAverageDemand(book);
         return Math.max(1.0, averageDemand * 0.3); // Assume 30% coefficient of variation
     }
 
@@ -308,16 +421,16 @@ public class OptimalStockCalculatorService {
     /**
      * Calculate estimated cost for recommended order
      */
-    private BigDecimal calculateEstimatedCost(Book book, int quantity) {
-        BigDecimal unitCost = book.getSellingPrice().multiply(BigDecimal.valueOf(0.7)); // Assume 70% cost ratio
+    private static BigDecimal calculateEstimatedCost(BigDecimal sellingPrice, int quantity) {
+        BigDecimal unitCost = sellingPrice.multiply(BigDecimal.valueOf(0.7)); // Assume 70% cost ratio
         return unitCost.multiply(BigDecimal.valueOf(quantity)).setScale(2, RoundingMode.HALF_UP);
     }
 
     /**
      * Calculate estimated revenue for recommended order
      */
-    private BigDecimal calculateEstimatedRevenue(Book book, int quantity) {
-        return book.getSellingPrice().multiply(BigDecimal.valueOf(quantity)).setScale(2, RoundingMode.HALF_UP);
+    private static BigDecimal calculateEstimatedRevenue(BigDecimal sellingPrice, int quantity) {
+        return sellingPrice.multiply(BigDecimal.valueOf(quantity)).setScale(2, RoundingMode.HALF_UP);
     }
 
     /**
@@ -389,56 +502,55 @@ public class OptimalStockCalculatorService {
      * For use in integrated analysis
      */
     @Transactional(readOnly = true)
+    @Timed(value = MetricsConfiguration.ANALYSIS_TIMER, extraTags = {"path", "optimization"}, histogram = true)
     public List<com.techbookstore.app.dto.OptimalStockLevel> calculateOptimalLevels() {
         logger.info("Calculating optimal levels for all books");
         
-        List<Book> books = bookRepository.findAll();
-        return books.stream()
-            .map(book -> {
-                try {
-                    OptimalStockDto optimalDto = calculateOptimalStock(book.getId());
-                    
-                    com.techbookstore.app.dto.OptimalStockLevel level = new com.techbookstore.app.dto.OptimalStockLevel();
-                    level.setBookId(book.getId());
-                    level.setBookTitle(book.getTitle());
-                    level.setOptimalStock(optimalDto.getOptimalStockLevel());
-                    level.setSafetyStock(optimalDto.getSafetyStock());
-                    level.setReorderPoint(optimalDto.getReorderPoint());
-                    
-                    // Get current stock
-                    Optional<Inventory> inventory = inventoryRepository.findByBookId(book.getId());
-                    level.setCurrentStock(inventory.map(Inventory::getTotalStock).orElse(0));
-                    
-                    // Set calculation method and recommendation
-                    level.setCalculationMethod("EOQ");
-                    level.setLeadTimeDays(7); // Default lead time
-                    
-                    // Determine recommendation
-                    Integer currentStock = level.getCurrentStock();
-                    Integer optimalStock = level.getOptimalStock();
-                    
-                    if (currentStock < optimalStock * 0.8) {
-                        level.setRecommendation("INCREASE");
-                    } else if (currentStock > optimalStock * 1.2) {
-                        level.setRecommendation("DECREASE");
-                    } else {
-                        level.setRecommendation("MAINTAIN");
-                    }
-                    
-                    return level;
-                } catch (Exception e) {
-                    logger.warn("Failed to calculate optimal level for book {}: {}", book.getId(), e.getMessage());
-                    return null;
+        // One bulk calculation over the catalog; books without a selling price cannot be costed and are skipped
+        CatalogSnapshotService.CatalogSnapshot catalog = catalogSnapshotService.current();
+        List<Long> bookIds = IntStream.range(0, catalog.size())
+            .filter(i -> catalog.sellingPrice(i) != null)
+            .mapToObj(catalog::id)
+            .collect(Collectors.toList());
+        if (bookIds.size() < catalog.size()) {
+            logger.warn("Skipped {} books without a selling price", catalog.size() - bookIds.size());
+        }
+
+        return calculateOptimalStockBulk(bookIds).stream()
+            .map(optimalDto -> {
+                com.techbookstore.app.dto.OptimalStockLevel level = new com.techbookstore.app.dto.OptimalStockLevel();
+                level.setBookId(optimalDto.getBookId());
+                level.setBookTitle(optimalDto.getBookTitle());
+                level.setOptimalStock(optimalDto.getOptimalStockLevel());
+                level.setSafetyStock(optimalDto.getSafetyStock());
+                level.setReorderPoint(optimalDto.getReorderPoint());
+                level.setCurrentStock(optimalDto.getCurrentStock());
+                
+                // Set calculation method and recommendation
+                level.setCalculationMethod("EOQ");
+                level.setLeadTimeDays(7); // Default lead time
+                
+                // Determine recommendation
+                Integer currentStock = level.getCurrentStock();
+                Integer optimalStock = level.getOptimalStock();
+                
+                if (currentStock < optimalStock * 0.8) {
+                    level.setRecommendation("INCREASE");
+                } else if (currentStock > optimalStock * 1.2) {
+                    level.setRecommendation("DECREASE");
+                } else {
+                    level.setRecommendation("MAINTAIN");
                 }
+                
+                return level;
             })
-            .filter(level -> level != null)
             .collect(Collectors.toList());
     }
 
     /**
      * Inner class for EOQ calculation results
      */
-    private static class EOQCalculationResult {
+    static class EOQCalculationResult {
         private final int eoq;
         private final double averageDemand;
 
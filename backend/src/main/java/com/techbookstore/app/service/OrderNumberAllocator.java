@@ -0,0 +1,153 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.OrderNumberCounter;
+import com.techbookstore.app.repository.OrderNumberCounterRepository;
+import com.techbookstore.app.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Order number allocator with format ORD-YYYYMMDD-XXXX.
+ * 注文番号の採番（日別カウンター行からブロック単位で確保し、メモリ上でロックフリーに払い出す）
+ *
+ * Each node reserves a block of numbers from the per-day counter row in its own short
+ * transaction, so numbers stay unique across nodes. Numbers left in a block when a node
+ * stops are skipped, so the sequence may have gaps.
+ */
+@Service
+public class OrderNumberAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderNumberAllocator.class);
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final OrderNumberCounterRepository counterRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicReference<Block> currentBlock = new AtomicReference<>();
+    private final Object refillLock = new Object();
+
+    @Value("${app.order-number.block-size:20}")
+    private int blockSize = 20;
+
+    public OrderNumberAllocator(OrderNumberCounterRepository counterRepository,
+                                OrderRepository orderRepository,
+                                PlatformTransactionManager transactionManager) {
+        this.counterRepository = counterRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Allocate the next order number for today
+     * 本日の次の注文番号を払い出す
+     */
+    public String nextOrderNumber() {
+        return nextOrderNumber(LocalDate.now());
+    }
+
+    String nextOrderNumber(LocalDate date) {
+        while (true) {
+            Block block = currentBlock.get();
+            if (block != null && block.date.equals(date)) {
+                long value = block.next.getAndIncrement();
+                if (value < block.end) {
+                    return format(date, value);
+                }
+            }
+            refill(block, date);
+        }
+    }
+
+    /**
+     * Only the thread that finds the block exhausted (or from another day) reserves a new one;
+     * the others wait here and then retry the lock-free path.
+     */
+    private void refill(Block exhausted, LocalDate date) {
+        synchronized (refillLock) {
+            if (currentBlock.get() != exhausted) {
+                return;
+            }
+            int size = Math.max(1, blockSize);
+            long start = reserveBlock(date, size);
+            currentBlock.set(new Block(date, start, start + size));
+            logger.debug("Reserved order numbers {}-{} for {}", start, start + size - 1, date);
+        }
+    }
+
+    /**
+     * Reserve [start, start + size) from the counter row in a separate transaction
+     * 別トランザクションでカウンター行を更新してブロックを確保
+     */
+    private long reserveBlock(LocalDate date, int size) {
+        try {
+            return transactionTemplate.execute(status -> doReserve(date, size));
+        } catch (DataIntegrityViolationException e) {
+            // Another node created today's counter row first - retry against the existing row
+            logger.debug("Counter row for {} created concurrently, retrying", date);
+            return transactionTemplate.execute(status -> doReserve(date, size));
+        }
+    }
+
+    private long doReserve(LocalDate date, int size) {
+        Optional<OrderNumberCounter> existing = counterRepository.findForUpdate(date);
+        if (existing.isPresent()) {
+            OrderNumberCounter counter = existing.get();
+            long start = counter.getNextValue();
+            counter.setNextValue(start + size);
+            return start;
+        }
+        long start = highestExistingNumber(date) + 1;
+        counterRepository.saveAndFlush(new OrderNumberCounter(date, start + size));
+        return start;
+    }
+
+    /**
+     * Seed a new day's counter past any order numbers already issued for that day
+     */
+    private long highestExistingNumber(LocalDate date) {
+        String prefix = prefix(date);
+        long highest = 0;
+        for (String orderNumber : orderRepository.findOrderNumbersByPrefix(prefix)) {
+            String suffix = orderNumber.substring(prefix.length());
+            if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                highest = Math.max(highest, Long.parseLong(suffix));
+            }
+        }
+        return highest;
+    }
+
+    private static String prefix(LocalDate date) {
+        return "ORD-" + date.format(DATE_FORMAT) + "-";
+    }
+
+    private static String format(LocalDate date, long value) {
+        return String.format("ORD-%s-%04d", date.format(DATE_FORMAT), value);
+    }
+
+    private static final class Block {
+        private final LocalDate date;
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(LocalDate date, long start, long end) {
+            this.date = date;
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.techbookstore.app.service;
 
+import com.techbookstore.app.dto.CursorPage;
 import com.techbookstore.app.entity.Book;
 import com.techbookstore.app.entity.Inventory;
 import com.techbookstore.app.entity.Order;
@@ -19,11 +20,11 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.criteria.Predicate;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Service class for managing orders and order-related operations.
@@ -37,16 +38,32 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final BookRepository bookRepository;
     private final InventoryRepository inventoryRepository;
+    private final SalesAggregationService salesAggregationService;
+    private final OrderNumberAllocator orderNumberAllocator;
+    private final InventoryStockService inventoryStockService;
+    private final KeysetPager keysetPager;
+    
+    /** Sort keys usable with cursor pagination: non-null columns (combined with id as tie-breaker) */
+    public static final Set<String> CURSOR_SORT_KEYS = Collections.unmodifiableSet(
+        new LinkedHashSet<>(Arrays.asList("orderDate", "id", "orderNumber", "totalAmount")));
     
     /**
      * Constructor injection for dependencies.
      */
     public OrderService(OrderRepository orderRepository, 
                        BookRepository bookRepository, 
-                       InventoryRepository inventoryRepository) {
+                       InventoryRepository inventoryRepository,
+                       SalesAggregationService salesAggregationService,
+                       OrderNumberAllocator orderNumberAllocator,
+                       InventoryStockService inventoryStockService,
+                       KeysetPager keysetPager) {
         this.orderRepository = orderRepository;
         this.bookRepository = bookRepository;
         this.inventoryRepository = inventoryRepository;
+        this.salesAggregationService = salesAggregationService;
+        this.orderNumberAllocator = orderNumberAllocator;
+        this.inventoryStockService = inventoryStockService;
+        this.keysetPager = keysetPager;
     }
     
     /**
@@ -60,7 +77,7 @@ public class OrderService {
         logger.info("Creating new order with {} items", order.getOrderItems().size());
         
         // Generate order number
-        order.setOrderNumber(generateOrderNumber());
+        order.setOrderNumber(orderNumberAllocator.nextOrderNumber());
         
         // Calculate total amount
         BigDecimal totalAmount = BigDecimal.ZERO;
@@ -110,35 +127,113 @@ public class OrderService {
             throw new InvalidOrderStatusException(order.getStatus().toString(), "CONFIRMED");
         }
         
-        // Check inventory and reserve stock
-        for (OrderItem item : order.getOrderItems()) {
-            Optional<Inventory> inventoryOpt = inventoryRepository.findByBookId(item.getBook().getId());
-            if (!inventoryOpt.isPresent()) {
-                throw new InventoryNotFoundException(item.getBook().getId());
-            }
-            
-            Inventory inventory = inventoryOpt.get();
-            if (inventory.getAvailableStock() < item.getQuantity()) {
-                throw new InsufficientInventoryException(
-                    item.getBook().getTitle(), 
-                    item.getQuantity(), 
-                    inventory.getAvailableStock()
-                );
-            }
-            
-            // Reserve stock (reduce store stock)
-            inventory.setStoreStock(inventory.getStoreStock() - item.getQuantity());
-            inventoryRepository.save(inventory);
+        // Reserve stock (reduce store stock) with one conditional update per line.
+        // The books' stock stripes are held until commit; lines are processed in book id order so
+        // concurrent multi-book orders lock rows in the same order.
+        List<OrderItem> items = new ArrayList<>(order.getOrderItems());
+        items.sort(Comparator.comparing(item -> item.getBook().getId()));
+        inventoryStockService.lockBooks(items.stream().map(item -> item.getBook().getId()).collect(Collectors.toList()));
+        for (OrderItem item : items) {
+            inventoryStockService.deductForOrder(item.getBook().getId(), item.getBook().getTitle(), item.getQuantity());
         }
         
         order.setStatus(Order.OrderStatus.CONFIRMED);
         order.setConfirmedDate(LocalDateTime.now());
         Order confirmedOrder = orderRepository.save(order);
+        salesAggregationService.recordOrder(confirmedOrder);
         
         logger.info("Confirmed order {}", order.getOrderNumber());
         return confirmedOrder;
     }
     
+    /**
+     * Confirms several orders at once. Orders and inventory are each loaded with one query,
+     * availability is checked in memory, and the stock decrements are flushed as one JDBC batch.
+     * An order that cannot be confirmed is reported as a failure without affecting the others.
+     * 
+     * @param orderIds the IDs of the orders to confirm, processed in the given order
+     * @return the confirmed orders and the per-order failures
+     */
+    public BatchConfirmationResult confirmOrders(List<Long> orderIds) {
+        Set<Long> ids = new LinkedHashSet<>(orderIds);
+        logger.info("Confirming {} orders in batch", ids.size());
+        
+        BatchConfirmationResult result = new BatchConfirmationResult();
+        Map<Long, Order> orders = new HashMap<>();
+        for (Order order : orderRepository.findWithItemsByIdIn(ids)) {
+            orders.put(order.getId(), order);
+        }
+        
+        // Lock every affected inventory row in one query, in id order, after the books' stock stripes
+        Set<Long> bookIds = new HashSet<>();
+        for (Order order : orders.values()) {
+            for (OrderItem item : order.getOrderItems()) {
+                bookIds.add(item.getBook().getId());
+            }
+        }
+        Map<Long, Inventory> inventories = new HashMap<>();
+        if (!bookIds.isEmpty()) {
+            inventoryStockService.lockBooks(bookIds);
+            for (Inventory inventory : inventoryRepository.findByBookIdInForUpdate(bookIds)) {
+                inventories.put(inventory.getBook().getId(), inventory);
+            }
+        }
+        
+        for (Long orderId : ids) {
+            Order order = orders.get(orderId);
+            if (order == null) {
+                result.addFailure(orderId, "ORDER_NOT_FOUND", new OrderNotFoundException(orderId).getMessage());
+                continue;
+            }
+            if (order.getStatus() != Order.OrderStatus.PENDING) {
+                result.addFailure(orderId, "INVALID_ORDER_STATUS",
+                    new InvalidOrderStatusException(order.getStatus().toString(), "CONFIRMED").getMessage());
+                continue;
+            }
+            
+            // Validate every line against the stock left by the orders accepted so far
+            Map<Long, Integer> required = new HashMap<>();
+            for (OrderItem item : order.getOrderItems()) {
+                required.merge(item.getBook().getId(), item.getQuantity(), Integer::sum);
+            }
+            String failureCode = null;
+            String failureMessage = null;
+            for (OrderItem item : order.getOrderItems()) {
+                Long bookId = item.getBook().getId();
+                Inventory inventory = inventories.get(bookId);
+                if (inventory == null) {
+                    failureCode = "INVENTORY_NOT_FOUND";
+                    failureMessage = new InventoryNotFoundException(bookId).getMessage();
+                    break;
+                }
+                if (inventory.getAvailableStock() < required.get(bookId)) {
+                    failureCode = "INSUFFICIENT_INVENTORY";
+                    failureMessage = new InsufficientInventoryException(
+                        item.getBook().getTitle(), required.get(bookId), inventory.getAvailableStock()).getMessage();
+                    break;
+                }
+            }
+            if (failureCode != null) {
+                result.addFailure(orderId, failureCode, failureMessage);
+                continue;
+            }
+            
+            // Reserve stock (reduce store stock) on the managed rows; written back on flush
+            for (Map.Entry<Long, Integer> line : required.entrySet()) {
+                Inventory inventory = inventories.get(line.getKey());
+                inventory.setStoreStock(inventory.getStoreStock() - line.getValue());
+            }
+            order.setStatus(Order.OrderStatus.CONFIRMED);
+            order.setConfirmedDate(LocalDateTime.now());
+            salesAggregationService.recordOrder(order);
+            result.getConfirmedOrders().add(order);
+        }
+        
+        logger.info("Batch confirmation finished: {} confirmed, {} failed",
+                   result.getConfirmedOrders().size(), result.getFailures().size());
+        return result;
+    }
+    
     /**
      * Updates the status of an order.
      * 
@@ -163,6 +258,7 @@ public class OrderService {
             throw new InvalidOrderStatusException(order.getStatus().toString(), newStatus.toString());
         }
         
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(newStatus);
         
         // Set specific timestamps based on status
@@ -179,6 +275,7 @@ public class OrderService {
         }
         
         Order updatedOrder = orderRepository.save(order);
+        salesAggregationService.onStatusChange(updatedOrder, previousStatus);
         logger.info("Updated order {} status to {}", order.getOrderNumber(), newStatus);
         return updatedOrder;
     }
@@ -203,6 +300,54 @@ public class OrderService {
         return orderRepository.findOrdersWithFilters(status, type, customerId, startDate, endDate, pageable);
     }
     
+    /**
+     * Retrieves orders with cursor (keyset) pagination; same filters as
+     * {@link #getOrdersWithFilters} and, when a keyword is given, the same matching as {@link #searchOrders}.
+     * 
+     * @param cursor continuation token from the previous page, or null for the first page
+     * @param includeTotal whether to estimate the total number of orders
+     * @return page of orders with the token for the next page
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Order> getOrdersByCursor(Order.OrderStatus status,
+                                             Order.OrderType type,
+                                             Long customerId,
+                                             LocalDateTime startDate,
+                                             LocalDateTime endDate,
+                                             String keyword,
+                                             String sortBy,
+                                             String sortDir,
+                                             int size,
+                                             String cursor,
+                                             boolean includeTotal) {
+        return keysetPager.find(Order.class, CURSOR_SORT_KEYS, sortBy, sortDir, size, cursor, includeTotal,
+            (root, cb) -> {
+                List<Predicate> predicates = new ArrayList<>();
+                if (keyword != null) {
+                    String pattern = "%" + keyword + "%";
+                    predicates.add(cb.or(cb.like(root.get("orderNumber"), pattern),
+                        cb.like(root.get("customerId").as(String.class), pattern)));
+                    return predicates;
+                }
+                if (status != null) {
+                    predicates.add(cb.equal(root.get("status"), status));
+                }
+                if (type != null) {
+                    predicates.add(cb.equal(root.get("type"), type));
+                }
+                if (customerId != null) {
+                    predicates.add(cb.equal(root.get("customerId"), customerId));
+                }
+                if (startDate != null) {
+                    predicates.add(cb.greaterThanOrEqualTo(root.get("orderDate"), startDate));
+                }
+                if (endDate != null) {
+                    predicates.add(cb.lessThanOrEqualTo(root.get("orderDate"), endDate));
+                }
+                return predicates;
+            });
+    }
+    
     /**
      * Searches orders by keyword.
      * 
@@ -258,18 +403,6 @@ public class OrderService {
         return orderRepository.countByStatus(status);
     }
     
-    /**
-     * Generates a unique order number with format ORD-YYYYMMDD-XXXX.
-     * This method is synchronized to prevent race conditions in order number generation.
-     * 
-     * @return the generated order number
-     */
-    private synchronized String generateOrderNumber() {
-        String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        Long count = orderRepository.count() + 1;
-        return String.format("ORD-%s-%04d", date, count);
-    }
-    
     /**
      * Validates if a status transition is allowed.
      * 
@@ -298,4 +431,38 @@ public class OrderService {
                 return false;
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Result of a batch confirmation.
+     */
+    public static class BatchConfirmationResult {
+        private final List<Order> confirmedOrders = new ArrayList<>();
+        private final List<OrderFailure> failures = new ArrayList<>();
+        
+        void addFailure(Long orderId, String code, String message) {
+            failures.add(new OrderFailure(orderId, code, message));
+        }
+        
+        public List<Order> getConfirmedOrders() { return confirmedOrders; }
+        public List<OrderFailure> getFailures() { return failures; }
+    }
+    
+    /**
+     * Why one order of a batch could not be confirmed.
+     */
+    public static class OrderFailure {
+        private final Long orderId;
+        private final String code;
+        private final String message;
+        
+        public OrderFailure(Long orderId, String code, String message) {
+            this.orderId = orderId;
+            this.code = code;
+            this.message = message;
+        }
+        
+        public Long getOrderId() { return orderId; }
+        public String getCode() { return code; }
+        public String getMessage() { return message; }
+    }
+}
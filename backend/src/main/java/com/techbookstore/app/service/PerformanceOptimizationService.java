@@ -1,59 +1,349 @@
 package com.techbookstore.app.service;
 
+import com.techbookstore.app.config.MetricsConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Performance optimization service for Phase 4
  * Handles performance metrics and optimization recommendations
+ *
+ * All figures are read from the live Micrometer registry: analysis timers ({@code @Timed}),
+ * per-cache hit/miss counters, executor gauges and the standard JVM/HTTP meters.
+ * ライブのMeterRegistryから性能指標を集計する
  */
 @Service
 public class PerformanceOptimizationService {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(PerformanceOptimizationService.class);
-    
+
+    /** Paths of the synchronous and the staged (async job) integrated analysis */
+    private static final List<String> INTEGRATED_PATHS = Arrays.asList("integrated", "staged");
+
+    private final MeterRegistry meterRegistry;
+
+    public PerformanceOptimizationService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     /**
      * Calculate performance metrics for the system
      */
     public Map<String, Object> calculateMetrics() {
         logger.debug("Calculating performance metrics");
-        
+
         Map<String, Object> metrics = new HashMap<>();
-        
+
         // System performance indicators
-        metrics.put("systemLoad", 0.75);
-        metrics.put("memoryUsage", 0.68);
-        metrics.put("cacheHitRate", 0.85);
-        metrics.put("averageResponseTime", 250L); // milliseconds
-        
-        // Business metrics
-        metrics.put("inventoryTurnoverRate", 2.3);
-        metrics.put("stockAccuracy", 0.99);
-        metrics.put("forecastAccuracy", 0.87);
-        
-        // Performance scores
-        metrics.put("overallPerformanceScore", 8.5);
-        metrics.put("optimizationOpportunities", 3);
-        
+        metrics.put("systemLoad", gaugeValue("system.load.average.1m"));
+        metrics.put("cpuUsage", gaugeValue("process.cpu.usage"));
+        metrics.put("memoryUsage", getHeapUsage());
+        metrics.put("averageResponseTime", getAverageResponseTimeMs()); // milliseconds
+        metrics.put("activeRequests", (long) gaugeValue("tomcat.threads.busy"));
+
+        // Cache and thread pool indicators
+        metrics.put("cacheHitRate", getCacheHitRate());
+        metrics.put("cacheStatistics", getCacheStatistics());
+        metrics.put("cacheTierStatistics", getCacheTierStatistics());
+        metrics.put("threadPoolUtilization", getThreadPoolUtilization());
+        metrics.put("executors", getExecutorStatistics());
+
+        // Analysis indicators
+        metrics.put("analysisTimings", getAnalysisTimings());
+        metrics.put("analysisCount", getIntegratedAnalysisCount());
+        metrics.put("analysisSuccessRate", getIntegratedAnalysisSuccessRate());
+        metrics.put("optimizationRecommendations", (long) counterValue(MetricsConfiguration.OPTIMIZATION_RECOMMENDATIONS));
+
         return metrics;
     }
-    
+
+    /**
+     * Metrics for the integrated dashboard, formatted for display
+     * 統合ダッシュボード表示用の指標（表示形式に整形済み）
+     */
+    public Map<String, Object> getDashboardMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+
+        // Performance indicators
+        metrics.put("response_time_avg", Math.round(getAverageResponseTimeMs()) + "ms");
+        metrics.put("cache_hit_rate", percent(getCacheHitRate()));
+        metrics.put("l1_cache_hit_rate", percent(getTierHitRate("l1")));
+        metrics.put("l2_cache_hit_rate", percent(getTierHitRate("l2")));
+        metrics.put("concurrent_users", (long) gaugeValue("tomcat.threads.busy"));
+        metrics.put("analysis_success_rate", percent(getIntegratedAnalysisSuccessRate()));
+
+        // Resource utilization
+        metrics.put("memory_usage", percent(getHeapUsage()));
+        metrics.put("cpu_usage", percent(gaugeValue("process.cpu.usage")));
+        metrics.put("thread_pool_utilization", percent(getThreadPoolUtilization()));
+
+        // Business metrics (counted since application start)
+        metrics.put("daily_analyses", getIntegratedAnalysisCount());
+        metrics.put("optimization_recommendations", (long) counterValue(MetricsConfiguration.OPTIMIZATION_RECOMMENDATIONS));
+
+        metrics.put("timestamp", LocalDateTime.now());
+        return metrics;
+    }
+
     /**
      * Get optimization recommendations
      */
     public Map<String, Object> getOptimizationRecommendations() {
         logger.debug("Generating optimization recommendations");
-        
+
         Map<String, Object> recommendations = new HashMap<>();
-        
+
         recommendations.put("cacheOptimization", "Increase cache TTL for static data");
         recommendations.put("queryOptimization", "Add indexes for frequently queried fields");
         recommendations.put("batchProcessing", "Process bulk operations during off-peak hours");
-        
+
         return recommendations;
     }
+
+    /**
+     * Hit ratio over all named caches (0.0 - 1.0, 0 when nothing was looked up yet)
+     * 全キャッシュ合計のヒット率
+     */
+    public double getCacheHitRate() {
+        double hits = sumCounters(meterRegistry.find("cache.gets").tag("result", "hit").counters());
+        double misses = sumCounters(meterRegistry.find("cache.gets").tag("result", "miss").counters());
+        return ratio(hits, hits + misses);
+    }
+
+    /**
+     * Hits, misses and hit ratio per named cache
+     */
+    Map<String, Map<String, Object>> getCacheStatistics() {
+        Map<String, Map<String, Object>> statistics = new TreeMap<>();
+        for (Counter counter : meterRegistry.find("cache.gets").counters()) {
+            String cache = counter.getId().getTag("cache");
+            String result = counter.getId().getTag("result");
+            Map<String, Object> entry = statistics.computeIfAbsent(cache, key -> {
+                Map<String, Object> values = new HashMap<>();
+                values.put("hits", 0L);
+                values.put("misses", 0L);
+                return values;
+            });
+            String key = "hit".equals(result) ? "hits" : "misses";
+            entry.put(key, (Long) entry.get(key) + (long) counter.count());
+        }
+        for (Map<String, Object> entry : statistics.values()) {
+            long hits = (Long) entry.get("hits");
+            long misses = (Long) entry.get("misses");
+            entry.put("hitRate", ratio(hits, hits + misses));
+        }
+        return statistics;
+    }
+
+    /**
+     * Hit ratio of one cache tier (l1 = in-process Caffeine, l2 = Redis) over all named caches
+     * L1/L2それぞれのヒット率（L2は L1ミス時の参照のみを母数とする）
+     */
+    public double getTierHitRate(String tier) {
+        double hits = sumCounters(meterRegistry.find("cache.tier.gets").tags("tier", tier, "result", "hit").counters());
+        double misses = sumCounters(meterRegistry.find("cache.tier.gets").tags("tier", tier, "result", "miss").counters());
+        return ratio(hits, hits + misses);
+    }
+
+    /**
+     * Hits, misses and hit ratio per named cache and tier
+     */
+    Map<String, Map<String, Map<String, Object>>> getCacheTierStatistics() {
+        Map<String, Map<String, Map<String, Object>>> statistics = new TreeMap<>();
+        for (Counter counter : meterRegistry.find("cache.tier.gets").counters()) {
+            Map<String, Object> entry = statistics
+                .computeIfAbsent(counter.getId().getTag("cache"), key -> new TreeMap<>())
+                .computeIfAbsent(counter.getId().getTag("tier"), key -> {
+                    Map<String, Object> values = new HashMap<>();
+                    values.put("hits", 0L);
+                    values.put("misses", 0L);
+                    return values;
+                });
+            String key = "hit".equals(counter.getId().getTag("result")) ? "hits" : "misses";
+            entry.put(key, (Long) entry.get(key) + (long) counter.count());
+        }
+        for (Map<String, Map<String, Object>> tiers : statistics.values()) {
+            for (Map<String, Object> entry : tiers.values()) {
+                long hits = (Long) entry.get("hits");
+                long misses = (Long) entry.get("misses");
+                entry.put("hitRate", ratio(hits, hits + misses));
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Active threads over maximum pool size, summed over the async executors
+     */
+    double getThreadPoolUtilization() {
+        double active = sumGauges(meterRegistry.find("executor.active").gauges());
+        double max = sumGauges(meterRegistry.find("executor.pool.max").gauges());
+        return ratio(active, max);
+    }
+
+    /**
+     * Active threads, queue depth and pool sizes per executor
+     */
+    Map<String, Map<String, Object>> getExecutorStatistics() {
+        Map<String, Map<String, Object>> statistics = new TreeMap<>();
+        for (Gauge gauge : meterRegistry.find("executor.queued").gauges()) {
+            String name = gauge.getId().getTag("name");
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("queued", (long) gauge.value());
+            entry.put("active", (long) executorGauge("executor.active", name));
+            entry.put("poolSize", (long) executorGauge("executor.pool.size", name));
+            entry.put("maxPoolSize", (long) executorGauge("executor.pool.max", name));
+            statistics.put(name, entry);
+        }
+        return statistics;
+    }
+
+    /**
+     * Call count, failures, mean and max duration per analysis path (abcxyz, forecast, optimization, report, integrated, staged)
+     * 分析パス別の実行回数・失敗数・平均/最大処理時間
+     */
+    Map<String, Map<String, Object>> getAnalysisTimings() {
+        Map<String, Map<String, Object>> timings = new TreeMap<>();
+        for (Timer timer : meterRegistry.find(MetricsConfiguration.ANALYSIS_TIMER).timers()) {
+            String path = timer.getId().getTag("path");
+            Map<String, Object> entry = timings.computeIfAbsent(path, key -> {
+                Map<String, Object> values = new HashMap<>();
+                values.put("count", 0L);
+                values.put("failures", 0L);
+                values.put("totalTimeMs", 0.0);
+                values.put("maxTimeMs", 0.0);
+                return values;
+            });
+            entry.put("count", (Long) entry.get("count") + timer.count());
+            if (isFailure(timer)) {
+                entry.put("failures", (Long) entry.get("failures") + timer.count());
+            }
+            entry.put("totalTimeMs", (Double) entry.get("totalTimeMs") + timer.totalTime(TimeUnit.MILLISECONDS));
+            entry.put("maxTimeMs", Math.max((Double) entry.get("maxTimeMs"), timer.max(TimeUnit.MILLISECONDS)));
+        }
+        for (Map<String, Object> entry : timings.values()) {
+            entry.put("meanTimeMs", ratio((Double) entry.get("totalTimeMs"), (Long) entry.get("count")));
+        }
+        return timings;
+    }
+
+    long getIntegratedAnalysisCount() {
+        long count = 0;
+        for (Timer timer : integratedAnalysisTimers()) {
+            count += timer.count();
+        }
+        return count;
+    }
+
+    /**
+     * Share of integrated analyses that completed without an exception (1.0 when none ran yet)
+     */
+    double getIntegratedAnalysisSuccessRate() {
+        long total = 0;
+        long failures = 0;
+        for (Timer timer : integratedAnalysisTimers()) {
+            total += timer.count();
+            if (isFailure(timer)) {
+                failures += timer.count();
+            }
+        }
+        return total == 0 ? 1.0 : (double) (total - failures) / total;
+    }
+
+    /**
+     * Mean HTTP response time over all endpoints in milliseconds
+     */
+    double getAverageResponseTimeMs() {
+        long count = 0;
+        double totalMs = 0;
+        for (Timer timer : meterRegistry.find("http.server.requests").timers()) {
+            count += timer.count();
+            totalMs += timer.totalTime(TimeUnit.MILLISECONDS);
+        }
+        return ratio(totalMs, count);
+    }
+
+    double getHeapUsage() {
+        double used = sumGauges(meterRegistry.find("jvm.memory.used").tag("area", "heap").gauges());
+        double max = 0;
+        for (Gauge gauge : meterRegistry.find("jvm.memory.max").tag("area", "heap").gauges()) {
+            // Pools without a limit report -1
+            if (gauge.value() > 0) {
+                max += gauge.value();
+            }
+        }
+        return ratio(used, max);
+    }
+
+    private Collection<Timer> integratedAnalysisTimers() {
+        List<Timer> timers = new ArrayList<>();
+        for (Timer timer : meterRegistry.find(MetricsConfiguration.ANALYSIS_TIMER).timers()) {
+            if (INTEGRATED_PATHS.contains(timer.getId().getTag("path"))) {
+                timers.add(timer);
+            }
+        }
+        return timers;
+    }
+
+    private static boolean isFailure(Timer timer) {
+        String exception = timer.getId().getTag("exception");
+        return exception != null && !"none".equals(exception);
+    }
+
+    private double executorGauge(String name, String executor) {
+        Gauge gauge = meterRegistry.find(name).tag("name", executor).gauge();
+        return gauge != null ? finite(gauge.value()) : 0;
+    }
+
+    private double gaugeValue(String name) {
+        return sumGauges(meterRegistry.find(name).gauges());
+    }
+
+    private double counterValue(String name) {
+        return sumCounters(meterRegistry.find(name).counters());
+    }
+
+    private static double sumGauges(Collection<Gauge> gauges) {
+        double sum = 0;
+        for (Gauge gauge : gauges) {
+            sum += finite(gauge.value());
+        }
+        return sum;
+    }
+
+    private static double sumCounters(Collection<Counter> counters) {
+        double sum = 0;
+        for (Counter counter : counters) {
+            sum += counter.count();
+        }
+        return sum;
+    }
+
+    private static double finite(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? 0 : value;
+    }
+
+    private static double ratio(double numerator, double denominator) {
+        return denominator > 0 ? numerator / denominator : 0;
+    }
+
+    private static String percent(double ratio) {
+        return String.format(Locale.ROOT, "%.1f%%", ratio * 100);
+    }
 }
@@ -0,0 +1,472 @@
+package com.techbookstore.app.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming export of report detail rows (CSV, JSON, XLSX)
+ * レポート明細のストリーミングエクスポート
+ *
+ * Rows are read through a forward-only JDBC cursor with a bounded fetch size and written to the
+ * output one at a time, so memory use does not grow with the number of rows. XLSX uses SXSSF,
+ * which keeps only a small window of rows in memory and spills the rest to a temporary file.
+ */
+@Service
+public class ReportExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportExportService.class);
+
+    /** Rows kept in memory by the SXSSF workbook before they are flushed to its temporary file */
+    private static final int XLSX_ROW_WINDOW = 100;
+
+    /**
+     * Detail row sets that can be exported
+     */
+    public enum Dataset {
+        ORDER_DETAIL(
+            "FROM order_items oi JOIN orders o ON o.id = oi.order_id JOIN books b ON b.id = oi.book_id",
+            "o.order_date", "ORDER BY o.id, oi.id",
+            "orderNumber", "o.order_number", "orderDate", "o.order_date", "status", "o.status", "type", "o.type",
+            "customerId", "o.customer_id", "isbn13", "b.isbn13", "title", "b.title",
+            "quantity", "oi.quantity", "unitPrice", "oi.unit_price", "totalPrice", "oi.total_price"),
+        // Inventory is a current snapshot, so it has no date to restrict on
+        INVENTORY_DETAIL(
+            "FROM inventory i JOIN books b ON b.id = i.book_id",
+            null, "ORDER BY i.id",
+            "isbn13", "b.isbn13", "title", "b.title", "storeStock", "i.store_stock",
+            "warehouseStock", "i.warehouse_stock", "reservedCount", "i.reserved_count",
+            "reorderPoint", "i.reorder_point", "locationCode", "i.location_code",
+            "abcClassification", "i.abc_classification", "xyzClassification", "i.xyz_classification",
+            "lastSoldDate", "i.last_sold_date");
+
+        private final String from;
+        private final String dateColumn;
+        private final String orderBy;
+        private final String[] columns;
+        private final Map<String, String> expressions = new LinkedHashMap<>();
+
+        /**
+         * @param columnExpressions exported column names, each followed by the SQL expression it is read from
+         */
+        Dataset(String from, String dateColumn, String orderBy, String... columnExpressions) {
+            this.from = from;
+            this.dateColumn = dateColumn;
+            this.orderBy = orderBy;
+            for (int i = 0; i < columnExpressions.length; i += 2) {
+                expressions.put(columnExpressions[i], columnExpressions[i + 1]);
+            }
+            this.columns = expressions.keySet().toArray(new String[0]);
+        }
+
+        /**
+         * Dataset requested explicitly, or the one behind the report type (inventory reports export
+         * inventory detail, everything else order detail)
+         */
+        public static Dataset resolve(String dataset, String reportType) {
+            if (dataset != null && !dataset.trim().isEmpty()) {
+                return valueOf(dataset.trim().toUpperCase(Locale.ROOT));
+            }
+            return reportType != null && reportType.toUpperCase(Locale.ROOT).startsWith("INVENTORY")
+                ? INVENTORY_DETAIL : ORDER_DETAIL;
+        }
+
+        /**
+         * Reject filters on columns this dataset does not export, before any output is written
+         *
+         * @throws IllegalArgumentException when a filter names a column this dataset does not export
+         */
+        public void checkFilters(Criteria criteria) {
+            for (String column : criteria.getFilters().keySet()) {
+                if (!expressions.containsKey(column)) {
+                    throw new IllegalArgumentException("Unsupported filter for " + this + ": " + column);
+                }
+            }
+        }
+
+        /**
+         * Query restricted to the criteria; its bind values are added to args
+         */
+        String sql(Criteria criteria, List<Object> args) {
+            checkFilters(criteria);
+            StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", expressions.values()))
+                .append(' ').append(from);
+            List<String> conditions = new ArrayList<>();
+            if (dateColumn != null && criteria.getStartDate() != null) {
+                conditions.add(dateColumn + " >= ?");
+                args.add(Timestamp.valueOf(criteria.getStartDate().atStartOfDay()));
+            }
+            if (dateColumn != null && criteria.getEndDate() != null) {
+                conditions.add(dateColumn + " < ?");
+                args.add(Timestamp.valueOf(criteria.getEndDate().plusDays(1).atStartOfDay()));
+            }
+            for (Map.Entry<String, Object> filter : criteria.getFilters().entrySet()) {
+                String expression = expressions.get(filter.getKey());
+                Object value = filter.getValue();
+                if (value instanceof Collection) {
+                    Collection<?> values = (Collection<?>) value;
+                    if (values.isEmpty()) {
+                        continue;
+                    }
+                    conditions.add(expression + " IN (" + String.join(", ", Collections.nCopies(values.size(), "?")) + ")");
+                    args.addAll(values);
+                } else if (value != null) {
+                    conditions.add(expression + " = ?");
+                    args.add(value);
+                }
+            }
+            if (!conditions.isEmpty()) {
+                sql.append(" WHERE ").append(String.join(" AND ", conditions));
+            }
+            return sql.append(' ').append(orderBy).toString();
+        }
+    }
+
+    /**
+     * Rows of a dataset to export: an inclusive date range and equality filters keyed by exported column name
+     * エクスポート対象行の条件（期間と列名ごとの絞り込み）
+     */
+    public static final class Criteria {
+
+        /** Every row of the dataset */
+        public static final Criteria ALL = new Criteria(null, null, null);
+
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final Map<String, Object> filters;
+
+        /**
+         * @param filters column name to a value, or to a collection of accepted values; null values are ignored
+         */
+        public Criteria(LocalDate startDate, LocalDate endDate, Map<String, Object> filters) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.filters = filters != null ? filters : Collections.emptyMap();
+        }
+
+        public LocalDate getStartDate() { return startDate; }
+        public LocalDate getEndDate() { return endDate; }
+        public Map<String, Object> getFilters() { return filters; }
+    }
+
+    /**
+     * Row-by-row export formats
+     */
+    public enum Format {
+        CSV("text/csv;charset=UTF-8", "csv", true),
+        JSON("application/json", "json", true),
+        EXCEL("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx", false);
+
+        private final String mimeType;
+        private final String extension;
+        private final boolean compressible;
+
+        Format(String mimeType, String extension, boolean compressible) {
+            this.mimeType = mimeType;
+            this.extension = extension;
+            this.compressible = compressible;
+        }
+
+        public String getMimeType() { return mimeType; }
+        public String getExtension() { return extension; }
+        /** XLSX is already a zip archive, so gzip would only cost CPU */
+        public boolean isCompressible() { return compressible; }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.report-export.flush-rows:1000}")
+    private int flushRows = 1000;
+
+    public ReportExportService(DataSource dataSource, ObjectMapper objectMapper,
+                               @Value("${app.report-export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Stream every row of the dataset to the output in the given format
+     * データセットの全行を指定フォーマットで出力ストリームへ書き込む
+     *
+     * @return number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long writeDataset(Dataset dataset, Format format, OutputStream out) throws IOException {
+        return writeDataset(dataset, Criteria.ALL, format, out);
+    }
+
+    /**
+     * Stream the rows of the dataset matching the criteria to the output in the given format
+     * 条件に合うデータセットの行を指定フォーマットで出力ストリームへ書き込む
+     *
+     * Runs in a read-only transaction: PostgreSQL only honours the fetch size (and so only uses a
+     * server-side cursor) when auto-commit is off.
+     *
+     * @return number of rows written
+     * @throws IllegalArgumentException when a filter names a column the dataset does not export
+     */
+    @Transactional(readOnly = true)
+    public long writeDataset(Dataset dataset, Criteria criteria, Format format, OutputStream out) throws IOException {
+        long startTime = System.currentTimeMillis();
+        List<Object> args = new ArrayList<>();
+        String sql = dataset.sql(criteria, args);
+        try (RowWriter writer = createWriter(format, out)) {
+            writer.start(dataset.columns);
+            Long rows = jdbcTemplate.query(sql, (ResultSetExtractor<Long>) rs -> copyRows(rs, writer), args.toArray());
+            writer.finish();
+            logger.info("Exported {} {} rows as {} in {}ms", rows, dataset, format,
+                System.currentTimeMillis() - startTime);
+            return rows != null ? rows : 0L;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long copyRows(ResultSet rs, RowWriter writer) throws SQLException {
+        int columnCount = rs.getMetaData().getColumnCount();
+        Object[] values = new Object[columnCount];
+        long rows = 0;
+        try {
+            while (rs.next()) {
+                for (int i = 0; i < columnCount; i++) {
+                    values[i] = normalize(rs.getObject(i + 1));
+                }
+                writer.row(values);
+                if (++rows % flushRows == 0) {
+                    // Push what we have to the client instead of waiting for the servlet buffer to fill
+                    writer.flush();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime().toString();
+        }
+        if (value instanceof java.sql.Date) {
+            return ((java.sql.Date) value).toLocalDate().toString();
+        }
+        return value;
+    }
+
+    private RowWriter createWriter(Format format, OutputStream out) throws IOException {
+        switch (format) {
+            case CSV:
+                return new CsvRowWriter(out);
+            case JSON:
+                return new JsonRowWriter(objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8));
+            case EXCEL:
+                return new XlsxRowWriter(out);
+            default:
+                throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+    }
+
+    /**
+     * Writes one row at a time; closing releases resources but never closes the response stream
+     */
+    private interface RowWriter extends AutoCloseable {
+        void start(String[] columns) throws IOException;
+
+        void row(Object[] values) throws IOException;
+
+        void flush() throws IOException;
+
+        void finish() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void start(String[] columns) throws IOException {
+            // BOM so that Excel opens Japanese titles as UTF-8
+            writer.write('\uFEFF');
+            row(columns);
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeField(values[i]);
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(Object value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            String text = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() {
+            // The response stream is owned by the caller
+        }
+    }
+
+    private static final class JsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+        private String[] columns;
+
+        JsonRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void start(String[] columns) throws IOException {
+            this.columns = columns;
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("columns");
+            for (String column : columns) {
+                generator.writeString(column);
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("rows");
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                generator.writeFieldName(columns[i]);
+                generator.writeObject(values[i]);
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class XlsxRowWriter implements RowWriter {
+
+        private final OutputStream out;
+        private final SXSSFWorkbook workbook;
+        private final SXSSFSheet sheet;
+        private int rowIndex;
+
+        XlsxRowWriter(OutputStream out) {
+            this.out = out;
+            this.workbook = new SXSSFWorkbook(XLSX_ROW_WINDOW);
+            this.workbook.setCompressTempFiles(true);
+            this.sheet = workbook.createSheet("export");
+        }
+
+        @Override
+        public void start(String[] columns) {
+            row(columns);
+        }
+
+        @Override
+        public void row(Object[] values) {
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value instanceof Number) {
+                    row.createCell(i).setCellValue(((Number) value).doubleValue());
+                } else if (value != null) {
+                    row.createCell(i).setCellValue(value.toString());
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            // SXSSF flushes rows to its temporary file on its own; the archive is written in finish()
+        }
+
+        @Override
+        public void finish() throws IOException {
+            workbook.write(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.techbookstore.app.service;
 
+import com.techbookstore.app.config.MetricsConfiguration;
 import com.techbookstore.app.dto.*;
-import com.techbookstore.app.entity.AggregationCache;
+import com.techbookstore.app.entity.DailySalesSummary;
 import com.techbookstore.app.repository.*;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -11,7 +13,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -28,24 +29,25 @@ public class ReportService {
     private final CustomerRepository customerRepository;
     private final InventoryRepository inventoryRepository;
     private final BookRepository bookRepository;
-    private final AggregationCacheRepository cacheRepository;
+    private final SalesAggregationService salesAggregationService;
     
     /**
      * Constructor injection for dependencies.
      */
     public ReportService(OrderRepository orderRepository, CustomerRepository customerRepository,
                         InventoryRepository inventoryRepository, BookRepository bookRepository,
-                        AggregationCacheRepository cacheRepository) {
+                        SalesAggregationService salesAggregationService) {
         this.orderRepository = orderRepository;
         this.customerRepository = customerRepository;
         this.inventoryRepository = inventoryRepository;
         this.bookRepository = bookRepository;
-        this.cacheRepository = cacheRepository;
+        this.salesAggregationService = salesAggregationService;
     }
     
     /**
      * Generate sales report for the specified date range.
      */
+    @Timed(value = MetricsConfiguration.ANALYSIS_TIMER, extraTags = {"path", "report"}, histogram = true)
     public SalesReportDto generateSalesReport(LocalDate startDate, LocalDate endDate) {
         logger.info("Generating sales report from {} to {}", startDate, endDate);
         
@@ -81,6 +83,7 @@ public class ReportService {
      * Generate enhanced inventory report with filtering capabilities.
      * Phase 1 enhancement with comprehensive filtering and analytics.
      */
+    @Timed(value = MetricsConfiguration.ANALYSIS_TIMER, extraTags = {"path", "report"}, histogram = true)
     public InventoryReportDto generateInventoryReport(String category, String level, String publisher, 
                                                      String stockStatus, String priceRange, Integer publicationYear) {
         logger.info("Generating enhanced inventory report with filters - category: {}, level: {}, publisher: {}, stockStatus: {}, priceRange: {}, publicationYear: {}", 
@@ -344,59 +347,27 @@ public class ReportService {
         return dashboard;
     }
     
-    // Helper methods for calculations with caching
+    // Helper methods for calculations backed by the daily sales aggregates
     private BigDecimal calculateTotalRevenue(LocalDate startDate, LocalDate endDate) {
-        // Check cache first
-        String cacheKey = "revenue_" + startDate + "_" + endDate;
-        Optional<AggregationCache> cached = cacheRepository.findByKeyName(cacheKey);
-        
-        if (cached.isPresent() && 
-            cached.get().getCreatedAt().isAfter(LocalDateTime.now().minusHours(1))) {
-            // Return cached value if less than 1 hour old
-            return new BigDecimal(cached.get().getValueData());
-        }
-        
-        // Simplified calculation - in production would query order repository
-        BigDecimal revenue = new BigDecimal("45000.00");
-        
-        // Cache the result
-        AggregationCache cache = new AggregationCache(cacheKey, revenue.toString(), 
-                                                      LocalDateTime.now().plusHours(1));
-        cacheRepository.save(cache);
-        
-        return revenue;
+        return salesAggregationService.getTotalRevenue(startDate, endDate);
     }
     
     private Integer calculateTotalOrders(LocalDate startDate, LocalDate endDate) {
-        // Check cache first
-        String cacheKey = "orders_" + startDate + "_" + endDate;
-        Optional<AggregationCache> cached = cacheRepository.findByKeyName(cacheKey);
-        
-        if (cached.isPresent() && 
-            cached.get().getCreatedAt().isAfter(LocalDateTime.now().minusHours(1))) {
-            return Integer.valueOf(cached.get().getValueData());
-        }
-        
-        // Simplified calculation - in production would query order repository
-        Integer orders = 125;
-        
-        // Cache the result
-        AggregationCache cache = new AggregationCache(cacheKey, orders.toString(), 
-                                                      LocalDateTime.now().plusHours(1));
-        cacheRepository.save(cache);
-        
-        return orders;
+        return salesAggregationService.getTotalOrders(startDate, endDate);
     }
     
     private List<SalesReportDto.SalesTrendItem> generateSalesTrends(LocalDate startDate, LocalDate endDate) {
         List<SalesReportDto.SalesTrendItem> trends = new ArrayList<>();
-        // Generate sample trend data
+        Map<LocalDate, DailySalesSummary> summaries = salesAggregationService.getDailySummaries(startDate, endDate).stream()
+            .collect(Collectors.toMap(DailySalesSummary::getSaleDate, summary -> summary));
+        
         LocalDate current = startDate;
         while (!current.isAfter(endDate) && trends.size() < 30) {
+            DailySalesSummary summary = summaries.get(current);
             trends.add(new SalesReportDto.SalesTrendItem(
                 current, 
-                new BigDecimal(1500 + (int)(Math.random() * 1000)), 
-                4 + (int)(Math.random() * 8)
+                summary != null ? summary.getRevenue() : BigDecimal.ZERO, 
+                summary != null ? summary.getOrderCount() : 0
             ));
             current = current.plusDays(1);
         }
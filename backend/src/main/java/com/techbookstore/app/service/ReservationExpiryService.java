@@ -0,0 +1,233 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.InventoryReservation;
+import com.techbookstore.app.repository.InventoryRepository;
+import com.techbookstore.app.repository.InventoryReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Expiry of inventory reservations past their reservedUntil time
+ * 期限切れ在庫引当の自動解除（タイミングホイール + DBリース）
+ *
+ * Only the node holding the reservation-expiry lease sweeps. When it takes the lease it loads every active
+ * reservation with an expiry time into a hierarchical timing wheel, and on each tick it picks up
+ * reservations created since (on any node) by id, advances the wheel and releases what fell due. Releases
+ * go in batches: the due reservations are row-locked, marked EXPIRED with one bulk update, and the reserved
+ * counts are decremented once per inventory row with the summed quantity. The row locks, not the lease,
+ * keep a reservation from being released twice (by a manual release or a node that lost its lease).
+ * A periodic query for overdue reservations catches anything the wheel missed (late commits,
+ * expiry times changed after loading, failed batches).
+ */
+@Service
+public class ReservationExpiryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationExpiryService.class);
+
+    static final String LEASE_NAME = "reservation-expiry";
+
+    /** 64 slots per wheel level */
+    private static final int SLOT_BITS = 6;
+
+    private final InventoryReservationRepository reservationRepository;
+    private final InventoryRepository inventoryRepository;
+    private final SchedulerLeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.reservation-expiry.tick-ms:1000}")
+    private long tickMs = 1000;
+
+    @Value("${app.reservation-expiry.lease-seconds:30}")
+    private long leaseSeconds = 30;
+
+    @Value("${app.reservation-expiry.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${app.reservation-expiry.reconcile-interval-ms:300000}")
+    private long reconcileIntervalMs = 300000;
+
+    private final Object monitor = new Object();
+
+    /** Held only while this node owns the lease */
+    private TimingWheel wheel;
+    private long lastSeenId;
+    private long leaseRenewAt;
+    private long nextReconcileAt;
+
+    public ReservationExpiryService(InventoryReservationRepository reservationRepository,
+                                    InventoryRepository inventoryRepository,
+                                    SchedulerLeaseService leaseService,
+                                    PlatformTransactionManager transactionManager) {
+        this.reservationRepository = reservationRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.leaseService = leaseService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        sweep();
+    }
+
+    /**
+     * Release the reservations that have expired since the last tick
+     * 前回以降に期限切れとなった引当を解除
+     */
+    @Scheduled(fixedDelayString = "${app.reservation-expiry.tick-ms:1000}")
+    public void sweep() {
+        try {
+            sweep(System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            logger.warn("Reservation expiry sweep failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return number of reservations expired
+     */
+    int sweep(long nowMillis) {
+        synchronized (monitor) {
+            if (!holdLease(nowMillis)) {
+                return 0;
+            }
+            if (wheel == null) {
+                wheel = new TimingWheel(tickMs, SLOT_BITS, nowMillis);
+                lastSeenId = 0L;
+                nextReconcileAt = nowMillis + reconcileIntervalMs;
+                int loaded = scheduleNewReservations();
+                logger.info("Reservation expiry: took over the sweep, {} active reservations scheduled", loaded);
+            } else {
+                scheduleNewReservations();
+            }
+
+            Set<Long> due = new LinkedHashSet<>(wheel.advanceTo(nowMillis));
+            if (nowMillis >= nextReconcileAt) {
+                due.addAll(reservationRepository.findExpiredReservationIds(toLocalDateTime(nowMillis)));
+                nextReconcileAt = nowMillis + reconcileIntervalMs;
+            }
+            return due.isEmpty() ? 0 : expire(new ArrayList<>(due), toLocalDateTime(nowMillis));
+        }
+    }
+
+    /**
+     * Take or renew the lease once a third of it has run out; a node that loses it drops its wheel
+     */
+    private boolean holdLease(long nowMillis) {
+        if (wheel != null && nowMillis < leaseRenewAt) {
+            return true;
+        }
+        Duration leaseDuration = Duration.ofSeconds(leaseSeconds);
+        if (leaseService.tryAcquire(LEASE_NAME, leaseDuration)) {
+            leaseRenewAt = nowMillis + leaseDuration.toMillis() / 3;
+            return true;
+        }
+        if (wheel != null) {
+            logger.info("Reservation expiry: lease taken over by another node");
+            wheel = null;
+        }
+        return false;
+    }
+
+    /**
+     * Put active reservations created since the last call into the wheel
+     */
+    private int scheduleNewReservations() {
+        List<Object[]> rows = reservationRepository.findActiveExpiryTimesAfter(lastSeenId);
+        for (Object[] row : rows) {
+            long id = ((Number) row[0]).longValue();
+            wheel.schedule(id, toEpochMillis((LocalDateTime) row[1]));
+            lastSeenId = Math.max(lastSeenId, id);
+        }
+        return rows.size();
+    }
+
+    /**
+     * Expire the given reservations in batches, each batch in its own transaction
+     */
+    private int expire(List<Long> ids, LocalDateTime now) {
+        int expired = 0;
+        for (int from = 0; from < ids.size(); from += Math.max(1, batchSize)) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + Math.max(1, batchSize)));
+            try {
+                Integer count = transactionTemplate.execute(status -> expireBatch(batch, now));
+                expired += count != null ? count : 0;
+            } catch (RuntimeException e) {
+                // Left ACTIVE; the next reconciliation picks these up again
+                logger.warn("Failed to expire {} reservations: {}", batch.size(), e.getMessage());
+            }
+        }
+        if (expired > 0) {
+            logger.info("Expired {} inventory reservations", expired);
+        }
+        return expired;
+    }
+
+    private int expireBatch(List<Long> ids, LocalDateTime now) {
+        // Reservations released by hand or extended since they were scheduled drop out here
+        List<InventoryReservation> reservations = reservationRepository.findExpiredByIdInForUpdate(ids, now);
+        if (reservations.isEmpty()) {
+            return 0;
+        }
+        List<Long> expiredIds = new ArrayList<>(reservations.size());
+        // Inventory rows are updated in id order so concurrent batches cannot deadlock each other
+        Map<Long, Integer> quantityByInventory = new TreeMap<>();
+        for (InventoryReservation reservation : reservations) {
+            expiredIds.add(reservation.getId());
+            quantityByInventory.merge(reservation.getInventory().getId(), reservation.getReservedQuantity(),
+                Integer::sum);
+        }
+        reservationRepository.markExpired(expiredIds, now);
+        for (Map.Entry<Long, Integer> entry : quantityByInventory.entrySet()) {
+            inventoryRepository.releaseReservedStockAtMost(entry.getKey(), entry.getValue());
+        }
+        return expiredIds.size();
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        synchronized (monitor) {
+            if (wheel != null) {
+                wheel = null;
+                try {
+                    leaseService.release(LEASE_NAME);
+                } catch (RuntimeException e) {
+                    logger.debug("Could not release the reservation expiry lease: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** Number of reservations waiting in the wheel, 0 when this node does not hold the lease */
+    public int getScheduledCount() {
+        synchronized (monitor) {
+            return wheel != null ? wheel.size() : 0;
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
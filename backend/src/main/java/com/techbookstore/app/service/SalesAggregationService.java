@@ -0,0 +1,401 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.DailyBookSales;
+import com.techbookstore.app.entity.DailySalesSummary;
+import com.techbookstore.app.entity.Order;
+import com.techbookstore.app.entity.OrderItem;
+import com.techbookstore.app.repository.DailyBookSalesRepository;
+import com.techbookstore.app.repository.DailySalesSummaryRepository;
+import com.techbookstore.app.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Maintains the daily_book_sales / daily_sales_summary aggregates.
+ * 注文確定・ステータス変更時に日次売上集計を増分更新し、定期キャッチアップで再集計する
+ */
+@Service
+@Transactional
+public class SalesAggregationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesAggregationService.class);
+
+    /**
+     * Order statuses that count as a sale
+     */
+    public static final Set<Order.OrderStatus> SALE_STATUSES = Collections.unmodifiableSet(EnumSet.of(
+        Order.OrderStatus.CONFIRMED, Order.OrderStatus.PICKING,
+        Order.OrderStatus.SHIPPED, Order.OrderStatus.DELIVERED));
+
+    private static final String INSERT_BOOK_DAY_SQL =
+        "INSERT INTO daily_book_sales (book_id, sale_date, quantity, revenue, order_count, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final DailyBookSalesRepository dailyBookSalesRepository;
+    private final DailySalesSummaryRepository dailySalesSummaryRepository;
+    private final OrderRepository orderRepository;
+    private final ABCXYZClassificationTracker classificationTracker;
+    private final TransactionTemplate rowCreationTemplate;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.sales-aggregation.catch-up-days:3}")
+    private int catchUpDays = 3;
+
+    @Value("${app.sales-aggregation.backfill-days:730}")
+    private int backfillDays = 730;
+
+    public SalesAggregationService(DailyBookSalesRepository dailyBookSalesRepository,
+                                   DailySalesSummaryRepository dailySalesSummaryRepository,
+                                   OrderRepository orderRepository,
+                                   ABCXYZClassificationTracker classificationTracker,
+                                   PlatformTransactionManager transactionManager,
+                                   JdbcTemplate jdbcTemplate) {
+        this.dailyBookSalesRepository = dailyBookSalesRepository;
+        this.dailySalesSummaryRepository = dailySalesSummaryRepository;
+        this.orderRepository = orderRepository;
+        this.classificationTracker = classificationTracker;
+        this.rowCreationTemplate = new TransactionTemplate(transactionManager);
+        this.rowCreationTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public static boolean isSale(Order.OrderStatus status) {
+        return status != null && SALE_STATUSES.contains(status);
+    }
+
+    /**
+     * Add a newly confirmed order to the aggregates
+     * 確定注文を集計に加算
+     */
+    public void recordOrder(Order order) {
+        apply(order, 1);
+    }
+
+    /**
+     * Apply a status transition: entering a sale status adds the order, leaving it subtracts the order
+     * ステータス遷移に応じて集計を加算・減算
+     */
+    public void onStatusChange(Order order, Order.OrderStatus previousStatus) {
+        boolean wasSale = isSale(previousStatus);
+        boolean isSale = isSale(order.getStatus());
+        if (!wasSale && isSale) {
+            apply(order, 1);
+        } else if (wasSale && !isSale) {
+            apply(order, -1);
+        }
+    }
+
+    private void apply(Order order, int sign) {
+        if (order.getOrderDate() == null || order.getOrderItems().isEmpty()) {
+            return;
+        }
+
+        LocalDate saleDate = order.getOrderDate().toLocalDate();
+        LocalDateTime now = LocalDateTime.now();
+
+        // Collapse duplicate lines for the same book
+        Map<Long, BookSalesTotal> lines = new LinkedHashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            Long bookId = item.getBook().getId();
+            lines.computeIfAbsent(bookId, BookSalesTotal::new).add(item.getQuantity(), lineRevenue(item));
+        }
+
+        int orderQuantity = 0;
+        BigDecimal orderRevenue = BigDecimal.ZERO;
+        for (BookSalesTotal line : lines.values()) {
+            orderQuantity += line.getQuantity();
+            orderRevenue = orderRevenue.add(line.getRevenue());
+        }
+        orderQuantity *= sign;
+        orderRevenue = orderRevenue.multiply(BigDecimal.valueOf(sign));
+
+        // The day row first: it is the lock a rebuild of the day holds, so the book rows are never taken before it
+        if (dailySalesSummaryRepository.increment(saleDate, sign, orderQuantity, orderRevenue, now) == 0) {
+            createRow(() -> dailySalesSummaryRepository.saveAndFlush(
+                new DailySalesSummary(saleDate, 0, 0, BigDecimal.ZERO)));
+            dailySalesSummaryRepository.increment(saleDate, sign, orderQuantity, orderRevenue, now);
+        }
+
+        for (BookSalesTotal line : lines.values()) {
+            int quantity = sign * line.getQuantity();
+            BigDecimal revenue = line.getRevenue().multiply(BigDecimal.valueOf(sign));
+            if (dailyBookSalesRepository.increment(line.getBookId(), saleDate, quantity, revenue, sign, now) == 0) {
+                createRow(() -> dailyBookSalesRepository.saveAndFlush(
+                    new DailyBookSales(line.getBookId(), saleDate, 0, BigDecimal.ZERO, 0)));
+                dailyBookSalesRepository.increment(line.getBookId(), saleDate, quantity, revenue, sign, now);
+            }
+        }
+
+        classifyAfterCommit(saleDate, lines.values(), sign);
+    }
+
+    /**
+     * Insert an all-zero aggregate row in a transaction of its own, so the caller's increment always has a row
+     * to update. Two first sales of the same day race here: the loser's insert hits the unique key and it
+     * simply uses the winner's row. The empty row stays if the caller rolls back, which changes no total.
+     */
+    private void createRow(Runnable insert) {
+        try {
+            rowCreationTemplate.execute(status -> {
+                insert.run();
+                return null;
+            });
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Aggregate row created concurrently: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Feeds the live ABC/XYZ classes once the sale is committed, so a rolled back order never counts.
+     * The commit is announced to the tracker, so a recompute running meanwhile replays it only when its
+     * snapshot does not contain it.
+     */
+    private void classifyAfterCommit(LocalDate saleDate, Collection<BookSalesTotal> lines, int sign) {
+        Runnable classify = () -> {
+            for (BookSalesTotal line : lines) {
+                classificationTracker.record(saleDate, line.getBookId(), sign * line.getQuantity(),
+                    line.getRevenue().multiply(BigDecimal.valueOf(sign)));
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            classify.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                classificationTracker.beginCommit();
+                committing = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                classify.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (committing) {
+                    classificationTracker.endCommit();
+                }
+            }
+        });
+    }
+
+    private static BigDecimal lineRevenue(OrderItem item) {
+        if (item.getTotalPrice() != null) {
+            return item.getTotalPrice();
+        }
+        if (item.getUnitPrice() != null && item.getQuantity() != null) {
+            return item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+        }
+        return BigDecimal.ZERO;
+    }
+
+    /**
+     * Scheduled catch-up - recompute the most recent days from orders to repair any missed increments
+     * 定期キャッチアップ - 直近数日分を注文データから再集計
+     */
+    @Scheduled(cron = "${app.sales-aggregation.catch-up-cron:0 30 1 * * *}")
+    public void runCatchUp() {
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(catchUpDays), today);
+    }
+
+    /**
+     * Backfill the aggregates on startup when they have never been populated
+     * 集計テーブルが空の場合、起動時に過去分を一括集計
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (dailySalesSummaryRepository.count() > 0) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(backfillDays), today);
+    }
+
+    /**
+     * Recompute both aggregates for the given days (inclusive) in one streaming pass over per-book day totals
+     * 指定期間の集計を書籍別日次合計から再構築（日単位で書き込み、日次行ロックで増分更新と直列化）
+     *
+     * The window's day rows are row-locked first, and a day without one gets an empty row inserted,
+     * so increments of those days wait until the rebuild commits. An order committed before the lock
+     * is in the totals read afterwards; one still open then adds itself to the rebuilt row.
+     */
+    public void rebuild(LocalDate fromDate, LocalDate toDate) {
+        logger.info("Rebuilding daily sales aggregates from {} to {}", fromDate, toDate);
+        LocalDateTime startTime = fromDate.atStartOfDay();
+        LocalDateTime endTime = toDate.plusDays(1).atStartOfDay();
+
+        Set<LocalDate> lockedDays = new HashSet<>();
+        for (DailySalesSummary summary : dailySalesSummaryRepository.findBySaleDateBetweenForUpdate(fromDate, toDate)) {
+            lockedDays.add(summary.getSaleDate());
+        }
+        List<DailySalesSummary> emptyDays = new ArrayList<>();
+        for (LocalDate day = fromDate; !day.isAfter(toDate); day = day.plusDays(1)) {
+            if (!lockedDays.contains(day)) {
+                emptyDays.add(new DailySalesSummary(day, 0, 0, BigDecimal.ZERO));
+            }
+        }
+        dailySalesSummaryRepository.saveAll(emptyDays);
+        dailyBookSalesRepository.deleteBySaleDateBetween(fromDate, toDate);
+
+        // One entry per day of the window
+        Map<LocalDate, Integer> dayOrders = new HashMap<>();
+        for (Object[] row : orderRepository.countOrdersByDay(startTime, endTime, SALE_STATUSES)) {
+            dayOrders.put(toLocalDate(row[0]), ((Number) row[1]).intValue());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate currentDay = null;
+        List<Object[]> dayRows = new ArrayList<>();
+        Set<LocalDate> salesDays = new HashSet<>();
+        int bookRowCount = 0;
+
+        // Rows come through a cursor ordered by day; each day is written out once the cursor has moved past it
+        try (Stream<Object[]> rows = orderRepository.streamDailyBookSales(startTime, endTime, SALE_STATUSES)) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                LocalDate saleDate = toLocalDate(row[0]);
+                if (!saleDate.equals(currentDay)) {
+                    writeDay(currentDay, dayRows, dayOrders, now);
+                    currentDay = saleDate;
+                    dayRows = new ArrayList<>();
+                    salesDays.add(saleDate);
+                }
+                dayRows.add(new Object[] {
+                    ((Number) row[1]).longValue(), Date.valueOf(saleDate),
+                    row[2] != null ? ((Number) row[2]).intValue() : 0,
+                    row[3] != null ? (BigDecimal) row[3] : BigDecimal.ZERO,
+                    ((Number) row[4]).intValue(), Timestamp.valueOf(now)});
+                bookRowCount++;
+            }
+        }
+        writeDay(currentDay, dayRows, dayOrders, now);
+
+        // Days without sales keep no row; an increment waiting on one recreates it after the commit
+        List<LocalDate> daysWithoutSales = new ArrayList<>();
+        for (LocalDate day = fromDate; !day.isAfter(toDate); day = day.plusDays(1)) {
+            if (!salesDays.contains(day)) {
+                daysWithoutSales.add(day);
+            }
+        }
+        if (!daysWithoutSales.isEmpty()) {
+            dailySalesSummaryRepository.deleteBySaleDateIn(daysWithoutSales);
+        }
+
+        logger.info("Rebuilt {} book-day rows and {} summary rows", bookRowCount, salesDays.size());
+    }
+
+    private void writeDay(LocalDate saleDate, List<Object[]> dayRows, Map<LocalDate, Integer> dayOrders,
+                          LocalDateTime now) {
+        if (saleDate == null) {
+            return;
+        }
+        int quantity = 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (Object[] row : dayRows) {
+            quantity += (Integer) row[2];
+            revenue = revenue.add((BigDecimal) row[3]);
+        }
+        jdbcTemplate.batchUpdate(INSERT_BOOK_DAY_SQL, dayRows);
+        dailySalesSummaryRepository.replaceTotals(saleDate, dayOrders.getOrDefault(saleDate, 0), quantity, revenue, now);
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return value instanceof LocalDate ? (LocalDate) value : ((Date) value).toLocalDate();
+    }
+
+    /**
+     * Total revenue for the period (inclusive)
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalRevenue(LocalDate startDate, LocalDate endDate) {
+        return dailySalesSummaryRepository.sumRevenueBetween(startDate, endDate);
+    }
+
+    /**
+     * Total number of orders for the period (inclusive)
+     */
+    @Transactional(readOnly = true)
+    public Integer getTotalOrders(LocalDate startDate, LocalDate endDate) {
+        return Math.toIntExact(dailySalesSummaryRepository.sumOrderCountBetween(startDate, endDate));
+    }
+
+    /**
+     * Per-day store-wide totals for the period
+     */
+    @Transactional(readOnly = true)
+    public List<DailySalesSummary> getDailySummaries(LocalDate startDate, LocalDate endDate) {
+        return dailySalesSummaryRepository.findBySaleDateBetweenOrderBySaleDate(startDate, endDate);
+    }
+
+    /**
+     * Per-book totals for the period, keyed by book id
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, BookSalesTotal> getSalesByBook(LocalDate startDate, LocalDate endDate) {
+        Map<Long, BookSalesTotal> totals = new HashMap<>();
+        for (Object[] row : dailyBookSalesRepository.sumByBookBetween(startDate, endDate)) {
+            Long bookId = ((Number) row[0]).longValue();
+            BookSalesTotal total = new BookSalesTotal(bookId);
+            total.add(row[1] != null ? ((Number) row[1]).intValue() : 0,
+                      row[2] != null ? (BigDecimal) row[2] : BigDecimal.ZERO);
+            totals.put(bookId, total);
+        }
+        return totals;
+    }
+
+    /**
+     * Sales totals for one book
+     */
+    public static class BookSalesTotal {
+        private final Long bookId;
+        private int quantity;
+        private BigDecimal revenue = BigDecimal.ZERO;
+
+        public BookSalesTotal(Long bookId) {
+            this.bookId = bookId;
+        }
+
+        public BookSalesTotal(Long bookId, int quantity, BigDecimal revenue) {
+            this.bookId = bookId;
+            this.quantity = quantity;
+            this.revenue = revenue;
+        }
+
+        void add(int quantity, BigDecimal revenue) {
+            this.quantity += quantity;
+            this.revenue = this.revenue.add(revenue);
+        }
+
+        public Long getBookId() { return bookId; }
+        public int getQuantity() { return quantity; }
+        public BigDecimal getRevenue() { return revenue; }
+    }
+}
@@ -0,0 +1,180 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.repository.DailyBookSalesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Columnar per-book sales time series built from the daily sales aggregates
+ * 日次売上集計から書籍別の売上時系列（列指向・プリミティブ配列）を構築
+ *
+ * One query fills dense row-major columns (one row per catalog book, one column per day or month) for
+ * quantities and revenues, which the {@link SeriesKernels} then scan without boxing or per-book maps.
+ */
+@Service
+@Transactional(readOnly = true)
+public class SalesSeriesService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesSeriesService.class);
+
+    private final DailyBookSalesRepository dailyBookSalesRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    public SalesSeriesService(DailyBookSalesRepository dailyBookSalesRepository,
+                              CatalogSnapshotService catalogSnapshotService) {
+        this.dailyBookSalesRepository = dailyBookSalesRepository;
+        this.catalogSnapshotService = catalogSnapshotService;
+    }
+
+    /**
+     * Monthly series for every book in the current catalog, months from startDate to endDate (inclusive)
+     * 全書籍の月次売上系列を取得
+     */
+    public SalesSeries monthly(LocalDate startDate, LocalDate endDate) {
+        return monthly(catalogSnapshotService.current(), startDate, endDate);
+    }
+
+    /**
+     * Monthly series whose rows line up with the given catalog snapshot (row i is book i of the snapshot)
+     */
+    public SalesSeries monthly(CatalogSnapshotService.CatalogSnapshot catalog, LocalDate startDate, LocalDate endDate) {
+        YearMonth startMonth = YearMonth.from(startDate);
+        int months = Math.max(0, (int) ChronoUnit.MONTHS.between(startMonth, YearMonth.from(endDate)) + 1);
+        SalesSeries series = SalesSeries.empty(Granularity.MONTH, startMonth.atDay(1), months, catalog);
+
+        for (Object[] row : dailyBookSalesRepository.sumMonthlyByBookBetween(startDate, endDate)) {
+            YearMonth month = YearMonth.of(((Number) row[1]).intValue(), ((Number) row[2]).intValue());
+            series.add(((Number) row[0]).longValue(), (int) ChronoUnit.MONTHS.between(startMonth, month),
+                (Number) row[3], (BigDecimal) row[4]);
+        }
+        logger.debug("Loaded monthly sales series: {} books x {} months from {}", series.rows(), months, startMonth);
+        return series;
+    }
+
+    /**
+     * Daily series for every book in the current catalog. The columns hold books x days values, so keep the
+     * period short (a few months) for large catalogs.
+     * 全書籍の日次売上系列を取得
+     */
+    public SalesSeries daily(LocalDate startDate, LocalDate endDate) {
+        return daily(catalogSnapshotService.current(), startDate, endDate);
+    }
+
+    public SalesSeries daily(CatalogSnapshotService.CatalogSnapshot catalog, LocalDate startDate, LocalDate endDate) {
+        int days = Math.max(0, (int) ChronoUnit.DAYS.between(startDate, endDate) + 1);
+        SalesSeries series = SalesSeries.empty(Granularity.DAY, startDate, days, catalog);
+
+        for (Object[] row : dailyBookSalesRepository.findDailyRowsBetween(startDate, endDate)) {
+            series.add(((Number) row[0]).longValue(), (int) ChronoUnit.DAYS.between(startDate, (LocalDate) row[1]),
+                (Number) row[2], (BigDecimal) row[3]);
+        }
+        logger.debug("Loaded daily sales series: {} books x {} days from {}", series.rows(), days, startDate);
+        return series;
+    }
+
+    public enum Granularity {
+        DAY, MONTH
+    }
+
+    /**
+     * Sales of every book per bucket (day or month) in two dense row-major columns:
+     * {@code quantities[row * buckets + bucket]} and {@code revenues[...]} (revenue in hundredths of a yen).
+     * Rows follow the catalog snapshot order (ascending book id); books without sales keep zeros.
+     * The arrays are handed out as-is for the kernels and must not be modified.
+     */
+    public static final class SalesSeries {
+
+        private final Granularity granularity;
+        private final LocalDate start;
+        private final int buckets;
+        private final long[] bookIds;
+        private final int[] quantities;
+        private final long[] revenues;
+
+        SalesSeries(Granularity granularity, LocalDate start, int buckets, long[] bookIds,
+                    int[] quantities, long[] revenues) {
+            this.granularity = granularity;
+            this.start = start;
+            this.buckets = buckets;
+            this.bookIds = bookIds;
+            this.quantities = quantities;
+            this.revenues = revenues;
+        }
+
+        private static SalesSeries empty(Granularity granularity, LocalDate start, int buckets,
+                                         CatalogSnapshotService.CatalogSnapshot catalog) {
+            long[] bookIds = new long[catalog.size()];
+            for (int i = 0; i < bookIds.length; i++) {
+                bookIds[i] = catalog.id(i);
+            }
+            int cells = Math.multiplyExact(bookIds.length, buckets);
+            return new SalesSeries(granularity, start, buckets, bookIds, new int[cells], new long[cells]);
+        }
+
+        /** Only used while the series is being filled, before it is handed out */
+        private void add(long bookId, int bucket, Number quantity, BigDecimal revenue) {
+            int row = rowOf(bookId);
+            if (row < 0 || bucket < 0 || bucket >= buckets) {
+                return;
+            }
+            int cell = row * buckets + bucket;
+            quantities[cell] += quantity != null ? quantity.intValue() : 0;
+            revenues[cell] += revenue != null
+                ? revenue.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0L;
+        }
+
+        public Granularity getGranularity() { return granularity; }
+
+        /** First day of the first bucket */
+        public LocalDate getStart() { return start; }
+
+        public int buckets() { return buckets; }
+
+        public int rows() { return bookIds.length; }
+
+        /**
+         * Row of a book, or -1 when it is not part of the series
+         */
+        public int rowOf(long bookId) {
+            int position = Arrays.binarySearch(bookIds, bookId);
+            return position >= 0 ? position : -1;
+        }
+
+        public long bookId(int row) { return bookIds[row]; }
+
+        /** Offset of a row's first bucket in the column arrays */
+        public int offset(int row) { return row * buckets; }
+
+        public int[] quantities() { return quantities; }
+
+        public long[] revenues() { return revenues; }
+
+        public int quantity(int row, int bucket) { return quantities[row * buckets + bucket]; }
+
+        public long totalQuantity(int row) {
+            return SeriesKernels.sum(quantities, row * buckets, buckets);
+        }
+
+        public BigDecimal totalRevenue(int row) {
+            return BigDecimal.valueOf(SeriesKernels.sum(revenues, row * buckets, buckets), 2);
+        }
+
+        /**
+         * Coefficient of variation of every row's quantities, indexed by row
+         */
+        public double[] coefficientsOfVariation() {
+            double[] result = new double[bookIds.length];
+            SeriesKernels.coefficientsOfVariation(quantities, bookIds.length, buckets, result);
+            return result;
+        }
+    }
+}
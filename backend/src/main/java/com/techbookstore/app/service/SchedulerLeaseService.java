@@ -0,0 +1,93 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.SchedulerLease;
+import com.techbookstore.app.repository.SchedulerLeaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Database leases for cluster-wide singleton jobs
+ * DBリースによるクラスタ内シングルトン処理の排他制御
+ *
+ * A node holds a named lease until its expiry time and renews it while it keeps working; another node
+ * can only take it over once it has expired. Every call runs in its own short transaction, so a lease
+ * is never held hostage by a long-running caller transaction. Node clocks are assumed to agree to well
+ * within the lease duration.
+ */
+@Service
+public class SchedulerLeaseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLeaseService.class);
+
+    private final SchedulerLeaseRepository leaseRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String nodeId;
+
+    public SchedulerLeaseService(SchedulerLeaseRepository leaseRepository,
+                                 PlatformTransactionManager transactionManager) {
+        this.leaseRepository = leaseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Take the lease, or renew it when this node already holds it
+     * リースを取得（保持中なら延長）
+     *
+     * @return true when this node holds the lease for the given duration from now
+     */
+    public boolean tryAcquire(String leaseName, Duration duration) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(duration);
+        try {
+            Boolean acquired = transactionTemplate.execute(status -> {
+                if (leaseRepository.acquire(leaseName, nodeId, now, expiresAt) == 1) {
+                    return true;
+                }
+                if (leaseRepository.existsById(leaseName)) {
+                    return false;
+                }
+                leaseRepository.saveAndFlush(new SchedulerLease(leaseName, nodeId, expiresAt));
+                return true;
+            });
+            return Boolean.TRUE.equals(acquired);
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the lease row first
+            logger.debug("Lease {} created concurrently by another node", leaseName);
+            return false;
+        }
+    }
+
+    /**
+     * Give the lease up if this node holds it
+     * 保持中のリースを返却
+     */
+    public void release(String leaseName) {
+        transactionTemplate.execute(status -> leaseRepository.release(leaseName, nodeId, LocalDateTime.now()));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private static String hostName() {
+        try {
+            String host = InetAddress.getLocalHost().getHostName();
+            return host.length() > 80 ? host.substring(0, 80) : host;
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.techbookstore.app.service;
+
+/**
+ * Aggregate kernels over dense primitive series
+ * 時系列（プリミティブ配列）の集計カーネル
+ *
+ * Every kernel works on a slice {@code values[from .. from + length)} of a flat array, so a whole
+ * {@link SalesSeriesService.SalesSeries} column can be processed row by row without copying. The loops
+ * are plain counted loops over primitives without branches in the body, which the JIT unrolls and
+ * vectorizes. Nothing is allocated.
+ */
+public final class SeriesKernels {
+
+    private SeriesKernels() {}
+
+    public static long sum(int[] values, int from, int length) {
+        long sum = 0;
+        for (int i = from, end = from + length; i < end; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    public static long sum(long[] values, int from, int length) {
+        long sum = 0;
+        for (int i = from, end = from + length; i < end; i++) {
+            sum += values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Arithmetic mean; 0 for an empty slice
+     */
+    public static double mean(int[] values, int from, int length) {
+        return length > 0 ? (double) sum(values, from, length) / length : 0.0;
+    }
+
+    /**
+     * Population variance (two passes: mean, then squared deviations)
+     */
+    public static double variance(int[] values, int from, int length) {
+        if (length == 0) {
+            return 0.0;
+        }
+        double mean = mean(values, from, length);
+        double squares = 0.0;
+        for (int i = from, end = from + length; i < end; i++) {
+            double deviation = values[i] - mean;
+            squares += deviation * deviation;
+        }
+        return squares / length;
+    }
+
+    /**
+     * Coefficient of variation (population standard deviation / mean); 0 when the mean is 0
+     */
+    public static double coefficientOfVariation(int[] values, int from, int length) {
+        double mean = mean(values, from, length);
+        if (mean == 0.0) {
+            return 0.0;
+        }
+        return Math.sqrt(variance(values, from, length)) / mean;
+    }
+
+    /**
+     * Coefficient of variation of every row of a row-major matrix (rows x columns) into {@code result}
+     */
+    public static void coefficientsOfVariation(int[] matrix, int rows, int columns, double[] result) {
+        for (int row = 0; row < rows; row++) {
+            result[row] = coefficientOfVariation(matrix, row * columns, columns);
+        }
+    }
+
+    /**
+     * Trailing moving sums: {@code result[i]} is the sum of the {@code window} values ending at
+     * {@code values[from + i]} (fewer at the start of the slice). Runs in one pass whatever the window size.
+     */
+    public static void movingSum(int[] values, int from, int length, int window, long[] result) {
+        long running = 0;
+        for (int i = 0; i < length; i++) {
+            running += values[from + i];
+            if (i >= window) {
+                running -= values[from + i - window];
+            }
+            result[i] = running;
+        }
+    }
+
+    /**
+     * Number of non-zero values, e.g. months with any demand
+     */
+    public static int countPositive(int[] values, int from, int length) {
+        int count = 0;
+        for (int i = from, end = from + length; i < end; i++) {
+            count += values[i] > 0 ? 1 : 0;
+        }
+        return count;
+    }
+}
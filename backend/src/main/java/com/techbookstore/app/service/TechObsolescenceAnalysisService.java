@@ -2,7 +2,6 @@ package com.techbookstore.app.service;
 
 import com.techbookstore.app.entity.Book;
 import com.techbookstore.app.entity.ObsolescenceAssessment;
-import com.techbookstore.app.repository.BookRepository;
 import com.techbookstore.app.repository.ObsolescenceAssessmentRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,7 +12,6 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Service for Technology Obsolescence Risk Analysis
@@ -26,7 +24,8 @@ public class TechObsolescenceAnalysisService {
     private static final Logger logger = LoggerFactory.getLogger(TechObsolescenceAnalysisService.class);
 
     private final ObsolescenceAssessmentRepository obsolescenceRepository;
-    private final BookRepository bookRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final AnalysisResultWriter analysisResultWriter;
 
     // Risk score weights (total must equal 1.0)
     private static final double PUBLICATION_YEAR_WEIGHT = 0.3;
@@ -52,9 +51,11 @@ public class TechObsolescenceAnalysisService {
     private static final int LOW_RISK_MONTHS = 96;
 
     public TechObsolescenceAnalysisService(ObsolescenceAssessmentRepository obsolescenceRepository,
-                                         BookRepository bookRepository) {
+                                         CatalogSnapshotService catalogSnapshotService,
+                                         AnalysisResultWriter analysisResultWriter) {
         this.obsolescenceRepository = obsolescenceRepository;
-        this.bookRepository = bookRepository;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.analysisResultWriter = analysisResultWriter;
     }
 
     /**
@@ -69,25 +70,28 @@ public class TechObsolescenceAnalysisService {
         logger.info("Starting tech obsolescence analysis for date: {}", assessmentDate);
 
         try {
-            List<Book> books = bookRepository.findAll();
+            CatalogSnapshotService.CatalogSnapshot catalog = catalogSnapshotService.current();
             
-            if (books.isEmpty()) {
+            if (catalog.isEmpty()) {
                 logger.warn("No books found for obsolescence analysis");
                 return new ArrayList<>();
             }
             
             List<ObsolescenceAssessment> assessments = new ArrayList<>();
 
-            for (Book book : books) {
+            for (int i = 0; i < catalog.size(); i++) {
                 try {
-                    ObsolescenceAssessment assessment = analyzeBook(book, assessmentDate);
-                    assessments.add(obsolescenceRepository.save(assessment));
+                    assessments.add(analyzeBook(catalog.toBook(i), assessmentDate));
                 } catch (Exception e) {
-                    logger.error("Failed to analyze obsolescence for book ID: {}", book.getId(), e);
+                    logger.error("Failed to analyze obsolescence for book ID: {}", catalog.id(i), e);
                     // Continue with other books
                 }
             }
 
+            // Replace any earlier assessments for the same date with one batched write
+            assessments = analysisResultWriter.replaceAll(
+                () -> obsolescenceRepository.deleteByAssessmentDate(assessmentDate), assessments);
+
             logger.info("Completed obsolescence analysis for {} books", assessments.size());
             return assessments;
             
@@ -291,11 +295,15 @@ public class TechObsolescenceAnalysisService {
      * 技術ライフサイクル段階判定
      */
     public String determineTechLifecycleStage(Book book, LocalDate assessmentDate) {
-        if (book.getPublicationDate() == null) {
+        return determineTechLifecycleStage(book.getPublicationDate(), assessmentDate);
+    }
+
+    private String determineTechLifecycleStage(LocalDate publicationDate, LocalDate assessmentDate) {
+        if (publicationDate == null) {
             return "MATURE"; // Default for unknown publication date
         }
         
-        int yearsOld = assessmentDate.getYear() - book.getPublicationDate().getYear();
+        int yearsOld = assessmentDate.getYear() - publicationDate.getYear();
         
         if (yearsOld <= EMERGING_MAX_YEARS) {
             return "EMERGING";
@@ -342,12 +350,12 @@ public class TechObsolescenceAnalysisService {
      */
     @Transactional(readOnly = true)
     public Map<String, Long> getTechLifecycleDistribution(LocalDate assessmentDate) {
-        List<Book> books = bookRepository.findAll();
+        CatalogSnapshotService.CatalogSnapshot catalog = catalogSnapshotService.current();
         
-        return books.stream()
-            .collect(Collectors.groupingBy(
-                book -> determineTechLifecycleStage(book, assessmentDate),
-                Collectors.counting()
-            ));
+        Map<String, Long> distribution = new HashMap<>();
+        for (int i = 0; i < catalog.size(); i++) {
+            distribution.merge(determineTechLifecycleStage(catalog.publicationDate(i), assessmentDate), 1L, Long::sum);
+        }
+        return distribution;
     }
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+package com.techbookstore.app.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel keyed by long ids
+ * 階層型タイミングホイール（期限付きIDの登録・取消・期限到来分の取り出し）
+ *
+ * Deadlines are rounded up to whole ticks. Level 0 has one slot per tick; each level above has slots
+ * covering a whole rotation of the level below, so scheduling, cancelling and advancing by one tick
+ * are O(1) no matter how many ids are held or how far away their deadlines are. When a lower level
+ * completes a rotation, the matching slot of the level above is cascaded down into it.
+ *
+ * Not thread-safe; the owner serializes access.
+ */
+final class TimingWheel {
+
+    private final long tickMillis;
+    private final int slotBits;
+    private final int slotMask;
+
+    /** levels.get(k)[slot] holds the entries whose due tick falls in that slot at level k */
+    private final List<Set<Entry>[]> levels = new ArrayList<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    /** Last tick that has been processed; entries due at or before it have been handed out */
+    private long currentTick;
+
+    /**
+     * @param tickMillis length of one tick
+     * @param slotBits   log2 of the number of slots per level
+     * @param startMillis time the wheel starts at
+     */
+    TimingWheel(long tickMillis, int slotBits, long startMillis) {
+        if (tickMillis <= 0 || slotBits < 1 || slotBits > 16) {
+            throw new IllegalArgumentException("Invalid timing wheel: tick " + tickMillis + "ms, " + slotBits + " bits");
+        }
+        this.tickMillis = tickMillis;
+        this.slotBits = slotBits;
+        this.slotMask = (1 << slotBits) - 1;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedule an id, replacing its previous deadline. A deadline that has already passed fires on the next tick.
+     */
+    void schedule(long id, long deadlineMillis) {
+        cancel(id);
+        long due = Math.max(currentTick + 1, -Math.floorDiv(-deadlineMillis, tickMillis));
+        Entry entry = new Entry(id, due);
+        entries.put(id, entry);
+        place(entry);
+    }
+
+    /**
+     * @return true when the id was scheduled
+     */
+    boolean cancel(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        entry.slot.remove(entry);
+        return true;
+    }
+
+    boolean contains(long id) {
+        return entries.containsKey(id);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Advance the wheel to the given time and hand out every id whose deadline is at or before it,
+     * in order of their (tick-rounded) deadlines
+     */
+    List<Long> advanceTo(long nowMillis) {
+        List<Long> expired = new ArrayList<>();
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        while (currentTick < targetTick) {
+            if (entries.isEmpty()) {
+                // Nothing can fire in between, jump straight to the target
+                currentTick = targetTick;
+                break;
+            }
+            currentTick++;
+            cascade();
+            Set<Entry> slot = slot(0, currentTick);
+            if (slot != null && !slot.isEmpty()) {
+                for (Entry entry : slot) {
+                    entries.remove(entry.id);
+                    expired.add(entry.id);
+                }
+                slot.clear();
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Move the entries of every level whose slot boundary the current tick has just reached one level down,
+     * highest level first so entries can fall through several levels in one step
+     */
+    private void cascade() {
+        int top = 0;
+        while (top + 1 < levels.size() && (currentTick & ((1L << ((top + 1) * slotBits)) - 1)) == 0) {
+            top++;
+        }
+        for (int level = top; level >= 1; level--) {
+            Set<Entry> slot = slot(level, currentTick);
+            if (slot == null || slot.isEmpty()) {
+                continue;
+            }
+            List<Entry> moving = new ArrayList<>(slot);
+            slot.clear();
+            for (Entry entry : moving) {
+                place(entry);
+            }
+        }
+    }
+
+    /**
+     * Put an entry on the lowest level whose rotation still reaches its due tick
+     */
+    private void place(Entry entry) {
+        int level = 0;
+        while ((entry.due >>> (level * slotBits)) - (currentTick >>> (level * slotBits)) > slotMask) {
+            level++;
+        }
+        Set<Entry> slot = slot(level, entry.due);
+        if (slot == null) {
+            slot = createSlot(level, entry.due);
+        }
+        slot.add(entry);
+        entry.slot = slot;
+    }
+
+    private Set<Entry> slot(int level, long tick) {
+        return level < levels.size() ? levels.get(level)[index(level, tick)] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Entry> createSlot(int level, long tick) {
+        while (levels.size() <= level) {
+            levels.add(new Set[slotMask + 1]);
+        }
+        Set<Entry> slot = new LinkedHashSet<>();
+        levels.get(level)[index(level, tick)] = slot;
+        return slot;
+    }
+
+    private int index(int level, long tick) {
+        return (int) ((tick >>> (level * slotBits)) & slotMask);
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final long due;
+        private Set<Entry> slot;
+
+        private Entry(long id, long due) {
+            this.id = id;
+            this.due = due;
+        }
+    }
+}
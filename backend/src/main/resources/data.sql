@@ -69,14 +69,14 @@ SELECT * FROM (VALUES
 WHERE EXISTS (SELECT 1 FROM books WHERE id = new_book_categories.book_id);
 
 -- Inventory (Only if books exist and no inventory exists)
-INSERT INTO inventory (id, book_id, store_stock, warehouse_stock, reserved_count, location_code, reorder_point, reorder_quantity, last_received_date, last_sold_date)
+INSERT INTO inventory (id, book_id, store_stock, warehouse_stock, reserved_count, location_code, reorder_point, reorder_quantity, last_received_date, last_sold_date, version)
 SELECT * FROM (VALUES
-(1, 1, 25, 100, 0, 'A-001', 5, 20, '2025-07-15', NULL),
-(2, 2, 15, 80, 0, 'A-002', 3, 15, '2025-07-20', NULL),
-(3, 3, 30, 60, 0, 'B-001', 8, 25, '2025-07-22', NULL),
-(4, 4, 12, 45, 0, 'C-001', 5, 20, '2025-07-18', NULL),
-(5, 5, 8, 32, 0, 'C-002', 3, 15, '2025-07-23', NULL)
-) AS new_inventory(id, book_id, store_stock, warehouse_stock, reserved_count, location_code, reorder_point, reorder_quantity, last_received_date, last_sold_date)
+(1, 1, 25, 100, 0, 'A-001', 5, 20, '2025-07-15', NULL, 0),
+(2, 2, 15, 80, 0, 'A-002', 3, 15, '2025-07-20', NULL, 0),
+(3, 3, 30, 60, 0, 'B-001', 8, 25, '2025-07-22', NULL, 0),
+(4, 4, 12, 45, 0, 'C-001', 5, 20, '2025-07-18', NULL, 0),
+(5, 5, 8, 32, 0, 'C-002', 3, 15, '2025-07-23', NULL, 0)
+) AS new_inventory(id, book_id, store_stock, warehouse_stock, reserved_count, location_code, reorder_point, reorder_quantity, last_received_date, last_sold_date, version)
 WHERE EXISTS (SELECT 1 FROM books WHERE id = new_inventory.book_id)
 AND NOT EXISTS (SELECT 1 FROM inventory WHERE book_id = new_inventory.book_id);
 
@@ -75,9 +75,85 @@ CREATE TABLE IF NOT EXISTS optimal_stock_settings (
     UNIQUE KEY unique_book_optimal (book_id)
 );
 
+-- Daily sales fact per book (incrementally maintained on order confirmation)
+CREATE TABLE IF NOT EXISTS daily_book_sales (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    book_id BIGINT NOT NULL,
+    sale_date DATE NOT NULL,
+    quantity INTEGER NOT NULL DEFAULT 0,
+    revenue DECIMAL(12,2) NOT NULL DEFAULT 0.00,
+    order_count INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY unique_book_sale_date (book_id, sale_date)
+);
+
+-- Daily store-wide sales summary
+CREATE TABLE IF NOT EXISTS daily_sales_summary (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    sale_date DATE NOT NULL UNIQUE,
+    order_count INTEGER NOT NULL DEFAULT 0,
+    quantity INTEGER NOT NULL DEFAULT 0,
+    revenue DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Per-day order number counter; nodes reserve blocks of numbers from next_value
+CREATE TABLE IF NOT EXISTS order_number_counters (
+    counter_date DATE PRIMARY KEY,
+    next_value BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Asynchronous integrated analysis jobs (status QUEUED/RUNNING/COMPLETED/FAILED/CANCELLED)
+CREATE TABLE IF NOT EXISTS analysis_jobs (
+    id VARCHAR(36) PRIMARY KEY,
+    job_type VARCHAR(30) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    parameters TEXT,
+    result_json TEXT,
+    error_message TEXT,
+    submitted_at TIMESTAMP NOT NULL,
+    started_at TIMESTAMP,
+    completed_at TIMESTAMP,
+    execution_time_ms BIGINT
+);
+
+-- Named leases for cluster-wide singleton jobs (one node at a time holds a lease until expires_at)
+CREATE TABLE IF NOT EXISTS scheduler_leases (
+    lease_name VARCHAR(50) PRIMARY KEY,
+    owner VARCHAR(100) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP
+);
+
+-- Last audit journal record written to inventory_transactions, per local journal file
+CREATE TABLE IF NOT EXISTS audit_journal_checkpoints (
+    journal_id VARCHAR(36) PRIMARY KEY,
+    last_sequence BIGINT NOT NULL,
+    updated_at TIMESTAMP
+);
+
+-- Optimistic lock version for inventory rows (stock mutations use conditional UPDATEs)
+ALTER TABLE inventory ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Pooled id sequences for batched analysis result inserts (allocationSize = 50)
+CREATE SEQUENCE IF NOT EXISTS abc_xyz_analysis_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS obsolescence_assessments_seq START WITH 1 INCREMENT BY 50;
+
 -- Create indexes for performance
 CREATE INDEX idx_demand_forecasts_book_date ON demand_forecasts(book_id, forecast_date);
 CREATE INDEX idx_abc_xyz_analysis_date ON abc_xyz_analysis(analysis_date);
 CREATE INDEX idx_obsolescence_risk_level ON obsolescence_assessments(risk_level, assessment_date);
 CREATE INDEX idx_seasonal_patterns_season ON seasonal_patterns(season, year_data);
-CREATE INDEX idx_optimal_stock_book ON optimal_stock_settings(book_id);
\ No newline at end of file
+CREATE INDEX idx_optimal_stock_book ON optimal_stock_settings(book_id);
+CREATE INDEX idx_daily_book_sales_date ON daily_book_sales(sale_date);
+CREATE INDEX idx_analysis_jobs_status ON analysis_jobs(status);
+CREATE INDEX idx_analysis_jobs_completed_at ON analysis_jobs(completed_at);
+
+-- Keyset (cursor) pagination of the book, order and customer listings: (sort key, id)
+CREATE INDEX IF NOT EXISTS idx_orders_order_date_id ON orders(order_date, id);
+CREATE INDEX IF NOT EXISTS idx_books_title_id ON books(title, id);
+CREATE INDEX IF NOT EXISTS idx_customers_name_id ON customers(name, id);
+
+-- Reservation expiry: overdue active reservations
+CREATE INDEX IF NOT EXISTS idx_inventory_reservations_status_until ON inventory_reservations(status, reserved_until);
@@ -0,0 +1,45 @@
+-- Inventory transactions: monthly range partitions (PostgreSQL 11+ only)
+-- 在庫取引履歴を executed_at の月単位レンジパーティションに変換する（PostgreSQL専用）
+--
+-- After this runs, DataArchiveService creates the partitions of the coming months ahead of time and
+-- detaches, exports and drops the months past the retention window. Without it (and on H2) old rows are
+-- exported and deleted in batches instead. Run once during a maintenance window; the application must be
+-- stopped because the table is swapped.
+
+BEGIN;
+
+ALTER TABLE inventory_transactions RENAME TO inventory_transactions_legacy;
+
+-- The primary key of a partitioned table has to contain the partition key
+CREATE TABLE inventory_transactions (LIKE inventory_transactions_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (executed_at);
+ALTER TABLE inventory_transactions ADD PRIMARY KEY (id, executed_at);
+ALTER SEQUENCE inventory_transactions_id_seq OWNED BY inventory_transactions.id;
+-- LIKE does not copy foreign keys
+ALTER TABLE inventory_transactions ADD FOREIGN KEY (inventory_id) REFERENCES inventory(id);
+ALTER TABLE inventory_transactions ADD FOREIGN KEY (executed_by) REFERENCES users(id);
+ALTER TABLE inventory_transactions ADD FOREIGN KEY (approved_by) REFERENCES users(id);
+
+-- One partition per month from the oldest row to three months ahead, named <table>_pYYYYMM
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE((SELECT MIN(executed_at) FROM inventory_transactions_legacy),
+                                                     now()));
+    last_month DATE := date_trunc('month', now()) + INTERVAL '3 months';
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF inventory_transactions FOR VALUES FROM (%L) TO (%L)',
+                       'inventory_transactions_p' || to_char(month_start, 'YYYYMM'),
+                       month_start, month_start + INTERVAL '1 month');
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO inventory_transactions SELECT * FROM inventory_transactions_legacy;
+
+CREATE INDEX IF NOT EXISTS idx_inventory_transactions_executed_at ON inventory_transactions(executed_at);
+CREATE INDEX IF NOT EXISTS idx_inventory_transactions_inventory_id ON inventory_transactions(inventory_id, executed_at);
+
+DROP TABLE inventory_transactions_legacy;
+
+COMMIT;
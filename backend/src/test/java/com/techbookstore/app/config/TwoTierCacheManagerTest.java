@@ -0,0 +1,127 @@
+package com.techbookstore.app.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TwoTierCacheManager
+ * 2層キャッシュのテスト
+ */
+public class TwoTierCacheManagerTest {
+
+    private MeterRegistry meterRegistry;
+    private ConcurrentMapCacheManager redis;
+    private List<String> published;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        redis = new ConcurrentMapCacheManager("dashboardData");
+        published = new ArrayList<>();
+    }
+
+    @Test
+    public void lookup_FallsBackToL2AndPromotesIntoL1() throws Exception {
+        TwoTierCacheManager manager = node(published::add);
+        redis.getCache("dashboardData").put("dashboard_all", "from-redis");
+
+        org.springframework.cache.Cache cache = manager.getCache("dashboardData");
+        assertEquals("from-redis", cache.get("dashboard_all").get());   // L1 miss, L2 hit
+        assertEquals("from-redis", cache.get("dashboard_all").get());   // L1 hit
+        assertNull(cache.get("missing"));                               // L1 miss, L2 miss
+
+        assertEquals(1.0, tierCount("l1", "hit"));
+        assertEquals(2.0, tierCount("l1", "miss"));
+        assertEquals(1.0, tierCount("l2", "hit"));
+        assertEquals(1.0, tierCount("l2", "miss"));
+    }
+
+    @Test
+    public void put_WritesBothTiersAndInvalidatesL1OnOtherNodes() throws Exception {
+        List<String> bus = new ArrayList<>();
+        TwoTierCacheManager nodeA = node(bus::add);
+        TwoTierCacheManager nodeB = node(bus::add);
+
+        nodeB.getCache("dashboardData").put("dashboard_all", "v1");
+        assertEquals("v1", nodeA.getCache("dashboardData").get("dashboard_all").get());
+
+        nodeB.getCache("dashboardData").put("dashboard_all", "v2");
+        assertEquals("v1", nodeA.getCache("dashboardData").get("dashboard_all").get(), "stale until the message arrives");
+
+        // Deliver the channel messages to every node, as the Redis subscription would
+        for (String message : bus) {
+            nodeA.onInvalidation(message);
+            nodeB.onInvalidation(message);
+        }
+        assertEquals("v2", nodeA.getCache("dashboardData").get("dashboard_all").get());
+        assertEquals("v2", redis.getCache("dashboardData").get("dashboard_all").get());
+        assertEquals(1L, l1(nodeB).estimatedSize(), "the publishing node keeps its own L1 entry");
+    }
+
+    @Test
+    public void evict_AndClear_PublishInvalidations() throws Exception {
+        TwoTierCacheManager manager = node(published::add);
+        org.springframework.cache.Cache cache = manager.getCache("dashboardData");
+        cache.put("dashboard_all", "value");
+
+        cache.evict("dashboard_all");
+        cache.clear();
+
+        assertNull(cache.get("dashboard_all"));
+        assertNull(redis.getCache("dashboardData").get("dashboard_all"));
+        assertEquals(3, published.size());
+        assertTrue(published.get(1).contains("|E|dashboardData|dashboard_all"));
+        assertTrue(published.get(2).endsWith("|C|dashboardData"));
+    }
+
+    @Test
+    public void l1Only_IsBoundedBySize() throws Exception {
+        TwoTierCacheManager manager = new TwoTierCacheManager(
+            Collections.singletonMap("integratedAnalysis", Duration.ofMinutes(1)), Duration.ofMinutes(1), 10,
+            null, null, meterRegistry);
+        manager.afterPropertiesSet();
+
+        org.springframework.cache.Cache cache = manager.getCache("integratedAnalysis");
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, i);
+        }
+        Cache<Object, Object> l1 = l1(manager, "integratedAnalysis");
+        l1.cleanUp();
+        assertTrue(l1.estimatedSize() <= 10);
+        assertEquals("loaded", cache.get("fresh", () -> "loaded"));
+        assertEquals("loaded", cache.get("fresh", () -> "reloaded"));
+    }
+
+    private TwoTierCacheManager node(java.util.function.Consumer<String> publisher) throws Exception {
+        TwoTierCacheManager manager = new TwoTierCacheManager(
+            Collections.singletonMap("dashboardData", Duration.ofSeconds(15)), Duration.ofMinutes(1), 100,
+            redis, publisher, meterRegistry);
+        manager.afterPropertiesSet();
+        return manager;
+    }
+
+    private double tierCount(String tier, String result) {
+        return meterRegistry.get("cache.tier.gets").tags("cache", "dashboardData", "tier", tier, "result", result)
+            .counter().count();
+    }
+
+    private static Cache<Object, Object> l1(TwoTierCacheManager manager) {
+        return l1(manager, "dashboardData");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Cache<Object, Object> l1(TwoTierCacheManager manager, String name) {
+        return (Cache<Object, Object>) manager.getCache(name).getNativeCache();
+    }
+}
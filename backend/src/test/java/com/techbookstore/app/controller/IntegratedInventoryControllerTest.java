@@ -1,6 +1,7 @@
 package com.techbookstore.app.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import com.techbookstore.app.dto.IntegratedAnalysisRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,9 +12,11 @@ import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -87,16 +90,63 @@ public class IntegratedInventoryControllerTest {
         request.setCategory("PYTHON");
         request.setForecastHorizon(30);
 
-        mockMvc.perform(post("/api/v1/inventory/integrated/batch-optimization")
+        MvcResult submitted = mockMvc.perform(post("/api/v1/inventory/integrated/batch-optimization")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
-                .andExpect(status().isOk())
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
                 .andExpect(jsonPath("$.jobId").exists())
+                .andExpect(jsonPath("$.jobType").value("BATCH_OPTIMIZATION"))
+                .andReturn();
+        String jobId = JsonPath.read(submitted.getResponse().getContentAsString(), "$.jobId");
+
+        awaitJobStatus(jobId, "COMPLETED");
+
+        mockMvc.perform(get("/api/v1/inventory/integrated/jobs/" + jobId + "/result"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.jobId").value(jobId))
                 .andExpect(jsonPath("$.status").value("COMPLETED"))
                 .andExpect(jsonPath("$.recommendations").exists())
                 .andExpect(jsonPath("$.performanceMetrics").exists());
     }
 
+    @Test
+    public void testAsyncComprehensiveAnalysisReturnsJobImmediately() throws Exception {
+        
+        IntegratedAnalysisRequest request = new IntegratedAnalysisRequest();
+        request.setCategory("JAVA");
+        request.setAsyncExecution(true);
+
+        MvcResult submitted = mockMvc.perform(post("/api/v1/inventory/integrated/comprehensive-analysis")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.analysisId").exists())
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andReturn();
+        String jobId = JsonPath.read(submitted.getResponse().getContentAsString(), "$.analysisId");
+
+        awaitJobStatus(jobId, "COMPLETED");
+
+        mockMvc.perform(get("/api/v1/inventory/integrated/jobs/" + jobId + "/result"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.advancedAnalysis").exists());
+
+        // Finished jobs cannot be cancelled
+        mockMvc.perform(delete("/api/v1/inventory/integrated/jobs/" + jobId))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value("COMPLETED"));
+    }
+
+    @Test
+    public void testUnknownJobReturnsNotFound() throws Exception {
+        
+        mockMvc.perform(get("/api/v1/inventory/integrated/jobs/no-such-job"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.code").value("ANALYSIS_JOB_NOT_FOUND"));
+    }
+
     @Test
     public void testHealthCheck() throws Exception {
         
@@ -129,4 +179,16 @@ public class IntegratedInventoryControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.kpis").exists());
     }
-}
\ No newline at end of file
+
+    private void awaitJobStatus(String jobId, String expected) throws Exception {
+        String status = null;
+        for (int attempt = 0; attempt < 300 && !expected.equals(status); attempt++) {
+            Thread.sleep(100);
+            MvcResult result = mockMvc.perform(get("/api/v1/inventory/integrated/jobs/" + jobId))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            status = JsonPath.read(result.getResponse().getContentAsString(), "$.status");
+        }
+        assertEquals(expected, status);
+    }
+}
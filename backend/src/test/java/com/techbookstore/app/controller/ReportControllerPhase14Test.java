@@ -10,12 +10,18 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.util.StreamUtils;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
@@ -205,13 +211,62 @@ public class ReportControllerPhase14Test {
     @Test
     public void testExportReport() throws Exception {
         // Phase 4: Test report export functionality
-        when(customReportService.exportReport(anyString(), anyString()))
+        when(customReportService.exportReport(anyString(), anyString(), any()))
                 .thenReturn(createMockExportDto());
 
-        mockMvc.perform(get("/api/v1/reports/export/test-report-id")
+        MvcResult result = mockMvc.perform(get("/api/v1/reports/export/test-report-id")
                 .param("format", "PDF"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
-                .andExpect(header().string("Content-Type", "application/pdf"));
+                .andExpect(header().string("Content-Type", "application/pdf"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().bytes("Mock PDF content".getBytes()));
+    }
+
+    @Test
+    public void testExportReport_GzipsCompressibleFormatsWhenAccepted() throws Exception {
+        com.techbookstore.app.dto.ReportExportDto export =
+            new com.techbookstore.app.dto.ReportExportDto("test-report-id", "CSV");
+        export.setFileName("test_report.csv");
+        export.setMimeType("text/csv;charset=UTF-8");
+        export.setCompressible(true);
+        export.setContent(out -> out.write("isbn13,title\r\n".getBytes(StandardCharsets.UTF_8)));
+        export.setStatus("COMPLETED");
+        when(customReportService.exportReport(anyString(), anyString(), any())).thenReturn(export);
+
+        MvcResult result = mockMvc.perform(get("/api/v1/reports/export/test-report-id")
+                .param("format", "CSV")
+                .header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("isbn13,title\r\n", StreamUtils.copyToString(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testExportReport_UnsupportedFormat() throws Exception {
+        com.techbookstore.app.dto.ReportExportDto export =
+            new com.techbookstore.app.dto.ReportExportDto("test-report-id", "DOCX");
+        export.setStatus("FAILED");
+        when(customReportService.exportReport(anyString(), anyString(), any())).thenReturn(export);
+
+        MvcResult result = mockMvc.perform(get("/api/v1/reports/export/test-report-id")
+                .param("format", "DOCX"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -240,7 +295,7 @@ public class ReportControllerPhase14Test {
             new com.techbookstore.app.dto.ReportExportDto("test-report-id", "PDF");
         export.setFileName("test_report.pdf");
         export.setMimeType("application/pdf");
-        export.setFileData("Mock PDF content".getBytes());
+        export.setContent(out -> out.write("Mock PDF content".getBytes()));
         export.setStatus("COMPLETED");
         return export;
     }
@@ -0,0 +1,68 @@
+package com.techbookstore.app.integration;
+
+import com.techbookstore.app.entity.Customer;
+import com.techbookstore.app.repository.CustomerRepository;
+import com.techbookstore.app.service.CustomerSearchIndex;
+import com.techbookstore.app.service.CustomerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Customer keyword search against the database
+ * 顧客キーワード検索の結合テスト
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class CustomerSearchIntegrationTest {
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CustomerSearchIndex customerSearchIndex;
+
+    @Test
+    public void searchCustomers_ServesPrefixMatchesFromTheIndexAndSubstringsWithLike() {
+        String marker = "cs" + UUID.randomUUID().toString().substring(0, 8);
+        String digits = String.format("%08d", System.nanoTime() % 100000000L);
+        Customer prefix = save("Prefix", marker + "@example.com", "090-0000-0000");
+        Customer infix = save("Infix", "shop" + marker + "@example.com", "090-0000-0001");
+        Customer phone = save("Phone", "phone-" + marker + "@example.org",
+            "07-" + digits.substring(0, 4) + "-" + digits.substring(4));
+        customerSearchIndex.rebuild();
+
+        assertEquals(ids(prefix), found(marker));
+        // Phone numbers are only in the index, matched with the separators ignored
+        assertEquals(ids(phone), found("07" + digits));
+        // Nothing starts with the tail of the marker, so it is looked up inside the addresses instead
+        assertEquals(ids(prefix, infix, phone), found(marker.substring(2)));
+    }
+
+    private Customer save(String name, String email, String phone) {
+        return customerRepository.save(new Customer(Customer.CustomerType.INDIVIDUAL, name, email, phone));
+    }
+
+    private Set<Long> found(String keyword) {
+        return customerService.searchCustomers(keyword, PageRequest.of(0, 20)).getContent().stream()
+            .map(Customer::getId)
+            .collect(Collectors.toSet());
+    }
+
+    private static Set<Long> ids(Customer... customers) {
+        return new HashSet<>(Arrays.stream(customers).map(Customer::getId).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,215 @@
+package com.techbookstore.app.integration;
+
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.entity.Inventory;
+import com.techbookstore.app.entity.Order;
+import com.techbookstore.app.entity.OrderItem;
+import com.techbookstore.app.exception.InsufficientInventoryException;
+import com.techbookstore.app.repository.BookRepository;
+import com.techbookstore.app.repository.InventoryRepository;
+import com.techbookstore.app.repository.OrderRepository;
+import com.techbookstore.app.service.AdvancedInventoryService;
+import com.techbookstore.app.service.InventoryStockService;
+import com.techbookstore.app.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency stress test for stock mutations
+ * 在庫更新の同時実行テスト
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class InventoryStockConcurrencyTest {
+
+    private static final AtomicLong ISBN_SEQUENCE = new AtomicLong(9790000000000L);
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private InventoryStockService inventoryStockService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AdvancedInventoryService advancedInventoryService;
+
+    @Test
+    public void concurrentSales_NeverOversell() throws Exception {
+        Inventory inventory = createInventory(40, 0);
+        Long bookId = inventory.getBook().getId();
+
+        Outcome outcome = runConcurrently(THREADS, 10, () -> inventoryStockService.sell(bookId, 1));
+
+        Inventory result = inventoryRepository.findByBookId(bookId).get();
+        assertEquals(0, outcome.conflicts.get());
+        assertEquals(40, outcome.successes.get());
+        assertEquals(THREADS * 10 - 40, outcome.rejected.get());
+        assertEquals(0, result.getStoreStock());
+        assertEquals(40L, result.getVersion());
+    }
+
+    @Test
+    public void concurrentOrderDeductionsAndReservations_KeepAvailableStockNonNegative() throws Exception {
+        Inventory inventory = createInventory(30, 10);
+        Long bookId = inventory.getBook().getId();
+        AtomicInteger deducted = new AtomicInteger();
+        AtomicInteger reserved = new AtomicInteger();
+
+        // Fewer threads than pooled connections: a stripe holder may need a second connection for the
+        // sales rows while the waiters keep theirs
+        AtomicInteger counter = new AtomicInteger();
+        Outcome outcome = runConcurrently(THREADS / 2, 20, () -> {
+            if (counter.incrementAndGet() % 2 == 0) {
+                inventoryStockService.deductForOrder(bookId, "Stress Test", 3);
+                deducted.addAndGet(3);
+            } else {
+                inventoryStockService.reserve(inventory, 1);
+                reserved.addAndGet(1);
+            }
+        });
+
+        Inventory result = inventoryRepository.findByBookId(bookId).get();
+        assertEquals(0, outcome.conflicts.get());
+        assertEquals(30 - deducted.get(), result.getStoreStock());
+        assertEquals(reserved.get(), result.getReservedCount());
+        assertTrue(result.getAvailableStock() >= 0, "Available stock must never go negative");
+        assertTrue(result.getAvailableStock() < 3, "Remaining stock should be exhausted by the competing callers");
+    }
+
+    @Test
+    public void concurrentSalesAcrossBooks_EachBookSellsExactlyItsStock() throws Exception {
+        List<Long> bookIds = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            bookIds.add(createInventory(25, 5).getBook().getId());
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        Outcome outcome = runConcurrently(THREADS, 20,
+            () -> inventoryStockService.sell(bookIds.get(counter.getAndIncrement() % bookIds.size()), 1));
+
+        assertEquals(0, outcome.conflicts.get());
+        assertEquals(100, outcome.successes.get());
+        for (Long bookId : bookIds) {
+            assertEquals(0, inventoryRepository.findByBookId(bookId).get().getStoreStock());
+        }
+    }
+
+    @Test
+    public void concurrentOrderConfirmationsAndReservations_SerializeInTheCallersTransactions() throws Exception {
+        Inventory first = createInventory(40, 0);
+        Inventory second = createInventory(40, 0);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < THREADS * 5; i++) {
+            // Multi-book orders with their lines listed either way round
+            orderIds.add(createOrder(i % 2 == 0 ? first : second, i % 2 == 0 ? second : first).getId());
+        }
+        AtomicInteger nextOrder = new AtomicInteger();
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger reserved = new AtomicInteger();
+
+        // Fewer threads than pooled connections: a stripe holder may need a second connection for the
+        // sales rows while the waiters keep theirs
+        AtomicInteger counter = new AtomicInteger();
+        Outcome outcome = runConcurrently(THREADS / 2, 20, () -> {
+            if (counter.incrementAndGet() % 2 == 0) {
+                orderService.confirmOrder(orderIds.get(nextOrder.getAndIncrement()));
+                confirmed.incrementAndGet();
+            } else {
+                AdvancedInventoryService.StockReservationRequest request =
+                    new AdvancedInventoryService.StockReservationRequest();
+                request.setInventoryId(first.getId());
+                request.setQuantity(1);
+                request.setReservationType("MANUAL");
+                advancedInventoryService.reserveStock(request);
+                reserved.incrementAndGet();
+            }
+        });
+
+        Inventory firstResult = inventoryRepository.findByBookId(first.getBook().getId()).get();
+        Inventory secondResult = inventoryRepository.findByBookId(second.getBook().getId()).get();
+        assertEquals(0, outcome.conflicts.get());
+        assertEquals(40 - 2 * confirmed.get(), firstResult.getStoreStock());
+        assertEquals(40 - confirmed.get(), secondResult.getStoreStock());
+        assertEquals(reserved.get(), firstResult.getReservedCount());
+        assertTrue(firstResult.getAvailableStock() >= 0, "Available stock must never go negative");
+        assertTrue(firstResult.getAvailableStock() < 2, "Remaining stock should be exhausted by the competing callers");
+    }
+
+    private Order createOrder(Inventory firstLine, Inventory secondLine) {
+        Order order = new Order(Order.OrderType.WALK_IN, Order.PaymentMethod.CASH);
+        order.setOrderNumber("ST-" + ISBN_SEQUENCE.incrementAndGet());
+        // Two copies of the first book and one of the second, whichever way round the lines are
+        int firstQuantity = firstLine.getId() < secondLine.getId() ? 2 : 1;
+        order.getOrderItems().add(new OrderItem(order, firstLine.getBook(), firstQuantity, BigDecimal.TEN));
+        order.getOrderItems().add(new OrderItem(order, secondLine.getBook(), 3 - firstQuantity, BigDecimal.TEN));
+        return orderRepository.save(order);
+    }
+
+    private Inventory createInventory(int storeStock, int warehouseStock) {
+        String isbn = String.valueOf(ISBN_SEQUENCE.incrementAndGet());
+        Book book = bookRepository.save(new Book(isbn, "Stress Test " + isbn));
+        Inventory inventory = new Inventory(book);
+        inventory.setStoreStock(storeStock);
+        inventory.setWarehouseStock(warehouseStock);
+        inventory.setReservedCount(0);
+        return inventoryRepository.save(inventory);
+    }
+
+    private Outcome runConcurrently(int threads, int callsPerThread, Runnable call) throws Exception {
+        Outcome outcome = new Outcome();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < callsPerThread; i++) {
+                    try {
+                        call.run();
+                        outcome.successes.incrementAndGet();
+                    } catch (InsufficientInventoryException e) {
+                        outcome.rejected.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        outcome.conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        return outcome;
+    }
+
+    private static class Outcome {
+        final AtomicInteger successes = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+        final AtomicInteger conflicts = new AtomicInteger();
+    }
+}
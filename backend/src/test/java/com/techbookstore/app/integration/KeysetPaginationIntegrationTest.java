@@ -0,0 +1,122 @@
+package com.techbookstore.app.integration;
+
+import com.techbookstore.app.dto.CursorPage;
+import com.techbookstore.app.entity.Customer;
+import com.techbookstore.app.entity.Order;
+import com.techbookstore.app.repository.CustomerRepository;
+import com.techbookstore.app.repository.OrderRepository;
+import com.techbookstore.app.service.CustomerService;
+import com.techbookstore.app.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keyset (cursor) pagination against the database
+ * カーソル方式ページングの結合テスト
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class KeysetPaginationIntegrationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Test
+    public void orderCursor_WalksAllRowsOnceWithTiesOnSortKey() {
+        // Several orders share the same order date, so the id tie-breaker decides their order
+        LocalDateTime sameDate = LocalDateTime.of(2001, 1, 1, 10, 0);
+        Long customerId = 900000L + (System.nanoTime() % 100000);
+        for (int i = 0; i < 7; i++) {
+            Order order = new Order(Order.OrderType.ONLINE, Order.PaymentMethod.CASH);
+            order.setOrderNumber("KS" + UUID.randomUUID().toString().substring(0, 12));
+            order.setStatus(Order.OrderStatus.PENDING);
+            order.setCustomerId(customerId);
+            order.setTotalAmount(BigDecimal.valueOf(1000 + i % 2));
+            order.setOrderDate(i < 5 ? sameDate : sameDate.plusDays(i));
+            orderRepository.save(order);
+        }
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPage<Order> page = orderService.getOrdersByCursor(null, null, customerId, null, null, null,
+                "orderDate", "desc", 3, cursor, pages == 0);
+            assertEquals(Long.valueOf(7), page.getEstimatedTotal(), "estimate is carried along in the cursor");
+            page.getContent().forEach(order -> walked.add(order.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        List<Long> expected = orderRepository.findAll(Sort.by(Sort.Direction.DESC, "orderDate", "id")).stream()
+            .filter(order -> customerId.equals(order.getCustomerId()))
+            .map(Order::getId)
+            .collect(Collectors.toList());
+        assertEquals(expected, walked);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    public void customerCursor_ExcludesDeletedAndMatchesOffsetOrder() {
+        String marker = "ks" + UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < 5; i++) {
+            Customer customer = new Customer(Customer.CustomerType.INDIVIDUAL, "Keyset " + (i % 2),
+                marker + i + "@example.com", "090-0000-000" + i);
+            customer.setStatus(i == 4 ? Customer.CustomerStatus.DELETED : Customer.CustomerStatus.ACTIVE);
+            customerRepository.save(customer);
+        }
+
+        CursorPage<Customer> first = customerService.getCustomersByCursor(marker, null, null, null, null,
+            "name", "asc", 2, null, true);
+        CursorPage<Customer> second = customerService.getCustomersByCursor(marker, null, null, null, null,
+            "name", "asc", 2, first.getNextCursor(), false);
+
+        assertEquals(Long.valueOf(4), first.getEstimatedTotal());
+        assertTrue(first.isHasNext());
+        assertFalse(second.isHasNext());
+        assertNull(second.getNextCursor());
+        List<String> names = new ArrayList<>();
+        first.getContent().forEach(c -> names.add(c.getName()));
+        second.getContent().forEach(c -> names.add(c.getName()));
+        assertEquals(4, names.size());
+        assertEquals(names.stream().sorted().collect(Collectors.toList()), names);
+    }
+
+    @Test
+    public void cursor_RejectsUnknownSortKeyForeignSortOrderAndGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrdersByCursor(
+            null, null, null, null, null, null, "notes", "asc", 10, null, false));
+
+        CursorPage<Order> page = orderService.getOrdersByCursor(null, null, null, null, null, null,
+            "id", "asc", 1, null, false);
+        if (page.getNextCursor() != null) {
+            String cursor = page.getNextCursor();
+            assertThrows(IllegalArgumentException.class, () -> orderService.getOrdersByCursor(
+                null, null, null, null, null, null, "id", "desc", 1, cursor, false));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrdersByCursor(
+            null, null, null, null, null, null, "id", "asc", 10, "not-a-cursor!", false));
+    }
+}
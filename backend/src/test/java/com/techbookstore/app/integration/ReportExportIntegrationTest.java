@@ -0,0 +1,135 @@
+package com.techbookstore.app.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.techbookstore.app.dto.CustomReportDto;
+import com.techbookstore.app.dto.CustomReportRequest;
+import com.techbookstore.app.dto.ReportExportDto;
+import com.techbookstore.app.repository.InventoryRepository;
+import com.techbookstore.app.service.CustomReportService;
+import com.techbookstore.app.service.ReportExportService;
+import com.techbookstore.app.service.ReportExportService.Dataset;
+import com.techbookstore.app.service.ReportExportService.Format;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Streaming report export against the seeded database
+ * ストリーミングエクスポートの結合テスト
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class ReportExportIntegrationTest {
+
+    @Autowired
+    private ReportExportService reportExportService;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CustomReportService customReportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void csvExport_WritesHeaderAndOneLinePerRow() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = reportExportService.writeDataset(Dataset.INVENTORY_DETAIL, Format.CSV, out);
+
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(inventoryRepository.count(), rows);
+        assertTrue(rows > 0, "test data is seeded");
+        assertEquals(rows + 1, lines.length);
+        assertTrue(lines[0].startsWith("\uFEFFisbn13,title,storeStock"));
+    }
+
+    @Test
+    public void jsonExport_WritesColumnsAndRowObjects() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = reportExportService.writeDataset(Dataset.ORDER_DETAIL, Format.JSON, out);
+
+        JsonNode json = objectMapper.readTree(out.toByteArray());
+        assertEquals("orderNumber", json.get("columns").get(0).asText());
+        assertEquals(rows, json.get("rows").size());
+        if (rows > 0) {
+            assertTrue(json.get("rows").get(0).has("totalPrice"));
+        }
+    }
+
+    @Test
+    public void excelExport_WritesSheetWithHeaderRow() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = reportExportService.writeDataset(Dataset.INVENTORY_DETAIL, Format.EXCEL, out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals("isbn13", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals(rows, sheet.getLastRowNum());
+        }
+    }
+
+    @Test
+    public void reportExport_AppliesTheStoredReportsDateRangeAndFilters() throws Exception {
+        CustomReportRequest request = new CustomReportRequest("SALES_BY_TECH_CATEGORY",
+            LocalDate.of(2025, 7, 25), LocalDate.of(2025, 7, 25));
+        request.setReportName("filtered");
+        request.setFilters(Collections.singletonMap("status", Arrays.asList("PENDING", "CONFIRMED")));
+        CustomReportDto report = customReportService.createCustomReport(request);
+
+        ReportExportDto export = customReportService.exportReport(report.getReportId(), "CSV", null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        export.getContent().writeTo(out);
+
+        Integer expected = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items oi " +
+            "JOIN orders o ON o.id = oi.order_id WHERE o.order_date >= TIMESTAMP '2025-07-25 00:00:00' " +
+            "AND o.order_date < TIMESTAMP '2025-07-26 00:00:00' AND o.status IN ('PENDING', 'CONFIRMED')",
+            Integer.class);
+        Integer all = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items", Integer.class);
+        String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\r\n");
+        assertEquals("COMPLETED", export.getStatus());
+        assertEquals(expected + 1, lines.length);
+        assertTrue(expected < all, "the seeded orders outside the range or status are left out");
+    }
+
+    @Test
+    public void reportExport_FailsForUnknownReportsAndFiltersOnColumnsNotExported() {
+        assertEquals("FAILED", customReportService.exportReport("no-such-report", "CSV", null).getStatus());
+
+        CustomReportRequest request = new CustomReportRequest();
+        request.setReportType("INVENTORY_OPTIMIZATION");
+        request.setFilters(Collections.singletonMap("status", "DELIVERED"));
+        CustomReportDto report = customReportService.createCustomReport(request);
+
+        assertEquals("FAILED", customReportService.exportReport(report.getReportId(), "CSV", null).getStatus());
+    }
+
+    @Test
+    public void datasetResolve_UsesReportTypeWhenNotGiven() {
+        assertEquals(Dataset.INVENTORY_DETAIL, Dataset.resolve(null, "INVENTORY_OPTIMIZATION"));
+        assertEquals(Dataset.ORDER_DETAIL, Dataset.resolve(" ", "SALES_BY_TECH_CATEGORY"));
+        assertEquals(Dataset.ORDER_DETAIL, Dataset.resolve("order_detail", "INVENTORY_OPTIMIZATION"));
+        assertThrows(IllegalArgumentException.class, () -> Dataset.resolve("customers", null));
+    }
+}
@@ -0,0 +1,154 @@
+package com.techbookstore.app.integration;
+
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.entity.DailyBookSales;
+import com.techbookstore.app.entity.DailySalesSummary;
+import com.techbookstore.app.entity.Order;
+import com.techbookstore.app.entity.OrderItem;
+import com.techbookstore.app.repository.BookRepository;
+import com.techbookstore.app.repository.DailyBookSalesRepository;
+import com.techbookstore.app.repository.DailySalesSummaryRepository;
+import com.techbookstore.app.repository.OrderRepository;
+import com.techbookstore.app.service.SalesAggregationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Daily sales aggregate rebuild against the real schema
+ * 日次売上集計の再構築の結合テスト
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class SalesAggregationIntegrationTest {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong(9780500000000L);
+
+    @Autowired
+    private SalesAggregationService salesAggregationService;
+
+    @Autowired
+    private DailySalesSummaryRepository dailySalesSummaryRepository;
+
+    @Autowired
+    private DailyBookSalesRepository dailyBookSalesRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void rebuild_ReplacesTheDaysFromTheOrdersAndDropsDaysWithoutSales() {
+        LocalDate day = LocalDate.of(2001, 3, 1);
+        Book first = book();
+        Book second = book();
+        saveOrder(day, first, 2, "1500");
+        Order mixed = saveOrder(day, first, 1, "1500");
+        mixed.getOrderItems().add(new OrderItem(mixed, second, 4, new BigDecimal("200")));
+        orderRepository.save(mixed);
+        // Stale rows: wrong totals for the day, and a row for the next day that has no sales
+        dailySalesSummaryRepository.save(new DailySalesSummary(day, 9, 9, new BigDecimal("9")));
+        dailySalesSummaryRepository.save(new DailySalesSummary(day.plusDays(1), 1, 1, BigDecimal.ONE));
+        dailyBookSalesRepository.save(new DailyBookSales(second.getId(), day, 9, BigDecimal.ONE, 9));
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            salesAggregationService.rebuild(day, day.plusDays(1));
+            return null;
+        });
+
+        List<DailySalesSummary> summaries = dailySalesSummaryRepository.findBySaleDateBetweenOrderBySaleDate(day, day.plusDays(1));
+        assertEquals(1, summaries.size());
+        assertEquals(2, summaries.get(0).getOrderCount());
+        assertEquals(7, summaries.get(0).getQuantity());
+        assertEquals(0, new BigDecimal("5300").compareTo(summaries.get(0).getRevenue()));
+        Map<Long, DailyBookSales> books = bookRows(day);
+        assertEquals(2, books.size());
+        assertEquals(3, books.get(first.getId()).getQuantity());
+        assertEquals(2, books.get(first.getId()).getOrderCount());
+        assertEquals(4, books.get(second.getId()).getQuantity());
+        assertEquals(1, books.get(second.getId()).getOrderCount());
+    }
+
+    @Test
+    public void recordOrder_WhileARebuildHoldsTheDay_WaitsAndAddsToTheRebuiltRow() throws Exception {
+        LocalDate day = LocalDate.of(2001, 4, 1);
+        Book book = book();
+        saveOrder(day, book, 2, "1000");
+        CountDownLatch rebuilt = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(() -> transactionTemplate.execute(status -> {
+            salesAggregationService.rebuild(day, day);
+            rebuilt.countDown();
+            await(release);
+            return null;
+        }));
+        assertTrue(rebuilt.await(30, TimeUnit.SECONDS));
+        CompletableFuture<Void> increment = CompletableFuture.runAsync(() -> transactionTemplate.execute(status -> {
+            salesAggregationService.recordOrder(saveOrder(day, book, 1, "1000"));
+            return null;
+        }));
+        assertThrows(TimeoutException.class, () -> increment.get(300, TimeUnit.MILLISECONDS),
+            "the increment waits for the rebuild of its day");
+        release.countDown();
+        rebuild.get(30, TimeUnit.SECONDS);
+        increment.get(30, TimeUnit.SECONDS);
+
+        DailySalesSummary summary = dailySalesSummaryRepository.findBySaleDateBetweenOrderBySaleDate(day, day).get(0);
+        assertEquals(2, summary.getOrderCount());
+        assertEquals(3, summary.getQuantity());
+        assertEquals(2, bookRows(day).get(book.getId()).getOrderCount());
+    }
+
+    private Map<Long, DailyBookSales> bookRows(LocalDate day) {
+        Map<Long, DailyBookSales> rows = new HashMap<>();
+        for (DailyBookSales row : dailyBookSalesRepository.findBySaleDateBetweenOrderBySaleDate(day, day)) {
+            rows.put(row.getBookId(), row);
+        }
+        return rows;
+    }
+
+    private Book book() {
+        String isbn = String.valueOf(SEQUENCE.incrementAndGet());
+        return bookRepository.save(new Book(isbn, "Aggregation Test " + isbn));
+    }
+
+    private Order saveOrder(LocalDate day, Book book, int quantity, String unitPrice) {
+        Order order = new Order(Order.OrderType.WALK_IN, Order.PaymentMethod.CASH);
+        order.setOrderNumber("SA-" + SEQUENCE.incrementAndGet());
+        order.setOrderDate(day.atTime(10, 0));
+        order.setStatus(Order.OrderStatus.CONFIRMED);
+        order.getOrderItems().add(new OrderItem(order, book, quantity, new BigDecimal(unitPrice)));
+        return orderRepository.save(order);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
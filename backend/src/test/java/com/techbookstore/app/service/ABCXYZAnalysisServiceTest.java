@@ -3,9 +3,6 @@ package com.techbookstore.app.service;
 import com.techbookstore.app.entity.ABCXYZAnalysis;
 import com.techbookstore.app.entity.Book;
 import com.techbookstore.app.repository.ABCXYZAnalysisRepository;
-import com.techbookstore.app.repository.BookRepository;
-import com.techbookstore.app.repository.InventoryRepository;
-import com.techbookstore.app.repository.OrderRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,7 +17,8 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ABCXYZAnalysisServiceTest {
@@ -29,20 +27,24 @@ class ABCXYZAnalysisServiceTest {
     private ABCXYZAnalysisRepository abcxyzRepository;
 
     @Mock
-    private BookRepository bookRepository;
+    private CatalogSnapshotService catalogSnapshotService;
 
     @Mock
-    private InventoryRepository inventoryRepository;
+    private SalesSeriesService salesSeriesService;
 
     @Mock
-    private OrderRepository orderRepository;
+    private AnalysisResultWriter analysisResultWriter;
+
+    @Mock
+    private ABCXYZClassificationTracker classificationTracker;
 
     private ABCXYZAnalysisService abcxyzAnalysisService;
 
     @BeforeEach
     void setUp() {
         abcxyzAnalysisService = new ABCXYZAnalysisService(
-            abcxyzRepository, bookRepository, inventoryRepository, orderRepository
+            abcxyzRepository, catalogSnapshotService, salesSeriesService,
+            analysisResultWriter, classificationTracker
         );
     }
 
@@ -61,22 +63,17 @@ class ABCXYZAnalysisServiceTest {
         
         List<Book> books = Arrays.asList(book1, book2);
         
-        ABCXYZAnalysis analysis1 = new ABCXYZAnalysis();
-        analysis1.setId(1L);
-        analysis1.setBook(book1);
-        analysis1.setAbcCategory("A");
-        analysis1.setXyzCategory("X");
-        
-        ABCXYZAnalysis analysis2 = new ABCXYZAnalysis();
-        analysis2.setId(2L);
-        analysis2.setBook(book2);
-        analysis2.setAbcCategory("B");
-        analysis2.setXyzCategory("Y");
+        // 3 months of sales: book 1 steady, book 2 in one month only (revenue in hundredths)
+        SalesSeriesService.SalesSeries series = new SalesSeriesService.SalesSeries(
+            SalesSeriesService.Granularity.MONTH, analysisDate.withDayOfMonth(1), 3, new long[] {1L, 2L},
+            new int[] {40, 40, 40, 0, 0, 40},
+            new long[] {1600000L, 1600000L, 1600000L, 0L, 0L, 1200000L});
         
-        when(bookRepository.findAll()).thenReturn(books);
-        when(abcxyzRepository.save(any(ABCXYZAnalysis.class)))
-            .thenReturn(analysis1)
-            .thenReturn(analysis2);
+        when(catalogSnapshotService.current()).thenReturn(CatalogSnapshotService.CatalogSnapshot.of(books));
+        when(salesSeriesService.monthly(any(CatalogSnapshotService.CatalogSnapshot.class),
+            any(LocalDate.class), any(LocalDate.class))).thenReturn(series);
+        when(analysisResultWriter.replaceAll(any(Runnable.class), anyList()))
+            .thenAnswer(invocation -> invocation.getArgument(1));
         
         // When
         List<ABCXYZAnalysis> results = abcxyzAnalysisService.performAnalysis(analysisDate);
@@ -84,6 +81,16 @@ class ABCXYZAnalysisServiceTest {
         // Then
         assertNotNull(results);
         assertEquals(2, results.size());
+        ABCXYZAnalysis first = results.get(0);
+        assertEquals(Long.valueOf(1L), first.getBook().getId());
+        assertEquals(0, new BigDecimal("80.0000").compareTo(first.getSalesContribution()));
+        assertEquals("X", first.getXyzCategory());
+        assertEquals(0, BigDecimal.ZERO.compareTo(first.getDemandVariability()));
+        ABCXYZAnalysis second = results.get(1);
+        assertEquals("Z", second.getXyzCategory());
+        assertEquals(0, new BigDecimal("1.4142").compareTo(second.getDemandVariability()));
+        verify(analysisResultWriter, times(1)).replaceAll(any(Runnable.class), anyList());
+        verify(abcxyzRepository, never()).save(any(ABCXYZAnalysis.class));
     }
 
     @Test
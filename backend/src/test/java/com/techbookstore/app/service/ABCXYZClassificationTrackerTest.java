@@ -0,0 +1,211 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Book;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Incremental ABC/XYZ classification
+ * ABC/XYZ分類の差分更新テスト
+ */
+@ExtendWith(MockitoExtension.class)
+@SpringBootTest
+@ActiveProfiles("test")
+class ABCXYZClassificationTrackerTest {
+
+    private static final int MONTHS = ABCXYZClassificationTracker.WINDOW_MONTHS;
+
+    @Mock
+    private SalesSeriesService salesSeriesService;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void record_MovesParetoCutoffsAndKeepsVariability() {
+        // Books 1-5 sell 10 a month for 18,000 yen in total, book 6 sells 5 this month only for 10,000 yen
+        int books = 6;
+        int[] quantities = new int[books * MONTHS];
+        long[] revenues = new long[books * MONTHS];
+        for (int row = 0; row < 5; row++) {
+            for (int month = 0; month < MONTHS; month++) {
+                quantities[row * MONTHS + month] = 10;
+            }
+            revenues[row * MONTHS + MONTHS - 1] = 1800000L;
+        }
+        quantities[5 * MONTHS + MONTHS - 1] = 5;
+        revenues[5 * MONTHS + MONTHS - 1] = 1000000L;
+        ABCXYZClassificationTracker tracker = trackerFor(books, quantities, revenues);
+
+        // Cumulative shares 18, 36, 54, 72, 90, 100%
+        assertClasses(tracker, 1L, "A", "X");
+        assertClasses(tracker, 2L, "B", "X");
+        assertClasses(tracker, 4L, "B", "X");
+        assertClasses(tracker, 5L, "C", "X");
+        assertClasses(tracker, 6L, "C", "Z");
+        assertEquals(0, new BigDecimal("18.0000").compareTo(tracker.classify(1L).getSalesContribution()));
+        assertClasses(tracker, 99L, "C", "X"); // no sales at all
+
+        // Book 6 jumps to 40,000 yen: 40/130 = 31% leaves no room for A, book 4 falls past 80%
+        tracker.record(LocalDate.now(), 6L, 3, new BigDecimal("30000"));
+        assertClasses(tracker, 6L, "B", "Z");
+        assertClasses(tracker, 1L, "B", "X");
+        assertClasses(tracker, 3L, "B", "X");
+        assertClasses(tracker, 4L, "C", "X");
+        assertEquals(0, new BigDecimal("3.4641").compareTo(tracker.classify(6L).getDemandVariability()));
+
+        // A cancellation takes it back
+        tracker.record(LocalDate.now(), 6L, -3, new BigDecimal("-30000"));
+        assertClasses(tracker, 1L, "A", "X");
+        assertClasses(tracker, 6L, "C", "Z");
+
+        // Sales that have left the window are ignored; once the whole window has passed nothing is left
+        tracker.record(LocalDate.now().minusMonths(MONTHS), 1L, 100, new BigDecimal("100000"));
+        assertClasses(tracker, 1L, "A", "X");
+        tracker.rollTo(YearMonth.now().plusMonths(MONTHS));
+        assertClasses(tracker, 1L, "C", "X");
+    }
+
+    @Test
+    void record_MatchesFullRecomputeAfterManySales() {
+        int books = 40;
+        Random random = new Random(7L);
+        int[] quantities = new int[books * MONTHS];
+        long[] revenues = new long[books * MONTHS];
+        for (int i = 0; i < quantities.length; i++) {
+            quantities[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(30);
+            revenues[i] = quantities[i] * (100000L + random.nextInt(400000));
+        }
+        ABCXYZClassificationTracker tracker = trackerFor(books, quantities, revenues);
+
+        YearMonth current = YearMonth.now();
+        for (int sale = 0; sale < 3000; sale++) {
+            int row = random.nextInt(books);
+            int month = random.nextInt(MONTHS);
+            int cell = row * MONTHS + month;
+            int quantity = quantities[cell] > 0 && random.nextInt(5) == 0 ? -1 : 1 + random.nextInt(3);
+            long revenue = quantity * (100000L + random.nextInt(400000));
+            quantities[cell] += quantity;
+            revenues[cell] += revenue;
+            LocalDate saleDate = current.minusMonths(MONTHS - 1L - month).atDay(1 + random.nextInt(28));
+            tracker.record(saleDate, row + 1L, quantity, BigDecimal.valueOf(revenue, 2));
+        }
+
+        ABCXYZClassificationTracker recomputed = trackerFor(books, quantities, revenues);
+        for (long bookId = 1; bookId <= books; bookId++) {
+            ABCXYZClassificationTracker.Classification live = tracker.classify(bookId);
+            ABCXYZClassificationTracker.Classification full = recomputed.classify(bookId);
+            assertEquals(full.getAbcCategory(), live.getAbcCategory(), "ABC of book " + bookId);
+            assertEquals(full.getXyzCategory(), live.getXyzCategory(), "XYZ of book " + bookId);
+            assertEquals(0, full.getSalesContribution().compareTo(live.getSalesContribution()));
+            assertEquals(full.getDemandVariability().doubleValue(), live.getDemandVariability().doubleValue(), 1e-4);
+        }
+    }
+
+    @Test
+    void classify_ReturnsNullUntilLoaded() {
+        ABCXYZClassificationTracker tracker = newTracker();
+        tracker.record(LocalDate.now(), 1L, 1, BigDecimal.TEN);
+        assertFalse(tracker.isReady());
+        assertNull(tracker.classify(1L));
+    }
+
+    @Test
+    void rebuild_ReplaysOnlySalesCommittedAfterItsSnapshot() throws Exception {
+        // Books 1 and 2 sold 10,000 yen each this month
+        int[] quantities = new int[2 * MONTHS];
+        long[] revenues = new long[2 * MONTHS];
+        quantities[MONTHS - 1] = 1;
+        quantities[2 * MONTHS - 1] = 1;
+        revenues[MONTHS - 1] = 1000000L;
+        revenues[2 * MONTHS - 1] = 1000000L;
+        ABCXYZClassificationTracker tracker = trackerFor(2, quantities, revenues);
+
+        // Another 10,000 yen sale of book 2 commits before the snapshot, but is recorded only after the recompute
+        // has started; a 5,000 yen sale of book 1 commits while the recompute reads
+        quantities[2 * MONTHS - 1] = 2;
+        revenues[2 * MONTHS - 1] = 2000000L;
+        SalesSeriesService.SalesSeries snapshot = series(2, quantities, revenues);
+        when(salesSeriesService.monthly(any(CatalogSnapshotService.CatalogSnapshot.class),
+            any(LocalDate.class), any(LocalDate.class))).thenAnswer(invocation -> {
+                tracker.beginCommit();
+                tracker.record(LocalDate.now(), 1L, 1, new BigDecimal("5000"));
+                tracker.endCommit();
+                return snapshot;
+            });
+
+        tracker.beginCommit();
+        Thread rebuild = new Thread(tracker::rebuild);
+        rebuild.start();
+        while (rebuild.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(5);
+        }
+        tracker.record(LocalDate.now(), 2L, 1, new BigDecimal("10000"));
+        tracker.endCommit();
+        rebuild.join(5000);
+
+        // 20,000 of 35,000 yen: the late record of book 2 is not counted a second time
+        assertFalse(rebuild.isAlive());
+        assertEquals(0, new BigDecimal("57.14").compareTo(tracker.classify(2L).getSalesContribution()));
+        assertEquals(0, new BigDecimal("42.86").compareTo(tracker.classify(1L).getSalesContribution()));
+    }
+
+    private ABCXYZClassificationTracker trackerFor(int books, int[] quantities, long[] revenues) {
+        SalesSeriesService.SalesSeries series = series(books, quantities, revenues);
+        when(salesSeriesService.monthly(any(CatalogSnapshotService.CatalogSnapshot.class),
+            any(LocalDate.class), any(LocalDate.class))).thenReturn(series);
+
+        ABCXYZClassificationTracker tracker = newTracker();
+        tracker.rebuild();
+        return tracker;
+    }
+
+    private SalesSeriesService.SalesSeries series(int books, int[] quantities, long[] revenues) {
+        List<Book> catalog = new ArrayList<>();
+        long[] bookIds = new long[books];
+        for (int row = 0; row < books; row++) {
+            Book book = new Book();
+            book.setId(row + 1L);
+            catalog.add(book);
+            bookIds[row] = row + 1L;
+        }
+        when(catalogSnapshotService.current()).thenReturn(CatalogSnapshotService.CatalogSnapshot.of(catalog));
+        return new SalesSeriesService.SalesSeries(SalesSeriesService.Granularity.MONTH,
+            YearMonth.now().minusMonths(MONTHS - 1L).atDay(1), MONTHS, bookIds, quantities.clone(), revenues.clone());
+    }
+
+    private ABCXYZClassificationTracker newTracker() {
+        return new ABCXYZClassificationTracker(salesSeriesService, catalogSnapshotService, dataSource,
+            transactionManager);
+    }
+
+    private static void assertClasses(ABCXYZClassificationTracker tracker, long bookId, String abc, String xyz) {
+        ABCXYZClassificationTracker.Classification classification = tracker.classify(bookId);
+        assertEquals(abc, classification.getAbcCategory(), "ABC of book " + bookId);
+        assertEquals(xyz, classification.getXyzCategory(), "XYZ of book " + bookId);
+    }
+}
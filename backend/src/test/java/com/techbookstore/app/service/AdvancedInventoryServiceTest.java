@@ -12,6 +12,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -19,6 +22,7 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +40,15 @@ class AdvancedInventoryServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private InventoryAuditLog inventoryAuditLog;
+
+    @Mock
+    private InventoryStockService inventoryStockService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private AdvancedInventoryService advancedInventoryService;
 
@@ -72,7 +85,6 @@ class AdvancedInventoryServiceTest {
         when(inventoryRepository.findById(1L)).thenReturn(Optional.of(testInventory));
         when(userRepository.findByUsername("system")).thenReturn(Optional.of(testUser));
         when(inventoryRepository.save(any(Inventory.class))).thenReturn(testInventory);
-        when(transactionRepository.save(any(InventoryTransaction.class))).thenReturn(new InventoryTransaction());
 
         // Act
         AdvancedInventoryService.TransferResult result = advancedInventoryService.transferStock(request);
@@ -84,7 +96,49 @@ class AdvancedInventoryServiceTest {
         assertEquals(8, testInventory.getWarehouseStock()); // 5 + 3
         
         verify(inventoryRepository).save(testInventory);
-        verify(transactionRepository).save(any(InventoryTransaction.class));
+        verify(inventoryAuditLog).record(any(InventoryTransaction.class));
+    }
+
+    @Test
+    void transferStock_LooksUpSystemUserOnce() {
+        AdvancedInventoryService.StockTransferRequest request = new AdvancedInventoryService.StockTransferRequest();
+        request.setInventoryId(1L);
+        request.setTransferType("WAREHOUSE_TO_STORE");
+        request.setQuantity(1);
+
+        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(testInventory));
+        when(userRepository.findByUsername("system")).thenReturn(Optional.of(testUser));
+        when(inventoryRepository.save(any(Inventory.class))).thenReturn(testInventory);
+
+        advancedInventoryService.transferStock(request);
+        advancedInventoryService.transferStock(request);
+
+        verify(userRepository, times(1)).findByUsername("system");
+        verify(inventoryAuditLog, times(2)).record(any(InventoryTransaction.class));
+        verifyNoInteractions(transactionRepository);
+    }
+
+    @Test
+    void transferStock_CreatesSystemUserInItsOwnTransactionAndCachesItOnlyAfterCommit() {
+        AdvancedInventoryService.StockTransferRequest request = new AdvancedInventoryService.StockTransferRequest();
+        request.setInventoryId(1L);
+        request.setTransferType("WAREHOUSE_TO_STORE");
+        request.setQuantity(1);
+
+        when(inventoryRepository.findById(1L)).thenReturn(Optional.of(testInventory));
+        when(userRepository.findByUsername("system")).thenReturn(Optional.empty());
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+        when(inventoryRepository.save(any(Inventory.class))).thenReturn(testInventory);
+        doThrow(new TransactionSystemException("commit failed")).doNothing().when(transactionManager).commit(any());
+
+        assertThrows(TransactionSystemException.class, () -> advancedInventoryService.transferStock(request));
+        advancedInventoryService.transferStock(request);
+        advancedInventoryService.transferStock(request);
+
+        // The failed creation is not cached; the committed one is
+        verify(userRepository, times(2)).save(any(User.class));
+        verify(transactionManager, times(2)).getTransaction(argThat((TransactionDefinition definition) ->
+            definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
     }
 
     @Test
@@ -102,9 +156,11 @@ class AdvancedInventoryServiceTest {
 
         when(inventoryRepository.findById(1L)).thenReturn(Optional.of(testInventory));
         when(userRepository.findByUsername("system")).thenReturn(Optional.of(testUser));
+        when(inventoryStockService.reserve(testInventory, 2)).thenAnswer(inv -> {
+            testInventory.setReservedCount(testInventory.getReservedCount() + 2);
+            return testInventory;
+        });
         when(reservationRepository.save(any(InventoryReservation.class))).thenReturn(savedReservation);
-        when(inventoryRepository.save(any(Inventory.class))).thenReturn(testInventory);
-        when(transactionRepository.save(any(InventoryTransaction.class))).thenReturn(new InventoryTransaction());
 
         // Act
         AdvancedInventoryService.ReservationResult result = advancedInventoryService.reserveStock(request);
@@ -115,8 +171,8 @@ class AdvancedInventoryServiceTest {
         assertEquals(2, testInventory.getReservedCount());
         
         verify(reservationRepository).save(any(InventoryReservation.class));
-        verify(inventoryRepository).save(testInventory);
-        verify(transactionRepository).save(any(InventoryTransaction.class));
+        verify(inventoryStockService).reserve(testInventory, 2);
+        verify(inventoryAuditLog).record(any(InventoryTransaction.class));
     }
 
     @Test
@@ -145,9 +201,12 @@ class AdvancedInventoryServiceTest {
         reservation.setId(1L);
         reservation.setStatus("ACTIVE");
 
-        when(reservationRepository.findById(1L)).thenReturn(Optional.of(reservation));
+        when(reservationRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(reservation));
         when(reservationRepository.save(any(InventoryReservation.class))).thenReturn(reservation);
-        when(inventoryRepository.save(any(Inventory.class))).thenReturn(testInventory);
+        when(inventoryStockService.release(testInventory, 2)).thenAnswer(inv -> {
+            testInventory.setReservedCount(testInventory.getReservedCount() - 2);
+            return testInventory;
+        });
 
         testInventory.setReservedCount(2);
 
@@ -160,6 +219,6 @@ class AdvancedInventoryServiceTest {
         assertEquals(0, testInventory.getReservedCount());
         
         verify(reservationRepository).save(reservation);
-        verify(inventoryRepository).save(testInventory);
+        verify(inventoryStockService).release(testInventory, 2);
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package com.techbookstore.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.techbookstore.app.dto.IntegratedAnalysisRequest;
+import com.techbookstore.app.dto.IntegratedAnalysisResult;
+import com.techbookstore.app.entity.AnalysisJob;
+import com.techbookstore.app.exception.AnalysisJobRejectedException;
+import com.techbookstore.app.repository.AnalysisJobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class AnalysisJobServiceTest {
+
+    @Mock
+    private AnalysisJobRepository jobRepository;
+
+    @Mock
+    private IntegratedInventoryAnalysisService analysisService;
+
+    private ThreadPoolTaskExecutor executor;
+    private AnalysisJobService jobService;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        // One worker and one queue slot, so the third job overflows
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.initialize();
+
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        jobService = new AnalysisJobService(jobRepository, analysisService, executor, objectMapper);
+
+        when(jobRepository.save(any(AnalysisJob.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jobRepository.markRunning(anyString(), any())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_RejectsJobAndDeletesItsRecord() throws Exception {
+        CountDownLatch started = blockWorker();
+
+        jobService.submit(AnalysisJob.JobType.COMPREHENSIVE_ANALYSIS, new IntegratedAnalysisRequest());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        jobService.submit(AnalysisJob.JobType.COMPREHENSIVE_ANALYSIS, new IntegratedAnalysisRequest());
+
+        AnalysisJobRejectedException rejected = assertThrows(AnalysisJobRejectedException.class,
+            () -> jobService.submit(AnalysisJob.JobType.BATCH_OPTIMIZATION, new IntegratedAnalysisRequest()));
+
+        assertEquals(5, rejected.getRetryAfterSeconds());
+        verify(jobRepository, times(3)).save(any(AnalysisJob.class));
+        verify(jobRepository, times(1)).deleteById(anyString());
+    }
+
+    @Test
+    void submit_ReturnsQueuedJobWithoutWaitingForTheAnalysis() throws Exception {
+        CountDownLatch started = blockWorker();
+
+        AnalysisJob job = jobService.submit(AnalysisJob.JobType.COMPREHENSIVE_ANALYSIS, new IntegratedAnalysisRequest());
+
+        assertNotNull(job.getId());
+        assertEquals(AnalysisJob.JobStatus.QUEUED, job.getStatus());
+        assertTrue(started.await(5, TimeUnit.SECONDS), "analysis runs on the executor thread");
+        verify(jobRepository, never()).markFinished(anyString(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void run_StoresResultAsJsonAndCompletesJob() {
+        IntegratedAnalysisResult result = new IntegratedAnalysisResult("analysis-1");
+        result.setStatus("COMPLETED");
+        when(analysisService.executeStagedAnalysis(any())).thenReturn(result);
+
+        jobService.run("job-1", AnalysisJob.JobType.COMPREHENSIVE_ANALYSIS, new IntegratedAnalysisRequest());
+
+        verify(jobRepository).markFinished(eq("job-1"), eq(AnalysisJob.JobStatus.COMPLETED),
+            contains("\"analysisId\":\"analysis-1\""), isNull(), any(), anyLong());
+    }
+
+    @Test
+    void run_WhenAnalysisFails_MarksJobFailed() {
+        when(analysisService.executeStagedAnalysis(any())).thenThrow(new IllegalStateException("boom"));
+
+        jobService.run("job-2", AnalysisJob.JobType.BATCH_OPTIMIZATION, new IntegratedAnalysisRequest());
+
+        verify(jobRepository).markFinished(eq("job-2"), eq(AnalysisJob.JobStatus.FAILED),
+            isNull(), eq("boom"), any(), anyLong());
+    }
+
+    @Test
+    void run_WhenCancelledWhileQueued_SkipsAnalysis() {
+        when(jobRepository.markRunning(eq("job-3"), any())).thenReturn(0);
+
+        jobService.run("job-3", AnalysisJob.JobType.COMPREHENSIVE_ANALYSIS, new IntegratedAnalysisRequest());
+
+        verify(analysisService, never()).executeIntegratedAnalysis(any());
+        verify(jobRepository, never()).markFinished(anyString(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void cancel_QueuedJob_FreesItsQueueSlot() throws Exception {
+        CountDownLatch started = blockWorker();
+        jobService.submit(AnalysisJob.JobType.COMPREHENSIVE_ANALYSIS, new IntegratedAnalysisRequest());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        AnalysisJob queued = jobService.submit(AnalysisJob.JobType.COMPREHENSIVE_ANALYSIS, new IntegratedAnalysisRequest());
+        assertEquals(1, executor.getThreadPoolExecutor().getQueue().size());
+
+        AnalysisJob cancelled = new AnalysisJob(queued.getId(), queued.getJobType(), queued.getParameters());
+        cancelled.setStatus(AnalysisJob.JobStatus.CANCELLED);
+        when(jobRepository.findById(queued.getId())).thenReturn(Optional.of(queued), Optional.of(cancelled));
+        when(jobRepository.cancel(eq(queued.getId()), anyCollection(), any())).thenReturn(1);
+
+        AnalysisJob result = jobService.cancel(queued.getId());
+
+        assertEquals(AnalysisJob.JobStatus.CANCELLED, result.getStatus());
+        assertEquals(0, executor.getThreadPoolExecutor().getQueue().size());
+    }
+
+    /**
+     * Make the analysis block until the test ends; returns a latch released when the worker starts
+     */
+    private CountDownLatch blockWorker() {
+        CountDownLatch started = new CountDownLatch(1);
+        when(analysisService.executeStagedAnalysis(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return new IntegratedAnalysisResult("blocked");
+        });
+        return started;
+    }
+}
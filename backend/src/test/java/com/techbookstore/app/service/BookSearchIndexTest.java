@@ -0,0 +1,101 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for BookSearchIndex
+ * 書籍検索N-gram索引のテスト
+ */
+@ExtendWith(MockitoExtension.class)
+class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> catalog = new ArrayList<>();
+        catalog.add(new Object[] {1L, "Java入門", "Introduction to Java", "9784000000011"});
+        catalog.add(new Object[] {2L, "実践Spring Boot", "Spring Boot in Practice", "9784000000028"});
+        catalog.add(new Object[] {3L, "Javaパフォーマンス", "Java Performance", "9784000000035"});
+        catalog.add(new Object[] {4L, "プログラミング言語C", "The C Programming Language", "9784000000042"});
+        catalog.add(new Object[] {5L, "Java", null, "9784000000059"});
+        when(bookRepository.findSearchFields()).thenReturn(catalog);
+
+        index = new BookSearchIndex(bookRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void search_FindsJapaneseSubstringsWithoutWordBoundaries() {
+        assertEquals(Collections.singletonList(1L), index.search("入門", 10).getBookIds());
+        assertEquals(Collections.singletonList(3L), index.search("パフォーマンス", 10).getBookIds());
+        assertEquals(Collections.singletonList(4L), index.search("言語", 10).getBookIds());
+        assertEquals(0, index.search("入力", 10).getTotal());
+    }
+
+    @Test
+    void search_NormalizesWidthAndCase() {
+        // Full-width letters and half-width katakana fold to the indexed form
+        assertEquals(3, index.search("ＪＡＶＡ", 10).getTotal());
+        assertEquals(Collections.singletonList(3L), index.search("ﾊﾟﾌｫｰﾏﾝｽ", 10).getBookIds());
+        assertEquals(Collections.singletonList(2L), index.search("spring boot in", 10).getBookIds());
+    }
+
+    @Test
+    void search_RanksExactThenPrefixTitleMatchesFirst() {
+        BookSearchIndex.Hits hits = index.search("java", 2);
+
+        assertEquals(3, hits.getTotal());
+        // Exact title first, then the shorter of the two prefix matches
+        assertEquals(Arrays.asList(5L, 1L), hits.getBookIds());
+    }
+
+    @Test
+    void search_MatchesIsbnAndSingleCharacters() {
+        assertEquals(Collections.singletonList(2L), index.search("000000028", 10).getBookIds());
+        assertTrue(index.search("c", 10).getBookIds().contains(4L));
+    }
+
+    @Test
+    void incrementalUpdates_ReplaceAndRemoveBooks() {
+        Book renamed = new Book("9784000000011", "Kotlin入門");
+        renamed.setId(1L);
+        index.index(renamed);
+
+        Book added = new Book("9784000000066", "Go言語入門");
+        added.setId(6L);
+        index.index(added);
+        index.remove(3L);
+
+        assertEquals(Arrays.asList(6L, 1L), index.search("入門", 10).getBookIds());
+        assertEquals(Collections.singletonList(5L), index.findIds("java", 100));
+        assertEquals(Collections.singletonList(1L), index.findIds("kotlin", 100));
+        assertNull(index.findIds("978", 3), "too many matches for an id filter");
+    }
+
+    @Test
+    void notReady_UntilBuilt() {
+        BookSearchIndex empty = new BookSearchIndex(bookRepository);
+
+        assertFalse(empty.isReady());
+        assertNull(empty.search("java", 10));
+        assertNull(empty.findIds("java", 10));
+    }
+}
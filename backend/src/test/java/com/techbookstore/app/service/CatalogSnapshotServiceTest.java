@@ -0,0 +1,97 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.entity.Publisher;
+import com.techbookstore.app.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CatalogSnapshotService
+ * 書籍カタログスナップショットのテスト
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogSnapshotServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    private CatalogSnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {1L, "Java入門", new BigDecimal("3520.00"), LocalDate.of(2022, 4, 1),
+            Book.TechLevel.BEGINNER, 10L});
+        rows.add(new Object[] {3L, "Kotlin実践", null, null, null, null});
+        when(bookRepository.findCatalogFields()).thenReturn(rows);
+        service = new CatalogSnapshotService(bookRepository);
+    }
+
+    @Test
+    void current_LoadsOnceAndKeepsAttributes() {
+        CatalogSnapshotService.CatalogSnapshot snapshot = service.current();
+        assertSame(snapshot, service.current());
+        verify(bookRepository, times(1)).findCatalogFields();
+
+        assertEquals(Arrays.asList(1L, 3L), snapshot.ids());
+        assertEquals(0, new BigDecimal("3520.00").compareTo(snapshot.sellingPrice(0)));
+        assertEquals(LocalDate.of(2022, 4, 1), snapshot.publicationDate(0));
+        assertEquals(Book.TechLevel.BEGINNER, snapshot.level(0));
+        assertEquals(Long.valueOf(10L), snapshot.publisherId(0));
+        assertNull(snapshot.sellingPrice(1));
+        assertNull(snapshot.publicationDate(1));
+        assertNull(snapshot.level(1));
+        assertNull(snapshot.publisherId(1));
+
+        Book book = snapshot.toBook(0);
+        assertEquals(Long.valueOf(1L), book.getId());
+        assertEquals("Java入門", book.getTitle());
+    }
+
+    @Test
+    void bookChanges_PublishNewVersionsWithoutTouchingReaders() {
+        CatalogSnapshotService.CatalogSnapshot before = service.current();
+
+        Book added = new Book("9784000000028", "Go言語");
+        added.setId(2L);
+        added.setSellingPrice(new BigDecimal("2980"));
+        Publisher publisher = new Publisher();
+        publisher.setId(20L);
+        added.setPublisher(publisher);
+        service.bookSaved(added);
+
+        Book renamed = new Book("9784000000011", "Java入門 第2版");
+        renamed.setId(1L);
+        service.bookSaved(renamed);
+        service.bookDeleted(3L);
+        service.bookDeleted(99L);
+
+        CatalogSnapshotService.CatalogSnapshot after = service.current();
+        assertEquals(before.getVersion() + 3, after.getVersion());
+        assertEquals(Arrays.asList(1L, 2L), after.ids());
+        assertEquals("Java入門 第2版", after.title(after.indexOf(1L)));
+        assertEquals(0, new BigDecimal("2980").compareTo(after.sellingPrice(after.indexOf(2L))));
+        assertEquals(Long.valueOf(20L), after.publisherId(after.indexOf(2L)));
+        assertEquals(-1, after.indexOf(3L));
+
+        // The snapshot an analysis started with stays as it was
+        assertEquals(Arrays.asList(1L, 3L), before.ids());
+        assertEquals("Java入門", before.title(0));
+        verify(bookRepository, times(1)).findCatalogFields();
+    }
+}
@@ -0,0 +1,137 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.dto.OptimalStockDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ConstraintOptimizationService scenario sweeps
+ * シナリオスイープのテスト
+ */
+class ConstraintOptimizationServiceTest {
+
+    private ConstraintOptimizationService service;
+    private List<OptimalStockDto> candidates;
+
+    @BeforeEach
+    void setUp() {
+        service = new ConstraintOptimizationService();
+        candidates = new ArrayList<>();
+        Random random = new Random(7L);
+        String[] statuses = {"REORDER_NEEDED", "UNDERSTOCK", "OPTIMAL"};
+        for (int i = 0; i < 40; i++) {
+            OptimalStockDto book = new OptimalStockDto((long) i + 1, "Book " + i, 2, 20, 5, 3);
+            int quantity = 1 + random.nextInt(10);
+            int unitCost = 800 + random.nextInt(3000);
+            book.setRecommendedOrderQuantity(quantity);
+            book.setEstimatedCost(BigDecimal.valueOf((long) quantity * unitCost));
+            book.setEstimatedRevenue(BigDecimal.valueOf((long) quantity * unitCost * (110 + random.nextInt(60)) / 100));
+            book.setStockStatus(statuses[random.nextInt(statuses.length)]);
+            book.setObsolescenceFactor(BigDecimal.valueOf(0.5 + random.nextDouble() / 2));
+            candidates.add(book);
+        }
+    }
+
+    @Test
+    void sweepScenarios_MatchesSingleOptimizationForEveryScenario() {
+        ConstraintOptimizationService.OptimizationConstraints base = service.createDefaultConstraints();
+        base.setMaxItems(60);
+        List<BigDecimal> budgets = new ArrayList<>();
+        for (int step = 1; step <= 10; step++) {
+            budgets.add(BigDecimal.valueOf(step * 15000L));
+        }
+        List<String> focuses = Arrays.asList("PROFIT", "CASH_FLOW", "RISK_MINIMIZATION");
+
+        ConstraintOptimizationService.ScenarioSweepResult sweep =
+            service.sweepScenarios(candidates, base, budgets, focuses);
+
+        assertEquals(30, sweep.getScenarios().size());
+        for (int f = 0; f < focuses.size(); f++) {
+            for (int b = 0; b < budgets.size(); b++) {
+                ConstraintOptimizationService.ScenarioResult scenario = sweep.getScenarios().get(f * budgets.size() + b);
+                assertEquals(focuses.get(f), scenario.getPriorityFocus());
+                assertEquals(0, budgets.get(b).compareTo(scenario.getMaxBudget()));
+                assertTrue(scenario.isProvenOptimal());
+
+                ConstraintOptimizationService.OptimizationConstraints single = service.createDefaultConstraints();
+                single.setMaxItems(60);
+                single.setMaxBudget(budgets.get(b));
+                single.setPriorityFocus(focuses.get(f));
+                ConstraintOptimizationService.OptimizationResult result = service.optimizeBookSelection(candidates, single);
+                assertEquals((Double) result.getMetrics().get("objectiveValue"), scenario.getObjectiveValue(), 1e-6);
+                assertTrue(scenario.getTotalCost().compareTo(budgets.get(b)) <= 0);
+                assertTrue(scenario.getTotalItems() <= 60);
+            }
+        }
+    }
+
+    @Test
+    void sweepScenarios_MarksTheProfitFrontier() {
+        ConstraintOptimizationService.OptimizationConstraints base = service.createDefaultConstraints();
+        base.setMaxItems(500);
+        base.setMaxWeight(500);
+        List<BigDecimal> budgets = Arrays.asList(BigDecimal.valueOf(40000), BigDecimal.valueOf(20000),
+            BigDecimal.valueOf(20000), BigDecimal.valueOf(10000000));
+
+        ConstraintOptimizationService.ScenarioSweepResult sweep =
+            service.sweepScenarios(candidates, base, budgets, Arrays.asList("PROFIT"));
+
+        // Budgets are deduplicated and sorted; once every candidate fits, more budget adds nothing
+        List<ConstraintOptimizationService.ScenarioResult> scenarios = sweep.getScenarios();
+        assertEquals(3, scenarios.size());
+        assertEquals(0, BigDecimal.valueOf(20000).compareTo(scenarios.get(0).getMaxBudget()));
+        assertEquals(0, scenarios.get(0).getTotalProfit().compareTo(scenarios.get(0).getAdditionalProfit()));
+        BigDecimal step = scenarios.get(1).getTotalProfit().subtract(scenarios.get(0).getTotalProfit());
+        assertEquals(0, step.compareTo(scenarios.get(1).getAdditionalProfit()));
+        assertTrue(scenarios.get(0).isEfficient());
+        assertTrue(scenarios.get(1).isEfficient());
+        assertTrue(scenarios.get(2).isEfficient());
+
+        ConstraintOptimizationService.ScenarioSweepResult again = service.sweepScenarios(candidates, base,
+            Arrays.asList(BigDecimal.valueOf(10000000), BigDecimal.valueOf(20000000)), Arrays.asList("PROFIT"));
+        ConstraintOptimizationService.ScenarioResult saturated = again.getScenarios().get(1);
+        assertEquals(0, saturated.getAdditionalProfit().signum());
+        assertEquals(0, saturated.getMarginalProfitPerYen().signum());
+        assertFalse(saturated.isEfficient());
+    }
+
+    @Test
+    void sweepScenarios_RejectsMoreScenariosThanTheCap() {
+        ReflectionTestUtils.setField(service, "maxSweepScenarios", 5);
+        List<BigDecimal> budgets = Arrays.asList(BigDecimal.valueOf(10000), BigDecimal.valueOf(20000),
+            BigDecimal.valueOf(30000));
+
+        assertThrows(IllegalArgumentException.class, () -> service.sweepScenarios(candidates,
+            service.createDefaultConstraints(), budgets, Arrays.asList("PROFIT", "CASH_FLOW")));
+        assertEquals(3, service.sweepScenarios(candidates, service.createDefaultConstraints(), budgets,
+            Arrays.asList("PROFIT")).getScenarios().size());
+    }
+
+    @Test
+    void sweepScenarios_SharesOneTimeBudgetAcrossAllScenarios() {
+        // Out of time from the start: every scenario still gets a feasible (greedy) selection
+        ReflectionTestUtils.setField(service, "sweepTimeBudgetMillis", 0L);
+        ConstraintOptimizationService.OptimizationConstraints base = service.createDefaultConstraints();
+        base.setMaxItems(60);
+        List<BigDecimal> budgets = Arrays.asList(BigDecimal.valueOf(30000), BigDecimal.valueOf(60000));
+
+        ConstraintOptimizationService.ScenarioSweepResult sweep =
+            service.sweepScenarios(candidates, base, budgets, Arrays.asList("PROFIT", "CASH_FLOW"));
+
+        assertTrue(sweep.isTimeBudgetExhausted());
+        assertEquals(4, sweep.getScenarios().size());
+        for (ConstraintOptimizationService.ScenarioResult scenario : sweep.getScenarios()) {
+            assertTrue(scenario.getTotalCost().compareTo(scenario.getMaxBudget()) <= 0);
+            assertTrue(scenario.getTotalItems() > 0);
+        }
+    }
+}
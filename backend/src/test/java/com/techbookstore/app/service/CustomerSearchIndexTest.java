@@ -0,0 +1,105 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Customer;
+import com.techbookstore.app.repository.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CustomerSearchIndex
+ * 顧客検索索引のテスト
+ */
+@ExtendWith(MockitoExtension.class)
+class CustomerSearchIndexTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private CustomerSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Object[]> customers = new ArrayList<>();
+        customers.add(new Object[] {1L, "山田 太郎", "ヤマダ タロウ", "taro.yamada@example.com", "03-1234-5678", null});
+        customers.add(new Object[] {2L, "山本 花子", "やまもと はなこ", "hanako@example.co.jp", "090-1111-2222", "テック書房"});
+        customers.add(new Object[] {3L, "佐藤 一郎", "ｻﾄｳ ｲﾁﾛｳ", "sato@mail.example.com", "(06) 9999-0000", null});
+        customers.add(new Object[] {4L, "山田", null, "yamada@example.com", null, null});
+        when(customerRepository.findSearchFields()).thenReturn(customers);
+
+        index = new CustomerSearchIndex(customerRepository);
+        index.rebuild();
+    }
+
+    @Test
+    void lookup_FoldsKatakanaHiraganaAndHalfWidthKana() {
+        assertEquals(Collections.singletonList(1L), index.findIds("やまだ", 10));
+        assertEquals(Collections.singletonList(2L), index.findIds("ヤマモト", 10));
+        assertEquals(Collections.singletonList(3L), index.findIds("さとう", 10));
+        assertEquals(Collections.singletonList(3L), index.findIds("ｲﾁﾛｳ", 10), "given name on its own");
+        assertEquals(Collections.singletonList(2L), index.findIds("てっく", 10), "company name");
+    }
+
+    @Test
+    void lookup_ReturnsExactKeysBeforeLongerOnesUpToTheLimit() {
+        // "山田" is a whole key of customers 1 (family name) and 4, and a prefix of "山田太郎"
+        assertEquals(Arrays.asList(1L, 4L), index.lookup("山田", 10));
+        assertEquals(Arrays.asList(2L, 1L, 4L), index.lookup("山", 10));
+        assertEquals(Arrays.asList(2L, 1L), index.lookup("山", 2));
+        assertEquals(Collections.singletonList(1L), index.lookup("山田太", 10), "space inside the name is ignored");
+    }
+
+    @Test
+    void lookup_MatchesEmailLocalPartDomainAndPhoneDigits() {
+        assertEquals(Collections.singletonList(1L), index.findIds("Taro.Y", 10));
+        assertEquals(Collections.singletonList(4L), index.findIds("yamada@", 10));
+        assertEquals(Arrays.asList(1L, 4L), index.findIds("example.com", 10));
+        assertEquals(Collections.singletonList(1L), index.findIds("0312345678", 10));
+        assertEquals(Collections.singletonList(1L), index.findIds("03-1234", 10));
+        assertEquals(Collections.singletonList(3L), index.findIds("０６９９", 10), "full-width digits");
+        assertEquals(Collections.emptyList(), index.findIds("1234", 10), "phone numbers match from the start only");
+    }
+
+    @Test
+    void incrementalUpdates_ReplaceKeysAndDropDeletedCustomers() {
+        Customer renamed = new Customer(Customer.CustomerType.INDIVIDUAL, "鈴木 太郎", "taro.suzuki@example.com", "03-5555-0000");
+        renamed.setId(1L);
+        renamed.setNameKana("スズキ タロウ");
+        renamed.setStatus(Customer.CustomerStatus.ACTIVE);
+        index.index(renamed);
+
+        Customer deleted = new Customer(Customer.CustomerType.INDIVIDUAL, "山本 花子", "hanako@example.co.jp", "090-1111-2222");
+        deleted.setId(2L);
+        deleted.setStatus(Customer.CustomerStatus.DELETED);
+        index.index(deleted);
+
+        assertEquals(Collections.singletonList(4L), index.findIds("山", 10));
+        assertEquals(Collections.singletonList(1L), index.findIds("すずき", 10));
+        assertEquals(Collections.emptyList(), index.findIds("031234", 10), "old phone number is gone");
+        assertEquals(Collections.emptyList(), index.findIds("hanako", 10));
+
+        index.remove(4L);
+        assertEquals(Collections.emptyList(), index.findIds("山田", 10));
+    }
+
+    @Test
+    void findIds_ReturnsNullWhenTooManyMatchesOrNotReady() {
+        assertNull(index.findIds("山", 2));
+        assertEquals(3, index.findIds("山", 3).size());
+
+        CustomerSearchIndex empty = new CustomerSearchIndex(customerRepository);
+        assertFalse(empty.isReady());
+        assertNull(empty.findIds("山田", 10));
+        assertNull(empty.lookup("山田", 10));
+    }
+}
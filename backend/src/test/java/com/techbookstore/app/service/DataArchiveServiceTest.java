@@ -0,0 +1,219 @@
+package com.techbookstore.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.entity.Inventory;
+import com.techbookstore.app.repository.BookRepository;
+import com.techbookstore.app.repository.InventoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Archive export, delete and read-back against the real schema
+ */
+@ExtendWith(MockitoExtension.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:archive;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+class DataArchiveServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 10);
+
+    /** Rows of these tests; the seed data keeps the ids below */
+    private static final long FIRST_ID = 1000;
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private SchedulerLeaseService leaseService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    private Book book;
+    private Inventory inventory;
+
+    @BeforeEach
+    void setUp() {
+        String isbn = "AR" + UUID.randomUUID().toString().substring(0, 8);
+        book = bookRepository.save(new Book(isbn, "Archive " + isbn));
+        inventory = inventoryRepository.save(new Inventory(book));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM order_items WHERE id >= ?", FIRST_ID);
+        jdbcTemplate.update("DELETE FROM orders WHERE id >= ?", FIRST_ID);
+        jdbcTemplate.update("DELETE FROM inventory_transactions WHERE id >= ?", FIRST_ID);
+    }
+
+    @Test
+    void archive_ExportsAndDeletesMonthsPastRetention() throws IOException {
+        // Retention 24 months: everything before March 2023 goes
+        insertTransaction(1, "2023-01-05 10:00:00", "old count");
+        insertTransaction(2, "2023-02-28 23:59:59", "old move");
+        insertTransaction(3, "2023-03-01 00:00:00", "kept");
+        insertOrder(10, "2022-12-24 12:00:00", "gift");
+        insertItem(100, 10, 2);
+        insertItem(101, 10, 1);
+        insertOrder(11, "2024-06-01 09:00:00", null);
+        insertItem(110, 11, 5);
+
+        DataArchiveService service = service(1);
+        assertEquals(3, service.archive(TODAY));
+
+        assertEquals(1, count("inventory_transactions"));
+        assertEquals(1, count("orders"));
+        assertEquals(1, count("order_items"));
+        assertEquals(2, archiveFiles("inventory_transactions").count());
+        assertEquals(1, archiveFiles("order_items").count());
+
+        List<Map<String, Object>> transactions = service.findArchivedInventoryTransactions(
+            LocalDateTime.of(2023, 1, 1, 0, 0), LocalDateTime.of(2023, 12, 31, 23, 59), 100);
+        assertEquals(2, transactions.size());
+        assertEquals("old count", transactions.get(0).get("reason"));
+        assertEquals("2023-02-28T23:59:59", transactions.get(1).get("executed_at"));
+        // Filtered on the timestamp, not just the month
+        assertEquals(1, service.findArchivedInventoryTransactions(
+            LocalDateTime.of(2023, 2, 1, 0, 0), LocalDateTime.of(2023, 2, 28, 23, 59, 59), 100).size());
+
+        List<Map<String, Object>> orders = service.findArchivedOrders(
+            LocalDateTime.of(2022, 12, 1, 0, 0), LocalDateTime.of(2022, 12, 31, 23, 59), 100);
+        assertEquals(1, orders.size());
+        assertEquals("gift", orders.get(0).get("notes"));
+        assertEquals(1234.5, ((Number) orders.get(0).get("total_amount")).doubleValue(), 1e-9);
+        assertEquals(2, ((List<?>) orders.get(0).get("items")).size());
+
+        // Nothing left to archive; a row backdated into an archived month later gets a file of its own
+        assertEquals(0, service.archive(TODAY));
+        insertTransaction(4, "2023-01-20 08:00:00", "late");
+        assertEquals(1, service.archive(TODAY));
+        assertEquals(3, service.findArchivedInventoryTransactions(
+            LocalDateTime.of(2023, 1, 1, 0, 0), LocalDateTime.of(2023, 2, 28, 23, 59, 59), 100).size());
+    }
+
+    @Test
+    void findArchived_StopsAtTheLimitAndRejectsLimitsAboveTheMaximum() {
+        insertTransaction(1, "2023-01-05 10:00:00", "first");
+        insertTransaction(2, "2023-01-06 10:00:00", "second");
+        insertTransaction(3, "2023-02-01 10:00:00", "third");
+        insertOrder(10, "2023-01-10 12:00:00", "kept");
+        insertItem(100, 10, 1);
+        insertOrder(11, "2023-01-11 12:00:00", "cut");
+        insertItem(110, 11, 2);
+        DataArchiveService service = service(500, 2);
+        service.archive(TODAY);
+        LocalDateTime from = LocalDateTime.of(2023, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2023, 12, 31, 23, 59);
+
+        List<Map<String, Object>> transactions = service.findArchivedInventoryTransactions(from, to, 2);
+        assertEquals(2, transactions.size());
+        assertEquals("second", transactions.get(1).get("reason"));
+
+        List<Map<String, Object>> orders = service.findArchivedOrders(from, to, 1);
+        assertEquals(1, orders.size());
+        assertEquals("kept", orders.get(0).get("notes"));
+        assertEquals(1, ((List<?>) orders.get(0).get("items")).size());
+
+        assertThrows(IllegalArgumentException.class, () -> service.findArchivedInventoryTransactions(from, to, 3));
+        assertThrows(IllegalArgumentException.class, () -> service.findArchivedOrders(from, to, 0));
+    }
+
+    @Test
+    void archiveOldData_SkipsWhenAnotherNodeHoldsTheLease() {
+        insertTransaction(1, "2020-01-01 00:00:00", "old");
+        when(leaseService.tryAcquire(eq(DataArchiveService.LEASE_NAME), any())).thenReturn(false);
+
+        assertEquals(0, service(500).archiveOldData());
+
+        assertEquals(1, count("inventory_transactions"));
+        verify(leaseService, never()).release(any());
+    }
+
+    @Test
+    void partitionNames_RoundTrip() {
+        YearMonth month = YearMonth.of(2024, 7);
+        String name = DataArchiveService.partitionName("inventory_transactions", month);
+
+        assertEquals("inventory_transactions_p202407", name);
+        assertEquals(month, DataArchiveService.partitionMonth("inventory_transactions", name));
+        assertNull(DataArchiveService.partitionMonth("inventory_transactions", "inventory_transactions_legacy"));
+    }
+
+    private DataArchiveService service(int batchSize) {
+        return service(batchSize, 1000);
+    }
+
+    private DataArchiveService service(int batchSize, int maxReadRows) {
+        return new DataArchiveService(dataSource, transactionManager, new ObjectMapper(), leaseService,
+            directory.toString(), 24, 3, batchSize, 100, 60, maxReadRows);
+    }
+
+    private void insertTransaction(long id, String executedAt, String reason) {
+        jdbcTemplate.update("INSERT INTO inventory_transactions (id, inventory_id, transaction_type, quantity, " +
+            "before_quantity, after_quantity, reason, executed_at, status, created_at) " +
+            "VALUES (?, ?, 'TRANSFER', 1, 0, 1, ?, TIMESTAMP '" + executedAt + "', 'APPROVED', " +
+            "TIMESTAMP '" + executedAt + "')", FIRST_ID + id, inventory.getId(), reason);
+    }
+
+    private void insertOrder(long id, String orderDate, String notes) {
+        jdbcTemplate.update("INSERT INTO orders (id, order_number, status, type, total_amount, notes, order_date) " +
+            "VALUES (?, ?, 'DELIVERED', 'ONLINE', 1234.50, ?, TIMESTAMP '" + orderDate + "')",
+            FIRST_ID + id, "ARC-" + id, notes);
+    }
+
+    private void insertItem(long id, long orderId, int quantity) {
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, book_id, quantity, unit_price, total_price) " +
+            "VALUES (?, ?, ?, ?, 100, ?)", FIRST_ID + id, FIRST_ID + orderId, book.getId(), quantity, 100 * quantity);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE id >= ?", Integer.class,
+            FIRST_ID);
+    }
+
+    private Stream<Path> archiveFiles(String table) throws IOException {
+        return Files.walk(directory.resolve(table)).filter(path -> path.toString().endsWith(".jsonl.gz"));
+    }
+}
@@ -0,0 +1,78 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.entity.DemandForecast;
+import com.techbookstore.app.repository.BookRepository;
+import com.techbookstore.app.repository.DemandForecastRepository;
+import com.techbookstore.app.repository.ForecastAccuracyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for DemandForecastService
+ * 需要予測のテスト
+ */
+@ExtendWith(MockitoExtension.class)
+class DemandForecastServiceTest {
+
+    @Mock
+    private DemandForecastRepository demandForecastRepository;
+
+    @Mock
+    private ForecastAccuracyRepository forecastAccuracyRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private DemandHistoryService demandHistoryService;
+
+    @Mock
+    private SeasonalAnalysisService seasonalAnalysisService;
+
+    @Mock
+    private TechTrendAnalysisService techTrendAnalysisService;
+
+    @InjectMocks
+    private DemandForecastService demandForecastService;
+
+    @Test
+    void generateForecast_UsesTheTwelveCompleteMonthsBeforeTheForecastDate() {
+        // 10 a month from May 2023 to April 2024; the few sales of May 2024 so far are not part of the history
+        Book book = new Book();
+        book.setId(1L);
+        int[] demand = new int[12];
+        Arrays.fill(demand, 10);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(demandHistoryService.loadMonthlyDemand(eq(Collections.singletonList(1L)), eq(YearMonth.of(2023, 5)),
+            eq(YearMonth.of(2024, 4)))).thenReturn(new DemandHistoryService.DemandHistory(YearMonth.of(2023, 5), 12,
+                Collections.singletonMap(1L, demand)));
+        when(demandForecastRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<DemandForecast> forecasts = demandForecastService.generateForecast(1L, LocalDate.of(2024, 5, 10), 3);
+
+        DemandForecast movingAverage = forecasts.stream()
+            .filter(forecast -> "MOVING_AVERAGE".equals(forecast.getAlgorithm()))
+            .findFirst().orElseThrow(AssertionError::new);
+        assertEquals(Integer.valueOf(30), movingAverage.getPredictedDemand());
+    }
+}
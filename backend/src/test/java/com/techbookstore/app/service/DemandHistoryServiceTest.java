@@ -0,0 +1,78 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.repository.OrderRepository;
+import com.techbookstore.app.service.DemandHistoryService.DemandHistory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DemandHistoryServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private DemandHistoryService demandHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        demandHistoryService = new DemandHistoryService(orderRepository);
+    }
+
+    @Test
+    void loadMonthlyDemand_BuildsDenseVectorsFromSingleQuery() {
+        // Given
+        when(orderRepository.aggregateMonthlyDemand(any(), any())).thenReturn(Arrays.asList(
+            new Object[]{1L, 2024, 1, 5L},
+            new Object[]{1L, 2024, 3, 7L},
+            new Object[]{2L, 2024, 2, 4L},
+            new Object[]{2L, 2023, 12, 9L}
+        ));
+
+        // When
+        DemandHistory history = demandHistoryService.loadMonthlyDemand(YearMonth.of(2024, 1), YearMonth.of(2024, 3));
+
+        // Then
+        verify(orderRepository, times(1)).aggregateMonthlyDemand(any(), any());
+        assertEquals(3, history.getMonths());
+        assertArrayEquals(new int[]{5, 0, 7}, history.window(1L, YearMonth.of(2024, 3), 3));
+        assertArrayEquals(new int[]{0, 4, 0}, history.window(2L, YearMonth.of(2024, 3), 3));
+        assertEquals(7, history.demandIn(1L, YearMonth.of(2024, 3)));
+        assertEquals(0, history.demandIn(2L, YearMonth.of(2023, 12)));
+        assertEquals(12, history.totalDemand(1L, YearMonth.of(2024, 3), 3));
+        assertFalse(history.hasDemand(3L));
+    }
+
+    @Test
+    void window_PadsMonthsOutsideLoadedRangeWithZero() {
+        // Given
+        when(orderRepository.aggregateMonthlyDemandForBooks(any(), any(), any()))
+            .thenReturn(Collections.singletonList(new Object[]{1L, 2024, 2, 3L}));
+
+        // When
+        DemandHistory history = demandHistoryService.loadMonthlyDemand(
+            Collections.singletonList(1L), YearMonth.of(2024, 1), YearMonth.of(2024, 2));
+
+        // Then
+        assertArrayEquals(new int[]{0, 0, 3, 0}, history.window(1L, YearMonth.of(2024, 3), 4));
+    }
+
+    @Test
+    void loadMonthlyDemand_EmptyBookIdsSkipsQuery() {
+        DemandHistory history = demandHistoryService.loadMonthlyDemand(
+            Collections.emptyList(), YearMonth.of(2024, 1), YearMonth.of(2024, 12));
+
+        verifyNoInteractions(orderRepository);
+        assertEquals(12, history.getMonths());
+    }
+}
@@ -0,0 +1,194 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.dto.IntegratedAnalysisRequest;
+import com.techbookstore.app.dto.IntegratedAnalysisResult;
+import com.techbookstore.app.dto.InventoryAnalysisDto;
+import com.techbookstore.app.dto.InventoryReportDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the async integrated analysis
+ * 非同期統合分析のテスト
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class IntegratedInventoryAnalysisServiceTest {
+
+    @Mock
+    private ReportService reportService;
+
+    @Mock
+    private ABCXYZAnalysisService abcxyzService;
+
+    @Mock
+    private AnalyticsService analyticsService;
+
+    @Mock
+    private DemandForecastService forecastService;
+
+    @Mock
+    private OptimalStockCalculatorService optimalStockService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private IntegratedInventoryAnalysisService service;
+
+    private ThreadPoolTaskExecutor stageExecutor;
+    private ThreadPoolTaskExecutor forecastExecutor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        stageExecutor = executor("TestStage-");
+        forecastExecutor = executor("TestForecast-");
+        ReflectionTestUtils.setField(service, "stageExecutor", stageExecutor);
+        ReflectionTestUtils.setField(service, "forecastExecutor", forecastExecutor);
+        ReflectionTestUtils.setField(service, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(service, "self", service);
+        ReflectionTestUtils.setField(service, "baseReportTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(service, "advancedAnalysisTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(service, "forecastingTimeoutMs", 300L);
+
+        when(abcxyzService.performAnalysis(any())).thenReturn(new ArrayList<>());
+        when(analyticsService.generateInventoryAnalysis(any(), any())).thenReturn(new InventoryAnalysisDto());
+        when(optimalStockService.calculateOptimalLevels()).thenReturn(Collections.emptyList());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        stageExecutor.shutdown();
+        forecastExecutor.shutdown();
+    }
+
+    @Test
+    void asyncAnalysis_RunsStagesOnTheirOwnExecutors() throws Exception {
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+        when(reportService.generateInventoryReport(any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return new InventoryReportDto();
+        });
+        when(forecastService.generateEnsembleForecasts(anyInt())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return Collections.emptyList();
+        });
+
+        IntegratedAnalysisResult result = service.executeAsyncIntegratedAnalysis(new IntegratedAnalysisRequest())
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals("COMPLETED", result.getStatus());
+        assertNotNull(result.getBaseReport());
+        assertNotNull(result.getAdvancedAnalysis());
+        assertNotNull(result.getForecasting());
+        assertTrue(threads.stream().anyMatch(name -> name.startsWith("TestStage-")));
+        assertTrue(threads.stream().anyMatch(name -> name.startsWith("TestForecast-")));
+        Map<String, String> statuses = result.getPerformanceMetrics().getPhaseStatuses();
+        assertTrue(statuses.values().stream().allMatch("COMPLETED"::equals), statuses.toString());
+        // Each stage runs in a read-only transaction that times out by its deadline (2s, 2s, 300ms)
+        verify(transactionManager, times(3)).getTransaction(argThat((TransactionDefinition definition) ->
+            definition.isReadOnly() && definition.getTimeout() >= 1 && definition.getTimeout() <= 2));
+    }
+
+    @Test
+    void stagedAnalysis_IsWhatAnalysisJobsRun() {
+        when(reportService.generateInventoryReport(any(), any(), any(), any(), any(), any()))
+            .thenReturn(new InventoryReportDto());
+        when(forecastService.generateEnsembleForecasts(anyInt())).thenReturn(Collections.emptyList());
+
+        IntegratedAnalysisResult result = service.executeStagedAnalysis(new IntegratedAnalysisRequest());
+
+        assertEquals("COMPLETED", result.getStatus());
+        assertEquals(4, result.getPerformanceMetrics().getPhaseStatuses().size());
+    }
+
+    @Test
+    void stagedAnalysis_ForAPastDate_RecomputesTheClassesInAWritableTransaction() {
+        when(reportService.generateInventoryReport(any(), any(), any(), any(), any(), any()))
+            .thenReturn(new InventoryReportDto());
+        when(forecastService.generateEnsembleForecasts(anyInt())).thenReturn(Collections.emptyList());
+        IntegratedAnalysisRequest request = new IntegratedAnalysisRequest();
+        request.setAnalysisDate(LocalDate.now().minusMonths(1));
+
+        IntegratedAnalysisResult result = service.executeStagedAnalysis(request);
+
+        assertEquals("COMPLETED", result.getStatus());
+        verify(abcxyzService).performAnalysis(request.getAnalysisDate());
+        verify(transactionManager, times(1)).getTransaction(argThat((TransactionDefinition definition) ->
+            !definition.isReadOnly()));
+        verify(transactionManager, times(2)).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    void asyncAnalysis_WhenForecastingMissesItsDeadline_ReturnsPartialResult() throws Exception {
+        when(reportService.generateInventoryReport(any(), any(), any(), any(), any(), any()))
+            .thenReturn(new InventoryReportDto());
+        when(forecastService.generateEnsembleForecasts(anyInt())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return Collections.emptyList();
+        });
+
+        long start = System.currentTimeMillis();
+        IntegratedAnalysisResult result = service.executeAsyncIntegratedAnalysis(new IntegratedAnalysisRequest())
+            .get(5, TimeUnit.SECONDS);
+
+        assertTrue(System.currentTimeMillis() - start < 2000, "does not wait for the slow stage");
+        assertEquals("PARTIAL", result.getStatus());
+        assertNotNull(result.getBaseReport());
+        assertNotNull(result.getAdvancedAnalysis());
+        assertNull(result.getForecasting());
+        assertNotNull(result.getOptimization());
+        assertEquals("TIMED_OUT",
+            result.getPerformanceMetrics().getPhaseStatuses().get(IntegratedInventoryAnalysisService.PHASE_FORECASTING));
+    }
+
+    @Test
+    void asyncAnalysis_WhenStageFails_ReturnsPartialResult() throws Exception {
+        when(reportService.generateInventoryReport(any(), any(), any(), any(), any(), any()))
+            .thenThrow(new IllegalStateException("report unavailable"));
+        when(forecastService.generateEnsembleForecasts(anyInt())).thenReturn(Collections.emptyList());
+
+        IntegratedAnalysisResult result = service.executeAsyncIntegratedAnalysis(new IntegratedAnalysisRequest())
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals("PARTIAL", result.getStatus());
+        assertNull(result.getBaseReport());
+        assertEquals("FAILED",
+            result.getPerformanceMetrics().getPhaseStatuses().get(IntegratedInventoryAnalysisService.PHASE_BASE_REPORTS));
+    }
+
+    private static ThreadPoolTaskExecutor executor(String prefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(4);
+        executor.setThreadNamePrefix(prefix);
+        executor.initialize();
+        return executor;
+    }
+}
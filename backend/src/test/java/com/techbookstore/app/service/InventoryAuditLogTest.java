@@ -0,0 +1,253 @@
+package com.techbookstore.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.entity.Inventory;
+import com.techbookstore.app.entity.InventoryTransaction;
+import com.techbookstore.app.entity.TransactionStatus;
+import com.techbookstore.app.entity.TransactionType;
+import com.techbookstore.app.entity.User;
+import com.techbookstore.app.repository.BookRepository;
+import com.techbookstore.app.repository.InventoryRepository;
+import com.techbookstore.app.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Write-behind audit log against the real schema
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class InventoryAuditLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private InventoryRepository inventoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<InventoryAuditLog> logs = new ArrayList<>();
+    private String marker;
+    private Inventory inventory;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        marker = UUID.randomUUID().toString().substring(0, 8);
+        inventory = inventoryRepository.save(new Inventory(bookRepository.save(new Book("AL" + marker, "Audit " + marker))));
+        user = userRepository.save(new User("al-" + marker, "Audit User", marker + "@example.com", "SYSTEM"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        logs.forEach(InventoryAuditLog::stop);
+    }
+
+    @Test
+    void record_WritesRowsInTheBackgroundAndDeletesTheWrittenJournal() throws Exception {
+        InventoryAuditLog log = auditLog(100);
+        log.start();
+
+        for (int i = 1; i <= 3; i++) {
+            log.record(transaction(i, "move " + i));
+        }
+        awaitBacklog(log);
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+            "SELECT * FROM inventory_transactions WHERE inventory_id = ? ORDER BY id", inventory.getId());
+        assertEquals(3, rows.size());
+        assertEquals("TRANSFER", rows.get(0).get("TRANSACTION_TYPE"));
+        assertEquals("APPROVED", rows.get(0).get("STATUS"));
+        assertEquals(user.getId().longValue(), ((Number) rows.get(0).get("EXECUTED_BY")).longValue());
+        assertEquals("move 3", rows.get(2).get("REASON"));
+
+        List<String> journalIds = journalIds();
+        log.stop();
+        assertEquals(0, journalIds().size());
+        assertEquals(0, checkpoints(journalIds));
+    }
+
+    @Test
+    void start_ReplaysJournalLeftByACrashFromItsCheckpoint() throws Exception {
+        // A previous run journaled three records, wrote the first, and died while appending a fourth
+        String journalId = UUID.randomUUID().toString();
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            InventoryAuditLog.AuditRecord record = InventoryAuditLog.AuditRecord.of(transaction(i, "crash " + i));
+            record.setSequence(i);
+            lines.add(objectMapper.writeValueAsString(record));
+        }
+        lines.add("{\"sequence\":4,\"inventoryId\":");
+        Files.write(directory.resolve(journalId + ".journal"), lines, StandardCharsets.UTF_8);
+        jdbcTemplate.update("INSERT INTO audit_journal_checkpoints (journal_id, last_sequence) VALUES (?, 1)",
+            journalId);
+
+        auditLog(100).start();
+
+        assertEquals(Arrays.asList("crash 2", "crash 3"), reasons());
+        assertFalse(Files.exists(directory.resolve(journalId + ".journal")));
+        assertEquals(0, checkpoints(Collections.singletonList(journalId)));
+    }
+
+    @Test
+    void writer_CatchesUpFromTheJournalWhenTheQueueOverflowed() throws Exception {
+        InventoryAuditLog log = auditLog(2);
+        for (int i = 1; i <= 7; i++) {
+            log.record(transaction(i, "burst " + i));
+        }
+
+        log.start();
+        awaitBacklog(log);
+
+        assertEquals(7, new HashSet<>(reasons()).size());
+        assertEquals(7, reasons().size());
+    }
+
+    @Test
+    void append_RotatesPastTheSizeWhateverIsUnwrittenAndTheWriterDeletesWrittenJournals() throws Exception {
+        InventoryAuditLog log = auditLog(2, 1L);
+        for (int i = 1; i <= 5; i++) {
+            log.record(transaction(i, "rotated " + i));
+        }
+        // Every append went past the size, so each record is in a journal of its own, plus the one appended to next
+        List<String> rotated = journalIds();
+        assertEquals(6, rotated.size());
+
+        log.start();
+        awaitBacklog(log);
+        long deadline = System.currentTimeMillis() + 10000;
+        while (journalIds().size() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(Arrays.asList("rotated 1", "rotated 2", "rotated 3", "rotated 4", "rotated 5"), reasons());
+        assertEquals(1, journalIds().size());
+        rotated.removeAll(journalIds());
+        assertEquals(0, checkpoints(rotated));
+    }
+
+    @Test
+    void writer_MovesRecordsTheDatabaseRejectsToTheDeadLetterFileAndMovesOn() throws Exception {
+        InventoryAuditLog log = auditLog(100);
+        log.start();
+
+        log.record(transaction(1, "good 1"));
+        InventoryTransaction rejected = transaction(2, "no inventory");
+        rejected.setInventory(null);
+        log.record(rejected);
+        log.record(transaction(3, "good 3"));
+        awaitBacklog(log);
+
+        assertEquals(Arrays.asList("good 1", "good 3"), reasons());
+        try (Stream<Path> files = Files.list(directory.resolve(InventoryAuditLog.DEAD_LETTER_DIRECTORY))) {
+            List<String> deadLetters = Files.readAllLines(files.findFirst().get(), StandardCharsets.UTF_8);
+            assertEquals(1, deadLetters.size());
+            assertEquals("no inventory",
+                objectMapper.readValue(deadLetters.get(0), InventoryAuditLog.AuditRecord.class).getReason());
+        }
+        // Records after the rejected one keep flowing
+        log.record(transaction(4, "good 4"));
+        awaitBacklog(log);
+        assertEquals(3, reasons().size());
+    }
+
+    @Test
+    void isTransient_OnlyForErrorsThatGoAwayOnTheirOwn() {
+        assertTrue(InventoryAuditLog.isTransient(new CannotAcquireLockException("lock")));
+        assertTrue(InventoryAuditLog.isTransient(new CannotGetJdbcConnectionException("down")));
+        assertFalse(InventoryAuditLog.isTransient(new DataIntegrityViolationException("fk")));
+    }
+
+    private InventoryAuditLog auditLog(int queueCapacity) throws IOException {
+        return auditLog(queueCapacity, 8388608L);
+    }
+
+    private InventoryAuditLog auditLog(int queueCapacity, long rotateBytes) throws IOException {
+        InventoryAuditLog log = new InventoryAuditLog(dataSource, transactionManager, objectMapper,
+            directory.toString(), queueCapacity, 2, 20, false, rotateBytes);
+        logs.add(log);
+        return log;
+    }
+
+    private InventoryTransaction transaction(int quantity, String reason) {
+        InventoryTransaction transaction = new InventoryTransaction(inventory, TransactionType.TRANSFER, quantity,
+            10, 10, user);
+        transaction.setReason(reason);
+        transaction.setStatus(TransactionStatus.APPROVED);
+        return transaction;
+    }
+
+    private static void awaitBacklog(InventoryAuditLog log) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (log.getBacklog() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, log.getBacklog());
+    }
+
+    private List<String> reasons() {
+        return jdbcTemplate.queryForList("SELECT reason FROM inventory_transactions WHERE inventory_id = ? ORDER BY id",
+            String.class, inventory.getId());
+    }
+
+    private int checkpoints(List<String> journalIds) {
+        int count = 0;
+        for (String journalId : journalIds) {
+            count += jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM audit_journal_checkpoints WHERE journal_id = ?", Integer.class, journalId);
+        }
+        return count;
+    }
+
+    private List<String> journalIds() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                .filter(name -> name.endsWith(".journal"))
+                .map(name -> name.substring(0, name.length() - ".journal".length()))
+                .collect(Collectors.toList());
+        }
+    }
+}
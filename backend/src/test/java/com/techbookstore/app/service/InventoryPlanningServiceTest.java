@@ -0,0 +1,189 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Nightly planning recalculation against the real schema
+ */
+@ExtendWith(MockitoExtension.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:planning;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+class InventoryPlanningServiceTest {
+
+    private static final int MONTHS = InventoryPlanningService.HISTORY_MONTHS;
+    private static final LocalDate TODAY = LocalDate.of(2024, 7, 15);
+
+    @Mock
+    private SalesSeriesService salesSeriesService;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private ABCXYZClassificationTracker classificationTracker;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    private long first;
+    private long second;
+
+    @BeforeEach
+    void setUp() {
+        // The job plans every inventory row, so this database holds only the rows of the test
+        jdbcTemplate.update("DELETE FROM daily_book_sales");
+        jdbcTemplate.update("DELETE FROM inventory");
+        first = book();
+        second = book();
+    }
+
+    @Test
+    void recalculateAll_WritesPlanningColumnsAndSkipsUnchangedRows() {
+        // Book 1 sells 30 or 90 a month, last online on the 12th; book 2 never sold
+        int[] quantities = new int[2 * MONTHS];
+        for (int month = 0; month < MONTHS; month++) {
+            quantities[month] = month % 2 == 0 ? 30 : 90;
+        }
+        when(salesSeriesService.monthly(any(), any(), any())).thenReturn(new SalesSeriesService.SalesSeries(
+            SalesSeriesService.Granularity.MONTH, LocalDate.of(2023, 7, 1), MONTHS, new long[] {first, second},
+            quantities, new long[2 * MONTHS]));
+        when(classificationTracker.isReady()).thenReturn(true);
+        when(classificationTracker.classify(first)).thenReturn(classification("A", "Y"));
+        when(classificationTracker.classify(second)).thenReturn(classification("C", "Z"));
+        jdbcTemplate.update("INSERT INTO inventory (id, book_id, store_stock, warehouse_stock, last_sold_date, " +
+            "average_lead_time_days, reorder_point, version) VALUES (10, ?, 40, 80, DATE '2024-07-10', 10, 5, 0)",
+            first);
+        jdbcTemplate.update("INSERT INTO inventory (id, book_id, store_stock, warehouse_stock, last_received_date, " +
+            "reorder_point, version) VALUES (20, ?, 6, 0, DATE '2024-01-15', 3, 0)", second);
+        insertSales(first, "2024-07-12", 2);
+        insertSales(first, "2024-07-13", 0);
+        insertSales(second, "2024-06-01", 0);
+
+        InventoryPlanningService service = service(2);
+        assertEquals(2, service.recalculateAll(TODAY));
+
+        // mean 60/month = 2/day, sd 30/month; safety = ceil(1.65 * 30/sqrt(30) * sqrt(10)) = 29
+        Map<String, Object> selling = row(10);
+        assertEquals(29, selling.get("SAFETY_STOCK_LEVEL"));
+        assertEquals(20 + 29, selling.get("REORDER_POINT"));
+        assertEquals(49 + 60, selling.get("MAXIMUM_STOCK_LEVEL"));
+        assertEquals(6.0, (Double) selling.get("TURNOVER_RATE"), 1e-9);
+        assertEquals(3, selling.get("DAYS_SINCE_LAST_SALE"));
+        assertEquals(Date.valueOf("2024-07-12"), selling.get("LAST_SOLD_DATE"));
+        assertEquals("A", selling.get("ABC_CLASSIFICATION"));
+        assertEquals("Y", selling.get("XYZ_CLASSIFICATION"));
+        assertEquals(0L, ((Number) selling.get("VERSION")).longValue());
+
+        // No demand: no reorder point (out of the low-stock alerts); a receipt or an empty aggregate is no sale
+        Map<String, Object> dead = row(20);
+        assertNull(dead.get("REORDER_POINT"));
+        assertNull(dead.get("MAXIMUM_STOCK_LEVEL"));
+        assertEquals(0, dead.get("SAFETY_STOCK_LEVEL"));
+        assertNull(dead.get("DAYS_SINCE_LAST_SALE"));
+        assertEquals(0.0, (Double) dead.get("TURNOVER_RATE"), 1e-9);
+        assertEquals("C", dead.get("ABC_CLASSIFICATION"));
+
+        // A second run finds nothing to write, the next day only the day counts move
+        assertEquals(0, service.recalculateAll(TODAY));
+        assertEquals(1, service.recalculateAll(TODAY.plusDays(1)));
+        assertEquals(4, row(10).get("DAYS_SINCE_LAST_SALE"));
+
+        // A shelf sale after the aggregate was read is not moved back
+        jdbcTemplate.update("UPDATE inventory SET last_sold_date = DATE '2024-07-16' WHERE id = 10");
+        assertEquals(1, service.recalculateAll(TODAY.plusDays(1)));
+        assertEquals(0, row(10).get("DAYS_SINCE_LAST_SALE"));
+        assertEquals(Date.valueOf("2024-07-16"), row(10).get("LAST_SOLD_DATE"));
+    }
+
+    @Test
+    void recalculateAll_KeepsClassesUntilTrackerIsReady() {
+        when(salesSeriesService.monthly(any(), any(), any())).thenReturn(new SalesSeriesService.SalesSeries(
+            SalesSeriesService.Granularity.MONTH, LocalDate.of(2023, 7, 1), MONTHS, new long[0],
+            new int[0], new long[0]));
+        when(classificationTracker.isReady()).thenReturn(false);
+        jdbcTemplate.update("INSERT INTO inventory (id, book_id, store_stock, warehouse_stock, " +
+            "abc_classification, xyz_classification, version) VALUES (30, ?, 1, 0, 'B', 'X', 0)", first);
+
+        assertEquals(1, service(500).recalculateAll(TODAY));
+
+        Map<String, Object> row = row(30);
+        assertEquals("B", row.get("ABC_CLASSIFICATION"));
+        assertEquals("X", row.get("XYZ_CLASSIFICATION"));
+        assertEquals(0.0, (Double) row.get("TURNOVER_RATE"), 1e-9);
+        assertNull(row.get("DAYS_SINCE_LAST_SALE"));
+    }
+
+    @Test
+    void recalculateIfUnplanned_RunsOnlyWhileRowsWereNeverPlanned() {
+        when(salesSeriesService.monthly(any(), any(), any())).thenReturn(new SalesSeriesService.SalesSeries(
+            SalesSeriesService.Granularity.MONTH, LocalDate.of(2023, 7, 1), MONTHS, new long[0],
+            new int[0], new long[0]));
+        jdbcTemplate.update("INSERT INTO inventory (id, book_id, store_stock, warehouse_stock, turnover_rate, " +
+            "version) VALUES (40, ?, 1, 0, 0.5, 0)", first);
+        jdbcTemplate.update("INSERT INTO inventory (id, book_id, store_stock, warehouse_stock, version) " +
+            "VALUES (41, ?, 1, 0, 0)", second);
+        InventoryPlanningService service = service(500);
+
+        service.recalculateIfUnplanned();
+        assertEquals(0.0, (Double) row(41).get("TURNOVER_RATE"), 1e-9);
+
+        service.recalculateIfUnplanned();
+        verify(salesSeriesService, times(1)).monthly(any(), any(), any());
+    }
+
+    private InventoryPlanningService service(int batchSize) {
+        return new InventoryPlanningService(dataSource, transactionManager, salesSeriesService,
+            catalogSnapshotService, classificationTracker, 100, batchSize);
+    }
+
+    private long book() {
+        String isbn = "IP" + UUID.randomUUID().toString().substring(0, 8);
+        return bookRepository.save(new Book(isbn, "Planning " + isbn)).getId();
+    }
+
+    private void insertSales(long bookId, String saleDate, int quantity) {
+        jdbcTemplate.update("INSERT INTO daily_book_sales (book_id, sale_date, quantity, revenue, order_count) " +
+            "VALUES (?, DATE '" + saleDate + "', ?, 0, 0)", bookId, quantity);
+    }
+
+    private Map<String, Object> row(long id) {
+        return jdbcTemplate.queryForMap("SELECT * FROM inventory WHERE id = ?", id);
+    }
+
+    private static ABCXYZClassificationTracker.Classification classification(String abc, String xyz) {
+        return new ABCXYZClassificationTracker.Classification(abc, xyz, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+}
@@ -0,0 +1,120 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.repository.InventoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for InventoryStockService
+ * 在庫更新のテスト
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryStockServiceTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InventoryStockService service;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        service = new InventoryStockService(inventoryRepository, entityManager, transactionManager);
+        ReflectionTestUtils.setField(service, "lockTimeoutMs", 50L);
+        ReflectionTestUtils.setField(service, "maxAttempts", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void deductForOrder_InCallersTransaction_HoldsTheStripeUntilThatTransactionCompletes() {
+        when(inventoryRepository.deductAvailableStock(anyLong(), anyInt())).thenReturn(1);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.lockBooks(Arrays.asList(2L, 1L));
+        service.deductForOrder(1L, "Joined", 2);
+        service.deductForOrder(2L, "Joined", 1);
+
+        assertTrue(service.lockFor(1L).isHeldByCurrentThread());
+        assertEquals(1, service.lockFor(1L).getHoldCount(), "one hold per transaction");
+        verifyNoInteractions(transactionManager);
+        TransactionSynchronizationManager.getSynchronizations()
+            .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        assertFalse(service.lockFor(1L).isHeldByCurrentThread());
+        assertFalse(service.lockFor(2L).isHeldByCurrentThread());
+    }
+
+    @Test
+    void deductForOrder_InCallersTransaction_GivesUpWhenAnotherTransactionHoldsTheStripe() throws Exception {
+        holdStripeOf(1L);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertThrows(CannotAcquireLockException.class, () -> service.deductForOrder(1L, "Joined", 2));
+
+        verify(inventoryRepository, never()).deductAvailableStock(any(), anyInt());
+    }
+
+    @Test
+    void deductForOrder_OnItsOwn_WaitsForTheStripeAndGivesUpAfterTheAttempts() throws Exception {
+        holdStripeOf(1L);
+
+        assertThrows(CannotAcquireLockException.class, () -> service.deductForOrder(1L, "Own", 2));
+
+        verify(inventoryRepository, never()).deductAvailableStock(any(), anyInt());
+    }
+
+    private void holdStripeOf(Long bookId) throws InterruptedException {
+        ReentrantLock lock = service.lockFor(bookId);
+        CountDownLatch held = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            lock.lock();
+            try {
+                held.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        });
+        holder.setDaemon(true);
+        holder.start();
+        assertTrue(held.await(5, TimeUnit.SECONDS));
+    }
+}
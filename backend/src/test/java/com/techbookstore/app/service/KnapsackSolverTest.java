@@ -0,0 +1,156 @@
+package com.techbookstore.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for KnapsackSolver
+ * ナップサックソルバーのテスト
+ */
+class KnapsackSolverTest {
+
+    @Test
+    void exact_BeatsGreedyWhereTheRatioOrderFails() {
+        // Greedy by ratio takes the small item first and then nothing else fits
+        double[] values = {60, 100, 120};
+        long[] costs = {10, 20, 30};
+        int[] items = {1, 1, 1};
+        int[] weights = {1, 1, 1};
+
+        KnapsackSolver.Solution solution = KnapsackSolver.solve(values, costs, items, weights,
+            50, 10, 10, Long.MAX_VALUE);
+
+        assertTrue(solution.isOptimal());
+        assertEquals(220.0, solution.getValue(), 1e-9);
+        assertEquals(2, solution.getSelected().length);
+        assertTrue(solution.getUpperBound() >= solution.getValue());
+    }
+
+    @Test
+    void exact_MatchesExhaustiveSearchOnRandomInstances() {
+        Random random = new Random(11L);
+        for (int instance = 0; instance < 200; instance++) {
+            int n = 1 + random.nextInt(14);
+            double[] values = new double[n];
+            long[] costs = new long[n];
+            int[] items = new int[n];
+            int[] weights = new int[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = random.nextInt(10) == 0 ? -random.nextInt(50) : random.nextInt(1000) / 7.0;
+                costs[i] = random.nextInt(500);
+                items[i] = 1 + random.nextInt(20);
+                weights[i] = random.nextInt(30);
+            }
+            long budget = random.nextInt(2000);
+            int maxItems = random.nextInt(60);
+            int maxWeight = random.nextInt(100);
+
+            KnapsackSolver.Solution solution = KnapsackSolver.solve(values, costs, items, weights,
+                budget, maxItems, maxWeight, Long.MAX_VALUE);
+
+            assertTrue(solution.isOptimal());
+            assertFeasible(solution, values, costs, items, weights, budget, maxItems, maxWeight);
+            assertEquals(bruteForce(values, costs, items, weights, budget, maxItems, maxWeight),
+                solution.getValue(), 1e-6, "instance " + instance);
+        }
+    }
+
+    @Test
+    void anytime_ReturnsFeasibleSelectionWithinBudget() {
+        Random random = new Random(3L);
+        int n = 20000;
+        double[] values = new double[n];
+        long[] costs = new long[n];
+        int[] items = new int[n];
+        int[] weights = new int[n];
+        for (int i = 0; i < n; i++) {
+            items[i] = 1 + random.nextInt(30);
+            weights[i] = items[i];
+            costs[i] = items[i] * (100000L + random.nextInt(400000));
+            values[i] = costs[i] * (0.1 + random.nextDouble() * 0.4) / 100.0;
+        }
+
+        KnapsackSolver.Solution solution = KnapsackSolver.solve(values, costs, items, weights,
+            5000000000L, 20000, 20000, TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertFeasible(solution, values, costs, items, weights, 5000000000L, 20000, 20000);
+        assertTrue(solution.getValue() > 0);
+        assertTrue(solution.getValue() <= solution.getUpperBound() + 1e-6);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(solution.getElapsedNanos()) < 1000);
+    }
+
+    @Test
+    void initialSelection_ExtendsSmallerBudgetSolutionToTheSameOptimum() {
+        Random random = new Random(5L);
+        int n = 12;
+        double[] values = new double[n];
+        long[] costs = new long[n];
+        int[] items = new int[n];
+        int[] weights = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = 1 + random.nextInt(500);
+            costs[i] = 1 + random.nextInt(300);
+            items[i] = 1 + random.nextInt(5);
+            weights[i] = items[i];
+        }
+        KnapsackSolver.Solution smaller = KnapsackSolver.solve(values, costs, items, weights,
+            400, 20, 20, Long.MAX_VALUE);
+
+        KnapsackSolver.Solution warm = KnapsackSolver.solve(values, costs, items, weights,
+            900, 20, 20, smaller.getSelected(), Long.MAX_VALUE);
+        KnapsackSolver.Solution cold = KnapsackSolver.solve(values, costs, items, weights,
+            900, 20, 20, Long.MAX_VALUE);
+
+        assertTrue(warm.isOptimal());
+        assertEquals(cold.getValue(), warm.getValue(), 1e-9);
+        assertEquals(bruteForce(values, costs, items, weights, 900, 20, 20), warm.getValue(), 1e-9);
+
+        // A start that does not fit the smaller budget is ignored
+        KnapsackSolver.Solution ignored = KnapsackSolver.solve(values, costs, items, weights,
+            400, 20, 20, warm.getSelected(), Long.MAX_VALUE);
+        assertEquals(smaller.getValue(), ignored.getValue(), 1e-9);
+    }
+
+    private static void assertFeasible(KnapsackSolver.Solution solution, double[] values, long[] costs, int[] items,
+                                       int[] weights, long budget, long maxItems, long maxWeight) {
+        long cost = 0;
+        long itemCount = 0;
+        long weight = 0;
+        double value = 0;
+        for (int i : solution.getSelected()) {
+            cost += costs[i];
+            itemCount += items[i];
+            weight += weights[i];
+            value += values[i];
+        }
+        assertTrue(cost <= budget && itemCount <= maxItems && weight <= maxWeight);
+        assertEquals(value, solution.getValue(), 1e-6);
+    }
+
+    private static double bruteForce(double[] values, long[] costs, int[] items, int[] weights,
+                                     long budget, long maxItems, long maxWeight) {
+        double best = 0;
+        for (int mask = 0; mask < (1 << values.length); mask++) {
+            long cost = 0;
+            long itemCount = 0;
+            long weight = 0;
+            double value = 0;
+            for (int i = 0; i < values.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    cost += costs[i];
+                    itemCount += items[i];
+                    weight += weights[i];
+                    value += values[i];
+                }
+            }
+            if (cost <= budget && itemCount <= maxItems && weight <= maxWeight) {
+                best = Math.max(best, value);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,128 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.dto.OptimalStockDto;
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.entity.Inventory;
+import com.techbookstore.app.entity.Order;
+import com.techbookstore.app.entity.OrderItem;
+import com.techbookstore.app.repository.BookRepository;
+import com.techbookstore.app.repository.InventoryRepository;
+import com.techbookstore.app.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for OptimalStockCalculatorService bulk calculation
+ * 最適在庫の一括計算のテスト
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class OptimalStockCalculatorServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private OptimalStockCalculatorService service;
+    private final List<Book> books = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        LocalDate today = LocalDate.now();
+        List<Object[]> catalogRows = new ArrayList<>();
+        List<Object[]> stockRows = new ArrayList<>();
+        List<Object[]> demandRows = new ArrayList<>();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Book book = new Book("97840000000" + i, "Book " + i);
+            book.setId(i + 1L);
+            book.setSellingPrice(new BigDecimal(1800 + i * 900));
+            book.setPublicationDate(today.minusMonths(i * 20L));
+            books.add(book);
+            catalogRows.add(new Object[] {book.getId(), book.getTitle(), book.getSellingPrice(),
+                book.getPublicationDate(), null, null});
+
+            Inventory inventory = new Inventory(book);
+            inventory.setStoreStock(i * 3);
+            inventory.setWarehouseStock(2);
+            when(bookRepository.findById(book.getId())).thenReturn(Optional.of(book));
+            when(inventoryRepository.findByBookId(book.getId())).thenReturn(Optional.of(inventory));
+            stockRows.add(new Object[] {book.getId(), inventory.getTotalStock()});
+
+            // Book i sold 10 * i copies in each of two months
+            for (int month = 1; month <= 2 && i > 0; month++) {
+                Order order = new Order();
+                order.setOrderItems(new ArrayList<>(Collections.singletonList(
+                    new OrderItem(order, book, 10 * i, book.getSellingPrice()))));
+                orders.add(order);
+                demandRows.add(new Object[] {book.getId(), today.getYear(), month, 10L * i});
+            }
+        }
+        when(bookRepository.findCatalogFields()).thenReturn(catalogRows);
+        when(inventoryRepository.findTotalStockByBookIn(anyCollection())).thenReturn(stockRows);
+        when(orderRepository.findByOrderDateBetween(any(), any())).thenReturn(orders);
+        when(orderRepository.aggregateMonthlyDemandForBooks(any(), any(), anyCollection())).thenReturn(demandRows);
+
+        service = new OptimalStockCalculatorService(null, bookRepository, new CatalogSnapshotService(bookRepository),
+            inventoryRepository, orderRepository, null, null, null);
+    }
+
+    @Test
+    void calculateOptimalStockBulk_MatchesSingleBookCalculationInInputOrder() {
+        List<Long> bookIds = Arrays.asList(3L, 1L, 4L, 3L, 2L);
+
+        List<OptimalStockDto> bulk = service.calculateOptimalStockBulk(bookIds);
+
+        assertEquals(bookIds.size(), bulk.size());
+        for (int i = 0; i < bookIds.size(); i++) {
+            OptimalStockDto expected = service.calculateOptimalStock(bookIds.get(i));
+            OptimalStockDto actual = bulk.get(i);
+            assertEquals(bookIds.get(i), actual.getBookId());
+            assertEquals(expected.getBookTitle(), actual.getBookTitle());
+            assertEquals(expected.getCurrentStock(), actual.getCurrentStock());
+            assertEquals(expected.getEconomicOrderQuantity(), actual.getEconomicOrderQuantity());
+            assertEquals(expected.getSafetyStock(), actual.getSafetyStock());
+            assertEquals(expected.getReorderPoint(), actual.getReorderPoint());
+            assertEquals(expected.getOptimalStockLevel(), actual.getOptimalStockLevel());
+            assertEquals(expected.getStockStatus(), actual.getStockStatus());
+            assertEquals(expected.getRecommendedOrderQuantity(), actual.getRecommendedOrderQuantity());
+            assertEquals(expected.getEstimatedCost(), actual.getEstimatedCost());
+            assertEquals(0, expected.getObsolescenceFactor().compareTo(actual.getObsolescenceFactor()));
+        }
+        // Stock and demand came from the two grouped queries, not from per-book lookups
+        verify(inventoryRepository, never()).findTotalStockByBook();
+        verify(orderRepository, never()).aggregateMonthlyDemand(any(), any());
+    }
+
+    @Test
+    void calculateOptimalStockBulk_RejectsUnknownBooks() {
+        RuntimeException exception = assertThrows(RuntimeException.class,
+            () -> service.calculateOptimalStockBulk(Arrays.asList(1L, 99L)));
+        assertEquals("Book not found: 99", exception.getMessage());
+    }
+}
@@ -0,0 +1,124 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.OrderNumberCounter;
+import com.techbookstore.app.repository.OrderNumberCounterRepository;
+import com.techbookstore.app.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderNumberAllocatorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    @Mock
+    private OrderNumberCounterRepository counterRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<LocalDate, OrderNumberCounter> counters = new ConcurrentHashMap<>();
+
+    private OrderNumberAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        allocator = new OrderNumberAllocator(counterRepository, orderRepository, transactionManager);
+
+        // In-memory counter table
+        lenient().when(counterRepository.findForUpdate(any()))
+            .thenAnswer(inv -> Optional.ofNullable(counters.get(inv.<LocalDate>getArgument(0))));
+        lenient().when(counterRepository.saveAndFlush(any(OrderNumberCounter.class)))
+            .thenAnswer(inv -> {
+                OrderNumberCounter counter = inv.getArgument(0);
+                counters.put(counter.getCounterDate(), counter);
+                return counter;
+            });
+    }
+
+    @Test
+    void nextOrderNumber_KeepsFormatAndReservesInBlocks() {
+        // Given
+        when(orderRepository.findOrderNumbersByPrefix("ORD-20240315-")).thenReturn(Collections.emptyList());
+
+        // When
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            numbers.add(allocator.nextOrderNumber(DAY));
+        }
+
+        // Then
+        assertEquals("ORD-20240315-0001", numbers.get(0));
+        assertEquals("ORD-20240315-0045", numbers.get(44));
+        verify(counterRepository, times(3)).findForUpdate(DAY);
+        assertEquals(61L, counters.get(DAY).getNextValue());
+    }
+
+    @Test
+    void nextOrderNumber_NewDayStartsAfterExistingOrders() {
+        // Given
+        when(orderRepository.findOrderNumbersByPrefix(anyString()))
+            .thenReturn(Arrays.asList("ORD-20240315-0007", "ORD-20240315-0012"));
+
+        // When / Then
+        assertEquals("ORD-20240315-0013", allocator.nextOrderNumber(DAY));
+    }
+
+    @Test
+    void nextOrderNumber_RollsOverToNextDay() {
+        when(orderRepository.findOrderNumbersByPrefix(anyString())).thenReturn(Collections.emptyList());
+
+        assertEquals("ORD-20240315-0001", allocator.nextOrderNumber(DAY));
+        assertEquals("ORD-20240316-0001", allocator.nextOrderNumber(DAY.plusDays(1)));
+    }
+
+    @Test
+    void nextOrderNumber_ConcurrentCallersNeverShareNumber() throws Exception {
+        // Given
+        when(orderRepository.findOrderNumbersByPrefix(anyString())).thenReturn(Collections.emptyList());
+        int threads = 8;
+        int perThread = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // When
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<String> numbers = new ArrayList<>();
+                for (int i = 0; i < perThread; i++) {
+                    numbers.add(allocator.nextOrderNumber(DAY));
+                }
+                return numbers;
+            }));
+        }
+        start.countDown();
+
+        Set<String> all = new HashSet<>();
+        for (Future<List<String>> future : futures) {
+            all.addAll(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(threads * perThread, all.size());
+        assertTrue(all.contains("ORD-20240315-2000"));
+    }
+}
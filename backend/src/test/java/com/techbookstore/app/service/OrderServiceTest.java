@@ -0,0 +1,134 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.entity.Inventory;
+import com.techbookstore.app.entity.Order;
+import com.techbookstore.app.entity.OrderItem;
+import com.techbookstore.app.repository.BookRepository;
+import com.techbookstore.app.repository.InventoryRepository;
+import com.techbookstore.app.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private SalesAggregationService salesAggregationService;
+
+    @Mock
+    private OrderNumberAllocator orderNumberAllocator;
+
+    @Mock
+    private InventoryStockService inventoryStockService;
+
+    private OrderService orderService;
+
+    private Book bookA;
+    private Book bookB;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService(orderRepository, bookRepository, inventoryRepository,
+            salesAggregationService, orderNumberAllocator, inventoryStockService, null);
+
+        bookA = new Book("9780000000001", "Book A");
+        bookA.setId(1L);
+        bookB = new Book("9780000000002", "Book B");
+        bookB.setId(2L);
+    }
+
+    @Test
+    void confirmOrders_ShortOrderFailsAloneAndStockIsTakenInRequestOrder() {
+        // Given - 10 of A and 4 of B on hand
+        Order first = order(10L, line(bookA, 6), line(bookB, 2));
+        Order second = order(11L, line(bookA, 5));
+        Order third = order(12L, line(bookB, 2));
+        Inventory inventoryA = inventory(bookA, 10);
+        Inventory inventoryB = inventory(bookB, 4);
+
+        when(orderRepository.findWithItemsByIdIn(any())).thenReturn(Arrays.asList(third, first, second));
+        when(inventoryRepository.findByBookIdInForUpdate(any())).thenReturn(Arrays.asList(inventoryA, inventoryB));
+
+        // When
+        OrderService.BatchConfirmationResult result = orderService.confirmOrders(Arrays.asList(10L, 11L, 12L, 99L));
+
+        // Then
+        assertEquals(Arrays.asList(first, third), result.getConfirmedOrders());
+        assertEquals(2, result.getFailures().size());
+        assertEquals(11L, result.getFailures().get(0).getOrderId());
+        assertEquals("INSUFFICIENT_INVENTORY", result.getFailures().get(0).getCode());
+        assertEquals(99L, result.getFailures().get(1).getOrderId());
+        assertEquals("ORDER_NOT_FOUND", result.getFailures().get(1).getCode());
+
+        assertEquals(4, inventoryA.getStoreStock());
+        assertEquals(0, inventoryB.getStoreStock());
+        assertEquals(Order.OrderStatus.CONFIRMED, first.getStatus());
+        assertEquals(Order.OrderStatus.PENDING, second.getStatus());
+        verify(inventoryRepository, times(1)).findByBookIdInForUpdate(any());
+        verify(inventoryRepository, never()).findByBookId(any());
+        verify(salesAggregationService, times(2)).recordOrder(any(Order.class));
+    }
+
+    @Test
+    void confirmOrders_RejectsOrderThatIsNotPending() {
+        // Given
+        Order shipped = order(20L, line(bookA, 1));
+        shipped.setStatus(Order.OrderStatus.SHIPPED);
+        when(orderRepository.findWithItemsByIdIn(any())).thenReturn(Arrays.asList(shipped));
+        when(inventoryRepository.findByBookIdInForUpdate(any())).thenReturn(Arrays.asList(inventory(bookA, 5)));
+
+        // When
+        OrderService.BatchConfirmationResult result = orderService.confirmOrders(Arrays.asList(20L));
+
+        // Then
+        assertTrue(result.getConfirmedOrders().isEmpty());
+        assertEquals("INVALID_ORDER_STATUS", result.getFailures().get(0).getCode());
+        verifyNoInteractions(salesAggregationService);
+    }
+
+    private Order order(Long id, OrderItem... items) {
+        Order order = new Order(Order.OrderType.PHONE, Order.PaymentMethod.BANK_TRANSFER);
+        order.setId(id);
+        for (OrderItem item : items) {
+            item.setOrder(order);
+            order.getOrderItems().add(item);
+        }
+        return order;
+    }
+
+    private OrderItem line(Book book, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setBook(book);
+        item.setQuantity(quantity);
+        item.setUnitPrice(BigDecimal.valueOf(1000));
+        return item;
+    }
+
+    private Inventory inventory(Book book, int storeStock) {
+        Inventory inventory = new Inventory(book);
+        inventory.setStoreStock(storeStock);
+        inventory.setWarehouseStock(0);
+        inventory.setReservedCount(0);
+        return inventory;
+    }
+}
@@ -0,0 +1,119 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.config.MeteredCacheManager;
+import com.techbookstore.app.config.MetricsConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PerformanceOptimizationService
+ * MeterRegistryからの指標集計テスト
+ */
+public class PerformanceOptimizationServiceTest {
+
+    private MeterRegistry meterRegistry;
+    private PerformanceOptimizationService service;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        service = new PerformanceOptimizationService(meterRegistry);
+    }
+
+    @Test
+    public void cacheHitRate_CountsHitsAndMissesPerNamedCache() throws Exception {
+        MeteredCacheManager cacheManager = new MeteredCacheManager(
+            new ConcurrentMapCacheManager("integratedAnalysis", "dashboardData"), meterRegistry, "testCacheManager");
+        cacheManager.afterPropertiesSet();
+
+        Cache analysis = cacheManager.getCache("integratedAnalysis");
+        assertNull(analysis.get("key"));        // miss
+        analysis.put("key", "value");
+        assertNotNull(analysis.get("key"));     // hit
+        assertNotNull(analysis.get("key"));     // hit
+        assertEquals("loaded", cacheManager.getCache("dashboardData").get("other", () -> "loaded")); // miss
+
+        assertEquals(0.5, service.getCacheHitRate(), 1e-9);
+        Map<String, Map<String, Object>> statistics = service.getCacheStatistics();
+        assertEquals(2L, statistics.get("integratedAnalysis").get("hits"));
+        assertEquals(1L, statistics.get("integratedAnalysis").get("misses"));
+        assertEquals(0L, statistics.get("dashboardData").get("hits"));
+        assertEquals(2.0, meterRegistry.get("cache.puts").tag("cache", "integratedAnalysis").counter().count()
+            + meterRegistry.get("cache.puts").tag("cache", "dashboardData").counter().count(), 1e-9);
+    }
+
+    @Test
+    public void analysisTimings_AggregatePerPathAndTrackFailures() {
+        record("integrated", "none", 3, 100);
+        record("integrated", "IntegratedAnalysisException", 1, 40);
+        record("staged", "none", 3, 20);
+        record("staged", "IntegratedAnalysisException", 1, 20);
+        record("abcxyz", "none", 2, 10);
+        meterRegistry.counter(MetricsConfiguration.OPTIMIZATION_RECOMMENDATIONS).increment(12);
+
+        Map<String, Map<String, Object>> timings = service.getAnalysisTimings();
+        assertEquals(4L, timings.get("integrated").get("count"));
+        assertEquals(1L, timings.get("integrated").get("failures"));
+        assertEquals(85.0, (Double) timings.get("integrated").get("meanTimeMs"), 1e-6);
+        assertEquals(4L, timings.get("staged").get("count"));
+        assertEquals(2L, timings.get("abcxyz").get("count"));
+
+        Map<String, Object> dashboard = service.getDashboardMetrics();
+        // Synchronous and staged runs count alike
+        assertEquals(8L, dashboard.get("daily_analyses"));
+        assertEquals("75.0%", dashboard.get("analysis_success_rate"));
+        assertEquals(12L, dashboard.get("optimization_recommendations"));
+        assertNotNull(dashboard.get("timestamp"));
+    }
+
+    @Test
+    public void threadPoolUtilization_UsesExecutorGauges() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.initialize();
+        try {
+            new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "testExecutor", Tags.empty())
+                .bindTo(meterRegistry);
+
+            Map<String, Map<String, Object>> executors = service.getExecutorStatistics();
+            assertEquals(4L, executors.get("testExecutor").get("maxPoolSize"));
+            assertEquals(0L, executors.get("testExecutor").get("queued"));
+            assertEquals(0.0, service.getThreadPoolUtilization(), 1e-9);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void calculateMetrics_WithEmptyRegistry_ReturnsZerosInsteadOfPlaceholders() {
+        Map<String, Object> metrics = service.calculateMetrics();
+
+        assertEquals(0.0, metrics.get("cacheHitRate"));
+        assertEquals(0L, metrics.get("analysisCount"));
+        assertEquals(1.0, metrics.get("analysisSuccessRate"));
+        assertEquals(0.0, metrics.get("averageResponseTime"));
+    }
+
+    private void record(String path, String exception, int times, long millis) {
+        Timer timer = Timer.builder(MetricsConfiguration.ANALYSIS_TIMER)
+            .tags("path", path, "exception", exception)
+            .register(meterRegistry);
+        for (int i = 0; i < times; i++) {
+            timer.record(Duration.ofMillis(millis));
+        }
+    }
+}
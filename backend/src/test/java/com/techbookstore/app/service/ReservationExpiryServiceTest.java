@@ -0,0 +1,147 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Inventory;
+import com.techbookstore.app.entity.InventoryReservation;
+import com.techbookstore.app.repository.InventoryRepository;
+import com.techbookstore.app.repository.InventoryReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ReservationExpiryService
+ * 引当期限切れ解除のテスト
+ */
+@ExtendWith(MockitoExtension.class)
+class ReservationExpiryServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Mock
+    private InventoryReservationRepository reservationRepository;
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private SchedulerLeaseService leaseService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ReservationExpiryService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ReservationExpiryService(reservationRepository, inventoryRepository, leaseService,
+            transactionManager);
+    }
+
+    @Test
+    void sweep_ReleasesDueReservationsWithOneDecrementPerInventory() {
+        when(leaseService.tryAcquire(eq(ReservationExpiryService.LEASE_NAME), any())).thenReturn(true);
+        Inventory shelf = inventory(10L);
+        Inventory other = inventory(20L);
+        List<InventoryReservation> reservations = Arrays.asList(
+            reservation(1L, shelf, 2, NOW.minusMinutes(5)),
+            reservation(2L, shelf, 3, NOW.plusSeconds(30)),
+            reservation(3L, other, 1, NOW.plusSeconds(30)),
+            reservation(4L, other, 4, NOW.plusHours(2)));
+        when(reservationRepository.findActiveExpiryTimesAfter(0L)).thenReturn(rows(reservations));
+        when(reservationRepository.findActiveExpiryTimesAfter(4L)).thenReturn(Collections.emptyList());
+        when(reservationRepository.findExpiredByIdInForUpdate(any(), any())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            LocalDateTime at = inv.getArgument(1);
+            List<InventoryReservation> due = new ArrayList<>();
+            for (InventoryReservation reservation : reservations) {
+                if (ids.contains(reservation.getId()) && !reservation.getReservedUntil().isAfter(at)) {
+                    due.add(reservation);
+                }
+            }
+            return due;
+        });
+
+        // Startup: the overdue reservation goes on the first tick
+        assertEquals(0, service.sweep(millis(NOW)));
+        assertEquals(4, service.getScheduledCount());
+        assertEquals(1, service.sweep(millis(NOW.plusSeconds(1))));
+        verify(inventoryRepository).releaseReservedStockAtMost(10L, 2);
+
+        // Two reservations on two rows fall due together
+        assertEquals(2, service.sweep(millis(NOW.plusSeconds(31))));
+        verify(reservationRepository).markExpired(Arrays.asList(2L, 3L), NOW.plusSeconds(31));
+        verify(inventoryRepository).releaseReservedStockAtMost(10L, 3);
+        verify(inventoryRepository).releaseReservedStockAtMost(20L, 1);
+        assertEquals(1, service.getScheduledCount());
+
+        // The lease is renewed only after a third of it has run out
+        verify(leaseService, times(2)).tryAcquire(eq(ReservationExpiryService.LEASE_NAME), any());
+    }
+
+    @Test
+    void sweep_DoesNothingWithoutTheLease() {
+        when(leaseService.tryAcquire(eq(ReservationExpiryService.LEASE_NAME), any())).thenReturn(false);
+
+        assertEquals(0, service.sweep(millis(NOW)));
+
+        assertEquals(0, service.getScheduledCount());
+        verifyNoInteractions(reservationRepository, inventoryRepository);
+    }
+
+    @Test
+    void sweep_DropsTheWheelWhenTheLeaseIsLost() {
+        when(leaseService.tryAcquire(eq(ReservationExpiryService.LEASE_NAME), any())).thenReturn(true, false);
+        when(reservationRepository.findActiveExpiryTimesAfter(anyLong())).thenReturn(
+            rows(Collections.singletonList(reservation(1L, inventory(10L), 1, NOW.plusHours(1)))));
+
+        service.sweep(millis(NOW));
+        assertEquals(1, service.getScheduledCount());
+
+        assertEquals(0, service.sweep(millis(NOW.plusMinutes(1))));
+        assertEquals(0, service.getScheduledCount());
+        verify(reservationRepository, never()).findExpiredByIdInForUpdate(any(), any());
+    }
+
+    private static Inventory inventory(Long id) {
+        Inventory inventory = new Inventory();
+        inventory.setId(id);
+        return inventory;
+    }
+
+    private static InventoryReservation reservation(Long id, Inventory inventory, int quantity,
+                                                    LocalDateTime reservedUntil) {
+        InventoryReservation reservation = new InventoryReservation(inventory, quantity, "ORDER");
+        reservation.setId(id);
+        reservation.setReservedUntil(reservedUntil);
+        return reservation;
+    }
+
+    private static List<Object[]> rows(List<InventoryReservation> reservations) {
+        List<Object[]> rows = new ArrayList<>();
+        for (InventoryReservation reservation : reservations) {
+            rows.add(new Object[] {reservation.getId(), reservation.getReservedUntil()});
+        }
+        return rows;
+    }
+
+    private static long millis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,129 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.entity.DailyBookSales;
+import com.techbookstore.app.entity.DailySalesSummary;
+import com.techbookstore.app.entity.Order;
+import com.techbookstore.app.entity.OrderItem;
+import com.techbookstore.app.repository.DailyBookSalesRepository;
+import com.techbookstore.app.repository.DailySalesSummaryRepository;
+import com.techbookstore.app.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SalesAggregationService
+ * 日次売上集計のテスト
+ */
+@ExtendWith(MockitoExtension.class)
+class SalesAggregationServiceTest {
+
+    private static final LocalDate SALE_DATE = LocalDate.of(2024, 5, 20);
+
+    @Mock
+    private DailyBookSalesRepository dailyBookSalesRepository;
+
+    @Mock
+    private DailySalesSummaryRepository dailySalesSummaryRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ABCXYZClassificationTracker classificationTracker;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SalesAggregationService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SalesAggregationService(dailyBookSalesRepository, dailySalesSummaryRepository,
+            orderRepository, classificationTracker, transactionManager, jdbcTemplate);
+    }
+
+    @Test
+    void recordOrder_WhenAnotherOrderCreatedTheRowFirst_IncrementsTheExistingRow() {
+        // No row yet for the book-day; creating it loses to a concurrent first sale
+        when(dailyBookSalesRepository.increment(eq(1L), eq(SALE_DATE), eq(2), any(), eq(1), any()))
+            .thenReturn(0, 1);
+        when(dailyBookSalesRepository.saveAndFlush(any(DailyBookSales.class)))
+            .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(dailySalesSummaryRepository.increment(eq(SALE_DATE), eq(1), eq(2), any(), any())).thenReturn(1);
+
+        service.recordOrder(order(1L, 2, "3000"));
+
+        verify(dailyBookSalesRepository, times(2)).increment(eq(1L), eq(SALE_DATE), eq(2), any(), eq(1), any());
+        // The row is created empty in a transaction of its own; the sale itself stays in the caller's transaction
+        ArgumentCaptor<DailyBookSales> created = ArgumentCaptor.forClass(DailyBookSales.class);
+        verify(dailyBookSalesRepository).saveAndFlush(created.capture());
+        assertEquals(0, created.getValue().getQuantity());
+        verify(transactionManager).getTransaction(argThat((TransactionDefinition definition) ->
+            definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+        verify(dailySalesSummaryRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void rebuild_WritesEachDayOnceTheCursorMovesPastItAndClosesTheCursor() {
+        AtomicBoolean closed = new AtomicBoolean();
+        LocalDate nextDay = SALE_DATE.plusDays(1);
+        when(orderRepository.countOrdersByDay(any(), any(), any())).thenReturn(Arrays.asList(
+            new Object[] {Date.valueOf(SALE_DATE), 2L}, new Object[] {Date.valueOf(nextDay), 1L}));
+        when(orderRepository.streamDailyBookSales(any(), any(), any())).thenReturn(Stream.of(
+            new Object[] {Date.valueOf(SALE_DATE), 1L, 3L, new BigDecimal("4500"), 2L},
+            new Object[] {Date.valueOf(SALE_DATE), 2L, 4L, new BigDecimal("800"), 1L},
+            new Object[] {Date.valueOf(nextDay), 1L, 1L, new BigDecimal("1500"), 1L}).onClose(() -> closed.set(true)));
+
+        service.rebuild(SALE_DATE, nextDay);
+
+        assertTrue(closed.get());
+        InOrder inOrder = inOrder(dailySalesSummaryRepository, dailyBookSalesRepository, jdbcTemplate);
+        // The days are locked before the book rows are replaced
+        inOrder.verify(dailySalesSummaryRepository).findBySaleDateBetweenForUpdate(SALE_DATE, nextDay);
+        inOrder.verify(dailyBookSalesRepository).deleteBySaleDateBetween(SALE_DATE, nextDay);
+        inOrder.verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<Object[]> rows) -> rows.size() == 2));
+        inOrder.verify(dailySalesSummaryRepository).replaceTotals(eq(SALE_DATE), eq(2), eq(7),
+            argThat(revenue -> new BigDecimal("5300").compareTo(revenue) == 0), any());
+        inOrder.verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<Object[]> rows) -> rows.size() == 1));
+        inOrder.verify(dailySalesSummaryRepository).replaceTotals(eq(nextDay), eq(1), eq(1), any(), any());
+        verify(dailySalesSummaryRepository, never()).deleteBySaleDateIn(any());
+    }
+
+    private static Order order(Long bookId, int quantity, String totalPrice) {
+        Book book = new Book();
+        book.setId(bookId);
+        OrderItem item = new OrderItem();
+        item.setBook(book);
+        item.setQuantity(quantity);
+        item.setTotalPrice(new BigDecimal(totalPrice));
+        Order order = new Order();
+        order.setOrderDate(SALE_DATE.atTime(9, 30));
+        order.setOrderItems(Arrays.asList(item));
+        return order;
+    }
+}
@@ -0,0 +1,94 @@
+package com.techbookstore.app.service;
+
+import com.techbookstore.app.entity.Book;
+import com.techbookstore.app.repository.DailyBookSalesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for SalesSeriesService
+ * 書籍別売上時系列のテスト
+ */
+@ExtendWith(MockitoExtension.class)
+class SalesSeriesServiceTest {
+
+    @Mock
+    private DailyBookSalesRepository dailyBookSalesRepository;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    private SalesSeriesService service;
+
+    @BeforeEach
+    void setUp() {
+        Book first = new Book();
+        first.setId(1L);
+        Book second = new Book();
+        second.setId(5L);
+        when(catalogSnapshotService.current()).thenReturn(
+            CatalogSnapshotService.CatalogSnapshot.of(Arrays.asList(second, first)));
+        service = new SalesSeriesService(dailyBookSalesRepository, catalogSnapshotService);
+    }
+
+    @Test
+    void monthly_FillsOneRowPerCatalogBook() {
+        LocalDate start = LocalDate.of(2024, 1, 15);
+        LocalDate end = LocalDate.of(2024, 3, 10);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {1L, 2024, 1, 3L, new BigDecimal("3000.50")});
+        rows.add(new Object[] {1L, 2024, 3, 5L, new BigDecimal("5000.00")});
+        rows.add(new Object[] {5L, 2024, 2, 2L, new BigDecimal("1980.00")});
+        rows.add(new Object[] {9L, 2024, 2, 7L, new BigDecimal("7000.00")}); // no longer in the catalog
+        when(dailyBookSalesRepository.sumMonthlyByBookBetween(start, end)).thenReturn(rows);
+
+        SalesSeriesService.SalesSeries series = service.monthly(start, end);
+
+        assertEquals(SalesSeriesService.Granularity.MONTH, series.getGranularity());
+        assertEquals(LocalDate.of(2024, 1, 1), series.getStart());
+        assertEquals(3, series.buckets());
+        assertEquals(2, series.rows());
+        assertEquals(-1, series.rowOf(9L));
+
+        int row = series.rowOf(1L);
+        assertEquals(0, row);
+        assertEquals(3, series.quantity(row, 0));
+        assertEquals(0, series.quantity(row, 1));
+        assertEquals(5, series.quantity(row, 2));
+        assertEquals(8L, series.totalQuantity(row));
+        assertEquals(0, new BigDecimal("8000.50").compareTo(series.totalRevenue(row)));
+        assertEquals(2L, series.totalQuantity(series.rowOf(5L)));
+    }
+
+    @Test
+    void daily_BucketsByDay() {
+        LocalDate start = LocalDate.of(2024, 2, 27);
+        LocalDate end = LocalDate.of(2024, 3, 1);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {5L, LocalDate.of(2024, 2, 29), 4, new BigDecimal("400.00")});
+        rows.add(new Object[] {5L, LocalDate.of(2024, 3, 1), 1, null});
+        when(dailyBookSalesRepository.findDailyRowsBetween(start, end)).thenReturn(rows);
+
+        SalesSeriesService.SalesSeries series = service.daily(start, end);
+
+        assertEquals(4, series.buckets());
+        int row = series.rowOf(5L);
+        int[] quantities = series.quantities();
+        assertArrayEquals(new int[] {0, 0, 4, 1},
+            Arrays.copyOfRange(quantities, series.offset(row), series.offset(row) + series.buckets()));
+        assertEquals(0, new BigDecimal("400.00").compareTo(series.totalRevenue(row)));
+        assertEquals(0L, series.totalQuantity(series.rowOf(1L)));
+    }
+}
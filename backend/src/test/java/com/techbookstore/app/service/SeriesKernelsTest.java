@@ -0,0 +1,61 @@
+package com.techbookstore.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SeriesKernels
+ * 時系列集計カーネルのテスト
+ */
+class SeriesKernelsTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void aggregates_WorkOnTheGivenSliceOnly() {
+        int[] values = {99, 2, 4, 4, 4, 5, 5, 7, 9, 99};
+
+        assertEquals(40L, SeriesKernels.sum(values, 1, 8));
+        assertEquals(5.0, SeriesKernels.mean(values, 1, 8), DELTA);
+        assertEquals(4.0, SeriesKernels.variance(values, 1, 8), DELTA);
+        assertEquals(0.4, SeriesKernels.coefficientOfVariation(values, 1, 8), DELTA);
+        assertEquals(8, SeriesKernels.countPositive(values, 1, 8));
+    }
+
+    @Test
+    void aggregates_EmptyOrZeroSeriesGiveZero() {
+        int[] zeros = new int[12];
+
+        assertEquals(0.0, SeriesKernels.mean(zeros, 0, 0), DELTA);
+        assertEquals(0.0, SeriesKernels.variance(zeros, 0, 0), DELTA);
+        assertEquals(0.0, SeriesKernels.coefficientOfVariation(zeros, 0, zeros.length), DELTA);
+        assertEquals(0, SeriesKernels.countPositive(zeros, 0, zeros.length));
+    }
+
+    @Test
+    void coefficientsOfVariation_ComputesEveryRow() {
+        int[] matrix = {
+            10, 10, 10,
+            0, 0, 30,
+            0, 0, 0
+        };
+        double[] result = new double[3];
+
+        SeriesKernels.coefficientsOfVariation(matrix, 3, 3, result);
+
+        assertEquals(0.0, result[0], DELTA);
+        assertEquals(Math.sqrt(2.0), result[1], DELTA);
+        assertEquals(0.0, result[2], DELTA);
+    }
+
+    @Test
+    void movingSum_UsesTrailingWindow() {
+        int[] values = {1, 2, 3, 4, 5};
+        long[] result = new long[5];
+
+        SeriesKernels.movingSum(values, 0, values.length, 3, result);
+
+        assertArrayEquals(new long[] {1, 3, 6, 9, 12}, result);
+    }
+}
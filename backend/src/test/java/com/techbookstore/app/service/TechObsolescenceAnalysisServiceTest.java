@@ -2,7 +2,6 @@ package com.techbookstore.app.service;
 
 import com.techbookstore.app.entity.Book;
 import com.techbookstore.app.entity.ObsolescenceAssessment;
-import com.techbookstore.app.repository.BookRepository;
 import com.techbookstore.app.repository.ObsolescenceAssessmentRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -18,7 +17,8 @@ import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class TechObsolescenceAnalysisServiceTest {
@@ -27,14 +27,17 @@ class TechObsolescenceAnalysisServiceTest {
     private ObsolescenceAssessmentRepository obsolescenceRepository;
 
     @Mock
-    private BookRepository bookRepository;
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Mock
+    private AnalysisResultWriter analysisResultWriter;
 
     private TechObsolescenceAnalysisService obsolescenceService;
 
     @BeforeEach
     void setUp() {
         obsolescenceService = new TechObsolescenceAnalysisService(
-            obsolescenceRepository, bookRepository
+            obsolescenceRepository, catalogSnapshotService, analysisResultWriter
         );
     }
 
@@ -55,20 +58,9 @@ class TechObsolescenceAnalysisServiceTest {
         
         List<Book> books = Arrays.asList(book1, book2);
         
-        ObsolescenceAssessment assessment1 = new ObsolescenceAssessment();
-        assessment1.setId(1L);
-        assessment1.setBook(book1);
-        assessment1.setRiskLevel("LOW");
-        
-        ObsolescenceAssessment assessment2 = new ObsolescenceAssessment();
-        assessment2.setId(2L);
-        assessment2.setBook(book2);
-        assessment2.setRiskLevel("HIGH");
-        
-        when(bookRepository.findAll()).thenReturn(books);
-        when(obsolescenceRepository.save(any(ObsolescenceAssessment.class)))
-            .thenReturn(assessment1)
-            .thenReturn(assessment2);
+        when(catalogSnapshotService.current()).thenReturn(CatalogSnapshotService.CatalogSnapshot.of(books));
+        when(analysisResultWriter.replaceAll(any(Runnable.class), anyList()))
+            .thenAnswer(invocation -> invocation.getArgument(1));
         
         // When
         List<ObsolescenceAssessment> results = obsolescenceService.performObsolescenceAnalysis(assessmentDate);
@@ -76,6 +68,7 @@ class TechObsolescenceAnalysisServiceTest {
         // Then
         assertNotNull(results);
         assertEquals(2, results.size());
+        verify(analysisResultWriter, times(1)).replaceAll(any(Runnable.class), anyList());
     }
 
     @Test
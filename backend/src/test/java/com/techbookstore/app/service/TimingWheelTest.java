@@ -0,0 +1,76 @@
+package com.techbookstore.app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TimingWheel
+ * タイミングホイールのテスト
+ */
+class TimingWheelTest {
+
+    @Test
+    void advanceTo_FiresEachIdOnceAtItsDeadlineAcrossLevels() {
+        Random random = new Random(7L);
+        long start = 1_700_000_000_000L;
+        // 4 slots per level, so deadlines a few minutes out already sit several levels up
+        TimingWheel wheel = new TimingWheel(1000, 2, start);
+        Map<Long, Long> deadlines = new HashMap<>();
+        for (long id = 1; id <= 2000; id++) {
+            long deadline = start + random.nextInt(3_600_000);
+            wheel.schedule(id, deadline);
+            deadlines.put(id, deadline);
+        }
+        // Cancel some and move some
+        for (long id = 1; id <= 2000; id += 7) {
+            assertTrue(wheel.cancel(id));
+            deadlines.remove(id);
+        }
+        for (long id = 2; id <= 2000; id += 11) {
+            if (deadlines.containsKey(id)) {
+                long deadline = start + random.nextInt(3_600_000);
+                wheel.schedule(id, deadline);
+                deadlines.put(id, deadline);
+            }
+        }
+        assertEquals(deadlines.size(), wheel.size());
+
+        long now = start;
+        List<Long> fired = new ArrayList<>();
+        while (now < start + 3_700_000L) {
+            now += 1 + random.nextInt(90_000);
+            for (Long id : wheel.advanceTo(now)) {
+                long deadline = deadlines.get(id);
+                assertTrue(deadline <= now, "fired early: " + id);
+                // Due at the tick boundary at or after the deadline, so never more than a step late
+                assertTrue(Math.floorDiv(deadline + 999, 1000) * 1000 > now - 91_000, "fired late: " + id);
+                fired.add(id);
+            }
+        }
+        assertEquals(deadlines.size(), fired.size());
+        assertEquals(deadlines.keySet(), new HashSet<>(fired));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_PastDeadlineFiresOnNextTick() {
+        TimingWheel wheel = new TimingWheel(1000, 6, 10_000);
+        wheel.schedule(1L, 5_000);
+        wheel.schedule(2L, 11_500);
+
+        assertTrue(wheel.advanceTo(10_999).isEmpty());
+        assertEquals(Collections.singletonList(1L), wheel.advanceTo(11_000));
+        assertTrue(wheel.advanceTo(11_999).isEmpty());
+        assertEquals(Collections.singletonList(2L), wheel.advanceTo(12_000));
+        assertFalse(wheel.cancel(2L));
+    }
+}